@@ -22,8 +22,11 @@
 
 package org.mintjams.jcr;
 
+import java.io.InputStream;
 import java.util.Calendar;
+import java.util.Collection;
 
+import javax.jcr.Binary;
 import javax.jcr.ItemExistsException;
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
@@ -135,6 +138,44 @@ public interface ImportContentHandler extends AutoCloseable {
 	 */
 	void checkInOverwritten() throws RepositoryException;
 
+	/**
+	 * Store the stream in the workspace's blob store right away and return a
+	 * binary referring to it, to be set as a property value of this import.
+	 * Unlike {@link javax.jcr.ValueFactory#createBinary(InputStream)}, which
+	 * spools the stream to a temporary file and copies it into the blob store
+	 * when the property is set, the content is written once. Unlike the rest of
+	 * the handler this method may be called from other threads than the one
+	 * driving the import, so an importer can write binaries in parallel. A
+	 * binary that is never set on a property is left to the blob garbage
+	 * collection.
+	 */
+	Binary createBinary(InputStream in) throws RepositoryException;
+
+	/**
+	 * Set how many journal rows this import buffers and writes as one JDBC
+	 * batch. {@code 0} (the default) writes each row as it is produced. The
+	 * buffer is written before the session reads its own pending changes and
+	 * before every {@code save()}, so the batching is not observable.
+	 */
+	void setWriteBatchSize(int batchSize);
+
+	/**
+	 * When {@code true}, the transactions this session saves while the handler
+	 * is open are not indexed item by item: their events are delivered as
+	 * usual, but the search index of the written content is left for a single
+	 * {@link #rebuildSearchIndex(Collection)} once the import is done. Meant for
+	 * bulk imports that save in several chunks.
+	 */
+	void setSearchIndexDeferred(boolean searchIndexDeferred);
+
+	/**
+	 * Queue one rebuild of the search index for the subtrees at
+	 * {@code absPaths}, typically the topmost nodes the import wrote. It runs
+	 * in the background after every transaction already saved has been
+	 * processed; paths that no longer exist are ignored.
+	 */
+	void rebuildSearchIndex(Collection<String> absPaths) throws RepositoryException;
+
 	/** The identifier-conflict behaviour this handler was created with. */
 	int getUuidBehavior();
 
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.jcr;
+
+import java.util.Set;
+
+/**
+ * Records the paths of the nodes a session reads, so that something computed
+ * from them (a rendered page, for example) can be dropped when one of them
+ * changes. Obtained by adapting a session.
+ *
+ * <p>Paths that were looked up but did not exist are recorded as well: a node
+ * added there later changes the result just as much as an edit would.
+ */
+public interface ReadTracker {
+
+	/**
+	 * Starts a recording. Every node the session reads from now on is added
+	 * to it until it is closed. Recordings may overlap.
+	 */
+	Recording startRecording();
+
+	interface Recording extends AutoCloseable {
+
+		/**
+		 * Returns the absolute paths recorded so far.
+		 */
+		Set<String> getPaths();
+
+		@Override
+		void close();
+
+	}
+
+}
@@ -82,6 +82,42 @@ public interface ClusterCoordinator {
 	 */
 	void publish(String topic, Map<String, Object> properties);
 
+	/**
+	 * Returns how long changes made on the other nodes took to reach this
+	 * node, keyed by channel: {@code "signals"} for the signal bus and
+	 * {@code "journal"} for the replay of committed transactions. Each figure
+	 * runs from the commit on the origin node to the delivery here, so it
+	 * includes any clock skew between the nodes. Returns an empty map in
+	 * standalone deployments.
+	 */
+	Map<String, DeliveryLatency> getDeliveryLatencies();
+
+	/**
+	 * Delivery latency figures of one channel since this node joined.
+	 */
+	interface DeliveryLatency {
+
+		/**
+		 * Returns the number of deliveries measured.
+		 */
+		long getCount();
+
+		/**
+		 * Returns the latency of the most recent delivery, in milliseconds.
+		 */
+		long getLastMillis();
+
+		/**
+		 * Returns the mean latency, in milliseconds.
+		 */
+		long getAverageMillis();
+
+		/**
+		 * Returns the highest latency, in milliseconds.
+		 */
+		long getMaxMillis();
+	}
+
 	/**
 	 * A node registered for the workspace.
 	 */
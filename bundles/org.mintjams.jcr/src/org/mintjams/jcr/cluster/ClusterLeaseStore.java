@@ -50,6 +50,14 @@ public interface ClusterLeaseStore {
 	 */
 	Lease lock(String name, long ttlMillis) throws IOException;
 
+	/**
+	 * Acquires the named lease like {@link #lock(String, long)}. With
+	 * {@code fair} set, the waiters are served in the order they started
+	 * waiting, ahead of callers that do not queue, so no node can be
+	 * starved on a lease that many nodes wait for at once.
+	 */
+	Lease lock(String name, long ttlMillis, boolean fair) throws IOException;
+
 	/**
 	 * Acquires the named lease if it is free (or its previous lease has
 	 * expired) and returns it, or returns {@code null} without waiting.
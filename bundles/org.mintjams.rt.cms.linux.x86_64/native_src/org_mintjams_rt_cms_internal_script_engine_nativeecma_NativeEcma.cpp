@@ -3,12 +3,14 @@
 #include <condition_variable>
 #include <cstdint>
 #include <deque>
+#include <list>
 #include <future>
 #include <memory>
 #include <mutex>
 #include <thread>
 #include <vector>
 #include <optional>
+#include <string>
 #include <unordered_map>
 #include <chrono>
 #include <cstdio>
@@ -28,36 +30,270 @@ namespace
 		// 例外時: error にメッセージ
 		std::optional<std::string> utf8;
 		std::optional<std::string> error;
+		// TerminateExecution で打ち切られた（時間切れ）
+		bool terminated{false};
 	};
 
 	struct Job
 	{
+		// グローバルプロパティとして設定するバインディング（JSON オブジェクト）。
+		// ソースとは別に渡すため、値が変わってもスクリプトは再コンパイルされない。
+		std::optional<std::u16string> bindings;
 		std::vector<std::u16string> sources;
+		// スクリプト名（空なら無名）と最終更新日時。コードキャッシュのキーと
+		// 無効化に使う。
+		std::string name;
+		int64_t last_modified{0};
 		std::promise<EvalResult> result;
+		// kQueued -> kRunning（Worker が取り出した）または kCancelled（待ち行列で
+		// 時間切れになり、呼び出し側が諦めた）。
+		std::atomic<int> state{kQueued};
+		// Worker が取り出した時刻（steady_clock、ナノ秒）。0 = まだ待ち行列にいる。
+		// 制限時間はここから数えるため、待ち行列にいた時間は含まれない。
+		std::atomic<int64_t> started_at{0};
+
+		static constexpr int kQueued = 0;
+		static constexpr int kRunning = 1;
+		static constexpr int kCancelled = 2;
 	};
 
-	class Worker
+	// ============================================================================
+	// CodeCache（プール単位・バイト数上限付き LRU）
+	//
+	// V8 のコードキャッシュは Isolate に依存しないため、プール内の全 Worker で
+	// 共有する。以前は Worker ごとに上限なしのマップを持っており、同じスクリプトの
+	// キャッシュを Isolate 数だけ保持したうえ、プロセスが動く限り増え続けていた。
+	// エントリはスクリプト名（＋ソース番号）で引き、ソースのハッシュか最終更新日時が
+	// 変わっていれば無効化する。データは shared_ptr で渡すため、コンパイル中に
+	// 追い出されても解放されない。
+	// ============================================================================
+	class CodeCache
 	{
 	public:
-		Worker() : alloc_(v8::ArrayBuffer::Allocator::NewDefaultAllocator())
+		using Data = std::shared_ptr<const std::vector<uint8_t>>;
+
+		explicit CodeCache(size_t budget) : budget_(budget) {}
+
+		Data get(const std::string &key, uint64_t hash, int64_t lastModified)
 		{
-			v8::Isolate::CreateParams p;
-			p.array_buffer_allocator = alloc_.get();
-			isolate_ = v8::Isolate::New(p);
+			std::lock_guard<std::mutex> lk(mu_);
+			auto it = entries_.find(key);
+			if (it == entries_.end())
+			{
+				++misses_;
+				return nullptr;
+			}
+			if (it->second.hash != hash || it->second.last_modified != lastModified)
+			{
+				++misses_;
+				++invalidations_;
+				remove(it);
+				return nullptr;
+			}
+			lru_.splice(lru_.begin(), lru_, it->second.lru);
+			++hits_;
+			return it->second.data;
+		}
+
+		void put(const std::string &key, uint64_t hash, int64_t lastModified, const uint8_t *data, size_t length)
+		{
+			if (length > budget_)
+				return;
+
+			std::lock_guard<std::mutex> lk(mu_);
+			auto it = entries_.find(key);
+			if (it != entries_.end())
+				remove(it);
 
+			lru_.push_front(key);
+			Entry e;
+			e.hash = hash;
+			e.last_modified = lastModified;
+			e.data = std::make_shared<std::vector<uint8_t>>(data, data + length);
+			e.lru = lru_.begin();
+			entries_.emplace(key, std::move(e));
+			bytes_ += length;
+
+			while (bytes_ > budget_ && !lru_.empty())
 			{
-				v8::Locker locker(isolate_);
-				v8::Isolate::Scope iso_scope(isolate_);
-				v8::HandleScope hs(isolate_);
+				auto victim = entries_.find(lru_.back());
+				++evictions_;
+				evicted_bytes_ += victim->second.data->size();
+				remove(victim);
+			}
+		}
 
-				v8::Local<v8::ObjectTemplate> g = v8::ObjectTemplate::New(isolate_);
+		// hits, misses, evictions, evictedBytes, invalidations, entries, bytes, budget
+		std::vector<int64_t> statistics()
+		{
+			std::lock_guard<std::mutex> lk(mu_);
+			return {(int64_t)hits_, (int64_t)misses_, (int64_t)evictions_, (int64_t)evicted_bytes_,
+					(int64_t)invalidations_, (int64_t)entries_.size(), (int64_t)bytes_, (int64_t)budget_};
+		}
 
-				// 例）ホスト関数を生やしたい場合（任意）
-				// g->Set(v8::String::NewFromUtf8(isolate_, "print").ToLocalChecked(),
-				//        v8::FunctionTemplate::New(isolate_, &Worker::Print));
+	private:
+		struct Entry
+		{
+			uint64_t hash{0};
+			int64_t last_modified{0};
+			Data data;
+			std::list<std::string>::iterator lru;
+		};
+
+		void remove(std::unordered_map<std::string, Entry>::iterator it)
+		{
+			bytes_ -= it->second.data->size();
+			lru_.erase(it->second.lru);
+			entries_.erase(it);
+		}
+
+		std::mutex mu_;
+		const size_t budget_;
+		size_t bytes_{0};
+		std::unordered_map<std::string, Entry> entries_;
+		std::list<std::string> lru_;
+		uint64_t hits_{0};
+		uint64_t misses_{0};
+		uint64_t evictions_{0};
+		uint64_t evicted_bytes_{0};
+		uint64_t invalidations_{0};
+	};
+
+	// ============================================================================
+	// Snapshot（ウォームアップ済みのスタートアップスナップショット）
+	//
+	// ワークスペースのウォームアップスクリプト（共通ライブラリなど）を実行した
+	// ヒープを V8 のスタートアップスナップショットとして保存する。Isolate を
+	// このスナップショットから作ると、各ジョブの Context::New がライブラリを
+	// 初期化済みの状態で始まるため、リクエストごとに評価し直さずに済む。
+	// コンテキストは従来どおりジョブごとに新しく作るので、ジョブ間で状態は漏れない
+	// （同じコンテキストを使い回すと、トップレベルの let/const が再実行時に
+	// 再宣言エラーになる）。
+	// ============================================================================
+	struct Snapshot
+	{
+		std::string name;
+		v8::StartupData blob{nullptr, 0};
+
+		~Snapshot() { delete[] blob.data; }
+	};
+
+	// ウォームアップスクリプトを専用の Isolate で実行してスナップショットを作る。
+	// 失敗したときは nullptr を返し、error に理由を設定する。
+	std::shared_ptr<const Snapshot> createSnapshot(const std::string &name, const std::u16string &source,
+												   size_t heapLimit, int64_t timeoutMillis, std::string &error)
+	{
+		std::unique_ptr<v8::ArrayBuffer::Allocator> alloc(v8::ArrayBuffer::Allocator::NewDefaultAllocator());
+		v8::Isolate::CreateParams p;
+		p.array_buffer_allocator = alloc.get();
+		if (heapLimit > 0)
+			p.constraints.ConfigureDefaultsFromHeapSize(0, heapLimit);
+
+		auto snapshot = std::make_shared<Snapshot>();
+		snapshot->name = name;
+		{
+			v8::SnapshotCreator creator(p);
+			v8::Isolate *isolate = creator.GetIsolate();
+
+			// ウォームアップが終わらなければ打ち切る
+			std::mutex mu;
+			std::condition_variable cv;
+			bool done = false;
+			std::atomic<bool> timedOut{false};
+			std::thread watchdog;
+			if (timeoutMillis > 0)
+			{
+				watchdog = std::thread([&]
+									   {
+					std::unique_lock<std::mutex> lk(mu);
+					if (!cv.wait_for(lk, std::chrono::milliseconds(timeoutMillis), [&] { return done; }))
+					{
+						timedOut = true;
+						isolate->TerminateExecution();
+					} });
+			}
+
+			bool ok = false;
+			{
+				v8::Locker locker(isolate);
+				v8::Isolate::Scope iso_scope(isolate);
+				v8::HandleScope hs(isolate);
+				v8::Local<v8::Context> ctx = v8::Context::New(isolate);
+				{
+					v8::Context::Scope cs(ctx);
+					v8::TryCatch tc(isolate);
+
+					v8::Local<v8::String> src =
+						v8::String::NewFromTwoByte(isolate,
+												   reinterpret_cast<const uint16_t *>(source.data()),
+												   v8::NewStringType::kNormal,
+												   static_cast<int>(source.size()))
+							.ToLocalChecked();
+					v8::Local<v8::String> resName =
+						v8::String::NewFromUtf8(isolate, name.c_str()).ToLocalChecked();
+					v8::ScriptOrigin origin(resName);
+					v8::ScriptCompiler::Source scriptSource(src, origin);
+
+					v8::Local<v8::UnboundScript> unbound;
+					v8::Local<v8::Value> last;
+					ok = v8::ScriptCompiler::CompileUnboundScript(isolate, &scriptSource, v8::ScriptCompiler::kEagerCompile)
+							 .ToLocal(&unbound) &&
+						 unbound->BindToCurrentContext()->Run(ctx).ToLocal(&last);
+					if (ok)
+						isolate->PerformMicrotaskCheckpoint();
+
+					if (timedOut || tc.HasTerminated())
+					{
+						ok = false;
+						error = "Warm-up script " + name + " timed out after " + std::to_string(timeoutMillis) + " ms";
+					}
+					else if (tc.HasCaught())
+					{
+						ok = false;
+						v8::String::Utf8Value exc(isolate, tc.Exception());
+						error = "Warm-up script " + name + " failed: " + (*exc ? *exc : "JavaScript exception");
+						v8::Local<v8::Message> msg = tc.Message();
+						if (!msg.IsEmpty())
+							error += " (line " + std::to_string(msg->GetLineNumber(ctx).FromMaybe(0)) + ")";
+					}
+					else if (!ok)
+					{
+						error = "Warm-up script " + name + " failed (compile/run)";
+					}
+				}
+				if (ok)
+					creator.SetDefaultContext(ctx);
+			}
 
-				global_tpl_.Reset(isolate_, g);
+			{
+				std::lock_guard<std::mutex> lk(mu);
+				done = true;
 			}
+			cv.notify_all();
+			if (watchdog.joinable())
+				watchdog.join();
+
+			if (!ok)
+				return nullptr;
+
+			snapshot->blob = creator.CreateBlob(v8::SnapshotCreator::FunctionCodeHandling::kKeep);
+		}
+
+		if (!snapshot->blob.data || snapshot->blob.raw_size <= 0)
+		{
+			error = "Could not create a snapshot from warm-up script " + name;
+			return nullptr;
+		}
+		return snapshot;
+	}
+
+	class Worker
+	{
+	public:
+		Worker(std::shared_ptr<CodeCache> codeCache, size_t heapLimit)
+			: code_cache_(std::move(codeCache)), heap_limit_(heapLimit)
+		{
+			createIsolate();
 
 			th_ = std::thread([this]
 							  { run(); });
@@ -66,6 +302,7 @@ namespace
 
 		void post(std::shared_ptr<Job> job)
 		{
+			++load_;
 			{
 				std::lock_guard<std::mutex> lk(mu_);
 				q_.push_back(std::move(job));
@@ -73,6 +310,32 @@ namespace
 			cv_.notify_one();
 		}
 
+		// 待ち行列のジョブ数＋実行中のジョブ数
+		size_t load() const { return load_.load(); }
+
+		// 以降のジョブを snapshot（nullptr なら V8 の既定）から作った Isolate で
+		// 実行する。実行中のジョブが終わってから Isolate を作り直す。
+		void setSnapshot(std::shared_ptr<const Snapshot> snapshot)
+		{
+			{
+				std::lock_guard<std::mutex> lk(mu_);
+				next_snapshot_ = std::move(snapshot);
+			}
+			cv_.notify_one();
+		}
+
+		// job を実行中であれば TerminateExecution で打ち切る（ウォッチドッグ）。
+		// 既に次のジョブに移っていれば何もしない。
+		bool terminate(const std::shared_ptr<Job> &job)
+		{
+			std::lock_guard<std::mutex> lk(run_mu_);
+			if (current_ != job)
+				return false;
+			terminated_ = true;
+			isolate_->TerminateExecution();
+			return true;
+		}
+
 		void stop()
 		{
 			if (stopping_.exchange(true))
@@ -82,23 +345,117 @@ namespace
 			if (th_.joinable())
 				th_.join();
 
+			// 実行されずに残ったジョブの呼び出し側を待たせたままにしない
+			std::deque<std::shared_ptr<Job>> rest;
+			{
+				std::lock_guard<std::mutex> lk(mu_);
+				rest.swap(q_);
+			}
+			for (auto &job : rest)
+			{
+				int expected = Job::kQueued;
+				if (job->state.compare_exchange_strong(expected, Job::kRunning))
+				{
+					EvalResult er;
+					er.error = "Native ECMA isolate pool has been closed.";
+					job->result.set_value(std::move(er));
+				}
+			}
+
+			disposeIsolate();
+		}
+
+	private:
+		// Isolate を作る。heap_limit_ が指定されていればヒープの上限を設け、
+		// 上限に近づいたら実行を打ち切って Isolate を作り直す。
+		// ウォームアップのスナップショットがあれば、そこから作る。
+		void createIsolate()
+		{
+			{
+				std::lock_guard<std::mutex> lk(mu_);
+				snapshot_ = next_snapshot_;
+			}
+			alloc_.reset(v8::ArrayBuffer::Allocator::NewDefaultAllocator());
+			v8::Isolate::CreateParams p;
+			p.array_buffer_allocator = alloc_.get();
+			if (snapshot_)
+				p.snapshot_blob = &snapshot_->blob;
+			if (heap_limit_ > 0)
+				p.constraints.ConfigureDefaultsFromHeapSize(0, heap_limit_);
+			v8::Isolate *isolate = v8::Isolate::New(p);
+			heap_exceeded_ = false;
+			if (heap_limit_ > 0)
+				isolate->AddNearHeapLimitCallback(&Worker::NearHeapLimit, this);
+
+			{
+				v8::Locker locker(isolate);
+				v8::Isolate::Scope iso_scope(isolate);
+				v8::HandleScope hs(isolate);
+
+				v8::Local<v8::ObjectTemplate> g = v8::ObjectTemplate::New(isolate);
+
+				// 例）ホスト関数を生やしたい場合（任意）
+				// g->Set(v8::String::NewFromUtf8(isolate, "print").ToLocalChecked(),
+				//        v8::FunctionTemplate::New(isolate, &Worker::Print));
+
+				global_tpl_.Reset(isolate, g);
+			}
+
+			std::lock_guard<std::mutex> lk(run_mu_);
+			isolate_ = isolate;
+		}
+
+		void disposeIsolate()
+		{
 			if (!global_tpl_.IsEmpty())
 				global_tpl_.Reset();
 
-			code_cache_.clear();
-
 			// Isolate（ワークスペース単位の実行資源）のみを破棄する。
 			// V8 プラットフォーム自体はプロセスグローバルなので、ここでは触れない。
-			if (isolate_)
+			v8::Isolate *isolate;
 			{
-				isolate_->Dispose();
+				std::lock_guard<std::mutex> lk(run_mu_);
+				isolate = isolate_;
 				isolate_ = nullptr;
 			}
+			if (isolate)
+				isolate->Dispose();
 			alloc_.reset();
+			// Isolate の破棄後に解放する（Isolate は blob を参照し続ける）
+			snapshot_.reset();
+		}
+
+		// ヒープ上限に近づいたら実行を打ち切り、巻き戻しに必要な分だけ上限を広げる。
+		// 打ち切られたジョブの後、この Isolate は作り直される。
+		static size_t NearHeapLimit(void *data, size_t current_heap_limit, size_t initial_heap_limit)
+		{
+			Worker *self = static_cast<Worker *>(data);
+			self->heap_exceeded_ = true;
+			self->isolate_->TerminateExecution();
+			return current_heap_limit + 32 * 1024 * 1024;
 		}
 
-	private:
 		void run()
+		{
+			while (!stopping_)
+			{
+				serve();
+				if (stopping_)
+					break;
+
+				// ヒープ上限に達した Isolate は状態が保証できないため作り直す。
+				// ウォームアップのスナップショットが差し替えられたときも作り直す。
+				// 作り直しは打ち切られたジョブのエラーメッセージで Java 側に伝わる。
+				// if (heap_exceeded_)
+				// 	std::fprintf(stderr, "[NativeEcma] Recycling an isolate that exceeded the heap limit\n");
+				disposeIsolate();
+				createIsolate();
+			}
+		}
+
+		// Isolate をロックしてジョブを処理する。停止要求か、Isolate の作り直しが
+		// 必要になったとき（ヒープ上限、スナップショットの差し替え）に戻る。
+		void serve()
 		{
 			v8::Locker locker(isolate_);
 			v8::Isolate::Scope iso_scope(isolate_);
@@ -110,172 +467,263 @@ namespace
 				{
 					std::unique_lock<std::mutex> lk(mu_);
 					cv_.wait(lk, [&]
-							 { return stopping_ || !q_.empty(); });
+							 { return stopping_ || !q_.empty() || next_snapshot_ != snapshot_; });
 					if (stopping_)
 						break;
+					if (next_snapshot_ != snapshot_)
+						return;
 					job = std::move(q_.front());
 					q_.pop_front();
 				}
 
+				// 開始時刻は状態より先に記録する。呼び出し側は開始時刻が 0 のときだけ
+				// ジョブを取り消すので、開始したジョブが時間切れ扱いで失われない。
+				job->started_at.store(std::chrono::duration_cast<std::chrono::nanoseconds>(
+										  std::chrono::steady_clock::now().time_since_epoch())
+										  .count());
+				int expected = Job::kQueued;
+				if (!job->state.compare_exchange_strong(expected, Job::kRunning))
+				{
+					// 待ち行列にいる間に呼び出し側が時間切れで諦めた
+					--load_;
+					continue;
+				}
+
 				auto jobStart = std::chrono::steady_clock::now();
 				// std::fprintf(stderr, "[Worker] Job start\n");
 
-				EvalResult er;
 				{
-					v8::HandleScope hs(isolate_);
+					std::lock_guard<std::mutex> lk(run_mu_);
+					current_ = job;
+				}
 
-					v8::Local<v8::ObjectTemplate> g = global_tpl_.Get(isolate_);
-					v8::Local<v8::Context> ctx = v8::Context::New(isolate_, nullptr, g);
-					v8::Context::Scope cs(ctx);
+				EvalResult er = execute(*job);
 
-					v8::TryCatch tc(isolate_);
-					tc.SetCaptureMessage(true);
+				{
+					std::lock_guard<std::mutex> lk(run_mu_);
+					current_.reset();
+				}
+				// 実行終了と TerminateExecution が競合しても、次のジョブに持ち越さない
+				if (terminated_.exchange(false))
+					isolate_->CancelTerminateExecution();
 
-					v8::Local<v8::Value> last;
-					bool ok = true;
+				job->result.set_value(std::move(er));
+				--load_;
+				auto jobEnd = std::chrono::steady_clock::now();
+				// std::fprintf(stderr, "[Worker] Job end (%lld ms)\n", (long long)std::chrono::duration_cast<std::chrono::milliseconds>(jobEnd - jobStart).count());
 
-					int idx = 0;
-					for (auto &s16 : job->sources)
-					{
-						v8::HandleScope hs2(isolate_);
-						// Source
-						v8::Local<v8::String> src =
-							v8::String::NewFromTwoByte(isolate_,
-													   reinterpret_cast<const uint16_t *>(s16.data()),
-													   v8::NewStringType::kNormal,
-													   static_cast<int>(s16.size()))
-								.ToLocalChecked();
-
-						// Resource name
-						std::string name = std::string("<eval:") + std::to_string(idx) + ">";
-						v8::Local<v8::String> resName =
-							v8::String::NewFromUtf8(isolate_, name.c_str()).ToLocalChecked();
-						v8::ScriptOrigin origin(resName);
-
-						// ★ キャッシュ検索
-						uint64_t key = fnv1a64_utf8(s16);
-						std::unique_ptr<v8::ScriptCompiler::CachedData> cached;
-						auto it = code_cache_.find(key);
-						// std::fprintf(stderr, "[Worker] Cache %s\n", (it != code_cache_.end()) ? "hit" : "miss");
-						if (it != code_cache_.end())
-						{
-							// V8に所有権を渡すので、newでコピーを作る
-							const auto &blob = it->second;
-							auto *cd = new v8::ScriptCompiler::CachedData(
-								blob.data(),
-								static_cast<int>(blob.size()),
-								v8::ScriptCompiler::CachedData::BufferPolicy::BufferNotOwned);
-							cached.reset(cd);
-						}
-
-						// Source 作成（cached があればそれ付き）
-						v8::ScriptCompiler::Source source(src, origin, cached.release());
-
-						// Unbound でコンパイル（キャッシュ消費 or 通常）
-						v8::Local<v8::UnboundScript> unbound;
-						v8::ScriptCompiler::CompileOptions opt =
-							(it != code_cache_.end())
-								? v8::ScriptCompiler::kConsumeCodeCache
-								: v8::ScriptCompiler::kEagerCompile;
-
-						auto compileStart = std::chrono::steady_clock::now();
-						// std::fprintf(stderr, "[Worker] Compile start\n");
-						bool compiled = v8::ScriptCompiler::CompileUnboundScript(isolate_, &source, opt)
-											.ToLocal(&unbound);
-						auto compileEnd = std::chrono::steady_clock::now();
-						// std::fprintf(stderr, "[Worker] Compile end (%lld ms)\n", (long long)std::chrono::duration_cast<std::chrono::milliseconds>(compileEnd - compileStart).count());
-						if (!compiled)
-						{
-							ok = false;
-							break;
-						}
-
-						// ★ キャッシュが無かったときは作って保存
-						if (it == code_cache_.end())
-						{
-							if (const v8::ScriptCompiler::CachedData *cd = v8::ScriptCompiler::CreateCodeCache(unbound))
-							{
-								code_cache_[key].assign(cd->data, cd->data + cd->length);
-							}
-						}
-						else
-						{
-							// もし食わせたキャッシュが古くて拒否されたら（V8バージョン違い等）
-							// source.GetCachedData()->rejected を見るAPIがある版もあります。
-							// その場合は拒否時に新規作成して差し替える処理を入れてOK。
-						}
-
-						// 実行
-						v8::Local<v8::Script> script = unbound->BindToCurrentContext();
-						auto execStart = std::chrono::steady_clock::now();
-						// std::fprintf(stderr, "[Worker] Execute start\n");
-						bool ran = script->Run(ctx).ToLocal(&last);
-						auto execEnd = std::chrono::steady_clock::now();
-						// std::fprintf(stderr, "[Worker] Execute end (%lld ms)\n", (long long)std::chrono::duration_cast<std::chrono::milliseconds>(execEnd - execStart).count());
-						if (!ran)
-						{
-							ok = false;
-							break;
-						}
-						++idx;
-					}
+				if (heap_exceeded_)
+					return;
+			}
+		}
 
-					isolate_->PerformMicrotaskCheckpoint();
+		EvalResult execute(Job &job)
+		{
+			EvalResult er;
+			v8::HandleScope hs(isolate_);
 
-					if (tc.HasCaught())
-					{
-						std::string out = "JavaScript exception";
-						// 例外メッセージ本体
-						if (!tc.Exception().IsEmpty())
-						{
-							v8::String::Utf8Value exc(isolate_, tc.Exception());
-							if (*exc)
-								out = *exc;
-						}
-						// 位置情報（あれば）
-						v8::Local<v8::Message> msg = tc.Message();
-						if (!msg.IsEmpty())
-						{
-							v8::String::Utf8Value fname(isolate_, msg->GetScriptOrigin().ResourceName());
-							int line = msg->GetLineNumber(ctx).FromMaybe(0);
-							int col = msg->GetStartColumn(ctx).FromMaybe(0) + 1;
-							std::string fn = (*fname && std::string(*fname).size()) ? *fname : "<unknown>";
-							out = fn + ":" + std::to_string(line) + ":" + std::to_string(col) + ": " + out;
-						}
-						// ★スタックトレースは「本当に例外がある時だけ」& おとなしく
-						v8::Local<v8::Value> st;
-						if (tc.StackTrace(ctx).ToLocal(&st) && st->IsString())
-						{
-							v8::String::Utf8Value st_utf8(isolate_, st.As<v8::String>());
-							if (*st_utf8)
-							{
-								std::string s = *st_utf8;
-								if (s.size() > 8192)
-									s.resize(8192); // 無限再帰対策で上限
-								out += "\n" + s;
-							}
-						}
-						er.error = out;
-					}
-					else if (!ok)
+			// スナップショットがあれば、その既定コンテキスト（ウォームアップ済み）を
+			// 複製する。スナップショットのグローバルはウォームアップ時に確定している
+			// ため、グローバルテンプレートは渡さない。
+			v8::Local<v8::Context> ctx = snapshot_
+											 ? v8::Context::New(isolate_)
+											 : v8::Context::New(isolate_, nullptr, global_tpl_.Get(isolate_));
+			v8::Context::Scope cs(ctx);
+
+			v8::TryCatch tc(isolate_);
+			tc.SetCaptureMessage(true);
+
+			v8::Local<v8::Value> last;
+			bool ok = installBindings(ctx, job.bindings);
+
+			int idx = 0;
+			for (auto &s16 : job.sources)
+			{
+				if (!ok)
+					break;
+
+				v8::HandleScope hs2(isolate_);
+				// Source
+				v8::Local<v8::String> src =
+					v8::String::NewFromTwoByte(isolate_,
+											   reinterpret_cast<const uint16_t *>(s16.data()),
+											   v8::NewStringType::kNormal,
+											   static_cast<int>(s16.size()))
+						.ToLocalChecked();
+
+				// Resource name
+				std::string name = job.name.empty()
+									   ? std::string("<eval:") + std::to_string(idx) + ">"
+									   : job.name;
+				v8::Local<v8::String> resName =
+					v8::String::NewFromUtf8(isolate_, name.c_str()).ToLocalChecked();
+				v8::ScriptOrigin origin(resName);
+
+				// ★ キャッシュ検索（プール共有）。名前付きのスクリプトは名前で引き、
+				// 更新されていれば無効化される。無名のソースはハッシュで引く。
+				uint64_t hash = fnv1a64_utf8(s16);
+				std::string cacheKey = job.name.empty()
+										   ? std::string("#") + std::to_string(hash)
+										   : job.name + "#" + std::to_string(idx);
+				// blob は source より先に宣言し、コンパイルが終わるまで生存させる
+				CodeCache::Data blob = code_cache_->get(cacheKey, hash, job.last_modified);
+				std::unique_ptr<v8::ScriptCompiler::CachedData> cached;
+				if (blob)
+				{
+					// V8 は BufferNotOwned のデータを解放しない。実体は blob が保持する
+					cached.reset(new v8::ScriptCompiler::CachedData(
+						blob->data(),
+						static_cast<int>(blob->size()),
+						v8::ScriptCompiler::CachedData::BufferPolicy::BufferNotOwned));
+				}
+
+				// Source 作成（cached があればそれ付き）
+				v8::ScriptCompiler::Source source(src, origin, cached.release());
+
+				// Unbound でコンパイル（キャッシュ消費 or 通常）
+				v8::Local<v8::UnboundScript> unbound;
+				v8::ScriptCompiler::CompileOptions opt =
+					blob
+						? v8::ScriptCompiler::kConsumeCodeCache
+						: v8::ScriptCompiler::kEagerCompile;
+
+				auto compileStart = std::chrono::steady_clock::now();
+				// std::fprintf(stderr, "[Worker] Compile start\n");
+				bool compiled = v8::ScriptCompiler::CompileUnboundScript(isolate_, &source, opt)
+									.ToLocal(&unbound);
+				auto compileEnd = std::chrono::steady_clock::now();
+				// std::fprintf(stderr, "[Worker] Compile end (%lld ms)\n", (long long)std::chrono::duration_cast<std::chrono::milliseconds>(compileEnd - compileStart).count());
+				if (!compiled)
+				{
+					ok = false;
+					break;
+				}
+
+				// ★ キャッシュが無かった、または拒否された（V8 のバージョンやフラグ違い）
+				// ときは作って保存
+				bool rejected = blob && source.GetCachedData() && source.GetCachedData()->rejected;
+				if (!blob || rejected)
+				{
+					std::unique_ptr<v8::ScriptCompiler::CachedData> cd(v8::ScriptCompiler::CreateCodeCache(unbound));
+					if (cd)
 					{
-						// 例外は無いが Compile/Run が false を返しただけのケース
-						er.error = "Script failed (compile/run)";
+						code_cache_->put(cacheKey, hash, job.last_modified, cd->data, (size_t)cd->length);
 					}
-					else
+				}
+
+				// 実行
+				v8::Local<v8::Script> script = unbound->BindToCurrentContext();
+				auto execStart = std::chrono::steady_clock::now();
+				// std::fprintf(stderr, "[Worker] Execute start\n");
+				bool ran = script->Run(ctx).ToLocal(&last);
+				auto execEnd = std::chrono::steady_clock::now();
+				// std::fprintf(stderr, "[Worker] Execute end (%lld ms)\n", (long long)std::chrono::duration_cast<std::chrono::milliseconds>(execEnd - execStart).count());
+				if (!ran)
+				{
+					ok = false;
+					break;
+				}
+				++idx;
+			}
+
+			isolate_->PerformMicrotaskCheckpoint();
+
+			if (tc.HasTerminated() || terminated_ || heap_exceeded_)
+			{
+				// 時間切れ（ウォッチドッグ）またはヒープ上限による強制終了
+				er.terminated = true;
+				er.error = heap_exceeded_
+							   ? std::string("Script exceeded the heap limit of ") + std::to_string(heap_limit_ / (1024 * 1024)) + " MB; the isolate is recycled"
+							   : std::string("Script execution was terminated");
+			}
+			else if (tc.HasCaught())
+			{
+				std::string out = "JavaScript exception";
+				// 例外メッセージ本体
+				if (!tc.Exception().IsEmpty())
+				{
+					v8::String::Utf8Value exc(isolate_, tc.Exception());
+					if (*exc)
+						out = *exc;
+				}
+				// 位置情報（あれば）
+				v8::Local<v8::Message> msg = tc.Message();
+				if (!msg.IsEmpty())
+				{
+					v8::String::Utf8Value fname(isolate_, msg->GetScriptOrigin().ResourceName());
+					int line = msg->GetLineNumber(ctx).FromMaybe(0);
+					int col = msg->GetStartColumn(ctx).FromMaybe(0) + 1;
+					std::string fn = (*fname && std::string(*fname).size()) ? *fname : "<unknown>";
+					out = fn + ":" + std::to_string(line) + ":" + std::to_string(col) + ": " + out;
+				}
+				// ★スタックトレースは「本当に例外がある時だけ」& おとなしく
+				v8::Local<v8::Value> st;
+				if (tc.StackTrace(ctx).ToLocal(&st) && st->IsString())
+				{
+					v8::String::Utf8Value st_utf8(isolate_, st.As<v8::String>());
+					if (*st_utf8)
 					{
-						if (!last.IsEmpty() && last->IsString())
-						{
-							v8::String::Utf8Value utf8(isolate_, last);
-							er.utf8 = std::string(*utf8 ? *utf8 : "");
-						}
+						std::string s = *st_utf8;
+						if (s.size() > 8192)
+							s.resize(8192); // 無限再帰対策で上限
+						out += "\n" + s;
 					}
 				}
+				er.error = out;
+			}
+			else if (!ok)
+			{
+				// 例外は無いが Compile/Run が false を返しただけのケース
+				er.error = "Script failed (compile/run)";
+			}
+			else
+			{
+				if (!last.IsEmpty() && last->IsString())
+				{
+					v8::String::Utf8Value utf8(isolate_, last);
+					er.utf8 = std::string(*utf8 ? *utf8 : "");
+				}
+			}
+			return er;
+		}
 
-				job->result.set_value(std::move(er));
-				auto jobEnd = std::chrono::steady_clock::now();
-				// std::fprintf(stderr, "[Worker] Job end (%lld ms)\n", (long long)std::chrono::duration_cast<std::chrono::milliseconds>(jobEnd - jobStart).count());
+		// バインディング（JSON オブジェクト）を解析し、各プロパティを
+		// コンテキストのグローバルオブジェクトに設定する。
+		bool installBindings(v8::Local<v8::Context> ctx, const std::optional<std::u16string> &bindings)
+		{
+			if (!bindings.has_value() || bindings->empty())
+				return true;
+
+			v8::HandleScope hs(isolate_);
+			v8::Local<v8::String> json =
+				v8::String::NewFromTwoByte(isolate_,
+										   reinterpret_cast<const uint16_t *>(bindings->data()),
+										   v8::NewStringType::kNormal,
+										   static_cast<int>(bindings->size()))
+					.ToLocalChecked();
+
+			v8::Local<v8::Value> parsed;
+			if (!v8::JSON::Parse(ctx, json).ToLocal(&parsed))
+				return false;
+			if (!parsed->IsObject())
+				return true;
+
+			v8::Local<v8::Object> values = parsed.As<v8::Object>();
+			v8::Local<v8::Array> names;
+			if (!values->GetOwnPropertyNames(ctx).ToLocal(&names))
+				return false;
+
+			v8::Local<v8::Object> global = ctx->Global();
+			for (uint32_t i = 0; i < names->Length(); ++i)
+			{
+				v8::Local<v8::Value> name;
+				v8::Local<v8::Value> value;
+				if (!names->Get(ctx, i).ToLocal(&name) || !values->Get(ctx, name).ToLocal(&value))
+					return false;
+				if (global->Set(ctx, name, value).IsNothing())
+					return false;
 			}
+			return true;
 		}
 
 		// 簡易FNV-1a 64bit
@@ -295,8 +743,10 @@ namespace
 			return h;
 		}
 
-		// key=FNV64, value=CachedDataの生バイト
-		std::unordered_map<uint64_t, std::vector<uint8_t>> code_cache_;
+		// プール共有のコードキャッシュ
+		std::shared_ptr<CodeCache> code_cache_;
+		// Isolate あたりのヒープ上限（バイト、0 = V8 の既定値）
+		const size_t heap_limit_;
 
 		std::unique_ptr<v8::ArrayBuffer::Allocator> alloc_;
 		v8::Isolate *isolate_{nullptr};
@@ -305,7 +755,17 @@ namespace
 		std::condition_variable cv_;
 		std::deque<std::shared_ptr<Job>> q_;
 		std::atomic<bool> stopping_{false};
+		std::atomic<size_t> load_{0};
+		// 実行中のジョブ（ウォッチドッグが打ち切り対象を確認する）と isolate_ の差し替えを守る
+		std::mutex run_mu_;
+		std::shared_ptr<Job> current_;
+		std::atomic<bool> terminated_{false};
+		std::atomic<bool> heap_exceeded_{false};
 		v8::Global<v8::ObjectTemplate> global_tpl_;
+		// 現在の Isolate の元になったスナップショットと、次に使うスナップショット
+		// （mu_ で保護）。異なれば Isolate を作り直す。
+		std::shared_ptr<const Snapshot> snapshot_;
+		std::shared_ptr<const Snapshot> next_snapshot_;
 	};
 
 	// ============================================================================
@@ -344,7 +804,8 @@ namespace
 	class IsolatePool
 	{
 	public:
-		explicit IsolatePool(int poolSize)
+		IsolatePool(int poolSize, size_t codeCacheBytes, int64_t timeoutMillis, size_t heapLimit)
+			: code_cache_(std::make_shared<CodeCache>(codeCacheBytes)), timeout_ms_(timeoutMillis), queue_timeout_ms_(timeoutMillis), heap_limit_(heapLimit)
 		{
 			if (poolSize <= 0)
 			{
@@ -353,7 +814,7 @@ namespace
 			}
 			for (int i = 0; i < poolSize; ++i)
 			{
-				workers_.push_back(std::make_unique<Worker>());
+				workers_.push_back(std::make_unique<Worker>(code_cache_, heapLimit));
 			}
 		}
 
@@ -362,7 +823,7 @@ namespace
 		~IsolatePool() { workers_.clear(); }
 
 		// 呼び出しスレッド上でブロッキングして結果を返す
-		EvalResult evalUTF8(JNIEnv *env, jobjectArray _sources)
+		EvalResult evalUTF8(JNIEnv *env, jstring _name, jlong _lastModified, jstring _bindings, jobjectArray _sources)
 		{
 			EvalResult er;
 			if (workers_.empty())
@@ -372,6 +833,22 @@ namespace
 			}
 
 			auto job = std::make_shared<Job>();
+			if (_name)
+			{
+				const char *chars = env->GetStringUTFChars(_name, nullptr);
+				job->name = chars ? chars : "";
+				env->ReleaseStringUTFChars(_name, chars);
+			}
+			job->last_modified = (int64_t)_lastModified;
+			if (_bindings)
+			{
+				const jchar *chars = env->GetStringChars(_bindings, nullptr);
+				jsize len = env->GetStringLength(_bindings);
+				job->bindings.emplace(
+					reinterpret_cast<const char16_t *>(chars),
+					reinterpret_cast<const char16_t *>(chars) + len);
+				env->ReleaseStringChars(_bindings, chars);
+			}
 			jsize n = env->GetArrayLength(_sources);
 			job->sources.reserve((size_t)n);
 			for (jsize i = 0; i < n; ++i)
@@ -387,13 +864,126 @@ namespace
 			}
 
 			auto fut = job->result.get_future();
-			size_t idx = rr_.fetch_add(1) % workers_.size();
-			workers_[idx]->post(job);
-			er = fut.get();
+			Worker &worker = leastLoaded();
+			worker.post(job);
+			if (timeout_ms_ <= 0)
+				return fut.get();
+
+			// 待ち行列で待つ時間と実行時間は別々に制限する。実行の制限時間は
+			// Worker がジョブを取り出した時刻から数えるため、プールが混んでいても
+			// 正常なスクリプトが待ち時間のせいで打ち切られることはない。
+			auto queueDeadline = std::chrono::steady_clock::now() + std::chrono::milliseconds(queue_timeout_ms_);
+			for (;;)
+			{
+				int64_t startedAt = job->started_at.load();
+				if (startedAt == 0)
+				{
+					if (fut.wait_until(queueDeadline) == std::future_status::ready)
+						return fut.get();
+					if (job->started_at.load() != 0)
+						continue;
+					int expected = Job::kQueued;
+					if (job->state.compare_exchange_strong(expected, Job::kCancelled))
+					{
+						// まだ待ち行列にいる: Worker はこのジョブを読み飛ばす
+						er.error = "Script execution did not start within " + std::to_string(queue_timeout_ms_) + " ms (queued)";
+						er.terminated = true;
+						return er;
+					}
+					continue;
+				}
+
+				auto deadline = std::chrono::steady_clock::time_point(std::chrono::nanoseconds(startedAt)) + std::chrono::milliseconds(timeout_ms_);
+				if (fut.wait_until(deadline) == std::future_status::ready)
+					return fut.get();
+				break;
+			}
+
+			std::string timedOut = "Script execution timed out after " + std::to_string(timeout_ms_) + " ms";
+
+			// 実行中: 打ち切って、巻き戻しを少しだけ待つ。戻らなければ諦める
+			// （その Worker は負荷が高いままなので、以降のジョブは他に回る）。
+			worker.terminate(job);
+			if (fut.wait_for(std::chrono::milliseconds(kTerminateGraceMillis)) == std::future_status::ready)
+			{
+				er = fut.get();
+				if (!er.terminated)
+					return er; // 打ち切る直前に終わっていた
+			}
+			er = EvalResult();
+			er.error = timedOut;
+			er.terminated = true;
 			return er;
 		}
 
+		std::vector<int64_t> codeCacheStatistics() { return code_cache_->statistics(); }
+
+		// ウォームアップスクリプトからスナップショットを作り、全 Worker に配る
+		// （source が無ければ V8 の既定に戻す）。失敗したときは何も変えずに
+		// 理由を返す。
+		std::optional<std::string> setWarmupScript(JNIEnv *env, jstring _name, jstring _source)
+		{
+			std::shared_ptr<const Snapshot> snapshot;
+			if (_source)
+			{
+				std::string name = "<warmup>";
+				if (_name)
+				{
+					const char *chars = env->GetStringUTFChars(_name, nullptr);
+					if (chars && *chars)
+						name = chars;
+					env->ReleaseStringUTFChars(_name, chars);
+				}
+				const jchar *chars = env->GetStringChars(_source, nullptr);
+				jsize len = env->GetStringLength(_source);
+				std::u16string source(reinterpret_cast<const char16_t *>(chars),
+									  reinterpret_cast<const char16_t *>(chars) + len);
+				env->ReleaseStringChars(_source, chars);
+
+				std::string error;
+				snapshot = createSnapshot(name, source, heap_limit_, timeout_ms_, error);
+				if (!snapshot)
+					return error;
+			}
+
+			for (auto &worker : workers_)
+				worker->setSnapshot(snapshot);
+			return std::nullopt;
+		}
+
 	private:
+		// 待ち行列＋実行中のジョブが最も少ない Worker を選ぶ。同数なら起点を
+		// ずらして順に回す（以前は負荷に関係なくラウンドロビンだった）。
+		Worker &leastLoaded()
+		{
+			size_t n = workers_.size();
+			size_t start = rr_.fetch_add(1);
+			size_t best = start % n;
+			size_t bestLoad = workers_[best]->load();
+			for (size_t i = 1; i < n && bestLoad > 0; ++i)
+			{
+				size_t idx = (start + i) % n;
+				size_t load = workers_[idx]->load();
+				if (load < bestLoad)
+				{
+					best = idx;
+					bestLoad = load;
+				}
+			}
+			return *workers_[best];
+		}
+
+		static constexpr int64_t kTerminateGraceMillis = 5000;
+
+		std::shared_ptr<CodeCache> code_cache_;
+		// 1 回の評価の制限時間（ミリ秒、0 以下 = 無制限）。Worker が実行を
+		// 始めてから数える。
+		const int64_t timeout_ms_;
+		// ジョブが Worker に取り出されるまで待つ上限（ミリ秒）。実行の制限時間とは
+		// 別に数え、長さは同じにする。
+		const int64_t queue_timeout_ms_;
+		// Isolate あたりのヒープ上限（バイト、0 = V8 の既定値）
+		const size_t heap_limit_;
 		std::vector<std::unique_ptr<Worker>> workers_;
 		std::atomic<size_t> rr_{0};
 	};
@@ -436,11 +1026,14 @@ JNIEXPORT void JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecm
 }
 
 // ワークスペース単位の Isolate プールを生成し、ハンドルを返す。
-JNIEXPORT jlong JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma_nativeCreatePool(JNIEnv *env, jobject _this, jint _poolSize)
+JNIEXPORT jlong JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma_nativeCreatePool(JNIEnv *env, jobject _this, jint _poolSize, jlong _codeCacheBytes, jlong _timeoutMillis, jlong _heapLimitBytes)
 {
 	ensurePlatformInitialized();
 
-	auto pool = std::make_shared<IsolatePool>((int)_poolSize);
+	auto pool = std::make_shared<IsolatePool>((int)_poolSize,
+											  _codeCacheBytes > 0 ? (size_t)_codeCacheBytes : 0,
+											  (int64_t)_timeoutMillis,
+											  _heapLimitBytes > 0 ? (size_t)_heapLimitBytes : 0);
 	uint64_t handle = g_next_handle.fetch_add(1);
 	{
 		std::lock_guard<std::mutex> lk(g_pools_mu);
@@ -466,7 +1059,7 @@ JNIEXPORT void JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecm
 	pool.reset();
 }
 
-JNIEXPORT jstring JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma_nativeEval(JNIEnv *env, jobject _this, jlong _handle, jobjectArray _sources)
+JNIEXPORT jstring JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma_nativeEval(JNIEnv *env, jobject _this, jlong _handle, jstring _name, jlong _lastModified, jstring _bindings, jobjectArray _sources)
 {
 	std::shared_ptr<IsolatePool> pool = findPool((uint64_t)_handle);
 	if (!pool)
@@ -478,7 +1071,7 @@ JNIEXPORT jstring JNICALL Java_org_mintjams_rt_cms_internal_script_engine_native
 		return nullptr;
 	}
 
-	EvalResult er = pool->evalUTF8(env, _sources);
+	EvalResult er = pool->evalUTF8(env, _name, _lastModified, _bindings, _sources);
 
 	if (er.error.has_value())
 	{
@@ -495,3 +1088,36 @@ JNIEXPORT jstring JNICALL Java_org_mintjams_rt_cms_internal_script_engine_native
 	}
 	return nullptr;
 }
+
+// ウォームアップスクリプトを設定する（null なら解除）。失敗したときは
+// ScriptException を投げ、現在のスナップショットを使い続ける。
+JNIEXPORT void JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma_nativeSetWarmupScript(JNIEnv *env, jobject _this, jlong _handle, jstring _name, jstring _source)
+{
+	std::shared_ptr<IsolatePool> pool = findPool((uint64_t)_handle);
+	std::optional<std::string> error = pool
+										   ? pool->setWarmupScript(env, _name, _source)
+										   : std::optional<std::string>("Native ECMA isolate pool is not available.");
+	if (error.has_value())
+	{
+		jclass exClass = env->FindClass("javax/script/ScriptException");
+		if (!exClass)
+			exClass = env->FindClass("java/lang/RuntimeException");
+		env->ThrowNew(exClass, error->c_str());
+	}
+}
+
+// プール共有コードキャッシュの統計を返す（プールが無ければ null）。
+JNIEXPORT jlongArray JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma_nativeGetCodeCacheStatistics(JNIEnv *env, jobject _this, jlong _handle)
+{
+	std::shared_ptr<IsolatePool> pool = findPool((uint64_t)_handle);
+	if (!pool)
+		return nullptr;
+
+	std::vector<int64_t> stats = pool->codeCacheStatistics();
+	jlongArray result = env->NewLongArray((jsize)stats.size());
+	if (!result)
+		return nullptr;
+	std::vector<jlong> values(stats.begin(), stats.end());
+	env->SetLongArrayRegion(result, 0, (jsize)values.size(), values.data());
+	return result;
+}
@@ -18,10 +18,10 @@ JNIEXPORT void JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecm
 /*
  * Class:     org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma
  * Method:    nativeCreatePool
- * Signature: (I)J
+ * Signature: (IJJJ)J
  */
 JNIEXPORT jlong JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma_nativeCreatePool
-  (JNIEnv *, jobject, jint);
+  (JNIEnv *, jobject, jint, jlong, jlong, jlong);
 
 /*
  * Class:     org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma
@@ -34,10 +34,26 @@ JNIEXPORT void JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecm
 /*
  * Class:     org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma
  * Method:    nativeEval
- * Signature: (J[Ljava/lang/String;)Ljava/lang/String;
+ * Signature: (JLjava/lang/String;JLjava/lang/String;[Ljava/lang/String;)Ljava/lang/String;
  */
 JNIEXPORT jstring JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma_nativeEval
-  (JNIEnv *, jobject, jlong, jobjectArray);
+  (JNIEnv *, jobject, jlong, jstring, jlong, jstring, jobjectArray);
+
+/*
+ * Class:     org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma
+ * Method:    nativeSetWarmupScript
+ * Signature: (JLjava/lang/String;Ljava/lang/String;)V
+ */
+JNIEXPORT void JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma_nativeSetWarmupScript
+  (JNIEnv *, jobject, jlong, jstring, jstring);
+
+/*
+ * Class:     org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma
+ * Method:    nativeGetCodeCacheStatistics
+ * Signature: (J)[J
+ */
+JNIEXPORT jlongArray JNICALL Java_org_mintjams_rt_cms_internal_script_engine_nativeecma_NativeEcma_nativeGetCodeCacheStatistics
+  (JNIEnv *, jobject, jlong);
 
 #ifdef __cplusplus
 }
@@ -29,6 +29,7 @@ import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.Map;
 
 import javax.servlet.ServletException;
@@ -55,8 +56,19 @@ public class CmsConfiguration {
 	public static final String DEFAULT_START_WEB_URI = CMS_CGI_PATH + "/system/content/webtop/";
 	public static final int DEFAULT_MAX_SCRIPT_CACHE_PER_SCRIPT_ENGINE = 32;
 	public static final int DEFAULT_NATIVE_ECMA_POOL_SIZE_PER_SCRIPT_ENGINE = 2;
+	public static final int DEFAULT_NATIVE_ECMA_CODE_CACHE_SIZE_MB = 32;
+	public static final int DEFAULT_NATIVE_ECMA_TIMEOUT_SECONDS = 30;
+	public static final int DEFAULT_NATIVE_ECMA_HEAP_LIMIT_MB = 256;
 	public static final int DEFAULT_CLASS_LOADER_REFRESH_INTERVAL = 8;
+	public static final String[] DEFAULT_SCRIPT_PRECOMPILE_PATHS = new String[] { "/content/WEB-INF/templates" };
+	public static final int DEFAULT_WEB_GZIP_CACHE_SIZE_MB = 256;
+	public static final int DEFAULT_WEB_RENDER_CACHE_SIZE_MB = 64;
 	public static final int DEFAULT_JOB_MANAGER_WORKERS = 4;
+	public static final int DEFAULT_JOB_MANAGER_TYPE_LIMIT = 0;
+	public static final int DEFAULT_JOB_MANAGER_AGING_INTERVAL_SECONDS = 60;
+	public static final int DEFAULT_ARCHIVE_IMPORT_CHUNK_SIZE = 0;
+	public static final int DEFAULT_ARCHIVE_IMPORT_WRITE_BATCH_SIZE = 500;
+	public static final int DEFAULT_ARCHIVE_IMPORT_BINARY_THREADS = 4;
 
 	private Map<String, Object> fConfig;
 
@@ -132,6 +144,130 @@ public class CmsConfiguration {
 		return DEFAULT_MAX_SCRIPT_CACHE_PER_SCRIPT_ENGINE;
 	}
 
+	public int getNativeEcmaCodeCacheSizeMB() {
+		try {
+			return ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getInt("config.nativeEcmaCodeCacheSizeMB", DEFAULT_NATIVE_ECMA_CODE_CACHE_SIZE_MB);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The nativeEcmaCodeCacheSizeMB parameter is invalid. Default values will be used instead.");
+		}
+		return DEFAULT_NATIVE_ECMA_CODE_CACHE_SIZE_MB;
+	}
+
+	public int getNativeEcmaTimeoutSeconds() {
+		try {
+			return ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getInt("config.nativeEcmaTimeoutSeconds", DEFAULT_NATIVE_ECMA_TIMEOUT_SECONDS);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The nativeEcmaTimeoutSeconds parameter is invalid. Default values will be used instead.");
+		}
+		return DEFAULT_NATIVE_ECMA_TIMEOUT_SECONDS;
+	}
+
+	public int getNativeEcmaHeapLimitMB() {
+		try {
+			return ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getInt("config.nativeEcmaHeapLimitMB", DEFAULT_NATIVE_ECMA_HEAP_LIMIT_MB);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The nativeEcmaHeapLimitMB parameter is invalid. Default values will be used instead.");
+		}
+		return DEFAULT_NATIVE_ECMA_HEAP_LIMIT_MB;
+	}
+
+	/**
+	 * Whether the GSP and native ECMA scripts under
+	 * {@link #getScriptPrecompilePaths()} are compiled in the background when a
+	 * workspace starts, so that the first requests after a deploy or restart
+	 * find them already compiled. Disabled by default.
+	 */
+	public boolean isScriptPrecompileEnabled() {
+		try {
+			return ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getBoolean("config.scriptPrecompile.enabled", false);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The scriptPrecompile.enabled parameter is invalid. Default values will be used instead.");
+		}
+		return false;
+	}
+
+	public String[] getScriptPrecompilePaths() {
+		try {
+			String[] paths = ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getStringArray("config.scriptPrecompile.paths");
+			if (paths != null && paths.length > 0) {
+				return paths;
+			}
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The scriptPrecompile.paths parameter is invalid. Default values will be used instead.");
+		}
+		return DEFAULT_SCRIPT_PRECOMPILE_PATHS.clone();
+	}
+
+	/**
+	 * Whether static files of compressible types are served gzip-encoded to
+	 * clients that accept it. Enabled by default.
+	 */
+	public boolean isWebGzipEnabled() {
+		try {
+			return ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getBoolean("config.webGzip.enabled", true);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The webGzip.enabled parameter is invalid. Default values will be used instead.");
+		}
+		return true;
+	}
+
+	/**
+	 * Disk space per workspace for the gzip copies of static files; the least
+	 * recently used copies are deleted beyond it.
+	 */
+	public int getWebGzipCacheSizeMB() {
+		try {
+			return ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getInt("config.webGzip.cacheSizeMB", DEFAULT_WEB_GZIP_CACHE_SIZE_MB);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The webGzip.cacheSizeMB parameter is invalid. Default values will be used instead.");
+		}
+		return DEFAULT_WEB_GZIP_CACHE_SIZE_MB;
+	}
+
+	/**
+	 * Whether templated renders whose folder descriptor rule sets
+	 * {@code cache} are cached. Enabled by default.
+	 */
+	public boolean isWebRenderCacheEnabled() {
+		try {
+			return ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getBoolean("config.webRenderCache.enabled", true);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The webRenderCache.enabled parameter is invalid. Default values will be used instead.");
+		}
+		return true;
+	}
+
+	/**
+	 * Memory per workspace for cached renders; the least recently used are
+	 * dropped beyond it.
+	 */
+	public int getWebRenderCacheSizeMB() {
+		try {
+			return ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getInt("config.webRenderCache.maxSizeMB", DEFAULT_WEB_RENDER_CACHE_SIZE_MB);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The webRenderCache.maxSizeMB parameter is invalid. Default values will be used instead.");
+		}
+		return DEFAULT_WEB_RENDER_CACHE_SIZE_MB;
+	}
+
 	public int getClassLoaderRefreshInterval() {
 		try {
 			return ExpressionContext.create()
@@ -154,6 +290,100 @@ public class CmsConfiguration {
 		return DEFAULT_JOB_MANAGER_WORKERS;
 	}
 
+	/**
+	 * Number of jobs of one type that may run at once, unless
+	 * {@link #getJobManagerTypeLimits()} names the type. The default of
+	 * {@code 0} keeps one worker free of any single job type.
+	 */
+	public int getJobManagerTypeLimit() {
+		try {
+			return ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getInt("config.jobManager.typeLimit", DEFAULT_JOB_MANAGER_TYPE_LIMIT);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The jobManager.typeLimit parameter is invalid. Default values will be used instead.");
+		}
+		return DEFAULT_JOB_MANAGER_TYPE_LIMIT;
+	}
+
+	/**
+	 * Per-type concurrency limits, keyed by job type (for example
+	 * {@code archive: 1}), read from {@code jobManager.typeLimits}.
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<String, Integer> getJobManagerTypeLimits() {
+		Map<String, Integer> typeLimits = new HashMap<>();
+		try {
+			Object jobManager = getConfig().get("jobManager");
+			if (jobManager instanceof Map) {
+				Object value = ((Map<String, Object>) jobManager).get("typeLimits");
+				if (value instanceof Map) {
+					for (Map.Entry<String, Object> e : ((Map<String, Object>) value).entrySet()) {
+						typeLimits.put(e.getKey(), Integer.parseInt(String.valueOf(e.getValue()).trim()));
+					}
+				}
+			}
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The jobManager.typeLimits parameter is invalid. Default values will be used instead.");
+			typeLimits.clear();
+		}
+		return typeLimits;
+	}
+
+	/**
+	 * Seconds a queued job waits to gain one priority level, so that
+	 * low-priority jobs are not starved; {@code 0} disables aging.
+	 */
+	public int getJobManagerAgingIntervalSeconds() {
+		try {
+			return ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getInt("config.jobManager.agingIntervalSeconds", DEFAULT_JOB_MANAGER_AGING_INTERVAL_SECONDS);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The jobManager.agingIntervalSeconds parameter is invalid. Default values will be used instead.");
+		}
+		return DEFAULT_JOB_MANAGER_AGING_INTERVAL_SECONDS;
+	}
+
+	/**
+	 * Number of archive records a real archive import commits at a time, with a
+	 * checkpoint after each commit so an import cut off by a restart resumes
+	 * where it stopped. {@code 0} (the default) imports the whole archive in
+	 * one transaction.
+	 */
+	public int getArchiveImportChunkSize() {
+		try {
+			return ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getInt("config.archiveImport.chunkSize", DEFAULT_ARCHIVE_IMPORT_CHUNK_SIZE);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The archiveImport.chunkSize parameter is invalid. Default values will be used instead.");
+		}
+		return DEFAULT_ARCHIVE_IMPORT_CHUNK_SIZE;
+	}
+
+	public int getArchiveImportWriteBatchSize() {
+		try {
+			return ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getInt("config.archiveImport.writeBatchSize", DEFAULT_ARCHIVE_IMPORT_WRITE_BATCH_SIZE);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The archiveImport.writeBatchSize parameter is invalid. Default values will be used instead.");
+		}
+		return DEFAULT_ARCHIVE_IMPORT_WRITE_BATCH_SIZE;
+	}
+
+	public int getArchiveImportBinaryThreads() {
+		try {
+			return ExpressionContext.create()
+					.setVariable("config", getConfig())
+					.getInt("config.archiveImport.binaryThreads", DEFAULT_ARCHIVE_IMPORT_BINARY_THREADS);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("The archiveImport.binaryThreads parameter is invalid. Default values will be used instead.");
+		}
+		return DEFAULT_ARCHIVE_IMPORT_BINARY_THREADS;
+	}
+
 	private static class StartServlet extends HttpServlet {
 		private static final long serialVersionUID = 1L;
 
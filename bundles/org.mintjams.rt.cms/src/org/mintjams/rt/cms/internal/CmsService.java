@@ -29,6 +29,7 @@ import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.HashMap;
@@ -64,6 +65,7 @@ import org.mintjams.rt.cms.internal.eip.WorkspaceIntegrationEngineProvider;
 import org.mintjams.rt.cms.internal.job.JobManager;
 import org.mintjams.rt.cms.internal.job.JobNodes;
 import org.mintjams.rt.cms.internal.job.JobStatus;
+import org.mintjams.rt.cms.internal.job.archive.ImportArchiveJob;
 import org.mintjams.rt.cms.internal.script.Scripts;
 import org.mintjams.rt.cms.internal.script.WorkspaceClassLoaderProvider;
 import org.mintjams.rt.cms.internal.script.WorkspaceFacetProvider;
@@ -222,7 +224,11 @@ public class CmsService {
 
 	private synchronized void open() throws IOException, RepositoryException {
 		fConfig = new CmsConfiguration();
-		fJobManager = fCloser.register(new JobManager(fConfig.getJobManagerWorkers()));
+		fJobManager = fCloser.register(new JobManager(
+				fConfig.getJobManagerWorkers(),
+				fConfig.getJobManagerTypeLimit(),
+				fConfig.getJobManagerTypeLimits(),
+				fConfig.getJobManagerAgingIntervalSeconds() * 1000L));
 		fCloser.register(new RepositoryServletsProvider(fConfig)).open();
 
 		// Prepare standard folders for all workspaces
@@ -656,8 +662,9 @@ public class CmsService {
 	/**
 	 * Finalises the jobs that died with this node's previous run. Queues and
 	 * workers are in-memory, so a job that was QUEUED or RUNNING when the
-	 * node went down can never resume; without this it would stay "running"
-	 * in the UI forever. Jobs are matched by their recorded executing node —
+	 * node went down cannot simply carry on; without this it would stay
+	 * "running" in the UI forever. The exception is a chunked archive import
+	 * that left a checkpoint: it is queued again and resumes from it. Jobs are matched by their recorded executing node —
 	 * in a cluster, the other nodes' live jobs are left strictly alone. Only
 	 * the current and previous month's job buckets are scanned: anything
 	 * older was already recovered by an earlier boot.
@@ -671,6 +678,7 @@ public class CmsService {
 			boolean clusterEnabled = (coordinator != null && coordinator.isClusterEnabled());
 
 			int recovered = 0;
+			List<ImportArchiveJob> resumed = new ArrayList<>();
 			java.time.YearMonth thisMonth = java.time.YearMonth.now(java.time.ZoneOffset.UTC);
 			for (java.time.YearMonth month : new java.time.YearMonth[] { thisMonth, thisMonth.minusMonths(1) }) {
 				String folderPath = JobNodes.JOBS_ROOT + "/" + month.getYear()
@@ -698,8 +706,20 @@ public class CmsService {
 						}
 					}
 
+					String jobId = JobNodes.getString(content, JobNodes.PROP_JOB_ID, null);
 					if (status == JobStatus.ABORTING) {
 						JobNodes.setStatus(content, JobStatus.ABORTED);
+					} else if (jobId != null
+							&& ImportArchiveJob.TYPE.equals(JobNodes.getString(content, JobNodes.PROP_JOB_TYPE, null))
+							&& session.nodeExists(JobNodes.checkpointNodePath(jobId))) {
+						// A chunked import committed part of the archive and left
+						// a checkpoint; it resumes from there instead of failing.
+						JobNodes.setStatus(content, JobStatus.QUEUED);
+						resumed.add(new ImportArchiveJob(jobId, workspaceName,
+								JobNodes.getString(content, JobNodes.PROP_JOB_USER_ID, null),
+								(int) JobNodes.getLong(content, JobNodes.PROP_JOB_PRIORITY, 0L)));
+						recovered++;
+						continue;
 					} else {
 						JobNodes.setStatus(content, JobStatus.FAILED);
 						content.setProperty(JobNodes.PROP_ERROR_MESSAGE,
@@ -715,6 +735,9 @@ public class CmsService {
 				fLoggerFactory.getLogger(getClass()).info("Recovered " + recovered
 						+ " job(s) that died with this node's previous run: " + workspaceName);
 			}
+			for (ImportArchiveJob job : resumed) {
+				fJobManager.submit(job);
+			}
 		} catch (RepositoryException ex) {
 			try {
 				session.refresh(false);
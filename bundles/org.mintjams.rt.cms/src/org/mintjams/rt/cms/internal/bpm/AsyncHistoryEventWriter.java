@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.mintjams.rt.cms.internal.bpm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.camunda.bpm.engine.impl.history.event.HistoryEvent;
+import org.camunda.bpm.engine.impl.history.handler.DbHistoryEventHandler;
+import org.camunda.bpm.engine.impl.history.handler.HistoryEventHandler;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+import org.mintjams.rt.cms.internal.CmsService;
+
+/**
+ * Writes the engine's history asynchronously ({@code bpm.yml#historyWriter}).
+ *
+ * <p>Installed in place of the engine's database history handler. History
+ * events are collected per transaction and, once it has committed, put into
+ * a bounded queue; a background thread drains the queue and persists the
+ * events through the engine's own {@link DbHistoryEventHandler}, many events
+ * per command, so they reach the database as JDBC batches instead of as
+ * individual inserts on the transaction thread. A full queue blocks the
+ * committing thread until the writer catches up.
+ *
+ * <p>History therefore lags the runtime state by the writer's lag. A clean
+ * shutdown drains the queue before the engine closes; history still queued
+ * when the process dies is lost.
+ */
+public class AsyncHistoryEventWriter implements HistoryEventHandler, Closeable {
+
+	private static final long POLL_INTERVAL_MILLIS = 1000;
+	private static final int MAX_ATTEMPTS = 3;
+
+	private final String fWorkspaceName;
+	private final int fCapacity;
+	private final int fBatchSize;
+	private final ArrayBlockingQueue<QueuedEvent> fQueue;
+	private final CommitBuffer<HistoryEvent> fCommitBuffer = new CommitBuffer<>(this::enqueue);
+	private final DbHistoryEventHandler fDbHandler = new DbHistoryEventHandler();
+	private final Latency fFlush = new Latency();
+	private final LongAdder fWrittenEvents = new LongAdder();
+	private final LongAdder fFailedEvents = new LongAdder();
+	private final AtomicLong fMaxBatchSize = new AtomicLong();
+	private CommandExecutor fCommandExecutor;
+	private Thread fThread;
+	private volatile boolean fCloseRequested;
+
+	public AsyncHistoryEventWriter(String workspaceName, int capacity, int batchSize) {
+		fWorkspaceName = workspaceName;
+		fCapacity = capacity;
+		fBatchSize = batchSize;
+		fQueue = new ArrayBlockingQueue<>(capacity);
+	}
+
+	/**
+	 * Starts the writer thread once the engine has been built.
+	 */
+	public synchronized void open(CommandExecutor commandExecutor) {
+		if (fThread != null) {
+			return;
+		}
+
+		fCommandExecutor = commandExecutor;
+		fCloseRequested = false;
+		fThread = new Thread(new Task(), "bpm-history-" + fWorkspaceName);
+		fThread.setDaemon(true);
+		fThread.start();
+	}
+
+	/**
+	 * Stops the writer after it has written every queued event. Must be called
+	 * before the engine closes and after its job executor has stopped; events
+	 * committed after this point are written on the committing thread.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (fThread == null) {
+			return;
+		}
+
+		fCloseRequested = true;
+		try {
+			fThread.join();
+		} catch (InterruptedException ignore) {}
+		fThread = null;
+
+		// Events queued by a transaction that committed while the writer
+		// was finishing its last poll.
+		List<QueuedEvent> remaining = new ArrayList<>();
+		fQueue.drainTo(remaining);
+		if (!remaining.isEmpty()) {
+			write(toEvents(remaining));
+		}
+	}
+
+	@Override
+	public void handleEvent(HistoryEvent historyEvent) {
+		fCommitBuffer.add(historyEvent);
+	}
+
+	@Override
+	public void handleEvents(List<HistoryEvent> historyEvents) {
+		if (historyEvents == null) {
+			return;
+		}
+		for (HistoryEvent historyEvent : historyEvents) {
+			handleEvent(historyEvent);
+		}
+	}
+
+	private void enqueue(List<HistoryEvent> events) {
+		if (fThread == null || fCloseRequested) {
+			write(events);
+			return;
+		}
+
+		long enqueued = System.nanoTime();
+		for (HistoryEvent event : events) {
+			try {
+				fQueue.put(new QueuedEvent(event, enqueued));
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				CmsService.getLogger(getClass()).warn("Interrupted while queueing history; writing it directly.");
+				write(events.subList(events.indexOf(event), events.size()));
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Writes events in commands of at most {@code batchSize} events. A command
+	 * never holds two events for the same history entity: the engine's handler
+	 * skips an update whose entity is already in the command's cache, so the
+	 * update of an entity inserted in the same batch would be lost.
+	 */
+	private void write(List<HistoryEvent> events) {
+		List<HistoryEvent> batch = new ArrayList<>();
+		Set<String> keys = new HashSet<>();
+		for (HistoryEvent event : events) {
+			String key = event.getClass().getName() + "#" + event.getId();
+			if (batch.size() >= fBatchSize || (event.getId() != null && !keys.add(key))) {
+				writeBatch(batch);
+				batch = new ArrayList<>();
+				keys.clear();
+				keys.add(key);
+			}
+			batch.add(event);
+		}
+		if (!batch.isEmpty()) {
+			writeBatch(batch);
+		}
+	}
+
+	private void writeBatch(List<HistoryEvent> batch) {
+		for (int attempt = 1;; attempt++) {
+			long started = System.nanoTime();
+			try {
+				fCommandExecutor.execute(commandContext -> {
+					fDbHandler.handleEvents(batch);
+					return null;
+				});
+				fFlush.record(System.nanoTime() - started);
+				fWrittenEvents.add(batch.size());
+				fMaxBatchSize.accumulateAndGet(batch.size(), Math::max);
+				return;
+			} catch (Throwable ex) {
+				if (attempt >= MAX_ATTEMPTS) {
+					CmsService.getLogger(getClass()).warn("Failed to write a batch of " + batch.size()
+							+ " history events; writing them one by one.", ex);
+					break;
+				}
+			}
+			try {
+				Thread.sleep(attempt * POLL_INTERVAL_MILLIS);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		// Isolate the events the database rejects, so one bad event does not
+		// cost the history of the whole batch.
+		for (HistoryEvent event : batch) {
+			try {
+				fCommandExecutor.execute(commandContext -> {
+					fDbHandler.handleEvent(event);
+					return null;
+				});
+				fWrittenEvents.increment();
+			} catch (Throwable ex) {
+				fFailedEvents.increment();
+				CmsService.getLogger(getClass()).error("Failed to write history event: " + event, ex);
+			}
+		}
+	}
+
+	public int getCapacity() {
+		return fCapacity;
+	}
+
+	public int getBatchSize() {
+		return fBatchSize;
+	}
+
+	public int getQueuedEvents() {
+		return fQueue.size();
+	}
+
+	/**
+	 * Returns how long the oldest queued event has been waiting, or zero when
+	 * the writer has caught up.
+	 */
+	public double getLagMillis() {
+		QueuedEvent head = fQueue.peek();
+		return (head == null) ? 0 : (System.nanoTime() - head.fEnqueued) / 1000000d;
+	}
+
+	public long getWrittenEvents() {
+		return fWrittenEvents.sum();
+	}
+
+	public long getFailedEvents() {
+		return fFailedEvents.sum();
+	}
+
+	public long getMaxBatchSize() {
+		return fMaxBatchSize.get();
+	}
+
+	/**
+	 * Returns the latency of the batch commands; its count is the number of
+	 * batches written.
+	 */
+	public Latency getFlushLatency() {
+		return fFlush;
+	}
+
+	private static List<HistoryEvent> toEvents(List<QueuedEvent> queued) {
+		List<HistoryEvent> events = new ArrayList<>(queued.size());
+		for (QueuedEvent e : queued) {
+			events.add(e.fEvent);
+		}
+		return events;
+	}
+
+	private static class QueuedEvent {
+		private final HistoryEvent fEvent;
+		private final long fEnqueued;
+
+		private QueuedEvent(HistoryEvent event, long enqueued) {
+			fEvent = event;
+			fEnqueued = enqueued;
+		}
+	}
+
+	private class Task implements Runnable {
+		@Override
+		public void run() {
+			List<QueuedEvent> drained = new ArrayList<>();
+			for (;;) {
+				drained.clear();
+				try {
+					QueuedEvent first = fQueue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+					if (first == null) {
+						if (fCloseRequested) {
+							break;
+						}
+						continue;
+					}
+					drained.add(first);
+				} catch (InterruptedException ignore) {
+					continue;
+				}
+				fQueue.drainTo(drained, fBatchSize - 1);
+
+				try {
+					write(toEvents(drained));
+				} catch (Throwable ex) {
+					CmsService.getLogger(getClass()).error("An error occurred while writing history.", ex);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.mintjams.rt.cms.internal.bpm;
+
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+
+/**
+ * Process engine plugin that installs an {@link AsyncHistoryEventWriter} as
+ * the engine's history handler, in place of the default database handler.
+ * Must be registered before
+ * {@link org.mintjams.rt.cms.internal.bpm.event.EventAdminProcessEnginePlugin},
+ * which then adds its handler alongside the writer.
+ */
+public class AsyncHistoryProcessEnginePlugin extends AbstractProcessEnginePlugin {
+
+	private final AsyncHistoryEventWriter fWriter;
+	private CommandExecutor fCommandExecutor;
+
+	public AsyncHistoryProcessEnginePlugin(AsyncHistoryEventWriter writer) {
+		fWriter = writer;
+	}
+
+	@Override
+	public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+		processEngineConfiguration.setHistoryEventHandler(fWriter);
+	}
+
+	@Override
+	public void postInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+		fCommandExecutor = processEngineConfiguration.getCommandExecutorTxRequiresNew();
+	}
+
+	@Override
+	public void postProcessEngineBuild(ProcessEngine processEngine) {
+		fWriter.open(fCommandExecutor);
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.mintjams.rt.cms.internal.bpm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+
+/**
+ * Collects items produced inside an engine command and hands them over in a
+ * single call once the command's transaction has committed. Only one pair of
+ * transaction listeners is registered per transaction, however many items it
+ * produces; the items of a rolled-back transaction are discarded.
+ *
+ * <p>Items added outside of a command context are handed over immediately.
+ */
+public class CommitBuffer<T> {
+
+	private final Map<CommandContext, List<T>> fPending = Collections.synchronizedMap(new WeakHashMap<>());
+	private final Consumer<List<T>> fOnCommit;
+
+	public CommitBuffer(Consumer<List<T>> onCommit) {
+		fOnCommit = onCommit;
+	}
+
+	public void add(T item) {
+		CommandContext commandContext = Context.getCommandContext();
+		if (commandContext == null) {
+			fOnCommit.accept(Collections.singletonList(item));
+			return;
+		}
+
+		// A command context is confined to the thread running the command,
+		// so only the map itself needs to be synchronized.
+		List<T> items = fPending.get(commandContext);
+		if (items == null) {
+			items = new ArrayList<>();
+			fPending.put(commandContext, items);
+			commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, c -> {
+				List<T> committed = fPending.remove(commandContext);
+				if (committed != null && !committed.isEmpty()) {
+					fOnCommit.accept(committed);
+				}
+			});
+			commandContext.getTransactionContext().addTransactionListener(TransactionState.ROLLED_BACK, c -> {
+				fPending.remove(commandContext);
+			});
+		}
+		items.add(item);
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.cms.internal.bpm;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count, mean and maximum of a latency since the engine started.
+ */
+public class Latency {
+
+	private final LongAdder fCount = new LongAdder();
+	private final LongAdder fTotalNanos = new LongAdder();
+	private final AtomicLong fMaxNanos = new AtomicLong();
+
+	void record(long nanos) {
+		fCount.increment();
+		fTotalNanos.add(nanos);
+		fMaxNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	public long getCount() {
+		return fCount.sum();
+	}
+
+	public double getAverageMillis() {
+		long count = fCount.sum();
+		return (count == 0) ? 0 : fTotalNanos.sum() / (double) count / 1000000d;
+	}
+
+	public double getMaxMillis() {
+		return fMaxNanos.get() / 1000000d;
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.cms.internal.bpm;
+
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.camunda.bpm.engine.impl.ProcessEngineImpl;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.jobexecutor.AcquiredJobs;
+import org.camunda.bpm.engine.impl.jobexecutor.DefaultJobExecutor;
+import org.camunda.bpm.engine.impl.jobexecutor.NotifyAcquisitionRejectedJobsHandler;
+
+/**
+ * The engine's thread-pool job executor, sized from {@code bpm.yml#jobExecutor}
+ * and instrumented so that acquisition and execution latency can be read from
+ * the GraphQL BPM admin surface. Acquisition is timed around the acquisition
+ * command, execution around each batch of jobs handed to the pool, and the
+ * time a batch spends in the pool's queue is recorded separately, so a pool
+ * that is too small shows up as queue wait rather than as slow jobs.
+ */
+public class MeteredJobExecutor extends DefaultJobExecutor {
+
+	private final int fCorePoolSize;
+	private final int fMaxPoolSize;
+	private final int fQueueSize;
+	private final Latency fAcquisition = new Latency();
+	private final Latency fQueueWait = new Latency();
+	private final Latency fExecution = new Latency();
+	private final LongAdder fAcquiredJobs = new LongAdder();
+	private final LongAdder fExecutedJobs = new LongAdder();
+	private final LongAdder fRejectedJobs = new LongAdder();
+
+	public MeteredJobExecutor(int corePoolSize, int maxPoolSize, int queueSize) {
+		fCorePoolSize = corePoolSize;
+		fMaxPoolSize = maxPoolSize;
+		fQueueSize = queueSize;
+		setCorePoolSize(corePoolSize);
+		setMaxPoolSize(maxPoolSize);
+		setQueueSize(queueSize);
+
+		NotifyAcquisitionRejectedJobsHandler rejectedJobsHandler = new NotifyAcquisitionRejectedJobsHandler();
+		setRejectedJobsHandler((jobIds, processEngine, jobExecutor) -> {
+			fRejectedJobs.add(jobIds.size());
+			rejectedJobsHandler.jobsRejected(jobIds, processEngine, jobExecutor);
+		});
+	}
+
+	@Override
+	public Command<AcquiredJobs> getAcquireJobsCmd(int numJobs) {
+		Command<AcquiredJobs> command = super.getAcquireJobsCmd(numJobs);
+		return commandContext -> {
+			long started = System.nanoTime();
+			AcquiredJobs acquiredJobs = command.execute(commandContext);
+			fAcquisition.record(System.nanoTime() - started);
+			if (acquiredJobs != null) {
+				fAcquiredJobs.add(acquiredJobs.size());
+			}
+			return acquiredJobs;
+		};
+	}
+
+	@Override
+	public Runnable getExecuteJobsRunnable(List<String> jobIds, ProcessEngineImpl processEngine) {
+		Runnable runnable = super.getExecuteJobsRunnable(jobIds, processEngine);
+		long queued = System.nanoTime();
+		return () -> {
+			long started = System.nanoTime();
+			fQueueWait.record(started - queued);
+			try {
+				runnable.run();
+			} finally {
+				fExecution.record(System.nanoTime() - started);
+				fExecutedJobs.add(jobIds.size());
+			}
+		};
+	}
+
+	public int getCorePoolSize() {
+		return fCorePoolSize;
+	}
+
+	public int getMaxPoolSize() {
+		return fMaxPoolSize;
+	}
+
+	public int getQueueSize() {
+		return fQueueSize;
+	}
+
+	/**
+	 * Returns the number of pool threads currently executing jobs.
+	 */
+	public int getActiveThreads() {
+		ThreadPoolExecutor executor = getThreadPoolExecutor();
+		return (executor == null) ? 0 : executor.getActiveCount();
+	}
+
+	/**
+	 * Returns the number of acquired job batches waiting for a pool thread.
+	 */
+	public int getQueuedBatches() {
+		ThreadPoolExecutor executor = getThreadPoolExecutor();
+		return (executor == null) ? 0 : executor.getQueue().size();
+	}
+
+	public long getAcquiredJobs() {
+		return fAcquiredJobs.sum();
+	}
+
+	public long getExecutedJobs() {
+		return fExecutedJobs.sum();
+	}
+
+	public long getRejectedJobs() {
+		return fRejectedJobs.sum();
+	}
+
+	public Latency getAcquisitionLatency() {
+		return fAcquisition;
+	}
+
+	public Latency getQueueWaitLatency() {
+		return fQueueWait;
+	}
+
+	public Latency getExecutionLatency() {
+		return fExecution;
+	}
+
+}
@@ -50,10 +50,16 @@ import org.osgi.service.event.Event;
 import org.osgi.service.event.EventConstants;
 import org.osgi.service.event.EventHandler;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
 public class WorkspaceProcessEngineProvider implements Closeable {
 
 	private final WorkspaceProcessEngineProviderConfiguration fConfig;
 	private final Closer fCloser = Closer.create();
+	private HikariDataSource fDataSource;
+	private MeteredJobExecutor fJobExecutor;
+	private AsyncHistoryEventWriter fHistoryWriter;
 	private ProcessEngine fProcessEngine;
 
 	public WorkspaceProcessEngineProvider(String workspaceName) {
@@ -69,10 +75,24 @@ public class WorkspaceProcessEngineProvider implements Closeable {
 			return;
 		}
 
-		fProcessEngine = fConfig.createProcessEngine();
+		// Registered before the engine so that it is closed after it: the
+		// engine's shutdown still needs its connections.
+		fDataSource = fCloser.register(fConfig.createDataSource());
+		fJobExecutor = fConfig.createJobExecutor();
+		fHistoryWriter = fConfig.createHistoryWriter();
+		fProcessEngine = fConfig.createProcessEngine(fDataSource, fJobExecutor, fHistoryWriter);
 		fCloser.add(new Closeable() {
 			@Override
 			public void close() throws IOException {
+				if (fHistoryWriter != null) {
+					// Jobs produce history too: stop them first, then let the
+					// writer drain its queue while the engine can still run
+					// commands.
+					try {
+						fJobExecutor.shutdown();
+					} catch (Throwable ignore) {}
+					IOs.closeQuietly(fHistoryWriter);
+				}
 				try {
 					fProcessEngine.close();
 				} catch (Throwable ignore) {}
@@ -119,6 +139,36 @@ public class WorkspaceProcessEngineProvider implements Closeable {
 		return fProcessEngine;
 	}
 
+	/**
+	 * Returns the engine's instrumented job executor.
+	 */
+	public MeteredJobExecutor getJobExecutor() {
+		getProcessEngine();
+		return fJobExecutor;
+	}
+
+	/**
+	 * Returns the state of the engine's connection pool.
+	 */
+	public HikariPoolMXBean getDataSourcePool() {
+		getProcessEngine();
+		return fDataSource.getHikariPoolMXBean();
+	}
+
+	/**
+	 * Returns the asynchronous history writer, or {@code null} when the
+	 * engine writes history synchronously.
+	 */
+	public AsyncHistoryEventWriter getHistoryWriter() {
+		getProcessEngine();
+		return fHistoryWriter;
+	}
+
+	public int getDataSourceMaximumPoolSize() {
+		getProcessEngine();
+		return fDataSource.getMaximumPoolSize();
+	}
+
 	private void deploy(Node item) throws IOException, RepositoryException {
 		if (item.getPrimaryNodeType().getName().equals(NodeType.NT_FILE_NAME)) {
 			String itemPath = item.getPath();
@@ -35,6 +35,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import javax.sql.DataSource;
+
 import org.camunda.bpm.engine.ProcessEngine;
 import org.camunda.bpm.engine.ProcessEngineConfiguration;
 import org.camunda.bpm.engine.ProcessEngineException;
@@ -63,6 +65,9 @@ import org.snakeyaml.engine.v2.api.Load;
 import org.snakeyaml.engine.v2.api.LoadSettings;
 import org.snakeyaml.engine.v2.common.FlowStyle;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
 public class WorkspaceProcessEngineProviderConfiguration {
 
 	/**
@@ -78,6 +83,21 @@ public class WorkspaceProcessEngineProviderConfiguration {
 			ProcessEngineConfiguration.HISTORY_FULL,
 			ProcessEngineConfiguration.HISTORY_AUTO);
 
+	/**
+	 * The engine's default driver, matching the embedded H2 database that is
+	 * generated by default.
+	 */
+	private static final String DEFAULT_JDBC_DRIVER = "org.h2.Driver";
+
+	private static final int DEFAULT_JOB_EXECUTOR_CORE_POOL_SIZE = 3;
+	private static final int DEFAULT_JOB_EXECUTOR_MAX_POOL_SIZE = 10;
+
+	/**
+	 * Connections beyond the job executor's threads, for request threads that
+	 * use the engine's services.
+	 */
+	private static final int DEFAULT_DATASOURCE_HEADROOM = 10;
+
 	private final String fWorkspaceName;
 	private Map<String, Object> fConfig;
 
@@ -206,7 +226,91 @@ public class WorkspaceProcessEngineProviderConfiguration {
 		}
 	}
 
-	public ProcessEngine createProcessEngine() {
+	/**
+	 * Creates the Hikari connection pool the engine runs on
+	 * ({@code bpm.yml#datasource}). Handing the engine a pooled
+	 * {@code DataSource} replaces MyBatis's simple built-in pool, which has
+	 * no connection timeout handling and is sized independently of the job
+	 * executor. The pool defaults to the job executor's maximum thread count
+	 * plus headroom for request threads, so job execution alone can never
+	 * exhaust it.
+	 */
+	public HikariDataSource createDataSource() {
+		String driverClassName = getDriverClassName();
+		if (driverClassName == null) {
+			driverClassName = DEFAULT_JDBC_DRIVER;
+		}
+		prepareJdbcDriver(driverClassName);
+
+		HikariConfig config = new HikariConfig();
+		config.setPoolName("bpm-" + getWorkspaceName());
+		config.setJdbcUrl(getJdbcURL());
+		config.setDriverClassName(driverClassName);
+		String username = getUsername();
+		config.setUsername((username != null) ? username : "sa");
+		String password = getPassword();
+		config.setPassword((password != null) ? password : "");
+		int maximumPoolSize = getInteger("datasource", "maximumPoolSize",
+				getInteger("jobExecutor", "maxPoolSize", DEFAULT_JOB_EXECUTOR_MAX_POOL_SIZE)
+						+ DEFAULT_DATASOURCE_HEADROOM);
+		config.setMaximumPoolSize(maximumPoolSize);
+		config.setMinimumIdle(Math.min(maximumPoolSize, getInteger("datasource", "minimumIdle", 2)));
+		config.setConnectionTimeout(getInteger("datasource", "connectionTimeout", 30000));
+		config.setIdleTimeout(getInteger("datasource", "idleTimeout", 600000));
+		config.setMaxLifetime(getInteger("datasource", "maxLifetime", 1800000));
+
+		// Drivers are resolved through the context class loader first; the
+		// Camunda bundle's loader is the one that can see the driver bundle
+		// (see prepareJdbcDriver).
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		Thread.currentThread().setContextClassLoader(ProcessEngineConfiguration.class.getClassLoader());
+		try {
+			return new HikariDataSource(config);
+		} finally {
+			Thread.currentThread().setContextClassLoader(contextClassLoader);
+		}
+	}
+
+	/**
+	 * Creates the engine's job executor from {@code bpm.yml#jobExecutor}.
+	 * Every setting defaults to the engine's own default, so workspaces
+	 * without the section behave as before.
+	 */
+	public MeteredJobExecutor createJobExecutor() {
+		MeteredJobExecutor jobExecutor = new MeteredJobExecutor(
+				getInteger("jobExecutor", "corePoolSize", DEFAULT_JOB_EXECUTOR_CORE_POOL_SIZE),
+				getInteger("jobExecutor", "maxPoolSize", DEFAULT_JOB_EXECUTOR_MAX_POOL_SIZE),
+				getInteger("jobExecutor", "queueSize", 3));
+		jobExecutor.setMaxJobsPerAcquisition(getInteger("jobExecutor", "maxJobsPerAcquisition", 3));
+		jobExecutor.setWaitTimeInMillis(getInteger("jobExecutor", "waitTimeInMillis", 5000));
+		jobExecutor.setMaxWait(getInteger("jobExecutor", "maxWait", 60000));
+		jobExecutor.setLockTimeInMillis(getInteger("jobExecutor", "lockTimeInMillis", 300000));
+		return jobExecutor;
+	}
+
+	/**
+	 * Creates the asynchronous history writer when
+	 * {@code bpm.yml#historyWriter.async} is set, or returns {@code null} to
+	 * keep the engine writing history synchronously, as it does by default.
+	 */
+	@SuppressWarnings("unchecked")
+	public AsyncHistoryEventWriter createHistoryWriter() {
+		Object section = (fConfig == null) ? null : fConfig.get("historyWriter");
+		if (!(section instanceof Map)) {
+			return null;
+		}
+		Object async = ((Map<String, Object>) section).get("async");
+		if (!(async instanceof Boolean ? (Boolean) async
+				: async instanceof String && Boolean.parseBoolean(((String) async).trim()))) {
+			return null;
+		}
+		return new AsyncHistoryEventWriter(getWorkspaceName(),
+				getInteger("historyWriter", "capacity", 10000),
+				getInteger("historyWriter", "batchSize", 500));
+	}
+
+	public ProcessEngine createProcessEngine(DataSource dataSource, MeteredJobExecutor jobExecutor,
+			AsyncHistoryEventWriter historyWriter) {
 		ScriptingEngines scriptingEngines = new ScriptingEngines(new DefaultScriptEngineResolver(CmsService.getWorkspaceScriptEngineManager(getWorkspaceName())));
 		List<ResolverFactory> resolverFactories = new ArrayList<>();
 		resolverFactories.add(new VariableScopeResolverFactory());
@@ -215,22 +319,10 @@ public class WorkspaceProcessEngineProviderConfiguration {
 		ProcessEngineConfigurationImpl config = (ProcessEngineConfigurationImpl) ProcessEngineConfiguration.createStandaloneProcessEngineConfiguration();
 		config.setClassLoader(new WorkspaceDelegatingClassLoader(getWorkspaceName()))
 				.setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_TRUE)
-				.setJdbcUrl(getJdbcURL())
+				.setDataSource(dataSource)
 				.setScriptingEngines(scriptingEngines)
 				.setJobExecutorActivate(true);
-		String username = getUsername();
-		if (username != null) {
-			config.setJdbcUsername(username);
-		}
-		String password = getPassword();
-		if (password != null) {
-			config.setJdbcPassword(password);
-		}
-		String driverClassName = getDriverClassName();
-		if (driverClassName != null) {
-			prepareJdbcDriver(driverClassName);
-			config.setJdbcDriver(driverClassName);
-		}
+		config.setJobExecutor(jobExecutor);
 		config.setJobExecutorAcquireByPriority(true);
 		config.setHistory(getHistory());
 		config.setScriptFactory(new WorkspaceScriptFactory());
@@ -240,13 +332,16 @@ public class WorkspaceProcessEngineProviderConfiguration {
 			plugins = new ArrayList<>();
 			config.setProcessEnginePlugins(plugins);
 		}
+		if (historyWriter != null) {
+			plugins.add(new AsyncHistoryProcessEnginePlugin(historyWriter));
+		}
 		plugins.add(new EventAdminProcessEnginePlugin(getWorkspaceName()));
 		return config.buildProcessEngine();
 	}
 
 	/**
 	 * Loads the configured JDBC driver class eagerly through the Camunda
-	 * bundle's class loader — the loader MyBatis resolves drivers with — so
+	 * bundle's class loader — the loader the pool resolves drivers with — so
 	 * that a missing driver bundle fails fast with a clear message instead
 	 * of surfacing as an obscure connection error during engine bootstrap.
 	 */
@@ -308,6 +403,34 @@ public class WorkspaceProcessEngineProviderConfiguration {
 				.replaceVariables(v.trim());
 	}
 
+	/**
+	 * Returns the integer at {@code bpm.yml#<section>.<key>}, or the default
+	 * when the section or key is absent. A value that is present but not a
+	 * positive integer is rejected eagerly, like an unknown history level.
+	 */
+	@SuppressWarnings("unchecked")
+	private int getInteger(String section, String key, int defaultValue) {
+		Object sectionValue = (fConfig == null) ? null : fConfig.get(section);
+		if (!(sectionValue instanceof Map)) {
+			return defaultValue;
+		}
+		Object value = ((Map<String, Object>) sectionValue).get(key);
+		if (value == null || (value instanceof String && ((String) value).trim().isEmpty())) {
+			return defaultValue;
+		}
+		Integer v;
+		try {
+			v = adapt(value, Integer.class);
+		} catch (Throwable ex) {
+			v = null;
+		}
+		if (v == null || v <= 0) {
+			throw new ProcessEngineException("Invalid BPM configuration value for " + section + "." + key + ": \""
+					+ value + "\". A positive integer is required.");
+		}
+		return v;
+	}
+
 	/**
 	 * Returns the configured Camunda history level for this workspace.
 	 *
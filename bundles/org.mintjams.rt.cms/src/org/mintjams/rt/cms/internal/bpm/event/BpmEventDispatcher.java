@@ -24,13 +24,12 @@ package org.mintjams.rt.cms.internal.bpm.event;
 
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-import org.camunda.bpm.engine.impl.cfg.TransactionListener;
 import org.camunda.bpm.engine.impl.cfg.TransactionState;
-import org.camunda.bpm.engine.impl.context.Context;
-import org.camunda.bpm.engine.impl.interceptor.CommandContext;
 import org.mintjams.rt.cms.internal.CmsService;
+import org.mintjams.rt.cms.internal.bpm.CommitBuffer;
 
 /**
  * Central translation point between the Camunda process engine and the OSGi
@@ -73,6 +72,7 @@ public class BpmEventDispatcher {
 	public static final String ACTION_MIGRATED = "MIGRATED";
 
 	private final String fWorkspaceName;
+	private final CommitBuffer<PendingEvent> fPending = new CommitBuffer<>(this::postAll);
 
 	public BpmEventDispatcher(String workspaceName) {
 		fWorkspaceName = workspaceName;
@@ -115,25 +115,20 @@ public class BpmEventDispatcher {
 
 	/**
 	 * Schedules the event for publication when the current engine transaction
-	 * commits. When no command context is active (which should not happen from
+	 * commits. The events of one transaction are collected and posted together
+	 * from a single commit listener, rather than registering a listener per
+	 * event. When no command context is active (which should not happen from
 	 * within the engine callbacks, but is handled defensively), the event is
 	 * posted immediately.
 	 */
 	public void dispatchOnCommit(String topic, Map<String, Object> properties) {
-		final Map<String, Object> snapshot = Collections.unmodifiableMap(new LinkedHashMap<>(properties));
+		fPending.add(new PendingEvent(topic, Collections.unmodifiableMap(new LinkedHashMap<>(properties))));
+	}
 
-		CommandContext commandContext = Context.getCommandContext();
-		if (commandContext == null) {
-			post(topic, snapshot);
-			return;
+	private void postAll(List<PendingEvent> events) {
+		for (PendingEvent event : events) {
+			post(event.fTopic, event.fProperties);
 		}
-
-		commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, new TransactionListener() {
-			@Override
-			public void execute(CommandContext commandContext) {
-				post(topic, snapshot);
-			}
-		});
 	}
 
 	/**
@@ -148,4 +143,14 @@ public class BpmEventDispatcher {
 		}
 	}
 
+	private static class PendingEvent {
+		private final String fTopic;
+		private final Map<String, Object> fProperties;
+
+		private PendingEvent(String topic, Map<String, Object> properties) {
+			fTopic = topic;
+			fProperties = properties;
+		}
+	}
+
 }
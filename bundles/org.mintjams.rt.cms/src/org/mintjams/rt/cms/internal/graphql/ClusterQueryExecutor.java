@@ -39,7 +39,8 @@ import org.mintjams.tools.adapter.Adaptables;
  * the workspace this session is bound to: whether the node runs as part of
  * a cluster, the identifier of the node serving the request, and — in a
  * clustered deployment — every registered member with the coordinator's
- * heartbeat-freshness judgement.
+ * heartbeat-freshness judgement, and how long changes from the other nodes
+ * take to arrive.
  *
  * <p>In standalone deployments {@code enabled} is {@code false} and the
  * member list is empty, so a client can state "running as a single node"
@@ -73,6 +74,13 @@ public class ClusterQueryExecutor {
 	 *       alive
 	 *       self
 	 *     }
+	 *     deliveryLatencies {
+	 *       channel
+	 *       count
+	 *       lastMillis
+	 *       averageMillis
+	 *       maxMillis
+	 *     }
 	 *   }
 	 * }
 	 * </pre>
@@ -110,6 +118,21 @@ public class ClusterQueryExecutor {
 		}
 		cluster.put("members", members);
 
+		List<Map<String, Object>> deliveryLatencies = new ArrayList<>();
+		if (enabled) {
+			for (Map.Entry<String, ClusterCoordinator.DeliveryLatency> entry : coordinator.getDeliveryLatencies()
+					.entrySet()) {
+				Map<String, Object> e = new HashMap<>();
+				e.put("channel", entry.getKey());
+				e.put("count", entry.getValue().getCount());
+				e.put("lastMillis", entry.getValue().getLastMillis());
+				e.put("averageMillis", entry.getValue().getAverageMillis());
+				e.put("maxMillis", entry.getValue().getMaxMillis());
+				deliveryLatencies.add(e);
+			}
+		}
+		cluster.put("deliveryLatencies", deliveryLatencies);
+
 		Map<String, Object> data = new HashMap<>();
 		data.put("cluster", cluster);
 		return data;
@@ -64,11 +64,17 @@ import org.camunda.bpm.engine.task.Task;
 import org.camunda.bpm.engine.task.TaskQuery;
 import org.camunda.bpm.engine.variable.Variables;
 import org.mintjams.rt.cms.internal.CmsService;
+import org.mintjams.rt.cms.internal.bpm.AsyncHistoryEventWriter;
+import org.mintjams.rt.cms.internal.bpm.Latency;
+import org.mintjams.rt.cms.internal.bpm.MeteredJobExecutor;
+import org.mintjams.rt.cms.internal.bpm.WorkspaceProcessEngineProvider;
 import org.mintjams.rt.cms.internal.job.JobNodes;
 import org.mintjams.rt.cms.internal.job.JobStatus;
 import org.mintjams.rt.cms.internal.job.bpm.MigrateInstancesJob;
 import org.mintjams.rt.cms.internal.util.ISO8601;
 
+import com.zaxxer.hikari.HikariPoolMXBean;
+
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
 import org.mintjams.rt.cms.internal.graphql.GraphQLExecutionContext;
@@ -92,7 +98,8 @@ import org.mintjams.rt.cms.internal.graphql.GraphQLExecutionContext;
  * ({@code processDefinition(s)}, {@code processDefinitionXml},
  * {@code processInstance(s)}, {@code activityHistory}), task reads
  * ({@code task}, {@code tasks}, {@code taskCounts}) and incident reads
- * ({@code incident}, {@code incidents}); process-instance mutations
+ * ({@code incident}, {@code incidents}), the admin-only engine metrics
+ * ({@code bpmEngineMetrics}); process-instance mutations
  * ({@code startProcess}, suspend/activate/cancel/delete, {@code setProcessVariables})
  * and task mutations ({@code claimTask}, {@code unclaimTask}, {@code assignTask},
  * {@code setTaskAssignee}, {@code delegateTask}, {@code completeTask},
@@ -131,6 +138,8 @@ public final class PlatformBpmWiringContributor implements WiringContributor {
 				.dataFetcher("Query", "taskCounts", (DataFetcher<Object>) PlatformBpmWiringContributor::taskCounts)
 				.dataFetcher("Query", "incident", (DataFetcher<Object>) PlatformBpmWiringContributor::incident)
 				.dataFetcher("Query", "incidents", (DataFetcher<Object>) PlatformBpmWiringContributor::incidents)
+				.dataFetcher("Query", "bpmEngineMetrics",
+						(DataFetcher<Object>) PlatformBpmWiringContributor::bpmEngineMetrics)
 				.dataFetcher("Mutation", "startProcess",
 						(DataFetcher<Object>) PlatformBpmWiringContributor::startProcess)
 				.dataFetcher("Mutation", "suspendProcessInstance",
@@ -1642,6 +1651,71 @@ public final class PlatformBpmWiringContributor implements WiringContributor {
 		return m;
 	}
 
+	/**
+	 * {@code Query.bpmEngineMetrics} — job executor and connection pool
+	 * metrics of the workspace's engine. Operational data about the whole
+	 * engine, so restricted to administrators and services like the
+	 * {@code cluster} query.
+	 */
+	private static Object bpmEngineMetrics(DataFetchingEnvironment environment) throws Exception {
+		org.mintjams.jcr.Session session = org.mintjams.jcr.Session.class.cast(callerSession(environment));
+		if (!session.isAdmin() && !session.isService()) {
+			throw new AuthorizationException("BPM engine metrics require administrative privileges");
+		}
+
+		String workspaceName = GraphQLExecutionContext.from(environment).getWorkspaceName();
+		WorkspaceProcessEngineProvider provider = CmsService.getWorkspaceProcessEngineProvider(workspaceName);
+		MeteredJobExecutor jobExecutor = provider.getJobExecutor();
+
+		Map<String, Object> executor = new HashMap<>();
+		executor.put("corePoolSize", jobExecutor.getCorePoolSize());
+		executor.put("maxPoolSize", jobExecutor.getMaxPoolSize());
+		executor.put("queueSize", jobExecutor.getQueueSize());
+		executor.put("activeThreads", jobExecutor.getActiveThreads());
+		executor.put("queuedBatches", jobExecutor.getQueuedBatches());
+		executor.put("acquiredJobs", jobExecutor.getAcquiredJobs());
+		executor.put("executedJobs", jobExecutor.getExecutedJobs());
+		executor.put("rejectedJobs", jobExecutor.getRejectedJobs());
+		executor.put("acquisition", mapLatency(jobExecutor.getAcquisitionLatency()));
+		executor.put("queueWait", mapLatency(jobExecutor.getQueueWaitLatency()));
+		executor.put("execution", mapLatency(jobExecutor.getExecutionLatency()));
+
+		HikariPoolMXBean pool = provider.getDataSourcePool();
+		Map<String, Object> dataSource = new HashMap<>();
+		dataSource.put("maximumPoolSize", provider.getDataSourceMaximumPoolSize());
+		dataSource.put("activeConnections", (pool != null) ? pool.getActiveConnections() : 0);
+		dataSource.put("idleConnections", (pool != null) ? pool.getIdleConnections() : 0);
+		dataSource.put("totalConnections", (pool != null) ? pool.getTotalConnections() : 0);
+		dataSource.put("threadsAwaitingConnection", (pool != null) ? pool.getThreadsAwaitingConnection() : 0);
+
+		Map<String, Object> metrics = new HashMap<>();
+		metrics.put("jobExecutor", executor);
+		metrics.put("dataSource", dataSource);
+
+		AsyncHistoryEventWriter historyWriter = provider.getHistoryWriter();
+		if (historyWriter != null) {
+			Map<String, Object> history = new HashMap<>();
+			history.put("capacity", historyWriter.getCapacity());
+			history.put("batchSize", historyWriter.getBatchSize());
+			history.put("queuedEvents", historyWriter.getQueuedEvents());
+			history.put("lagMillis", historyWriter.getLagMillis());
+			history.put("writtenEvents", historyWriter.getWrittenEvents());
+			history.put("failedEvents", historyWriter.getFailedEvents());
+			history.put("maxBatchSize", historyWriter.getMaxBatchSize());
+			history.put("flush", mapLatency(historyWriter.getFlushLatency()));
+			metrics.put("historyWriter", history);
+		}
+		return metrics;
+	}
+
+	private static Map<String, Object> mapLatency(Latency latency) {
+		Map<String, Object> m = new HashMap<>();
+		m.put("count", latency.getCount());
+		m.put("averageMillis", latency.getAverageMillis());
+		m.put("maxMillis", latency.getMaxMillis());
+		return m;
+	}
+
 	// ---- helpers (mirror BpmQueryExecutor) ---------------------------------
 
 	private static ProcessEngine engine(DataFetchingEnvironment environment) {
@@ -1788,6 +1788,15 @@ public final class PlatformWiringContributor implements WiringContributor {
 			data.put("status", JobNodes.getString(content, JobNodes.PROP_JOB_STATUS, null));
 			data.put("itemsTotal", JobNodes.getLong(content, JobNodes.PROP_ITEMS_TOTAL, 0L));
 			data.put("itemsProcessed", JobNodes.getLong(content, JobNodes.PROP_ITEMS_PROCESSED, 0L));
+			// Queue position while waiting for a worker, and the wait once started.
+			int queuePosition = CmsService.getJobManager().getQueuePosition(jobId);
+			if (queuePosition > 0) {
+				data.put("queuePosition", queuePosition);
+				data.put("queueDepth", CmsService.getJobManager().getQueueDepth());
+			}
+			if (content.hasProperty(JobNodes.PROP_QUEUE_WAIT_MILLIS)) {
+				data.put("queueWaitMillis", JobNodes.getLong(content, JobNodes.PROP_QUEUE_WAIT_MILLIS, 0L));
+			}
 			// Leaf counter: job-type-specific (delete/archive/import).
 			if (content.hasProperty(JobNodes.PROP_ITEMS_DELETED)) {
 				data.put("itemsDeleted", JobNodes.getLong(content, JobNodes.PROP_ITEMS_DELETED, 0L));
@@ -24,10 +24,14 @@ package org.mintjams.rt.cms.internal.job;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -40,25 +44,62 @@ import javax.jcr.Session;
 import org.mintjams.rt.cms.internal.CmsService;
 
 /**
- * Generic background-job runner with a fixed-size worker pool, a priority
- * queue, and per-job abort flags.
+ * Generic background-job runner with a fixed-size worker pool, a fair
+ * scheduler, and per-job abort flags.
  *
  * The manager itself is intentionally unaware of any specific job kind — it
  * accepts anything that implements {@link Job}. State for in-flight jobs lives
  * in JCR (the job node) so a future restart can resume; this class only owns
- * the executor and the in-memory abort flag.
+ * the executor, the pending queue and the in-memory abort flag.
+ *
+ * Jobs are handed to a worker only when one is free, so a job that cannot run
+ * yet stays in the pending list where the next choice can still pass it over.
+ * The choice is made in this order:
+ * <ol>
+ * <li>A job whose type already runs on its concurrency limit waits; this keeps
+ * a batch of long jobs of one type (ten multi-hour archives, say) from taking
+ * every worker.</li>
+ * <li>The highest effective priority wins. A waiting job gains one priority
+ * level per aging interval, so low-priority work is never starved.</li>
+ * <li>Among equal priorities, the owner ({@link Job#getUserId()}) who was
+ * served least recently goes first, so one user's backlog is interleaved with
+ * everyone else's work instead of running ahead of it.</li>
+ * <li>Jobs of the same owner run in submission order.</li>
+ * </ol>
  */
 public class JobManager implements Closeable {
 
 	private final ThreadPoolExecutor fExecutor;
 	private final Map<String, AtomicBoolean> fAbortFlags = new ConcurrentHashMap<>();
 	private volatile boolean fClosed = false;
+	private final int fWorkers;
+	private final int fDefaultTypeLimit;
+	private final Map<String, Integer> fTypeLimits;
+	private final long fAgingIntervalMillis;
+	private final Object fLock = new Object();
+	private final List<JobRunner> fPending = new ArrayList<>();
+	private final Map<String, Integer> fRunningByType = new HashMap<>();
+	private final Map<String, Long> fLastDispatchByOwner = new HashMap<>();
+	private int fRunning;
+	private long fDispatchCount;
 
-	public JobManager(int workers) {
+	/**
+	 * @param defaultTypeLimit the number of jobs of one type that may run at
+	 *        once unless {@code typeLimits} names the type; {@code 0} or less
+	 *        leaves one worker free of any single type
+	 * @param typeLimits per-type concurrency limits keyed by
+	 *        {@link Job#getJobType()}
+	 * @param agingIntervalMillis how long a job waits to gain one priority
+	 *        level; {@code 0} or less disables aging
+	 */
+	public JobManager(int workers, int defaultTypeLimit, Map<String, Integer> typeLimits, long agingIntervalMillis) {
 		if (workers < 1) {
 			workers = 1;
 		}
-		PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+		fWorkers = workers;
+		fDefaultTypeLimit = (defaultTypeLimit > 0) ? defaultTypeLimit : Math.max(workers - 1, 1);
+		fTypeLimits = (typeLimits == null) ? new HashMap<>() : new HashMap<>(typeLimits);
+		fAgingIntervalMillis = agingIntervalMillis;
 		AtomicLong counter = new AtomicLong();
 		// Pin the worker's context classloader to this bundle's loader.
 		// Without this, workers inherit the classloader of whichever thread
@@ -72,13 +113,16 @@ public class JobManager implements Closeable {
 			t.setContextClassLoader(bundleLoader);
 			return t;
 		};
-		fExecutor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, queue, threadFactory);
+		// The executor only ever holds jobs that already have a worker slot;
+		// the scheduling decision is made in dispatch().
+		fExecutor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
 		// Eagerly start one worker so the very first submit doesn't pay the
 		// cost of thread creation, and so any classloader/service-resolution
 		// issue surfaces at boot rather than at first use.
 		fExecutor.prestartCoreThread();
 		CmsService.getLogger(JobManager.class).info(
-				"JobManager initialised with " + workers + " worker(s).");
+				"JobManager initialised with " + workers + " worker(s), type limit " + fDefaultTypeLimit
+						+ (fTypeLimits.isEmpty() ? "" : " " + fTypeLimits) + ".");
 	}
 
 	/**
@@ -91,9 +135,59 @@ public class JobManager implements Closeable {
 		}
 		AtomicBoolean abortFlag = new AtomicBoolean(false);
 		fAbortFlags.put(job.getJobId(), abortFlag);
+		int queueDepth;
+		synchronized (fLock) {
+			fPending.add(new JobRunner(job, abortFlag));
+			queueDepth = fPending.size();
+		}
 		CmsService.getLogger(JobManager.class).info(
-				"Submitting job " + job.getJobId() + " (" + job.getJobType() + ") priority=" + job.getPriority());
-		fExecutor.execute(new JobRunner(job, abortFlag));
+				"Submitting job " + job.getJobId() + " (" + job.getJobType() + ") priority=" + job.getPriority()
+						+ " owner=" + job.getUserId() + " pending=" + queueDepth);
+		dispatch();
+	}
+
+	/**
+	 * Returns the 1-based position the named job would currently be started
+	 * in, or {@code 0} when it is not waiting. The position ignores type
+	 * limits and owner rotation, so it is an estimate for display.
+	 */
+	public int getQueuePosition(String jobId) {
+		synchronized (fLock) {
+			long now = System.currentTimeMillis();
+			JobRunner target = null;
+			for (JobRunner runner : fPending) {
+				if (runner.fJob.getJobId().equals(jobId)) {
+					target = runner;
+					break;
+				}
+			}
+			if (target == null) {
+				return 0;
+			}
+			long targetPriority = target.getEffectivePriority(now);
+			int position = 1;
+			boolean ahead = true;
+			for (JobRunner runner : fPending) {
+				if (runner == target) {
+					ahead = false;
+					continue;
+				}
+				long priority = runner.getEffectivePriority(now);
+				if (priority > targetPriority || (ahead && priority == targetPriority)) {
+					position++;
+				}
+			}
+			return position;
+		}
+	}
+
+	/**
+	 * Returns the number of jobs waiting for a worker.
+	 */
+	public int getQueueDepth() {
+		synchronized (fLock) {
+			return fPending.size();
+		}
 	}
 
 	/**
@@ -116,6 +210,13 @@ public class JobManager implements Closeable {
 	@Override
 	public void close() throws IOException {
 		fClosed = true;
+		// Jobs still waiting stay QUEUED in JCR for recovery after a restart
+		synchronized (fLock) {
+			for (JobRunner runner : fPending) {
+				fAbortFlags.remove(runner.fJob.getJobId());
+			}
+			fPending.clear();
+		}
 		// Signal abort to any in-flight jobs so they can exit cleanly
 		for (AtomicBoolean f : fAbortFlags.values()) {
 			f.set(true);
@@ -132,20 +233,110 @@ public class JobManager implements Closeable {
 	}
 
 	/**
-	 * Wraps a Job so the executor's PriorityBlockingQueue can order entries
-	 * without leaking priority concerns into the Job interface.
+	 * Starts pending jobs while workers are free.
+	 */
+	private void dispatch() {
+		synchronized (fLock) {
+			if (fClosed) {
+				return;
+			}
+			long now = System.currentTimeMillis();
+			while (fRunning < fWorkers) {
+				JobRunner next = selectNext(now);
+				if (next == null) {
+					break;
+				}
+
+				fPending.remove(next);
+				fRunning++;
+				fRunningByType.merge(next.fJob.getJobType(), 1, Integer::sum);
+				fLastDispatchByOwner.put(next.getOwner(), ++fDispatchCount);
+				next.fDispatchedAt = now;
+				next.fQueueDepth = fPending.size();
+				fExecutor.execute(next);
+			}
+
+			if (fLastDispatchByOwner.size() > 1024) {
+				// Forget owners with nothing waiting; their next job simply
+				// counts as never served, which is what it would be anyway.
+				for (Iterator<String> i = fLastDispatchByOwner.keySet().iterator(); i.hasNext();) {
+					String owner = i.next();
+					if (fPending.stream().noneMatch(runner -> runner.getOwner().equals(owner))) {
+						i.remove();
+					}
+				}
+			}
+		}
+	}
+
+	private JobRunner selectNext(long now) {
+		JobRunner best = null;
+		long bestPriority = 0;
+		long bestLastDispatch = 0;
+		for (JobRunner runner : fPending) {
+			String jobType = runner.fJob.getJobType();
+			if (fRunningByType.getOrDefault(jobType, 0) >= fTypeLimits.getOrDefault(jobType, fDefaultTypeLimit)) {
+				continue;
+			}
+
+			long priority = runner.getEffectivePriority(now);
+			long lastDispatch = fLastDispatchByOwner.getOrDefault(runner.getOwner(), 0L);
+			if (best == null || priority > bestPriority || (priority == bestPriority && lastDispatch < bestLastDispatch)) {
+				best = runner;
+				bestPriority = priority;
+				bestLastDispatch = lastDispatch;
+			}
+		}
+		return best;
+	}
+
+	private void finished(JobRunner runner) {
+		synchronized (fLock) {
+			fRunning--;
+			fRunningByType.computeIfPresent(runner.fJob.getJobType(), (k, v) -> (v > 1) ? v - 1 : null);
+		}
+		dispatch();
+	}
+
+	/**
+	 * Wraps a Job with the bookkeeping the scheduler needs, without leaking
+	 * scheduling concerns into the Job interface.
 	 */
-	private final class JobRunner implements Runnable, Comparable<JobRunner> {
+	private final class JobRunner implements Runnable {
 		private final Job fJob;
 		private final AtomicBoolean fAbortFlag;
+		private final long fQueuedAt = System.currentTimeMillis();
+		private long fDispatchedAt;
+		private int fQueueDepth;
 
 		JobRunner(Job job, AtomicBoolean abortFlag) {
 			fJob = job;
 			fAbortFlag = abortFlag;
 		}
 
+		private String getOwner() {
+			String userId = fJob.getUserId();
+			return (userId == null) ? "" : userId;
+		}
+
+		private long getEffectivePriority(long now) {
+			long priority = fJob.getPriority();
+			if (fAgingIntervalMillis > 0) {
+				priority += (now - fQueuedAt) / fAgingIntervalMillis;
+			}
+			return priority;
+		}
+
 		@Override
 		public void run() {
+			try {
+				execute();
+			} finally {
+				finished(this);
+			}
+		}
+
+		private void execute() {
 			CmsService.getLogger(JobManager.class).info(
 					"Job " + fJob.getJobId() + " (" + fJob.getJobType() + ") starting on "
 							+ Thread.currentThread().getName());
@@ -174,8 +365,9 @@ public class JobManager implements Closeable {
 		 * aborted while still queued — possibly from another cluster node —
 		 * is finalised instead of run, and a job already in a terminal state
 		 * is skipped. Also records this node as the executor so a restart
-		 * can recover exactly the jobs that died with it. Bookkeeping
-		 * failures never block execution.
+		 * can recover exactly the jobs that died with it, and how long the
+		 * job waited for a worker. Bookkeeping failures never block
+		 * execution.
 		 */
 		private boolean beginExecution(DefaultJobContext context) {
 			try {
@@ -204,6 +396,8 @@ public class JobManager implements Closeable {
 				}
 
 				JobNodes.setNodeId(session, content);
+				content.setProperty(JobNodes.PROP_QUEUE_WAIT_MILLIS, fDispatchedAt - fQueuedAt);
+				content.setProperty(JobNodes.PROP_QUEUE_DEPTH, (long) fQueueDepth);
 				session.save();
 			} catch (Throwable ex) {
 				CmsService.getLogger(JobManager.class).warn(
@@ -211,11 +405,5 @@ public class JobManager implements Closeable {
 			}
 			return true;
 		}
-
-		@Override
-		public int compareTo(JobRunner other) {
-			// Higher priority first
-			return Integer.compare(other.fJob.getPriority(), this.fJob.getPriority());
-		}
 	}
 }
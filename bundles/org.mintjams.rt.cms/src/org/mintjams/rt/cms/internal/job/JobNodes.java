@@ -203,6 +203,16 @@ public final class JobNodes {
 	 * own jobs and leave the other nodes' running jobs alone.
 	 */
 	public static final String PROP_NODE_ID = "jobNodeId";
+	/**
+	 * Milliseconds the job waited in the {@link JobManager} queue before a
+	 * worker picked it up. Written when the job starts.
+	 */
+	public static final String PROP_QUEUE_WAIT_MILLIS = "jobQueueWaitMillis";
+	/**
+	 * Number of jobs still waiting in the {@link JobManager} queue when this
+	 * one started. Written when the job starts.
+	 */
+	public static final String PROP_QUEUE_DEPTH = "jobQueueDepth";
 
 	private static final SecureRandom RANDOM = new SecureRandom();
 	private static final DateTimeFormatter YEAR_FMT = DateTimeFormatter.ofPattern("yyyy").withZone(ZoneOffset.UTC);
@@ -262,6 +272,18 @@ public final class JobNodes {
 		return parentPath + "/report-" + jobId;
 	}
 
+	/**
+	 * Resolve the absolute path of the checkpoint folder of a chunked import
+	 * job: one {@code nt:file} per committed chunk, recording what that chunk
+	 * imported, so the job can resume after a restart. A sibling of the job
+	 * node (prefix {@code checkpoint-}), like {@link #reportNodePath(String)}.
+	 */
+	public static String checkpointNodePath(String jobId) {
+		String jobNodePath = jobNodePath(jobId);
+		String parentPath = jobNodePath.substring(0, jobNodePath.lastIndexOf('/'));
+		return parentPath + "/checkpoint-" + jobId;
+	}
+
 	private static long parseMillis(String jobId) {
 		if (jobId == null) {
 			throw new IllegalArgumentException("jobId is required");
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.cms.internal.job.archive;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.jcr.Binary;
+
+import org.mintjams.jcr.ImportContentHandler;
+
+/**
+ * Writes the binaries of upcoming archive records into the blob store on a
+ * bounded pool of worker threads, ahead of the importing thread (see
+ * {@link ImportContentHandler#createBinary(InputStream)}). The importer stages
+ * a window of records, populates them while the workers copy the next window,
+ * and picks each binary up through {@link NodeDeserializer.BinarySource}; an
+ * entry that was not staged is read by the deserializer as usual.
+ *
+ * <p>A file body is named by the {@code entry} of the {@code nt:file} record
+ * that precedes its {@code jcr:content} record, so only the most recent entry
+ * is remembered: a body whose file record was not seen here is simply not
+ * staged.
+ */
+final class ArchiveBinaryStager implements NodeDeserializer.BinarySource, AutoCloseable {
+
+	private final ZipFile fZip;
+	private final ImportContentHandler fHandler;
+	private final ExecutorService fExecutor;
+	private final Map<String, Future<Binary>> fStaged = new HashMap<>();
+	private String fLastEntryPath;
+	private String fLastEntry;
+
+	ArchiveBinaryStager(ZipFile zip, ImportContentHandler handler, int threads) {
+		fZip = zip;
+		fHandler = handler;
+		fExecutor = Executors.newFixedThreadPool(Math.max(threads, 1), runnable -> {
+			Thread thread = new Thread(runnable, getClass().getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Queue the binaries of the given records and return the entries queued,
+	 * to be handed to {@link #discard(List)} once the records are done.
+	 */
+	@SuppressWarnings("unchecked")
+	List<String> stage(List<Map<String, Object>> records) {
+		List<String> queued = new ArrayList<>();
+		for (Map<String, Object> record : records) {
+			String path = (String) record.get("path");
+			String bodyEntry = (fLastEntryPath != null && fLastEntryPath.equals(parentPath(path))) ? fLastEntry : null;
+			for (String entryName : NodeDeserializer.binaryEntries(
+					(List<Map<String, Object>>) record.get("properties"), bodyEntry)) {
+				if (fStaged.containsKey(entryName)) {
+					continue;
+				}
+				fStaged.put(entryName, fExecutor.submit(() -> {
+					ZipEntry entry = fZip.getEntry(entryName);
+					if (entry == null) {
+						return null;
+					}
+					try (InputStream in = fZip.getInputStream(entry)) {
+						return fHandler.createBinary(in);
+					}
+				}));
+				queued.add(entryName);
+			}
+			String entry = (String) record.get("entry");
+			if (entry != null) {
+				fLastEntryPath = path;
+				fLastEntry = entry;
+			}
+		}
+		return queued;
+	}
+
+	/**
+	 * Drop the staged binaries no record picked up (the record was skipped or
+	 * failed). Their blobs are left to the blob garbage collection.
+	 */
+	void discard(List<String> entryNames) {
+		for (String entryName : entryNames) {
+			Future<Binary> future = fStaged.remove(entryName);
+			if (future != null) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	@Override
+	public Binary getBinary(String entryName) throws Exception {
+		Future<Binary> future = fStaged.remove(entryName);
+		if (future == null) {
+			return null;
+		}
+		try {
+			return future.get();
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			throw ex;
+		}
+	}
+
+	@Override
+	public void close() {
+		for (Future<Binary> future : fStaged.values()) {
+			future.cancel(true);
+		}
+		fStaged.clear();
+		fExecutor.shutdownNow();
+		try {
+			fExecutor.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static String parentPath(String path) {
+		int idx = path.lastIndexOf('/');
+		if (idx <= 0) {
+			return "/";
+		}
+		return path.substring(0, idx);
+	}
+}
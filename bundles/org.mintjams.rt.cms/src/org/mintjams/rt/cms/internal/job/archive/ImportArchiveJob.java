@@ -36,16 +36,21 @@ import java.util.Calendar;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import javax.jcr.ItemExistsException;
 import javax.jcr.Node;
+import javax.jcr.NodeIterator;
 import javax.jcr.Session;
+import javax.jcr.version.VersionManager;
 
 import org.mintjams.jcr.ImportContentHandler;
 import org.mintjams.jcr.JcrPath;
@@ -73,7 +78,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * and back in versionable nodes it overwrites), and the entire result is then
  * committed by a single {@code save()} (a real import) or discarded by a single
  * {@code refresh(false)} (a dry run — which therefore exercises the very same
- * code, version operations included).
+ * code, version operations included). A real import can instead be committed
+ * in chunks with a resumable checkpoint after each (see {@link #apply}).
  *
  * <p>Outcomes are tallied per file (each {@code nt:file} falls into exactly one
  * of new/overwrite/skip/error). A per-file error is recorded and the import
@@ -90,6 +96,8 @@ public class ImportArchiveJob implements Job {
 	private static final long PROGRESS_THROTTLE_MILLIS = 300L;
 	/** How many errors the completion screen shows; the rest live in the CSV report. */
 	private static final int ERROR_SAMPLE_LIMIT = 20;
+	/** Records read from the nodes file at a time, and whose binaries are staged together. */
+	private static final int STAGING_WINDOW = 256;
 
 	private final String fJobId;
 	private final String fWorkspaceName;
@@ -145,6 +153,16 @@ public class ImportArchiveJob implements Job {
 	private final Map<String, String> fFileOf = new HashMap<>();     // any source path -> owning nt:file source path
 	private final Set<String> fSkippedSubtree = new HashSet<>();     // skipped by policy; descendants cascade as skip
 	private final Set<String> fFailedSubtree = new HashSet<>();      // errored/unimportable; descendants cascade as error
+	private final Set<String> fFolders = new HashSet<>();            // source paths of folder records
+	private final Map<String, Boolean> fFolderTypes = new HashMap<>();
+
+	// Chunked import state (see apply()).
+	private int fChunkSize;
+	private long fRecordsDone;                                       // records of the nodes file processed
+	private long fUncommitted;                                       // records processed since the last commit
+	private int fChunksCommitted;
+	private Chunk fChunk;                                            // what the current chunk changed
+	private final List<String> fCheckedOut = new ArrayList<>();      // overwritten versionable nodes, from the checkpoint
 
 	public ImportArchiveJob(String jobId, String workspaceName, String userId, int priority) {
 		fJobId = jobId;
@@ -314,6 +332,14 @@ public class ImportArchiveJob implements Job {
 					context.getLogger().warn("ImportArchiveJob " + fJobId + " completed with "
 							+ fWarnings.size() + " warning(s); first: " + fWarnings.get(0));
 				}
+				// The job ends here for good (a restart only resumes jobs still
+				// running), so its checkpoint has served its purpose.
+				try {
+					removeCheckpoint(progressSession);
+				} catch (Throwable ex) {
+					progressSession.refresh(true);
+					context.getLogger().warn("ImportArchiveJob " + fJobId + " could not remove its checkpoint", ex);
+				}
 				JobNodes.setStatus(progressContent, finalStatus);
 				progressSession.save();
 			}
@@ -328,10 +354,20 @@ public class ImportArchiveJob implements Job {
 
 	/**
 	 * Run the import in a single session against an {@link ImportContentHandler}.
-	 * The tree is staged transiently with no intermediate saves and then committed
-	 * by one {@code save()} (real import) or discarded by one {@code refresh()}
-	 * (dry run). A {@code throw} conflict policy or a missing ACL principal throws
-	 * to abort; per-file errors are recorded and the walk continues.
+	 * By default the tree is staged transiently with no intermediate saves and
+	 * then committed by one {@code save()} (real import) or discarded by one
+	 * {@code refresh()} (dry run). A {@code throw} conflict policy or a missing
+	 * ACL principal throws to abort; per-file errors are recorded and the walk
+	 * continues.
+	 *
+	 * <p>A real import also takes the bulk path: binaries are written into the
+	 * blob store ahead of the walk by an {@link ArchiveBinaryStager}, journal
+	 * rows go out in JDBC batches, and the search index is rebuilt once at the
+	 * end, for the subtrees the import wrote, instead of per node. With
+	 * {@code archiveImport.chunkSize} set, pass 1 also commits every that many
+	 * records (at a point where every node written so far is complete) and
+	 * records a checkpoint after each commit; a job cut off by a restart is
+	 * queued again and resumes after the last checkpoint.
 	 */
 	private void apply(Session session, ZipFile zip, JobContext context, Node progressContent,
 			Session progressSession) throws Exception {
@@ -340,62 +376,198 @@ public class ImportArchiveJob implements Job {
 
 		NodeDeserializer deserializer = new NodeDeserializer(session, zip);
 		List<NodeDeserializer.DeferredRef> deferred = new ArrayList<>();
+		CmsConfiguration config = CmsService.getConfiguration();
+		long resumeAt = 0;
+		if (!fDryRun) {
+			fChunkSize = Math.max(config.getArchiveImportChunkSize(), 0);
+			resumeAt = loadCheckpoint(progressSession, deferred);
+			if (resumeAt > 0) {
+				context.getLogger().info("ImportArchiveJob " + fJobId + " resumes after " + resumeAt
+						+ " record(s) from its checkpoint");
+			}
+		}
 
 		try (ImportContentHandler handler =
-				((org.mintjams.jcr.Session) session).getImportContentHandler(fUuidBehavior, fPathBehavior)) {
-
-			// Pass 1 — materialise.
-			try (BufferedReader reader = openNodes(zip)) {
-				String line;
-				while ((line = reader.readLine()) != null) {
-					if (line.isEmpty()) {
-						continue;
+				((org.mintjams.jcr.Session) session).getImportContentHandler(fUuidBehavior, fPathBehavior);
+				ArchiveBinaryStager stager = fDryRun ? null
+						: new ArchiveBinaryStager(zip, handler, config.getArchiveImportBinaryThreads())) {
+			if (stager != null) {
+				handler.setWriteBatchSize(config.getArchiveImportWriteBatchSize());
+				handler.setSearchIndexDeferred(true);
+				deserializer.setBinarySource(stager);
+			}
+			if (fChunkSize > 0) {
+				fChunk = new Chunk(deferred.size());
+			}
+
+			boolean completed = false;
+			try {
+				// Pass 1 — materialise, one staging window at a time: the stager
+				// writes the binaries of the next window while this one is applied.
+				try (BufferedReader reader = openNodes(zip)) {
+					skipRecords(reader, session, resumeAt);
+					List<Map<String, Object>> next = readRecords(reader);
+					List<String> nextStaged = (stager == null) ? null : stager.stage(next);
+					while (!next.isEmpty()) {
+						List<Map<String, Object>> current = next;
+						List<String> staged = nextStaged;
+						next = readRecords(reader);
+						nextStaged = (stager == null) ? null : stager.stage(next);
+						for (Map<String, Object> record : current) {
+							if (context.isAborted()) {
+								throw new AbortedException();
+							}
+							if (fChunk != null && fUncommitted >= fChunkSize && isChunkBoundary(record)) {
+								commitChunk(session, progressSession, deferred);
+							}
+							try {
+								materialise(handler, session, record, deserializer, deferred);
+							} catch (AbortedException abort) {
+								throw abort;
+							} catch (ItemExistsException policy) {
+								// A throw-policy conflict: record it, then abort the import.
+								handleError(record, policy);
+								throw policy;
+							} catch (Throwable perFile) {
+								handleError(record, perFile);
+							}
+							fRecordsDone++;
+							fUncommitted++;
+							writeProgress(progressContent, progressSession, (String) record.get("path"), false);
+						}
+						if (staged != null) {
+							stager.discard(staged);
+						}
 					}
+				}
+
+				// Pass 2 — link references.
+				for (NodeDeserializer.DeferredRef ref : deferred) {
 					if (context.isAborted()) {
 						throw new AbortedException();
 					}
-					Map<String, Object> record = parse(line);
-					try {
-						materialise(handler, session, record, deserializer, deferred);
-					} catch (AbortedException abort) {
-						throw abort;
-					} catch (ItemExistsException policy) {
-						// A throw-policy conflict: record it, then abort the import.
-						handleError(record, policy);
-						throw policy;
-					} catch (Throwable perFile) {
-						handleError(record, perFile);
+					deserializer.resolveReference(ref, fIdMap, fWarnings);
+				}
+
+				// Pass 3 — access control (opt-in; a missing principal aborts).
+				if (fImportAcl) {
+					applyAcls(session, zip, context);
+				}
+
+				// Check the overwritten versionable nodes back in, capturing the
+				// imported content as a new version, before the single commit.
+				// Those checked out before a restart are known from the checkpoint.
+				VersionManager versionManager = session.getWorkspace().getVersionManager();
+				for (String path : fCheckedOut) {
+					if (session.nodeExists(path) && versionManager.isCheckedOut(path)) {
+						versionManager.checkin(path);
 					}
-					writeProgress(progressContent, progressSession, (String) record.get("path"), false);
 				}
-			}
+				handler.checkInOverwritten();
 
-			// Pass 2 — link references.
-			for (NodeDeserializer.DeferredRef ref : deferred) {
-				if (context.isAborted()) {
-					throw new AbortedException();
+				// Single transactional boundary (the last one, for a chunked import).
+				if (fDryRun) {
+					session.refresh(false);
+				} else {
+					session.save();
+				}
+				completed = true;
+			} finally {
+				// The committed content is indexed in one go, also when a chunked
+				// import stops part way.
+				if (!fDryRun && (completed || fChunksCommitted > 0)) {
+					try {
+						handler.rebuildSearchIndex(getImportedRoots());
+					} catch (Throwable ex) {
+						context.getLogger().warn("ImportArchiveJob " + fJobId
+								+ " could not queue the search index rebuild", ex);
+					}
 				}
-				deserializer.resolveReference(ref, fIdMap, fWarnings);
 			}
+		}
+	}
 
-			// Pass 3 — access control (opt-in; a missing principal aborts).
-			if (fImportAcl) {
-				applyAcls(session, zip, context);
+	/**
+	 * The topmost nodes the import wrote: every target path whose parent the
+	 * import did not write. Content already under the destination is left out
+	 * of the index rebuild unless the archive wrote it or a node above it.
+	 */
+	private Set<String> getImportedRoots() {
+		Set<String> written = new HashSet<>(fPathMap.values());
+		Set<String> roots = new TreeSet<>();
+		for (String path : written) {
+			if (!written.contains(parentPath(path))) {
+				roots.add(path);
 			}
+		}
+		return roots;
+	}
 
-			// Check the overwritten versionable nodes back in, capturing the
-			// imported content as a new version, before the single commit.
-			handler.checkInOverwritten();
+	/** Read the next staging window of records from the nodes file. */
+	private List<Map<String, Object>> readRecords(BufferedReader reader) throws Exception {
+		List<Map<String, Object>> records = new ArrayList<>();
+		String line;
+		while (records.size() < STAGING_WINDOW && (line = reader.readLine()) != null) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			records.add(parse(line));
+		}
+		return records;
+	}
 
-			// Single transactional boundary.
-			if (fDryRun) {
-				session.refresh(false);
-			} else {
-				session.save();
+	/**
+	 * Skip the records a resumed import already committed, noting only which of
+	 * them are folders (see {@link #isChunkBoundary(Map)}).
+	 */
+	private void skipRecords(BufferedReader reader, Session session, long count) throws Exception {
+		String line;
+		while (fRecordsDone < count && (line = reader.readLine()) != null) {
+			if (line.isEmpty()) {
+				continue;
 			}
+			Map<String, Object> record = parse(line);
+			if (isFolderType(session, (String) record.get("primaryType"))) {
+				fFolders.add((String) record.get("path"));
+			}
+			fRecordsDone++;
 		}
 	}
 
+	/**
+	 * Whether a chunk may be committed before {@code record}: only when its
+	 * parent is a folder (or lies outside the archive), so every node written
+	 * so far has its subtree complete and the save never meets a node still
+	 * missing a mandatory child, such as a file without its {@code jcr:content}.
+	 */
+	private boolean isChunkBoundary(Map<String, Object> record) {
+		String parentSrc = parentPath((String) record.get("path"));
+		return fFolders.contains(parentSrc) || !(fPathMap.containsKey(parentSrc)
+				|| fSkippedSubtree.contains(parentSrc) || fFailedSubtree.contains(parentSrc));
+	}
+
+	private boolean isFolderType(Session session, String primaryType) {
+		if (primaryType == null) {
+			return false;
+		}
+		return fFolderTypes.computeIfAbsent(primaryType, type -> {
+			try {
+				return session.getWorkspace().getNodeTypeManager().getNodeType(type).isNodeType("nt:folder");
+			} catch (Throwable ex) {
+				return false;
+			}
+		});
+	}
+
+	private void commitChunk(Session session, Session progressSession, List<NodeDeserializer.DeferredRef> deferred)
+			throws Exception {
+		session.save();
+		fChunksCommitted++;
+		fUncommitted = 0;
+		storeCheckpoint(progressSession, deferred);
+		fChunk = new Chunk(deferred.size());
+	}
+
 	@SuppressWarnings("unchecked")
 	private void materialise(ImportContentHandler handler, Session session, Map<String, Object> record,
 			NodeDeserializer deserializer, List<NodeDeserializer.DeferredRef> deferred) throws Exception {
@@ -409,18 +581,21 @@ public class ImportArchiveJob implements Job {
 		boolean isFile = "nt:file".equals(primaryType);
 
 		String parentSrc = parentPath(srcPath);
+		if (isFolderType(session, primaryType)) {
+			fFolders.add(srcPath);
+		}
 
 		// Cascade: a node whose ancestor was skipped or could not be imported is
 		// itself unimportable. Count the file accordingly; never touch the tree.
 		if (fSkippedSubtree.contains(parentSrc)) {
-			fSkippedSubtree.add(srcPath);
+			markSkipped(srcPath);
 			if (isFile) {
 				recordOutcome(srcPath, computeTargetPath(record), Action.SKIP);
 			}
 			return;
 		}
 		if (fFailedSubtree.contains(parentSrc)) {
-			fFailedSubtree.add(srcPath);
+			markFailed(srcPath);
 			if (isFile) {
 				markFileError(srcPath, computeTargetPath(record), ancestorFailedMessage(parentSrc));
 			}
@@ -433,7 +608,7 @@ public class ImportArchiveJob implements Job {
 
 		ImportContentHandler.Result result = handler.importNode(parentTgt, name, primaryType, uuid, created);
 		if (result.getDisposition() == ImportContentHandler.Disposition.SKIPPED) {
-			fSkippedSubtree.add(srcPath);
+			markSkipped(srcPath);
 			if (isFile) {
 				recordOutcome(srcPath, childPath(parentTgt, name), Action.SKIP);
 			}
@@ -477,6 +652,19 @@ public class ImportArchiveJob implements Job {
 		if (uuid != null) {
 			fIdMap.put(uuid, node.getIdentifier());
 		}
+		if (fChunk != null) {
+			if (entry != null) {
+				fChunk.entries.put(srcPath, entry);
+			}
+			fChunk.paths.put(srcPath, node.getPath());
+			fChunk.fileOf.put(srcPath, fFileOf.get(srcPath));
+			if (uuid != null) {
+				fChunk.ids.put(uuid, node.getIdentifier());
+			}
+			if (!created2 && node.isNodeType("mix:versionable")) {
+				fChunk.checkedOut.add(node.getPath());
+			}
+		}
 		if (isFile) {
 			recordOutcome(srcPath, node.getPath(), created2 ? Action.NEW : Action.OVERWRITE);
 		}
@@ -555,6 +743,9 @@ public class ImportArchiveJob implements Job {
 
 	/** Record (or reclassify) a file's outcome to a non-error action. */
 	private void recordOutcome(String srcPath, String tgtPath, Action action) {
+		if (fChunk != null) {
+			fChunk.results.add(srcPath);
+		}
 		FileResult fr = fResults.get(srcPath);
 		if (fr == null) {
 			fResults.put(srcPath, new FileResult(tgtPath, action));
@@ -572,6 +763,9 @@ public class ImportArchiveJob implements Job {
 	 * an error never double-counts a file already counted as new or overwrite.
 	 */
 	private void markFileError(String srcPath, String tgtPath, String message) {
+		if (fChunk != null) {
+			fChunk.results.add(srcPath);
+		}
 		FileResult fr = fResults.get(srcPath);
 		if (fr == null) {
 			FileResult created = new FileResult(tgtPath, Action.ERROR);
@@ -590,11 +784,25 @@ public class ImportArchiveJob implements Job {
 		}
 	}
 
+	private void markSkipped(String srcPath) {
+		fSkippedSubtree.add(srcPath);
+		if (fChunk != null) {
+			fChunk.skipped.add(srcPath);
+		}
+	}
+
+	private void markFailed(String srcPath) {
+		fFailedSubtree.add(srcPath);
+		if (fChunk != null) {
+			fChunk.failed.add(srcPath);
+		}
+	}
+
 	private void handleError(Map<String, Object> record, Throwable ex) {
 		String srcPath = (String) record.get("path");
 		String primaryType = (String) record.get("primaryType");
 		String message = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
-		fFailedSubtree.add(srcPath);
+		markFailed(srcPath);
 		if ("nt:file".equals(primaryType)) {
 			markFileError(srcPath, computeTargetPath(record), message);
 			return;
@@ -731,6 +939,145 @@ public class ImportArchiveJob implements Job {
 		session.save();
 	}
 
+	// =========================================================================
+	// Checkpoint
+	// =========================================================================
+
+	/**
+	 * What one committed chunk added to the working state. Stored as its own
+	 * {@code chunk-NNNNNNNN} file under {@link JobNodes#checkpointNodePath}, so a
+	 * checkpoint costs the size of the chunk rather than of the whole import.
+	 */
+	private static final class Chunk {
+		final Map<String, String> ids = new LinkedHashMap<>();
+		final Map<String, String> paths = new LinkedHashMap<>();
+		final Map<String, String> entries = new LinkedHashMap<>();
+		final Map<String, String> fileOf = new LinkedHashMap<>();
+		final List<String> skipped = new ArrayList<>();
+		final List<String> failed = new ArrayList<>();
+		/** Files whose outcome was recorded or reclassified. */
+		final Set<String> results = new LinkedHashSet<>();
+		final List<String> checkedOut = new ArrayList<>();
+		/** Index of the first deferred reference collected in this chunk. */
+		final int refsFrom;
+
+		Chunk(int refsFrom) {
+			this.refsFrom = refsFrom;
+		}
+	}
+
+	/**
+	 * Record the chunk just committed. Saved right after the chunk: should the
+	 * node stop in between, the resumed import applies that chunk once more,
+	 * and the path conflict policy treats its nodes like any existing node.
+	 */
+	private void storeCheckpoint(Session progressSession, List<NodeDeserializer.DeferredRef> deferred)
+			throws Exception {
+		Map<String, Object> results = new LinkedHashMap<>();
+		for (String srcPath : fChunk.results) {
+			FileResult fr = fResults.get(srcPath);
+			Map<String, Object> result = new LinkedHashMap<>();
+			result.put("path", fr.path);
+			result.put("action", fr.action.name());
+			result.put("error", fr.error);
+			results.put(srcPath, result);
+		}
+		List<Map<String, Object>> refs = new ArrayList<>();
+		for (NodeDeserializer.DeferredRef ref : deferred.subList(fChunk.refsFrom, deferred.size())) {
+			Map<String, Object> r = new LinkedHashMap<>();
+			r.put("nodePath", ref.nodePath);
+			r.put("name", ref.name);
+			r.put("weak", ref.weak);
+			r.put("multiple", ref.multiple);
+			r.put("targets", ref.targets);
+			refs.add(r);
+		}
+		Map<String, Object> data = new LinkedHashMap<>();
+		data.put("records", fRecordsDone);
+		data.put("ids", fChunk.ids);
+		data.put("paths", fChunk.paths);
+		data.put("entries", fChunk.entries);
+		data.put("fileOf", fChunk.fileOf);
+		data.put("skipped", fChunk.skipped);
+		data.put("failed", fChunk.failed);
+		data.put("results", results);
+		data.put("refs", refs);
+		data.put("checkedOut", fChunk.checkedOut);
+
+		Node folder = JCRs.getOrCreateFolder(JcrPath.valueOf(JobNodes.checkpointNodePath(fJobId)), progressSession);
+		Node fileNode = JCRs.createFile(folder, String.format("chunk-%08d", fChunksCommitted));
+		try (InputStream in = new ByteArrayInputStream(fMapper.writeValueAsBytes(data))) {
+			JCRs.write(fileNode, in);
+		}
+		JCRs.getContentNode(fileNode).setProperty("jcr:mimeType", "application/json");
+		progressSession.save();
+	}
+
+	/**
+	 * Restore the working state from the checkpoint of an earlier run of this
+	 * job, chunk by chunk, and return the number of records it covers (none
+	 * when there is no checkpoint).
+	 */
+	@SuppressWarnings("unchecked")
+	private long loadCheckpoint(Session progressSession, List<NodeDeserializer.DeferredRef> deferred)
+			throws Exception {
+		String checkpointPath = JobNodes.checkpointNodePath(fJobId);
+		if (!progressSession.nodeExists(checkpointPath)) {
+			return 0;
+		}
+
+		// Chunk names are zero-padded, so name order is commit order.
+		Map<String, Node> chunks = new TreeMap<>();
+		for (NodeIterator i = progressSession.getNode(checkpointPath).getNodes("chunk-*"); i.hasNext();) {
+			Node chunk = i.nextNode();
+			chunks.put(chunk.getName(), chunk);
+		}
+
+		long records = 0;
+		for (Node chunk : chunks.values()) {
+			Map<String, Object> data;
+			try (InputStream in = JCRs.getContentAsStream(chunk)) {
+				data = parseStream(in);
+			}
+			records = asLong(data.get("records"));
+			fIdMap.putAll((Map<String, String>) data.get("ids"));
+			fPathMap.putAll((Map<String, String>) data.get("paths"));
+			fEntryMap.putAll((Map<String, String>) data.get("entries"));
+			fFileOf.putAll((Map<String, String>) data.get("fileOf"));
+			fSkippedSubtree.addAll((List<String>) data.get("skipped"));
+			fFailedSubtree.addAll((List<String>) data.get("failed"));
+			for (Map.Entry<String, Object> e : ((Map<String, Object>) data.get("results")).entrySet()) {
+				Map<String, Object> result = (Map<String, Object>) e.getValue();
+				FileResult fr = new FileResult((String) result.get("path"), Action.valueOf((String) result.get("action")));
+				fr.error = (String) result.get("error");
+				fResults.put(e.getKey(), fr);
+			}
+			for (Map<String, Object> r : (List<Map<String, Object>>) data.get("refs")) {
+				deferred.add(new NodeDeserializer.DeferredRef((String) r.get("nodePath"), (String) r.get("name"),
+						Boolean.TRUE.equals(r.get("weak")), Boolean.TRUE.equals(r.get("multiple")),
+						(List<String>) r.get("targets")));
+			}
+			fCheckedOut.addAll((List<String>) data.get("checkedOut"));
+			fChunksCommitted++;
+		}
+
+		for (FileResult fr : fResults.values()) {
+			bump(fr.action, +1);
+			if (fr.action == Action.ERROR) {
+				addErrorSample(fr.path, fr.error);
+			}
+		}
+		return records;
+	}
+
+	private void removeCheckpoint(Session progressSession) throws Exception {
+		String checkpointPath = JobNodes.checkpointNodePath(fJobId);
+		if (progressSession.nodeExists(checkpointPath)) {
+			progressSession.getNode(checkpointPath).remove();
+			progressSession.save();
+		}
+	}
+
 	// =========================================================================
 	// Helpers
 	// =========================================================================
@@ -33,6 +33,7 @@ import java.util.TimeZone;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+import javax.jcr.Binary;
 import javax.jcr.Node;
 import javax.jcr.PropertyType;
 import javax.jcr.Session;
@@ -58,6 +59,7 @@ public final class NodeDeserializer {
 	private final ValueFactory fValueFactory;
 	private final ZipFile fZip;
 	private final java.util.Set<String> fProtectedNames;
+	private BinarySource fBinarySource;
 
 	public NodeDeserializer(Session session, ZipFile zip) throws Exception {
 		fSession = session;
@@ -71,6 +73,46 @@ public final class NodeDeserializer {
 		fProtectedNames = NodeSerializer.collectProtectedPropertyNames(session);
 	}
 
+	/**
+	 * Supplies binaries the importer wrote ahead of time, keyed by the archive
+	 * entry they were read from. Returns {@code null} for an entry it does not
+	 * hold, which is then read from the archive here.
+	 */
+	public interface BinarySource {
+		Binary getBinary(String entryName) throws Exception;
+	}
+
+	public void setBinarySource(BinarySource binarySource) {
+		fBinarySource = binarySource;
+	}
+
+	/**
+	 * The archive entries holding the binary values of one record's properties,
+	 * so an importer can read them ahead of {@link #applyProperties}. A value
+	 * whose entry cannot be told (a body marker without {@code bodyEntry}) is
+	 * left out; {@link #applyProperties} reports it.
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<String> binaryEntries(List<Map<String, Object>> props, String bodyEntry) {
+		List<String> entries = new ArrayList<>();
+		if (props == null) {
+			return entries;
+		}
+		for (Map<String, Object> prop : props) {
+			if (!PropertyType.TYPENAME_BINARY.equals(prop.get("type"))) {
+				continue;
+			}
+			Object raw = prop.get("value");
+			List<Object> elems = Boolean.TRUE.equals(prop.get("multiple")) ? (List<Object>) raw : List.of(raw);
+			for (Object elem : elems) {
+				try {
+					entries.add(binaryEntry(elem, bodyEntry));
+				} catch (IllegalStateException ignore) {}
+			}
+		}
+		return entries;
+	}
+
 	/**
 	 * A reference property whose values must be resolved after all nodes exist.
 	 * {@link #targets} holds the source identifiers as stored in the archive;
@@ -156,7 +198,7 @@ public final class NodeDeserializer {
 	private Value toValue(int type, Object raw, String bodyEntry) throws Exception {
 		switch (type) {
 		case PropertyType.BINARY:
-			return fValueFactory.createValue(fValueFactory.createBinary(openBinary(raw, bodyEntry)));
+			return fValueFactory.createValue(toBinary(raw, bodyEntry));
 		case PropertyType.DATE:
 			return fValueFactory.createValue(parseDate(String.valueOf(raw)));
 		case PropertyType.BOOLEAN:
@@ -173,25 +215,34 @@ public final class NodeDeserializer {
 		}
 	}
 
+	private Binary toBinary(Object raw, String bodyEntry) throws Exception {
+		String entryName = binaryEntry(raw, bodyEntry);
+		Binary binary = (fBinarySource == null) ? null : fBinarySource.getBinary(entryName);
+		if (binary == null) {
+			binary = fValueFactory.createBinary(entryStream(entryName));
+		}
+		return binary;
+	}
+
 	/**
-	 * Open the bytes behind a binary value: a {@code {"body": true}} marker reads
-	 * the file body from the content tree; a {@code {"blob": "blobs/NNNN"}}
-	 * reference reads the spilled payload from {@code .cms-archive/blobs/}.
+	 * Locate the bytes behind a binary value: a {@code {"body": true}} marker
+	 * names the file body in the content tree; a {@code {"blob": "blobs/NNNN"}}
+	 * reference names the spilled payload in {@code .cms-archive/blobs/}.
 	 */
 	@SuppressWarnings("unchecked")
-	private InputStream openBinary(Object raw, String bodyEntry) throws Exception {
+	private static String binaryEntry(Object raw, String bodyEntry) {
 		Map<String, Object> ref = (Map<String, Object>) raw;
 		if (Boolean.TRUE.equals(ref.get("body"))) {
 			if (bodyEntry == null) {
 				throw new IllegalStateException("Binary body marker without a content-tree entry");
 			}
-			return entryStream(bodyEntry);
+			return bodyEntry;
 		}
 		String blob = (String) ref.get("blob");
 		if (blob == null) {
 			throw new IllegalStateException("Binary value is neither a body nor a blob reference");
 		}
-		return entryStream(ArchiveManifest.DIR + "/" + blob);
+		return ArchiveManifest.DIR + "/" + blob;
 	}
 
 	private InputStream entryStream(String entryName) throws Exception {
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.mintjams.rt.cms.internal.script;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import javax.script.SimpleBindings;
+
+/**
+ * Script bindings whose values may be supplied on first lookup. A lazy entry
+ * is visible to {@link #containsKey(Object)} and {@link #keySet()} like any
+ * other, and is resolved, once, by {@link #get(Object)} or by iterating
+ * {@link #values()} or {@link #entrySet()}.
+ */
+public class LazyBindings extends SimpleBindings {
+
+	private final Map<String, Supplier<?>> fSuppliers = new HashMap<>();
+
+	public void putLazy(String name, Supplier<?> supplier) {
+		super.remove(name);
+		fSuppliers.put(name, supplier);
+	}
+
+	/**
+	 * Returns whether the entry is present and no longer waiting for its
+	 * supplier.
+	 */
+	public boolean isResolved(String name) {
+		return !fSuppliers.containsKey(name) && super.containsKey(name);
+	}
+
+	/**
+	 * Returns the values resolved so far, without resolving the rest.
+	 */
+	public Collection<Object> resolvedValues() {
+		return new ArrayList<>(super.values());
+	}
+
+	private void resolve(Object key) {
+		Supplier<?> supplier = fSuppliers.remove(key);
+		if (supplier != null) {
+			super.put((String) key, supplier.get());
+		}
+	}
+
+	private void resolveAll() {
+		for (String name : new ArrayList<>(fSuppliers.keySet())) {
+			resolve(name);
+		}
+	}
+
+	@Override
+	public Object get(Object key) {
+		resolve(key);
+		return super.get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return fSuppliers.containsKey(key) || super.containsKey(key);
+	}
+
+	@Override
+	public Object put(String name, Object value) {
+		fSuppliers.remove(name);
+		return super.put(name, value);
+	}
+
+	@Override
+	public Object remove(Object key) {
+		fSuppliers.remove(key);
+		return super.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		fSuppliers.clear();
+		super.clear();
+	}
+
+	@Override
+	public Set<String> keySet() {
+		Set<String> keys = new LinkedHashSet<>(super.keySet());
+		keys.addAll(fSuppliers.keySet());
+		return Collections.unmodifiableSet(keys);
+	}
+
+	@Override
+	public int size() {
+		return super.size() + fSuppliers.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		resolveAll();
+		return super.containsValue(value);
+	}
+
+	@Override
+	public Collection<Object> values() {
+		resolveAll();
+		return super.values();
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		resolveAll();
+		return super.entrySet();
+	}
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.cms.internal.script;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.PathNotFoundException;
+import javax.jcr.Property;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.nodetype.NodeType;
+import javax.script.Compilable;
+import javax.script.ScriptEngine;
+
+import org.mintjams.jcr.util.JCRs;
+import org.mintjams.rt.cms.internal.CmsService;
+import org.mintjams.rt.cms.internal.script.engine.ScriptCache;
+import org.mintjams.rt.cms.internal.security.CmsServiceCredentials;
+import org.mintjams.tools.adapter.Adaptables;
+import org.mintjams.tools.lang.ClassLoaders;
+
+/**
+ * Compiles the scripts under the configured paths
+ * ({@code scriptPrecompile.paths} in {@code cms.yml}) in the background when
+ * a workspace starts, so that the first requests after a deploy or restart
+ * find them in the engines' script caches instead of compiling them all at
+ * once. Only engines with a script cache (GSP, native ECMA) are precompiled;
+ * the scripts are compiled, never evaluated.
+ *
+ * <p>Each engine keeps at most {@code maxScriptCachePerScriptEngine} scripts,
+ * so the paths should name the templates and scripts that are actually hot
+ * rather than the whole content tree.
+ */
+public class ScriptPrecompiler implements Closeable {
+
+	private static final int PROGRESS_INTERVAL = 50;
+
+	private final WorkspaceScriptEngineManager fScriptEngineManager;
+	private final String[] fPaths;
+	private Thread fThread;
+	private volatile boolean fCloseRequested;
+
+	public ScriptPrecompiler(WorkspaceScriptEngineManager scriptEngineManager, String[] paths) {
+		fScriptEngineManager = scriptEngineManager;
+		fPaths = paths;
+	}
+
+	public synchronized ScriptPrecompiler open() {
+		if (fThread != null) {
+			return this;
+		}
+
+		fThread = new Thread(new Task(), "script-precompiler-" + getWorkspaceName());
+		fThread.setDaemon(true);
+		fThread.start();
+		return this;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (fThread == null) {
+			return;
+		}
+
+		fCloseRequested = true;
+		try {
+			fThread.interrupt();
+			fThread.join(10000);
+		} catch (InterruptedException ignore) {}
+		fThread = null;
+	}
+
+	private String getWorkspaceName() {
+		return fScriptEngineManager.getWorkspaceName();
+	}
+
+	private class Task implements Runnable {
+		@Override
+		public void run() {
+			long start = System.currentTimeMillis();
+			int compiled = 0;
+			int failed = 0;
+			int total = 0;
+			Session session = null;
+			try {
+				session = CmsService.getRepository().login(new CmsServiceCredentials(), getWorkspaceName());
+
+				List<Node> scripts = new ArrayList<>();
+				for (String path : fPaths) {
+					try {
+						collect(session.getNode(path), scripts);
+					} catch (PathNotFoundException ignore) {}
+				}
+				total = scripts.size();
+				CmsService.getLogger(getClass()).info("Precompiling " + total + " scripts: " + getWorkspaceName());
+
+				ClassLoader classLoader = CmsService.getWorkspaceClassLoaderProvider(getWorkspaceName()).getClassLoader();
+				for (Node node : scripts) {
+					if (fCloseRequested || Thread.currentThread().isInterrupted()) {
+						break;
+					}
+
+					try (Closeable c = ClassLoaders.withClassLoader(classLoader)) {
+						compile(node);
+						compiled++;
+					} catch (Throwable ex) {
+						failed++;
+						CmsService.getLogger(getClass()).warn("Unable to precompile script: " + node.getPath() + ": " + ex.getMessage());
+					}
+
+					if ((compiled + failed) % PROGRESS_INTERVAL == 0) {
+						CmsService.getLogger(getClass()).info("Precompiled " + (compiled + failed) + " of " + total + " scripts: " + getWorkspaceName());
+					}
+				}
+			} catch (Throwable ex) {
+				CmsService.getLogger(getClass()).warn("An error occurred while precompiling scripts: " + getWorkspaceName(), ex);
+			} finally {
+				try {
+					session.logout();
+				} catch (Throwable ignore) {}
+			}
+
+			CmsService.getLogger(getClass()).info("Precompiled " + compiled + " of " + total + " scripts in "
+					+ (System.currentTimeMillis() - start) + " ms (" + failed + " failed): " + getWorkspaceName());
+		}
+
+		private void collect(Node node, List<Node> scripts) throws RepositoryException {
+			if (node.isNodeType(NodeType.NT_FILE)) {
+				if (getCompilable(node.getName()) != null) {
+					scripts.add(node);
+				}
+				return;
+			}
+			if (!node.isNodeType(NodeType.NT_FOLDER)) {
+				return;
+			}
+
+			for (NodeIterator i = node.getNodes(); i.hasNext();) {
+				if (fCloseRequested) {
+					return;
+				}
+				collect(i.nextNode(), scripts);
+			}
+		}
+
+		private void compile(Node node) throws Exception {
+			java.util.Date lastModified;
+			try {
+				lastModified = node.getNode(Node.JCR_CONTENT).getProperty(Property.JCR_LAST_MODIFIED).getDate().getTime();
+			} catch (PathNotFoundException ignore) {
+				lastModified = new java.util.Date();
+			}
+
+			try (ScriptReader reader = new ScriptReader(JCRs.getContentAsReader(node))) {
+				reader.setScriptName("jcr://" + node.getPath()).setLastModified(lastModified);
+				getCompilable(node.getName()).compile(reader);
+			}
+		}
+
+		// Resolves the engine the same way ScriptReader does: by the longest
+		// extension of the file name that an engine is registered for.
+		private Compilable getCompilable(String filename) {
+			String extension = filename;
+			for (;;) {
+				int p = extension.indexOf(".");
+				if (p == -1) {
+					return null;
+				}
+				extension = extension.substring(p + 1);
+
+				ScriptEngine engine = fScriptEngineManager.getEngineByExtension(extension);
+				if (engine != null) {
+					if (engine instanceof Compilable && Adaptables.getAdapter(engine.getFactory(), ScriptCache.class) != null) {
+						return (Compilable) engine;
+					}
+					return null;
+				}
+			}
+		}
+	}
+
+}
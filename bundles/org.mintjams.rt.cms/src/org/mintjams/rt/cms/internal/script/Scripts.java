@@ -91,33 +91,40 @@ public class Scripts {
 		return Adaptables.getAdapter(CmsService.getRepository(), FileTypeDetector.class);
 	}
 
+	/**
+	 * Binds the script APIs into the context. The APIs, and the repository
+	 * session in particular, are bound lazily: each is created on first
+	 * lookup, so a render that never touches the repository never logs in.
+	 * {@code WebAPI} is the exception, as it parses a multipart request body
+	 * up front and reports a malformed body here.
+	 */
 	public static void prepareAPIs(ActionContext context) throws IOException {
 		WorkspaceScriptContext ctx = getWorkspaceScriptContext(context);
-		LoggerAPI log = new LoggerAPI(ctx);
-		ctx.setAttribute("log", log);
-		ctx.setAttribute(LoggerAPI.class.getSimpleName(), log);
-		ctx.setAttribute(MimeTypeAPI.class.getSimpleName(), new MimeTypeAPI(ctx));
-		ctx.setAttribute(EventAdminAPI.class.getSimpleName(), new EventAdminAPI(ctx));
-		ctx.setAttribute(CryptoAPI.class.getSimpleName(), new CryptoAPI());
-		ctx.setAttribute(SessionAPI.class.getSimpleName(), new SessionAPI(ctx));
-		ClusterAPI cluster = new ClusterAPI(ctx);
-		ctx.setAttribute("cluster", cluster);
-		ctx.setAttribute(ClusterAPI.class.getSimpleName(), cluster);
+		ctx.setLazyAttribute(LoggerAPI.class.getSimpleName(), () -> new LoggerAPI(ctx));
+		ctx.setLazyAttribute("log", () -> ctx.getAttribute(LoggerAPI.class.getSimpleName()));
+		ctx.setLazyAttribute(MimeTypeAPI.class.getSimpleName(), () -> new MimeTypeAPI(ctx));
+		ctx.setLazyAttribute(EventAdminAPI.class.getSimpleName(), () -> new EventAdminAPI(ctx));
+		ctx.setLazyAttribute(CryptoAPI.class.getSimpleName(), () -> new CryptoAPI());
+		ctx.setLazyAttribute(SessionAPI.class.getSimpleName(), () -> new SessionAPI(ctx));
+		ctx.setLazyAttribute(ClusterAPI.class.getSimpleName(), () -> new ClusterAPI(ctx));
+		ctx.setLazyAttribute("cluster", () -> ctx.getAttribute(ClusterAPI.class.getSimpleName()));
 		if (ctx.getAttribute("request") != null) {
 			ctx.setAttribute(WebAPI.class.getSimpleName(), new WebAPI(ctx));
 		}
-		ctx.setAttribute(ScriptAPI.class.getSimpleName(), new ScriptAPI(ctx));
-		ctx.setAttribute(ProcessAPI.class.getSimpleName(), new ProcessAPI(ctx));
-		ctx.setAttribute(IntegrationAPI.class.getSimpleName(), new IntegrationAPI(ctx));
-		ctx.setAttribute(XPath.class.getSimpleName(), new XPath(ctx));
-		ctx.setAttribute(JSON.class.getSimpleName(), new JSON(ctx));
-		ctx.setAttribute(YAML.class.getSimpleName(), new YAML(ctx));
-		ctx.setAttribute(MetadataAPI.class.getSimpleName(), new MetadataAPI(ctx));
-		try {
-			ctx.setAttribute("repositorySession", ctx.getResourceResolver().getSession());
-		} catch (ResourceException ex) {
-			throw Cause.create(ex).wrap(IOException.class);
-		}
+		ctx.setLazyAttribute(ScriptAPI.class.getSimpleName(), () -> new ScriptAPI(ctx));
+		ctx.setLazyAttribute(ProcessAPI.class.getSimpleName(), () -> new ProcessAPI(ctx));
+		ctx.setLazyAttribute(IntegrationAPI.class.getSimpleName(), () -> new IntegrationAPI(ctx));
+		ctx.setLazyAttribute(XPath.class.getSimpleName(), () -> new XPath(ctx));
+		ctx.setLazyAttribute(JSON.class.getSimpleName(), () -> new JSON(ctx));
+		ctx.setLazyAttribute(YAML.class.getSimpleName(), () -> new YAML(ctx));
+		ctx.setLazyAttribute(MetadataAPI.class.getSimpleName(), () -> new MetadataAPI(ctx));
+		ctx.setLazyAttribute("repositorySession", () -> {
+			try {
+				return ctx.getResourceResolver().getSession();
+			} catch (ResourceException ex) {
+				throw Cause.create(ex).wrap(IllegalStateException.class);
+			}
+		});
 	}
 
 	public static Session getJcrSession(ActionContext context) throws RepositoryException {
@@ -25,8 +25,10 @@ package org.mintjams.rt.cms.internal.script;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.jcr.Credentials;
@@ -58,6 +60,7 @@ public class WorkspaceScriptContext extends SimpleScriptContext implements Scrip
 
 	public WorkspaceScriptContext(String workspaceName) {
 		fWorkspaceName = workspaceName;
+		setBindings(new LazyBindings(), ENGINE_SCOPE);
 		setAttribute("context", this);
 		Writer out = new ScriptWriter(this);
 		setWriter(out);
@@ -124,7 +127,12 @@ public class WorkspaceScriptContext extends SimpleScriptContext implements Scrip
 							continue;
 						}
 
-						for (Object e : bindings.values()) {
+						// Values still waiting for their supplier were never
+						// created, so there is nothing to close for them.
+						Collection<Object> values = (bindings instanceof LazyBindings)
+								? ((LazyBindings) bindings).resolvedValues()
+								: bindings.values();
+						for (Object e : values) {
 							if (e instanceof Closeable && !this.equals(e)) {
 								try {
 									((Closeable) e).close();
@@ -176,6 +184,19 @@ public class WorkspaceScriptContext extends SimpleScriptContext implements Scrip
 		super.setAttribute(name, value, ScriptContext.ENGINE_SCOPE);
 	}
 
+	/**
+	 * Binds {@code name} to the value the supplier returns when the attribute
+	 * is first looked up, so that bindings a script never uses cost nothing.
+	 */
+	public void setLazyAttribute(String name, Supplier<?> supplier) {
+		Bindings bindings = super.getBindings(ENGINE_SCOPE);
+		if (bindings instanceof LazyBindings) {
+			((LazyBindings) bindings).putLazy(name, supplier);
+			return;
+		}
+		setAttribute(name, supplier.get());
+	}
+
 	public Object removeAttribute(String name) {
 		return super.removeAttribute(name, ScriptContext.ENGINE_SCOPE);
 	}
@@ -62,6 +62,10 @@ public class WorkspaceScriptEngineManager extends ScriptEngineManager implements
 			}
 			CmsService.getLogger(getClass()).info("The native ECMA script engine is disabled.");
 		}
+
+		if (CmsService.getConfiguration().isScriptPrecompileEnabled()) {
+			fCloser.register(new ScriptPrecompiler(this, CmsService.getConfiguration().getScriptPrecompilePaths())).open();
+		}
 	}
 
 	public String getWorkspaceName() {
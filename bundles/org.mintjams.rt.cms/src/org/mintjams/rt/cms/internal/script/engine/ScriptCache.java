@@ -22,12 +22,17 @@
 
 package org.mintjams.rt.cms.internal.script.engine;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import javax.script.ScriptException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.mintjams.rt.cms.internal.CmsService;
+import org.mintjams.tools.lang.Cause;
 
 public class ScriptCache {
 
@@ -35,6 +40,7 @@ public class ScriptCache {
 	private final int fMaxEntries;
 	private final ConcurrentMap<String, ResourceScript> fCache;
 	private final ConcurrentLinkedDeque<String> fOrder;
+	private final ConcurrentMap<String, CompletableFuture<ResourceScript>> fCompiling = new ConcurrentHashMap<>();
 
 	public ScriptCache(String name, int maxEntries) {
 		fName = name;
@@ -59,6 +65,54 @@ public class ScriptCache {
 		return script;
 	}
 
+	/**
+	 * Returns the cached script unless it is missing or was compiled from
+	 * another {@code lastModified}, in which case it is compiled and cached.
+	 * Concurrent callers for the same script and {@code lastModified} share a
+	 * single compilation: the first one compiles while the others wait for its
+	 * result (or its failure) instead of compiling the same source again.
+	 */
+	public ResourceScript getScript(String scriptName, long lastModified, Compiler compiler) throws ScriptException {
+		ResourceScript script = getScript(scriptName);
+		if (script != null && script.getLastModified() == lastModified) {
+			return script;
+		}
+		if (StringUtils.equals(scriptName, ResourceScript.NO_SCRIPT_NAME)) {
+			return compiler.compile();
+		}
+
+		String key = scriptName + "@" + lastModified;
+		CompletableFuture<ResourceScript> compiling = new CompletableFuture<>();
+		CompletableFuture<ResourceScript> inFlight = fCompiling.putIfAbsent(key, compiling);
+		if (inFlight != null) {
+			CmsService.getLogger(getClass()).debug(fName + " waiting for the compilation in progress: " + scriptName);
+			try {
+				return inFlight.get();
+			} catch (ExecutionException ex) {
+				throw Cause.create(ex.getCause()).wrap(ScriptException.class);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw Cause.create(ex).wrap(ScriptException.class);
+			}
+		}
+
+		try {
+			// Another caller may have finished compiling since the lookup above
+			script = getScript(scriptName);
+			if (script == null || script.getLastModified() != lastModified) {
+				script = compiler.compile();
+				registerScript(script);
+			}
+			compiling.complete(script);
+			return script;
+		} catch (Throwable ex) {
+			compiling.completeExceptionally(ex);
+			throw Cause.create(ex).wrap(ScriptException.class);
+		} finally {
+			fCompiling.remove(key, compiling);
+		}
+	}
+
 	public boolean registerScript(ResourceScript script) {
 		if (StringUtils.equals(script.getScriptName(), ResourceScript.NO_SCRIPT_NAME)) {
 			return false;
@@ -88,4 +142,9 @@ public class ScriptCache {
 		}
 	}
 
+	@FunctionalInterface
+	public interface Compiler {
+		ResourceScript compile() throws ScriptException;
+	}
+
 }
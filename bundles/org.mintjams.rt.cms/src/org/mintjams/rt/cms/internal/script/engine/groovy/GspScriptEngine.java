@@ -24,8 +24,11 @@ package org.mintjams.rt.cms.internal.script.engine.groovy;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
@@ -40,7 +43,7 @@ import groovy.lang.GroovyClassLoader;
 import groovy.text.GStringTemplateEngine;
 import groovy.text.Template;
 
-public class GspScriptEngine extends AbstractScriptEngine {
+public class GspScriptEngine extends AbstractScriptEngine implements Compilable {
 
 	public GspScriptEngine(GspScriptEngineFactory scriptEngineFactory) {
 		super(scriptEngineFactory);
@@ -48,22 +51,26 @@ public class GspScriptEngine extends AbstractScriptEngine {
 
 	@Override
 	public Object eval(Reader reader, ScriptContext ctx) throws ScriptException {
-		ResourceScript script;
-		ScriptCache cache = Adaptables.getAdapter(getFactory(), ScriptCache.class);
-		String scriptName = ResourceScript.getScriptName(reader);
-		long lastModified = ResourceScript.getLastModified(reader);
+		return compile(reader).eval(ctx);
+	}
+
+	@Override
+	public CompiledScript compile(String script) throws ScriptException {
+		try (StringReader reader = new StringReader(script)) {
+			return compile(reader);
+		}
+	}
 
-		script = cache.getScript(scriptName);
-		if (script == null || script.getLastModified() != lastModified) {
+	@Override
+	public CompiledScript compile(Reader reader) throws ScriptException {
+		ScriptCache cache = Adaptables.getAdapter(getFactory(), ScriptCache.class);
+		return cache.getScript(ResourceScript.getScriptName(reader), ResourceScript.getLastModified(reader), () -> {
 			try {
-				script = new GspScript(reader);
+				return new GspScript(reader);
 			} catch (Throwable ex) {
 				throw Cause.create(ex).wrap(ScriptException.class, "Unable to compile script: " + ex.getMessage());
 			}
-			cache.registerScript(script);
-		}
-
-		return script.eval(ctx);
+		});
 	}
 
 	private class GspScript extends ResourceScript {
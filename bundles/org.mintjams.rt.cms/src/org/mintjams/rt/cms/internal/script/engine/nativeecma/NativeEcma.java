@@ -34,6 +34,8 @@ import java.nio.file.Path;
 import java.util.Enumeration;
 import java.util.List;
 
+import javax.script.ScriptException;
+
 import org.mintjams.rt.cms.internal.CmsService;
 import org.mintjams.rt.cms.internal.util.Systems;
 import org.mintjams.tools.io.IOs;
@@ -143,10 +145,22 @@ public class NativeEcma implements Closeable {
 	 * Creates this workspace's native isolate pool. Initializes the shared V8
 	 * platform first if it has not been initialized yet.
 	 *
-	 * @param poolSize number of isolates (and worker threads); when {@code <= 0}
-	 *                 the number of available processors is used.
+	 * @param poolSize       number of isolates (and worker threads); when
+	 *                       {@code <= 0} the number of available processors is
+	 *                       used.
+	 * @param codeCacheBytes byte budget of the code cache the pool's isolates
+	 *                       share; the least recently used scripts are evicted
+	 *                       beyond it, and {@code <= 0} disables the cache.
+	 * @param timeoutMillis  wall-clock limit of one evaluation, counted from
+	 *                       the moment an isolate starts running it; a
+	 *                       running script is terminated when it is exceeded.
+	 *                       Waiting for an isolate is limited separately, to
+	 *                       the same length. {@code <= 0} means no limit.
+	 * @param heapLimitBytes heap limit of each isolate; a script that reaches
+	 *                       it is terminated and its isolate is replaced.
+	 *                       {@code <= 0} keeps the V8 default.
 	 */
-	public void load(int poolSize) throws IOException {
+	public void load(int poolSize, long codeCacheBytes, long timeoutMillis, long heapLimitBytes) throws IOException {
 		ensurePlatform();
 
 		if (poolSize <= 0) {
@@ -155,7 +169,7 @@ public class NativeEcma implements Closeable {
 
 		synchronized (fPoolLock) {
 			if (fPoolHandle == 0) {
-				fPoolHandle = nativeCreatePool(poolSize);
+				fPoolHandle = nativeCreatePool(poolSize, Math.max(codeCacheBytes, 0), Math.max(timeoutMillis, 0), Math.max(heapLimitBytes, 0));
 			}
 		}
 	}
@@ -176,6 +190,9 @@ public class NativeEcma implements Closeable {
 		if (handle == 0) {
 			return;
 		}
+		try {
+			CmsService.getLogger(getClass()).info("Native ECMA code cache: " + toCodeCacheStatistics(nativeGetCodeCacheStatistics(handle)));
+		} catch (Throwable ignore) {}
 		try {
 			nativeDestroyPool(handle);
 		} catch (Throwable ex) {
@@ -184,10 +201,42 @@ public class NativeEcma implements Closeable {
 	}
 
 	public String eval(List<String> sources) throws IOException {
-		return eval(sources.toArray(String[]::new));
+		return eval(null, 0, null, sources.toArray(String[]::new));
 	}
 
-	public String eval(String... sources) throws IOException {
+	/**
+	 * Evaluates the given sources in a new context whose global object first
+	 * receives every property of {@code bindings}, a JSON object (or
+	 * {@code null} for none). The bindings are data, not source: the sources
+	 * stay the same across evaluations, so their compiled code is reused.
+	 *
+	 * <p>The compiled code of a named script is cached under its name and is
+	 * discarded as soon as it is evaluated with another {@code lastModified};
+	 * unnamed sources ({@code scriptName} {@code null}) are cached by content.
+	 */
+	public String eval(String scriptName, long lastModified, String bindings, String... sources) throws IOException {
+		long handle;
+		synchronized (fPoolLock) {
+			handle = fPoolHandle;
+		}
+		if (handle == 0) {
+			throw new IOException("The native ECMA isolate pool is not initialized.");
+		}
+		return nativeEval(handle, scriptName, lastModified, bindings, sources);
+	}
+
+	/**
+	 * Sets the warm-up script of this pool, typically the shared libraries most
+	 * scripts need. It is evaluated once, and the resulting heap is kept as a
+	 * V8 startup snapshot that each isolate is then created from, so every
+	 * evaluation starts in a new context in which the libraries are already
+	 * initialized. The isolates switch over as they finish their current job.
+	 *
+	 * <p>{@code source} {@code null} removes the warm-up script. When the
+	 * script fails or times out, a {@link ScriptException} is thrown and the
+	 * pool keeps its previous state.
+	 */
+	public void setWarmupScript(String scriptName, String source) throws IOException, ScriptException {
 		long handle;
 		synchronized (fPoolLock) {
 			handle = fPoolHandle;
@@ -195,19 +244,116 @@ public class NativeEcma implements Closeable {
 		if (handle == 0) {
 			throw new IOException("The native ECMA isolate pool is not initialized.");
 		}
-		return nativeEval(handle, sources);
+		nativeSetWarmupScript(handle, scriptName, source);
+	}
+
+	/**
+	 * Returns the counters of the code cache shared by this pool's isolates.
+	 */
+	public CodeCacheStatistics getCodeCacheStatistics() throws IOException {
+		long handle;
+		synchronized (fPoolLock) {
+			handle = fPoolHandle;
+		}
+		if (handle == 0) {
+			throw new IOException("The native ECMA isolate pool is not initialized.");
+		}
+		return toCodeCacheStatistics(nativeGetCodeCacheStatistics(handle));
+	}
+
+	private CodeCacheStatistics toCodeCacheStatistics(long[] values) throws IOException {
+		if (values == null || values.length < 8) {
+			throw new IOException("The native ECMA isolate pool is not available.");
+		}
+		return new CodeCacheStatistics(values);
+	}
+
+	/**
+	 * A snapshot of the counters of a pool's code cache.
+	 */
+	public static class CodeCacheStatistics {
+		private final long[] fValues;
+
+		private CodeCacheStatistics(long[] values) {
+			fValues = values;
+		}
+
+		public long getHitCount() {
+			return fValues[0];
+		}
+
+		public long getMissCount() {
+			return fValues[1];
+		}
+
+		public long getEvictionCount() {
+			return fValues[2];
+		}
+
+		public long getEvictedBytes() {
+			return fValues[3];
+		}
+
+		/** Entries dropped because their script was modified. */
+		public long getInvalidationCount() {
+			return fValues[4];
+		}
+
+		public long getEntryCount() {
+			return fValues[5];
+		}
+
+		public long getBytes() {
+			return fValues[6];
+		}
+
+		public long getBudget() {
+			return fValues[7];
+		}
+
+		@Override
+		public String toString() {
+			return "hits=" + getHitCount() + ", misses=" + getMissCount()
+					+ ", evictions=" + getEvictionCount() + ", evictedBytes=" + getEvictedBytes()
+					+ ", invalidations=" + getInvalidationCount() + ", entries=" + getEntryCount()
+					+ ", bytes=" + getBytes() + "/" + getBudget();
+		}
 	}
 
 	/** Initializes the process-global V8 platform exactly once (idempotent). */
 	protected static native void nativeInitPlatform(String directoryPath);
 
-	/** Creates a workspace-scoped isolate pool and returns its handle. */
-	protected native long nativeCreatePool(int poolSize);
+	/**
+	 * Creates a workspace-scoped isolate pool, whose isolates share a code cache
+	 * of at most {@code codeCacheBytes}, and returns its handle. Evaluations are
+	 * dispatched to the least loaded isolate and terminated after
+	 * {@code timeoutMillis}; each isolate's heap is limited to
+	 * {@code heapLimitBytes} (0 for no limit in either case).
+	 */
+	protected native long nativeCreatePool(int poolSize, long codeCacheBytes, long timeoutMillis, long heapLimitBytes);
 
 	/** Destroys the isolate pool identified by {@code handle}. */
 	protected native void nativeDestroyPool(long handle);
 
-	/** Evaluates the given sources on the isolate pool identified by {@code handle}. */
-	protected native String nativeEval(long handle, String[] sources);
+	/**
+	 * Evaluates the given sources on the isolate pool identified by
+	 * {@code handle}, after installing the JSON object {@code bindings} (may be
+	 * {@code null}) as global properties.
+	 */
+	protected native String nativeEval(long handle, String scriptName, long lastModified, String bindings, String[] sources);
+
+	/**
+	 * Replaces the warm-up snapshot of the isolate pool identified by
+	 * {@code handle} with one made from {@code source}, or removes it when
+	 * {@code source} is {@code null}.
+	 */
+	protected native void nativeSetWarmupScript(long handle, String scriptName, String source) throws ScriptException;
+
+	/**
+	 * Returns the code cache counters of the isolate pool identified by
+	 * {@code handle} (hits, misses, evictions, evicted bytes, invalidations,
+	 * entries, bytes, budget), or {@code null} when there is no such pool.
+	 */
+	protected native long[] nativeGetCodeCacheStatistics(long handle);
 
 }
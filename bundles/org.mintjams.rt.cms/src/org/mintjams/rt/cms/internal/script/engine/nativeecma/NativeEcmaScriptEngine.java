@@ -24,18 +24,21 @@ package org.mintjams.rt.cms.internal.script.engine.nativeecma;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.List;
-import java.util.Map.Entry;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineFactory;
 import javax.script.ScriptException;
 
+import org.mintjams.rt.cms.internal.script.LazyBindings;
 import org.mintjams.rt.cms.internal.script.engine.AbstractScriptEngine;
 import org.mintjams.rt.cms.internal.script.engine.ResourceScript;
 import org.mintjams.rt.cms.internal.script.engine.ScriptCache;
@@ -45,7 +48,9 @@ import org.mintjams.tools.lang.Strings;
 
 import com.google.gson.Gson;
 
-public class NativeEcmaScriptEngine extends AbstractScriptEngine {
+public class NativeEcmaScriptEngine extends AbstractScriptEngine implements Compilable {
+
+	private static final Gson GSON = new Gson();
 
 	public NativeEcmaScriptEngine(ScriptEngineFactory scriptEngineFactory) {
 		super(scriptEngineFactory);
@@ -53,22 +58,26 @@ public class NativeEcmaScriptEngine extends AbstractScriptEngine {
 
 	@Override
 	public Object eval(Reader reader, ScriptContext ctx) throws ScriptException {
-		ResourceScript script;
-		ScriptCache cache = Adaptables.getAdapter(getFactory(), ScriptCache.class);
-		String scriptName = ResourceScript.getScriptName(reader);
-		long lastModified = ResourceScript.getLastModified(reader);
+		return compile(reader).eval(ctx);
+	}
 
-		script = cache.getScript(scriptName);
-		if (script == null || script.getLastModified() != lastModified) {
+	@Override
+	public CompiledScript compile(String script) throws ScriptException {
+		try (StringReader reader = new StringReader(script)) {
+			return compile(reader);
+		}
+	}
+
+	@Override
+	public CompiledScript compile(Reader reader) throws ScriptException {
+		ScriptCache cache = Adaptables.getAdapter(getFactory(), ScriptCache.class);
+		return cache.getScript(ResourceScript.getScriptName(reader), ResourceScript.getLastModified(reader), () -> {
 			try {
-				script = new EcmaScript(reader);
+				return new EcmaScript(reader);
 			} catch (Throwable ex) {
 				throw Cause.create(ex).wrap(ScriptException.class, "Unable to compile script: " + ex.getMessage());
 			}
-			cache.registerScript(script);
-		}
-
-		return script.eval(ctx);
+		});
 	}
 
 	private class EcmaScript extends ResourceScript {
@@ -82,17 +91,27 @@ public class NativeEcmaScriptEngine extends AbstractScriptEngine {
 			fLastModified = getLastModified(scriptReader);
 		}
 
-		private String getVariablesSource(ScriptContext scriptContext) {
-			StringBuilder source = new StringBuilder();
+		/**
+		 * Returns the engine-scope bindings passed on to the script as a JSON
+		 * object, installed as global properties of the script's context.
+		 * Passing them as data rather than as a generated {@code var} prefix
+		 * keeps the compiled source identical across requests, so it is
+		 * compiled and cached once.
+		 */
+		private String getBindingsJson(ScriptContext scriptContext) {
+			Map<String, Object> variables = new LinkedHashMap<>();
 			Bindings bindings = scriptContext.getBindings(ScriptContext.ENGINE_SCOPE);
-			for (Object entryObject : bindings.entrySet()) {
-				Entry<?, ?> entry = (Entry<?, ?>) entryObject;
-				String name = (String) entry.getKey();
+			for (String name : bindings.keySet()) {
 				if (name.contains(".")) {
 					continue;
 				}
+				// Lazily bound values are script API objects, which are never
+				// passed on; skip them rather than creating them.
+				if (bindings instanceof LazyBindings && !((LazyBindings) bindings).isResolved(name)) {
+					continue;
+				}
 
-				Object value = entry.getValue();
+				Object value = bindings.get(name);
 				if (value instanceof String
 						|| value instanceof String[]
 						|| value instanceof BigDecimal
@@ -105,47 +124,43 @@ public class NativeEcmaScriptEngine extends AbstractScriptEngine {
 						|| value instanceof int[]
 						|| value instanceof Boolean
 						|| value instanceof boolean[]) {
-					source.append("var ").append(name).append("=").append(new Gson().toJson(value)).append(";");
+					variables.put(name, value);
 				} else if (value instanceof Calendar) {
-					source.append("var ").append(name).append("=").append(new Gson().toJson("new Date(" + ((Calendar) value).getTime().getTime() + ")")).append(";");
+					variables.put(name, toDateString(((Calendar) value).getTime()));
 				} else if (value instanceof Calendar[]) {
 					Calendar[] values = (Calendar[]) value;
-					source.append("var ").append(name).append("=").append("[");
+					String[] dates = new String[values.length];
 					for (int i = 0; i < values.length; i++) {
-						if (i > 0) {
-							source.append(",");
-						}
-						source.append(new Gson().toJson("new Date(" + values[i].getTime().getTime() + ")"));
+						dates[i] = toDateString(values[i].getTime());
 					}
-					source.append("]").append(";");
+					variables.put(name, dates);
 				} else if (value instanceof java.util.Date) {
-					source.append("var ").append(name).append("=").append(new Gson().toJson("new Date(" + ((java.util.Date) value).getTime() + ")")).append(";");
+					variables.put(name, toDateString((java.util.Date) value));
 				} else if (value instanceof java.util.Date[]) {
 					java.util.Date[] values = (java.util.Date[]) value;
-					source.append("var ").append(name).append("=").append("[");
+					String[] dates = new String[values.length];
 					for (int i = 0; i < values.length; i++) {
-						if (i > 0) {
-							source.append(",");
-						}
-						source.append(new Gson().toJson("new Date(" + values[i].getTime() + ")"));
+						dates[i] = toDateString(values[i]);
 					}
-					source.append("]").append(";");
+					variables.put(name, dates);
 				}
 			}
-			return source.toString();
+			if (variables.isEmpty()) {
+				return null;
+			}
+			return GSON.toJson(variables);
+		}
+
+		// Dates have always reached the script as this string, not as a Date.
+		private String toDateString(java.util.Date value) {
+			return "new Date(" + value.getTime() + ")";
 		}
 
 		@Override
 		public Object eval(ScriptContext scriptContext) throws ScriptException {
 			try {
-				List<String> sources = new ArrayList<String>();
-				String variablesSource = getVariablesSource(scriptContext);
-				if (!Strings.isEmpty(variablesSource)) {
-					sources.add(variablesSource);
-				}
-				sources.add(fScript);
 				NativeEcma ecma = Adaptables.getAdapter(getFactory(), NativeEcma.class);
-				return ecma.eval(sources);
+				return ecma.eval(fScriptName, fLastModified, getBindingsJson(scriptContext), fScript);
 			} catch (Throwable ex) {
 				throw Cause.create(ex).wrap(ScriptException.class, "Failed to execute the script '" + fScriptName + "': " + ex.getMessage());
 			}
@@ -24,6 +24,13 @@ package org.mintjams.rt.cms.internal.script.engine.nativeecma;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.script.ScriptEngine;
 
@@ -37,12 +44,18 @@ import org.mintjams.tools.io.Closer;
 
 public class NativeEcmaScriptEngineFactory extends AbstractScriptEngineFactory implements Closeable, Adaptable {
 
+	/** Least time between two looks at the warm-up script's modification time. */
+	private static final long WARMUP_CHECK_INTERVAL_MILLIS = 5000L;
+
 	private final String fWorkspaceName;
 	private String fLanguageName;
 	private String fLanguageVersion;
 	private NativeEcma fNativeEcma;
 	private final Closer fCloser = Closer.create();
 	private final ScriptCache fScriptCache;
+	private long fWarmupScriptLastModified = 0;
+	private final AtomicLong fNextWarmupCheck = new AtomicLong();
+	private final ThreadPoolExecutor fWarmupExecutor;
 
 	public NativeEcmaScriptEngineFactory(String workspaceName) throws IOException {
 		fWorkspaceName = workspaceName;
@@ -54,7 +67,18 @@ public class NativeEcmaScriptEngineFactory extends AbstractScriptEngineFactory i
 		fLanguageName = "ECMAScript";
 		fLanguageVersion = "6";
 		fNativeEcma = fCloser.register(new NativeEcma());
-		fNativeEcma.load(CmsService.getConfiguration().getNativeEcmaPoolSizePerScriptEngine());
+		fNativeEcma.load(CmsService.getConfiguration().getNativeEcmaPoolSizePerScriptEngine(),
+				CmsService.getConfiguration().getNativeEcmaCodeCacheSizeMB() * 1024L * 1024L,
+				CmsService.getConfiguration().getNativeEcmaTimeoutSeconds() * 1000L,
+				CmsService.getConfiguration().getNativeEcmaHeapLimitMB() * 1024L * 1024L);
+		updateWarmupScript();
+		fNextWarmupCheck.set(System.currentTimeMillis() + WARMUP_CHECK_INTERVAL_MILLIS);
+		// One refresh at a time; a check requested while one is pending is dropped.
+		fWarmupExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), runnable -> {
+			Thread thread = new Thread(runnable, getClass().getSimpleName() + "-warmup-" + workspaceName);
+			thread.setDaemon(true);
+			return thread;
+		}, new ThreadPoolExecutor.DiscardPolicy());
 		fScriptCache = new ScriptCache(NativeEcmaScriptEngine.class.getSimpleName(), CmsService.getConfiguration().getMaxScriptCachePerScriptEngine());
 		Adaptables.getAdapter(getWorkspaceClassLoader(), ScriptCacheManager.class).registerScriptCache(fScriptCache);
 	}
@@ -80,11 +104,62 @@ public class NativeEcmaScriptEngineFactory extends AbstractScriptEngineFactory i
 
 	@Override
 	public ScriptEngine getScriptEngine() {
+		requestWarmupScriptCheck();
 		return new NativeEcmaScriptEngine(this);
 	}
 
+	/**
+	 * Has the warm-up script checked for changes in the background, at most
+	 * once every {@value #WARMUP_CHECK_INTERVAL_MILLIS} ms. Engine creation
+	 * neither touches the file system nor waits for a snapshot to be built:
+	 * the isolates keep the current snapshot until the new one is ready.
+	 */
+	private void requestWarmupScriptCheck() {
+		long now = System.currentTimeMillis();
+		long next = fNextWarmupCheck.get();
+		if (now < next || !fNextWarmupCheck.compareAndSet(next, now + WARMUP_CHECK_INTERVAL_MILLIS)) {
+			return;
+		}
+		fWarmupExecutor.execute(this::updateWarmupScript);
+	}
+
+	/**
+	 * Installs {@code etc/nativeecma/warmup.js} of the workspace as the
+	 * warm-up script of the isolate pool, or removes it when the file is gone.
+	 * The file is only re-read when its modification time changes. The pool
+	 * builds the snapshot first and then hands it to every isolate at once.
+	 */
+	private synchronized void updateWarmupScript() {
+		Path path = CmsService.getWorkspacePath(fWorkspaceName).resolve("etc").resolve("nativeecma").resolve("warmup.js");
+		long lastModified = 0;
+		try {
+			if (Files.isRegularFile(path)) {
+				lastModified = Files.getLastModifiedTime(path).toMillis();
+			}
+		} catch (IOException ignore) {}
+		if (lastModified == fWarmupScriptLastModified) {
+			return;
+		}
+		fWarmupScriptLastModified = lastModified;
+
+		try {
+			if (lastModified == 0) {
+				fNativeEcma.setWarmupScript(null, null);
+				CmsService.getLogger(getClass()).info("Native ECMA warm-up script removed: " + path);
+				return;
+			}
+
+			long start = System.currentTimeMillis();
+			fNativeEcma.setWarmupScript(path.getFileName().toString(), Files.readString(path, StandardCharsets.UTF_8));
+			CmsService.getLogger(getClass()).info("Native ECMA warm-up script loaded in " + (System.currentTimeMillis() - start) + " ms: " + path);
+		} catch (Throwable ex) {
+			CmsService.getLogger(getClass()).warn("Native ECMA warm-up script could not be loaded: " + path, ex);
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
+		fWarmupExecutor.shutdownNow();
 		fCloser.close();
 	}
 
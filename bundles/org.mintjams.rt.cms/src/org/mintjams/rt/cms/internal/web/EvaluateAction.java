@@ -24,15 +24,27 @@ package org.mintjams.rt.cms.internal.web;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
 
+import javax.jcr.Node;
 import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.script.ScriptException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.mintjams.jcr.ReadTracker;
+import org.mintjams.rt.cms.internal.CmsService;
 import org.mintjams.rt.cms.internal.script.WorkspaceScriptContext;
 import org.mintjams.rt.cms.internal.script.ScriptReader;
 import org.mintjams.rt.cms.internal.script.Scripts;
+import org.mintjams.tools.adapter.Adaptables;
 import org.mintjams.tools.io.IOs;
 import org.mintjams.tools.lang.Cause;
 import org.mintjams.tools.lang.Strings;
@@ -92,10 +104,26 @@ public class EvaluateAction implements Action {
 
 				if (request.getMethod().equalsIgnoreCase("GET")) {
 					RangeHeader rangeHeader = null;
+					// The stored gzip copy to send instead of the file, when the
+					// client accepts gzip and one has been built.
+					Path gzipPath = null;
 
 					if (Webs.isNormalRequest(context)) {
 						long lastModified = result.getLastModified().getTime();
-						String eTag = HttpCaching.toETag(lastModified);
+						String mimeType = result.getMimeType();
+						if (WebEncodedContentCache.isCompressible(mimeType)) {
+							WebEncodedContentCache encodedContentCache = getEncodedContentCache(context);
+							if (encodedContentCache != null) {
+								// Shared caches must key on Accept-Encoding whichever
+								// coding this particular response ends up using.
+								response.addHeader("Vary", "Accept-Encoding");
+								if (WebEncodedContentCache.acceptsGzip(request)) {
+									gzipPath = encodedContentCache.getGzip(result.getNode(), lastModified, result.getContentLength());
+								}
+							}
+						}
+						String contentCoding = (gzipPath == null) ? null : WebEncodedContentCache.GZIP;
+						String eTag = HttpCaching.toETag(lastModified, contentCoding);
 						// Raw files are revalidated, not cached for a fixed term: the
 						// browser may keep a copy but must check back, so overwriting a
 						// file is reflected on the next request (304 when unchanged).
@@ -103,10 +131,13 @@ public class EvaluateAction implements Action {
 						// URL is content-addressed, so it opts in to immutable caching
 						// (allowImmutable=true) and is reused without revalidation —
 						// the Webtop bundle assets that carry ?v=__BUILD_VERSION__.
-						if (HttpCaching.applyAndCheckNotModified(request, response, lastModified, true)) {
+						if (HttpCaching.applyAndCheckNotModified(request, response, lastModified, true, contentCoding)) {
 							return;
 						}
-						response.setContentType(result.getMimeType());
+						response.setContentType(mimeType);
+						if (contentCoding != null) {
+							response.setHeader("Content-Encoding", contentCoding);
+						}
 
 						if (RangeHeader.isRangeRequest(request)) {
 							try {
@@ -123,6 +154,9 @@ public class EvaluateAction implements Action {
 						}
 					}
 
+					// Lengths and ranges refer to the bytes actually sent, which
+					// for the gzip copy are the compressed ones.
+					long contentLength = (gzipPath == null) ? result.getContentLength() : Files.size(gzipPath);
 					if (rangeHeader != null) {
 						response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
 						response.setHeader("Accept-Ranges", "bytes");
@@ -132,14 +166,16 @@ public class EvaluateAction implements Action {
 							end = rangeHeader.getEnd();
 							length = rangeHeader.getLength();
 						} else {
-							end = result.getContentLength() - 1;
-							length = result.getContentLength() - rangeHeader.getStart();
+							end = contentLength - 1;
+							length = contentLength - rangeHeader.getStart();
 						}
 						response.setContentLengthLong(length);
-						response.setHeader("Content-Range", "bytes " + rangeHeader.getStart() + "-" + end + "/" + result.getContentLength());
+						response.setHeader("Content-Range", "bytes " + rangeHeader.getStart() + "-" + end + "/" + contentLength);
+					} else if (Webs.isNormalRequest(context)) {
+						response.setContentLengthLong(contentLength);
 					}
 
-					try (InputStream in = result.getContentAsStream()) {
+					try (InputStream in = (gzipPath == null) ? result.getContentAsStream() : Files.newInputStream(gzipPath)) {
 						if (rangeHeader == null) {
 							IOs.copy(in, response.getOutputStream());
 						} else {
@@ -157,15 +193,11 @@ public class EvaluateAction implements Action {
 				response.setContentType(Scripts.getFileTypeDetector(context).probeContentType(Path.of(Webs.getResourcePath(context))));
 				setNoCacheHeader(response);
 			}
-			try (ScriptReader scriptReader = new ScriptReader(result.getTemplate().getContentAsReader())) {
-				scriptReader
-						.setScriptName("jcr://" + result.getTemplate().getPath())
-						.setExtension(result.getTemplate().getScriptExtension())
-						.setLastModified(result.getTemplate().getLastModified())
-						.setScriptEngineManager(Scripts.getScriptEngineManager(context))
-						.setClassLoader(Scripts.getClassLoader(context))
-						.setScriptContext(ctx)
-						.eval();
+			WebRenderCache renderCache = getRenderCache(context, result);
+			if (renderCache != null) {
+				evalTemplateCached(context, result, renderCache);
+			} else {
+				evalTemplate(context, result);
 			}
 		} catch (Throwable ex) {
 			throw Cause.create(ex).wrap(ActionException.class);
@@ -197,6 +229,131 @@ public class EvaluateAction implements Action {
 		return;
 	}
 
+	private void evalTemplate(ActionContext context, WebResourceResolver.ResolveResult result) throws IOException, ScriptException, RepositoryException {
+		try (ScriptReader scriptReader = new ScriptReader(result.getTemplate().getContentAsReader())) {
+			scriptReader
+					.setScriptName("jcr://" + result.getTemplate().getPath())
+					.setExtension(result.getTemplate().getScriptExtension())
+					.setLastModified(result.getTemplate().getLastModified())
+					.setScriptEngineManager(Scripts.getScriptEngineManager(context))
+					.setClassLoader(Scripts.getClassLoader(context))
+					.setScriptContext(Scripts.getWorkspaceScriptContext(context))
+					.eval();
+		}
+	}
+
+	/**
+	 * Serves the render from the render cache or, on a miss, renders it into
+	 * a {@link RenderCaptureResponse} while recording what the session reads,
+	 * and stores it when the render turns out to be cacheable.
+	 */
+	private void evalTemplateCached(ActionContext context, WebResourceResolver.ResolveResult result,
+			WebRenderCache renderCache) throws IOException, ScriptException, RepositoryException {
+		WorkspaceScriptContext ctx = Scripts.getWorkspaceScriptContext(context);
+		HttpServletRequest request = Webs.getRequest(context);
+		HttpServletResponse response = Webs.getResponse(context);
+		Session session = Scripts.getJcrSession(context);
+		WebRenders.CachePolicy policy = result.getCachePolicy();
+		String key = WebRenderCache.toKey(Webs.getResourcePath(context), policy, request, session);
+
+		WebRenderCache.Entry entry = renderCache.get(key);
+		if (entry != null) {
+			Set<String> names = new HashSet<>();
+			for (String[] header : entry.getHeaders()) {
+				if (names.add(header[0].toLowerCase(Locale.ROOT))) {
+					response.setHeader(header[0], header[1]);
+				} else {
+					response.addHeader(header[0], header[1]);
+				}
+			}
+			if (entry.getContentType() != null) {
+				response.setContentType(entry.getContentType());
+			}
+			if (entry.getCharacterEncoding() != null) {
+				response.setCharacterEncoding(entry.getCharacterEncoding());
+			}
+			if (HttpCaching.applyAndCheckNotModifiedRendered(request, response, entry.getETag())) {
+				return;
+			}
+			writeText(response, entry.getText());
+			return;
+		}
+
+		ReadTracker readTracker = Adaptables.getAdapter(session, ReadTracker.class);
+		if (readTracker == null) {
+			evalTemplate(context, result);
+			return;
+		}
+
+		long generation = renderCache.getGeneration();
+		ScriptWriter out = (ScriptWriter) ctx.getWriter();
+		RenderCaptureResponse capture = new RenderCaptureResponse(response);
+		Set<String> dependencies;
+		ctx.setAttribute("response", capture);
+		try (ReadTracker.Recording recording = readTracker.startRecording()) {
+			evalTemplate(context, result);
+			dependencies = new HashSet<>(recording.getPaths());
+		} finally {
+			out.reset();
+			ctx.setAttribute("response", response);
+		}
+		if (capture.isPassedThrough()) {
+			return;
+		}
+
+		String text = capture.getText();
+		// A template that wrote to its own session must render again
+		if (capture.isCacheable() && !session.hasPendingChanges()) {
+			// Read before recording started, while resolving the request
+			for (String path : new String[] { result.getPath(), result.getTemplate().getPath() }) {
+				dependencies.add(path);
+				dependencies.add(path + "/" + Node.JCR_CONTENT);
+			}
+			entry = new WebRenderCache.Entry(text, capture.getContentType(), capture.getCharacterEncoding(),
+					capture.getHeaders(), dependencies, policy.getMaxAgeMillis());
+			renderCache.put(key, entry, generation);
+			if (HttpCaching.applyAndCheckNotModifiedRendered(request, response, entry.getETag())) {
+				return;
+			}
+		}
+		writeText(response, text);
+	}
+
+	private void writeText(HttpServletResponse response, String text) throws IOException {
+		response.setContentLengthLong(text.getBytes(Charset.forName(response.getCharacterEncoding())).length);
+		response.getWriter().write(text);
+	}
+
+	/**
+	 * The workspace's render cache when this render may be served from it:
+	 * a plain GET of a template whose binding opts in, with nothing written
+	 * to the response yet. {@code null} otherwise.
+	 */
+	private WebRenderCache getRenderCache(ActionContext context, WebResourceResolver.ResolveResult result) {
+		if (result.getCachePolicy() == null) {
+			return null;
+		}
+		HttpServletRequest request = Webs.getRequest(context);
+		if (!request.getMethod().equalsIgnoreCase("GET") || !Webs.isNormalRequest(request)) {
+			return null;
+		}
+		Writer out = Scripts.getWorkspaceScriptContext(context).getWriter();
+		if (!(out instanceof ScriptWriter) || ((ScriptWriter) out).isOpen()) {
+			return null;
+		}
+		WorkspaceWebServletProvider provider = CmsService.getWorkspaceServletProvider(Scripts.getWorkspaceName(context));
+		return (provider == null) ? null : provider.getRenderCache();
+	}
+
+	/**
+	 * The workspace's store of gzip copies, or {@code null} when serving gzip
+	 * is disabled or the workspace's web services are not running.
+	 */
+	private WebEncodedContentCache getEncodedContentCache(ActionContext context) {
+		WorkspaceWebServletProvider provider = CmsService.getWorkspaceServletProvider(Scripts.getWorkspaceName(context));
+		return (provider == null) ? null : provider.getEncodedContentCache();
+	}
+
 	public void setNoCacheHeader(HttpServletResponse response) {
 		response.setHeader("Cache-Control", "no-store, no-cache, must-revalidate");
 		response.setHeader("Expires", "0");
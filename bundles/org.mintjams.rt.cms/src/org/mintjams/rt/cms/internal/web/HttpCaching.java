@@ -96,6 +96,19 @@ public final class HttpCaching {
 		return "\"" + lastModifiedMillis + "\"";
 	}
 
+	/**
+	 * The strong validator for a content-coded representation (for example
+	 * the gzip copy of a file). Each coding of the same content is a distinct
+	 * representation and so carries its own tag; {@code null} names the
+	 * uncoded one.
+	 */
+	public static String toETag(long lastModifiedMillis, String contentCoding) {
+		if (contentCoding == null) {
+			return toETag(lastModifiedMillis);
+		}
+		return "\"" + lastModifiedMillis + "-" + contentCoding + "\"";
+	}
+
 	/**
 	 * Writes the validators ({@code ETag}, {@code Last-Modified}) and the
 	 * revalidate-always cache policy ({@code Cache-Control: no-cache}) for a raw
@@ -141,7 +154,24 @@ public final class HttpCaching {
 	public static boolean applyAndCheckNotModified(
 			HttpServletRequest request, HttpServletResponse response, long lastModifiedMillis,
 			boolean allowImmutable) {
-		String eTag = toETag(lastModifiedMillis);
+		return applyAndCheckNotModified(request, response, lastModifiedMillis, allowImmutable, null);
+	}
+
+	/**
+	 * As {@link #applyAndCheckNotModified(HttpServletRequest,
+	 * HttpServletResponse, long, boolean)}, for the representation in the given
+	 * content coding: the {@code ETag} is {@link #toETag(long, String)}, so a
+	 * client holding the other coding's copy is sent this one in full.
+	 *
+	 * @param contentCoding the {@code Content-Encoding} of the representation
+	 *        to be sent, or {@code null} for none
+	 * @return {@code true} when a 304 was sent; {@code false} when the caller
+	 *         should proceed to write the entity.
+	 */
+	public static boolean applyAndCheckNotModified(
+			HttpServletRequest request, HttpServletResponse response, long lastModifiedMillis,
+			boolean allowImmutable, String contentCoding) {
+		String eTag = toETag(lastModifiedMillis, contentCoding);
 		response.setHeader("ETag", eTag);
 		response.setDateHeader("Last-Modified", lastModifiedMillis);
 
@@ -232,6 +262,35 @@ public final class HttpCaching {
 		return false;
 	}
 
+	/**
+	 * Writes the validator and the revalidate-always policy for a rendered
+	 * page served from, or stored into, the render cache ({@link
+	 * WebRenderCache}) and, when the request already holds this output,
+	 * completes it as {@code 304 Not Modified}.
+	 *
+	 * <p>A render has no modification time of its own, so only
+	 * {@code If-None-Match} is evaluated, and the response is {@code private}:
+	 * the output may differ between users.</p>
+	 *
+	 * @param eTag the validator of the rendered output
+	 * @return {@code true} when a 304 was sent; {@code false} when the caller
+	 *         should proceed to write the entity.
+	 */
+	public static boolean applyAndCheckNotModifiedRendered(
+			HttpServletRequest request, HttpServletResponse response, String eTag) {
+		response.setHeader("ETag", eTag);
+		response.setHeader("Cache-Control", "private, no-cache");
+		response.setHeader("Pragma", "no-cache");
+		response.setHeader("Expires", "0");
+
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null && matchesAny(ifNoneMatch, eTag)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Whether the request URL is version-stamped &mdash; it carries a non-empty
 	 * {@code v} query parameter (see {@link #VERSION_PARAM}). Only the presence
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.cms.internal.web;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * The response a template renders into while its output is being recorded
+ * for {@link WebRenderCache}. Text written through {@link #getWriter()} is
+ * kept back; status and headers go through to the real response and are
+ * remembered so that a cached render can set them again.
+ *
+ * <p>A render that streams binary output, fails, redirects, sets a cookie
+ * or forbids storing is passed through or written as usual, but reported as
+ * not cacheable.
+ */
+class RenderCaptureResponse extends HttpServletResponseWrapper {
+
+	private final StringWriter fBuffer = new StringWriter();
+	private final PrintWriter fWriter = new PrintWriter(fBuffer);
+	private final List<String[]> fHeaders = new ArrayList<>();
+	private boolean fWriterUsed;
+	private boolean fOutputStreamUsed;
+	private boolean fCompleted;
+	private boolean fCacheable = true;
+
+	RenderCaptureResponse(HttpServletResponse response) {
+		super(response);
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (fOutputStreamUsed) {
+			throw new IllegalStateException("getOutputStream() has already been called for this response.");
+		}
+		fWriterUsed = true;
+		return fWriter;
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (fWriterUsed) {
+			throw new IllegalStateException("getWriter() has already been called for this response.");
+		}
+		fOutputStreamUsed = true;
+		fCacheable = false;
+		return super.getOutputStream();
+	}
+
+	// The length is set from the captured text once rendering is over
+	@Override
+	public void setContentLength(int len) {}
+
+	@Override
+	public void setContentLengthLong(long len) {}
+
+	// Nothing may be committed before the validators are set
+	@Override
+	public void flushBuffer() throws IOException {
+		if (fOutputStreamUsed) {
+			super.flushBuffer();
+		}
+	}
+
+	@Override
+	public void resetBuffer() {
+		super.resetBuffer();
+		fWriter.flush();
+		fBuffer.getBuffer().setLength(0);
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		fWriter.flush();
+		fBuffer.getBuffer().setLength(0);
+		fHeaders.clear();
+	}
+
+	@Override
+	public void sendError(int sc, String msg) throws IOException {
+		fCompleted = true;
+		fCacheable = false;
+		super.sendError(sc, msg);
+	}
+
+	@Override
+	public void sendError(int sc) throws IOException {
+		fCompleted = true;
+		fCacheable = false;
+		super.sendError(sc);
+	}
+
+	@Override
+	public void sendRedirect(String location) throws IOException {
+		fCompleted = true;
+		fCacheable = false;
+		super.sendRedirect(location);
+	}
+
+	@Override
+	public void addCookie(Cookie cookie) {
+		fCacheable = false;
+		super.addCookie(cookie);
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		record(name, value, false);
+		super.setHeader(name, value);
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		record(name, value, true);
+		super.addHeader(name, value);
+	}
+
+	@Override
+	public void setDateHeader(String name, long date) {
+		super.setDateHeader(name, date);
+		record(name, getHeader(name), false);
+	}
+
+	@Override
+	public void addDateHeader(String name, long date) {
+		super.addDateHeader(name, date);
+		record(name, getHeader(name), true);
+	}
+
+	@Override
+	public void setIntHeader(String name, int value) {
+		record(name, Integer.toString(value), false);
+		super.setIntHeader(name, value);
+	}
+
+	@Override
+	public void addIntHeader(String name, int value) {
+		record(name, Integer.toString(value), true);
+		super.addIntHeader(name, value);
+	}
+
+	private void record(String name, String value, boolean add) {
+		String lowerName = name.toLowerCase(Locale.ROOT);
+		if (lowerName.equals("content-length")) {
+			return;
+		}
+		if (lowerName.equals("set-cookie")
+				|| (lowerName.equals("cache-control") && value != null && value.toLowerCase(Locale.ROOT).contains("no-store"))) {
+			fCacheable = false;
+		}
+		if (!add) {
+			fHeaders.removeIf(e -> e[0].equalsIgnoreCase(name));
+		}
+		fHeaders.add(new String[] { name, value });
+	}
+
+	/** Whether the render may be stored and served again. */
+	boolean isCacheable() {
+		return fCacheable && !fOutputStreamUsed && !fCompleted && getStatus() == HttpServletResponse.SC_OK;
+	}
+
+	/**
+	 * Whether the render has already been sent (binary output, an error or a
+	 * redirect), leaving no captured text to write.
+	 */
+	boolean isPassedThrough() {
+		return fOutputStreamUsed || fCompleted;
+	}
+
+	String getText() {
+		fWriter.flush();
+		return fBuffer.toString();
+	}
+
+	/** The headers the template set, in order, for replay on a cache hit. */
+	List<String[]> getHeaders() {
+		return new ArrayList<>(fHeaders);
+	}
+
+}
@@ -50,6 +50,25 @@ public class ScriptWriter extends PrintWriter {
 		return fWriter;
 	}
 
+	/**
+	 * Whether the response's writer has been taken, i.e. whether output may
+	 * already have gone to the response the context held at the time.
+	 */
+	public boolean isOpen() {
+		return (fWriter != null);
+	}
+
+	/**
+	 * Flushes and lets go of the response's writer, so that output written
+	 * after the context's response has been replaced goes to the new one.
+	 */
+	public void reset() {
+		if (fWriter != null) {
+			fWriter.flush();
+			fWriter = null;
+		}
+	}
+
 	@Override
 	public void flush() {
 		getWriter().flush();
@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.cms.internal.web;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.servlet.http.HttpServletRequest;
+
+import org.mintjams.jcr.util.JCRs;
+import org.mintjams.rt.cms.internal.CmsService;
+import org.mintjams.rt.cms.internal.security.CmsServiceCredentials;
+import org.mintjams.tools.lang.Strings;
+
+/**
+ * Per-workspace store of gzip-encoded copies of static repository files, so
+ * that {@link EvaluateAction} can answer a client that accepts gzip without
+ * compressing the file on every request.
+ *
+ * <p>A copy is keyed by the file's content identity: its node identifier,
+ * last-modified time and length. A changed file gets a new key, and the copy
+ * of the old content is simply no longer asked for; it ages out once the
+ * store exceeds its size limit, least recently used first. The store lives in
+ * {@code var/web/gzip} under the workspace directory and survives restarts.
+ *
+ * <p>Copies are built in the background. The request that finds no copy is
+ * answered uncompressed and queues the build, so no request waits for
+ * compression. A file that does not shrink by at least a tenth is remembered
+ * as such and is served uncompressed from then on.
+ */
+public class WebEncodedContentCache implements Closeable {
+
+	public static final String GZIP = "gzip";
+
+	private static final String[] COMPRESSIBLE_TYPES = new String[] {
+			"application/javascript",
+			"application/ecmascript",
+			"application/json",
+			"application/ld+json",
+			"application/manifest+json",
+			"application/xml",
+			"application/xhtml+xml",
+			"application/rss+xml",
+			"application/atom+xml",
+			"application/wasm",
+			"image/svg+xml",
+			"image/x-icon",
+			"image/vnd.microsoft.icon",
+			"font/ttf",
+			"font/otf"
+	};
+	private static final long MIN_CONTENT_LENGTH = 1024;
+	private static final int MAX_PENDING_BUILDS = 1000;
+	/** Disk cost charged for an "incompressible" marker file. */
+	private static final long MARKER_SIZE = 4096;
+	/**
+	 * A copy's modification time doubles as its last use, refreshed at most
+	 * this often; copies used more recently than this are never evicted, so a
+	 * copy handed to a request is not deleted before the request opens it.
+	 */
+	private static final long TOUCH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+	private final String fWorkspaceName;
+	private final long fMaxSize;
+	private final Set<String> fBuilding = ConcurrentHashMap.newKeySet();
+	private final AtomicLong fSize = new AtomicLong();
+	private Path fPath;
+	private ExecutorService fExecutor;
+
+	public WebEncodedContentCache(String workspaceName, long maxSize) {
+		fWorkspaceName = workspaceName;
+		fMaxSize = maxSize;
+	}
+
+	public synchronized WebEncodedContentCache open() throws IOException {
+		if (fExecutor != null) {
+			return this;
+		}
+
+		fPath = CmsService.getWorkspacePath(fWorkspaceName).resolve("var/web/gzip").normalize();
+		Files.createDirectories(fPath);
+		long size = 0;
+		try (Stream<Path> stream = Files.list(fPath)) {
+			for (Path path : (Iterable<Path>) stream::iterator) {
+				String name = path.getFileName().toString();
+				if (name.endsWith(".tmp")) {
+					Files.deleteIfExists(path);
+					continue;
+				}
+				size += getDiskSize(path);
+			}
+		}
+		fSize.set(size);
+
+		fExecutor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "web-gzip-" + fWorkspaceName);
+			t.setDaemon(true);
+			return t;
+		});
+		return this;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (fExecutor == null) {
+			return;
+		}
+
+		fExecutor.shutdownNow();
+		try {
+			fExecutor.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		fExecutor = null;
+		fBuilding.clear();
+	}
+
+	public String getWorkspaceName() {
+		return fWorkspaceName;
+	}
+
+	/**
+	 * Whether content of the given MIME type is worth compressing: text, and
+	 * the structured-text and uncompressed binary formats web assets use.
+	 */
+	public static boolean isCompressible(String mimeType) {
+		if (Strings.isEmpty(mimeType)) {
+			return false;
+		}
+
+		String type = mimeType.toLowerCase(Locale.ROOT);
+		int i = type.indexOf(';');
+		if (i != -1) {
+			type = type.substring(0, i);
+		}
+		type = type.trim();
+		if (type.startsWith("text/") || type.endsWith("+json") || type.endsWith("+xml")) {
+			return true;
+		}
+		for (String compressibleType : COMPRESSIBLE_TYPES) {
+			if (compressibleType.equals(type)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Whether the request's {@code Accept-Encoding} admits gzip: it lists
+	 * {@code gzip} (or {@code x-gzip}, or the wildcard when gzip is not listed
+	 * itself) with a non-zero quality value.
+	 */
+	public static boolean acceptsGzip(HttpServletRequest request) {
+		String acceptEncoding = request.getHeader("Accept-Encoding");
+		if (Strings.isEmpty(acceptEncoding)) {
+			return false;
+		}
+
+		Boolean gzip = null;
+		Boolean wildcard = null;
+		for (String element : acceptEncoding.split(",")) {
+			String[] params = element.split(";");
+			String coding = params[0].trim().toLowerCase(Locale.ROOT);
+			boolean acceptable = true;
+			for (int i = 1; i < params.length; i++) {
+				String param = params[i].trim();
+				if (param.startsWith("q=") || param.startsWith("Q=")) {
+					try {
+						acceptable = Double.parseDouble(param.substring(2).trim()) > 0;
+					} catch (NumberFormatException ex) {
+						acceptable = false;
+					}
+				}
+			}
+			if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+				gzip = acceptable;
+			} else if (coding.equals("*")) {
+				wildcard = acceptable;
+			}
+		}
+		if (gzip != null) {
+			return gzip;
+		}
+		return (wildcard != null) && wildcard;
+	}
+
+	/**
+	 * Returns the gzip copy of the given file's current content, or
+	 * {@code null} when there is none yet (a build is then queued) or the
+	 * content is too small or does not compress.
+	 */
+	public Path getGzip(Node fileNode, long lastModified, long contentLength) throws RepositoryException {
+		if (contentLength < MIN_CONTENT_LENGTH || fExecutor == null) {
+			return null;
+		}
+
+		String identifier = fileNode.getIdentifier();
+		String key = toKey(identifier, lastModified, contentLength);
+		Path path = fPath.resolve(key + ".gz");
+		try {
+			long now = System.currentTimeMillis();
+			FileTime lastUsed = Files.getLastModifiedTime(path);
+			if (now - lastUsed.toMillis() > TOUCH_INTERVAL_MILLIS) {
+				Files.setLastModifiedTime(path, FileTime.fromMillis(now));
+			}
+			return path;
+		} catch (NoSuchFileException ignore) {
+		} catch (IOException ex) {
+			return null;
+		}
+
+		if (Files.exists(fPath.resolve(key + ".none"))) {
+			return null;
+		}
+		if (fBuilding.size() < MAX_PENDING_BUILDS && fBuilding.add(key)) {
+			try {
+				fExecutor.execute(() -> {
+					try {
+						build(identifier, key, lastModified, contentLength);
+						trim();
+					} catch (Throwable ex) {
+						CmsService.getLogger(getClass()).warn("Failed to build the gzip copy of " + identifier + " in the " + fWorkspaceName + " workspace.", ex);
+					} finally {
+						fBuilding.remove(key);
+					}
+				});
+			} catch (RejectedExecutionException ex) {
+				fBuilding.remove(key);
+			}
+		}
+		return null;
+	}
+
+	private void build(String identifier, String key, long lastModified, long contentLength) throws RepositoryException, IOException {
+		Session session = CmsService.getRepository().login(new CmsServiceCredentials(), fWorkspaceName);
+		try {
+			Node fileNode = session.getNodeByIdentifier(identifier);
+			Node contentNode = fileNode.getNode(Node.JCR_CONTENT);
+			if (!contentNode.hasProperty(Property.JCR_LAST_MODIFIED)
+					|| contentNode.getProperty(Property.JCR_LAST_MODIFIED).getDate().getTimeInMillis() != lastModified) {
+				// Changed since the request asked; the next request asks for the new content.
+				return;
+			}
+
+			Path tmpPath = fPath.resolve(key + ".tmp");
+			try {
+				try (InputStream in = JCRs.getContentAsStream(fileNode);
+						OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmpPath), 65536) {
+							{
+								def.setLevel(Deflater.BEST_COMPRESSION);
+							}
+						}) {
+					in.transferTo(out);
+				}
+
+				long size = Files.size(tmpPath);
+				if (size > contentLength - contentLength / 10) {
+					Files.write(fPath.resolve(key + ".none"), new byte[0]);
+					fSize.addAndGet(MARKER_SIZE);
+					return;
+				}
+				Files.move(tmpPath, fPath.resolve(key + ".gz"), StandardCopyOption.ATOMIC_MOVE);
+				fSize.addAndGet(size);
+			} finally {
+				Files.deleteIfExists(tmpPath);
+			}
+		} finally {
+			session.logout();
+		}
+	}
+
+	/**
+	 * Deletes the least recently used copies until the store is back under
+	 * nine tenths of its size limit.
+	 */
+	private void trim() throws IOException {
+		if (fMaxSize <= 0 || fSize.get() <= fMaxSize) {
+			return;
+		}
+
+		List<Path> paths = new ArrayList<>();
+		try (Stream<Path> stream = Files.list(fPath)) {
+			stream.filter(path -> !path.getFileName().toString().endsWith(".tmp")).forEach(paths::add);
+		}
+		long size = 0;
+		for (Path path : paths) {
+			size += getDiskSize(path);
+		}
+		paths.sort(Comparator.comparing(path -> {
+			try {
+				return Files.getLastModifiedTime(path);
+			} catch (IOException ex) {
+				return FileTime.fromMillis(0);
+			}
+		}));
+
+		long threshold = fMaxSize - fMaxSize / 10;
+		long evictable = System.currentTimeMillis() - TOUCH_INTERVAL_MILLIS;
+		for (Path path : paths) {
+			if (size <= threshold) {
+				break;
+			}
+			try {
+				if (Files.getLastModifiedTime(path).toMillis() > evictable) {
+					break;
+				}
+				long diskSize = getDiskSize(path);
+				Files.deleteIfExists(path);
+				size -= diskSize;
+			} catch (NoSuchFileException ignore) {}
+		}
+		fSize.set(size);
+	}
+
+	private long getDiskSize(Path path) throws IOException {
+		if (path.getFileName().toString().endsWith(".none")) {
+			return MARKER_SIZE;
+		}
+		try {
+			return Files.size(path);
+		} catch (NoSuchFileException ex) {
+			return 0;
+		}
+	}
+
+	private String toKey(String identifier, long lastModified, long contentLength) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+					.digest((identifier + "@" + lastModified + ":" + contentLength).getBytes(StandardCharsets.UTF_8)));
+		} catch (Throwable ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
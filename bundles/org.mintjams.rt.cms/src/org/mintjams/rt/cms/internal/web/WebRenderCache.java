@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.cms.internal.web;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.jcr.Node;
+import javax.jcr.Session;
+import javax.servlet.http.HttpServletRequest;
+
+import org.mintjams.rt.cms.internal.CmsService;
+import org.mintjams.rt.cms.internal.script.Scripts;
+import org.mintjams.rt.cms.internal.script.WorkspaceScriptEngineManager;
+import org.mintjams.tools.io.IOs;
+import org.mintjams.tools.osgi.Registration;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventConstants;
+import org.osgi.service.event.EventHandler;
+
+/**
+ * Per-workspace cache of templated renders whose folder descriptor rule opts
+ * in with {@code cache:} (see {@link WebRenders}).
+ *
+ * <p>An entry is keyed by the request path, the request parameters the rule
+ * names and the principals of the session that rendered it, and remembers
+ * every path the session read (or looked up and did not find) while
+ * rendering, through {@link org.mintjams.jcr.ReadTracker}. A node event drops
+ * the entries that read the event's node or its parent, or anything below
+ * it; changes to script files, folder descriptors or {@code web.yml} drop
+ * everything, as in {@link WebResolveCache}. Nodes that only a query would
+ * find are not tracked, so a page that lists query results should set
+ * {@code maxAge} or stay uncached.
+ *
+ * <p>Output that depends on anything else than the repository, the named
+ * parameters and the user (the HTTP session, cookies, headers, the time of
+ * day) must not opt in.
+ */
+public class WebRenderCache implements EventHandler, Closeable {
+
+	// Node events remembered for renders in flight; older renders are not stored
+	private static final int MAX_CHANGES = 1024;
+
+	private final String fWorkspaceName;
+	private final long fMaxSize;
+	private final Object fLock = new Object();
+	private final LinkedHashMap<String, Entry> fEntries = new LinkedHashMap<>(16, 0.75f, true);
+	// Dependency path -> keys of the entries that read it
+	private final NavigableMap<String, Set<String>> fDependents = new TreeMap<>();
+	private long fSize;
+	private long fGeneration;
+	// Generation -> path of the node event that started it, for the latest events
+	private final NavigableMap<Long, String> fChanges = new TreeMap<>();
+	// Generation after which every event is in fChanges
+	private long fChangesSince;
+	private final LongAdder fHits = new LongAdder();
+	private final LongAdder fMisses = new LongAdder();
+	private final LongAdder fStores = new LongAdder();
+	private final LongAdder fInvalidations = new LongAdder();
+	private final LongAdder fBytesSaved = new LongAdder();
+	private Registration<EventHandler> fEventHandlerRegistration;
+
+	public WebRenderCache(String workspaceName, long maxSize) {
+		fWorkspaceName = workspaceName;
+		fMaxSize = maxSize;
+	}
+
+	public synchronized WebRenderCache open() throws IOException {
+		if (fEventHandlerRegistration != null) {
+			return this;
+		}
+
+		fEventHandlerRegistration = Registration.newBuilder(EventHandler.class)
+				.setService(this)
+				.setProperty(EventConstants.EVENT_TOPIC, new String[] { Node.class.getName().replace(".", "/") + "/*" })
+				.setProperty(EventConstants.EVENT_FILTER, "(workspace=" + fWorkspaceName + ")")
+				.setBundleContext(CmsService.getDefault().getBundleContext())
+				.build();
+		return this;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		IOs.closeQuietly(fEventHandlerRegistration);
+		fEventHandlerRegistration = null;
+		invalidate();
+		if (getHits() + getMisses() > 0) {
+			CmsService.getLogger(getClass()).info("Render cache of the " + fWorkspaceName + " workspace: "
+					+ getHits() + " hits, " + getMisses() + " misses, " + getStores() + " stores, "
+					+ getInvalidations() + " invalidations, " + getBytesSaved() + " bytes not rendered again.");
+		}
+	}
+
+	public String getWorkspaceName() {
+		return fWorkspaceName;
+	}
+
+	/**
+	 * The key of the render of {@code resourcePath} for this request and
+	 * session under the given policy.
+	 */
+	static String toKey(String resourcePath, WebRenders.CachePolicy policy, HttpServletRequest request, Session session) {
+		StringBuilder buf = new StringBuilder(resourcePath);
+		for (String name : policy.getParameterNames()) {
+			buf.append('\n').append(name);
+			String[] values = request.getParameterValues(name);
+			if (values != null) {
+				for (String value : values) {
+					buf.append('\u0000').append(value);
+				}
+			}
+		}
+		buf.append("\n@").append(session.getUserID());
+		if (session instanceof org.mintjams.jcr.Session) {
+			List<String> groups = new ArrayList<>();
+			for (Principal group : ((org.mintjams.jcr.Session) session).getGroups()) {
+				groups.add(group.getName());
+			}
+			Collections.sort(groups);
+			for (String group : groups) {
+				buf.append('\u0000').append(group);
+			}
+		}
+		return sha256(buf.toString());
+	}
+
+	static String sha256(String s) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex.getMessage(), ex);
+		}
+	}
+
+	Entry get(String key) {
+		Entry entry;
+		synchronized (fLock) {
+			entry = fEntries.get(key);
+			if (entry != null && entry.isExpired()) {
+				remove(key);
+				entry = null;
+			}
+		}
+		if (entry == null) {
+			fMisses.increment();
+		} else {
+			fHits.increment();
+			fBytesSaved.add(entry.getSize());
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the generation to pass to {@link #put}; take it before rendering
+	 * so that a render that read a path changed in the meantime is not
+	 * published. Changes to paths the render did not read do not reject it.
+	 */
+	long getGeneration() {
+		synchronized (fLock) {
+			return fGeneration;
+		}
+	}
+
+	void put(String key, Entry entry, long generation) {
+		if (entry.getSize() > fMaxSize) {
+			return;
+		}
+
+		synchronized (fLock) {
+			if (!isUnchangedSince(generation, entry.fDependencies)) {
+				return;
+			}
+
+			remove(key);
+			fEntries.put(key, entry);
+			fSize += entry.getSize();
+			for (String path : entry.fDependencies) {
+				fDependents.computeIfAbsent(path, k -> new HashSet<>()).add(key);
+			}
+			while (fSize > fMaxSize) {
+				String eldest = fEntries.keySet().iterator().next();
+				if (eldest.equals(key)) {
+					break;
+				}
+				remove(eldest);
+			}
+		}
+		fStores.increment();
+	}
+
+	// Callers hold fLock
+	private boolean isUnchangedSince(long generation, Set<String> dependencies) {
+		if (generation == fGeneration) {
+			return true;
+		}
+		if (generation < fChangesSince) {
+			return false;
+		}
+
+		for (String path : fChanges.tailMap(generation, false).values()) {
+			String parentPath = getParentPath(path);
+			if (dependencies.contains(path) || (parentPath != null && dependencies.contains(parentPath))) {
+				return false;
+			}
+			String prefix = path.endsWith("/") ? path : path + "/";
+			for (String dependency : dependencies) {
+				if (dependency.startsWith(prefix)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	// Callers hold fLock
+	private void remove(String key) {
+		Entry entry = fEntries.remove(key);
+		if (entry == null) {
+			return;
+		}
+
+		fSize -= entry.getSize();
+		for (String path : entry.fDependencies) {
+			Set<String> keys = fDependents.get(path);
+			if (keys != null && keys.remove(key) && keys.isEmpty()) {
+				fDependents.remove(path);
+			}
+		}
+	}
+
+	/** Renders answered from the cache. */
+	public long getHits() {
+		return fHits.sum();
+	}
+
+	/** Cacheable renders that had to be rendered. */
+	public long getMisses() {
+		return fMisses.sum();
+	}
+
+	/** Renders stored. */
+	public long getStores() {
+		return fStores.sum();
+	}
+
+	/** Times a node event dropped entries. */
+	public long getInvalidations() {
+		return fInvalidations.sum();
+	}
+
+	/** Output served from the cache instead of being rendered, in bytes (two per character). */
+	public long getBytesSaved() {
+		return fBytesSaved.sum();
+	}
+
+	@Override
+	public void handleEvent(Event event) {
+		Object path = event.getProperty("path");
+		if (path == null) {
+			return;
+		}
+		invalidate(path.toString());
+		Object sourcePath = event.getProperty("source_path");
+		if (sourcePath != null) {
+			invalidate(sourcePath.toString());
+		}
+	}
+
+	private void invalidate(String path) {
+		if (WebRenders.isWithinContent(path)) {
+			String filePath = path;
+			int p = filePath.indexOf("/" + Node.JCR_CONTENT);
+			if (p != -1) {
+				filePath = filePath.substring(0, p);
+			}
+			if (filePath.equals(Webs.DEFAULT_WEB_YML_PATH)
+					|| filePath.endsWith("/" + Webs.WEB_DESCRIPTOR_NAME)
+					|| isTemplate(filePath)) {
+				invalidate();
+				fInvalidations.increment();
+				return;
+			}
+		}
+
+		// The node itself, its parent (whose children changed) and, for moves,
+		// removals and access control changes, everything read below it
+		String parentPath = getParentPath(path);
+		Set<String> keys = new HashSet<>();
+		synchronized (fLock) {
+			fGeneration++;
+			fChanges.put(fGeneration, path);
+			if (fChanges.size() > MAX_CHANGES) {
+				fChangesSince = fChanges.pollFirstEntry().getKey();
+			}
+			addDependents(path, keys);
+			if (parentPath != null) {
+				addDependents(parentPath, keys);
+			}
+			String prefix = path.endsWith("/") ? path : path + "/";
+			for (Set<String> e : fDependents.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+				keys.addAll(e);
+			}
+			for (String key : keys) {
+				remove(key);
+			}
+		}
+		if (!keys.isEmpty()) {
+			fInvalidations.increment();
+		}
+	}
+
+	private String getParentPath(String path) {
+		return path.equals("/") ? null : path.substring(0, Math.max(path.lastIndexOf('/'), 1));
+	}
+
+	private void addDependents(String path, Set<String> keys) {
+		Set<String> e = fDependents.get(path);
+		if (e != null) {
+			keys.addAll(e);
+		}
+	}
+
+	// Templates may live anywhere a binding points to, so any script file counts
+	private boolean isTemplate(String path) {
+		if (path.startsWith(Webs.DEFAULT_WEB_TEMPLATE_PATH + "/")) {
+			return true;
+		}
+
+		WorkspaceScriptEngineManager scriptEngineManager = CmsService.getWorkspaceScriptEngineManager(fWorkspaceName);
+		if (scriptEngineManager == null) {
+			return false;
+		}
+		String name = path.substring(path.lastIndexOf('/') + 1);
+		for (String extension : Scripts.getScriptExtensions(scriptEngineManager)) {
+			if (name.endsWith("." + extension)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void invalidate() {
+		synchronized (fLock) {
+			fGeneration++;
+			fChanges.clear();
+			fChangesSince = fGeneration;
+			fEntries.clear();
+			fDependents.clear();
+			fSize = 0;
+		}
+	}
+
+	/**
+	 * A rendered page: its text, the response headers the template set, and
+	 * the paths it was rendered from.
+	 */
+	static class Entry {
+		private final String fText;
+		private final String fContentType;
+		private final String fCharacterEncoding;
+		private final List<String[]> fHeaders;
+		private final String fETag;
+		private final Set<String> fDependencies;
+		private final long fExpiresAt;
+
+		Entry(String text, String contentType, String characterEncoding, List<String[]> headers,
+				Set<String> dependencies, long maxAgeMillis) {
+			fText = text;
+			fContentType = contentType;
+			fCharacterEncoding = characterEncoding;
+			fHeaders = headers;
+			fETag = toETag(text);
+			fDependencies = dependencies;
+			fExpiresAt = (maxAgeMillis > 0) ? System.currentTimeMillis() + maxAgeMillis : Long.MAX_VALUE;
+		}
+
+		/** The validator of a render: a digest of its text. */
+		static String toETag(String text) {
+			return "\"r-" + sha256(text).substring(0, 32) + "\"";
+		}
+
+		String getText() {
+			return fText;
+		}
+
+		String getContentType() {
+			return fContentType;
+		}
+
+		String getCharacterEncoding() {
+			return fCharacterEncoding;
+		}
+
+		List<String[]> getHeaders() {
+			return fHeaders;
+		}
+
+		String getETag() {
+			return fETag;
+		}
+
+		// Characters held, as an approximation of the memory used
+		long getSize() {
+			return fText.length() * 2L;
+		}
+
+		boolean isExpired() {
+			return System.currentTimeMillis() >= fExpiresAt;
+		}
+	}
+
+}
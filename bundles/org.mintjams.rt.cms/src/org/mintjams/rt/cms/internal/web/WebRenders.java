@@ -40,6 +40,7 @@ import javax.jcr.Session;
 import javax.jcr.nodetype.NodeType;
 
 import org.mintjams.jcr.util.JCRs;
+import org.mintjams.rt.cms.internal.CmsService;
 import org.mintjams.tools.lang.Strings;
 import org.snakeyaml.engine.v2.api.Load;
 import org.snakeyaml.engine.v2.api.LoadSettings;
@@ -58,6 +59,19 @@ import org.snakeyaml.engine.v2.api.LoadSettings;
  * which binds files by glob (e.g. {@code *.md}) so a whole folder can be
  * rendered without touching each file.</li>
  * </ol>
+ *
+ * <p>A descriptor rule may also opt its renders into the server-side render
+ * cache ({@link WebRenderCache}):</p>
+ * <pre>
+ * render:
+ *   - match: "*.md"
+ *     template: page
+ *     output: [html]
+ *     cache:
+ *       params: [page, lang]   # request parameters the output depends on
+ *       maxAge: 600            # seconds; optional upper bound on an entry's life
+ * </pre>
+ * <p>{@code cache: true} caches with no parameters and no age limit.</p>
  */
 public final class WebRenders {
 
@@ -70,11 +84,11 @@ public final class WebRenders {
 	 * Defaults to {@code md}.
 	 */
 	public static List<String> getSourceExtensions(Session session) {
-		List<String> raw = stringList(configValue(session, "sourceExtensions"));
-		if (raw.isEmpty()) {
-			raw = Collections.singletonList("md");
+		WebRoutingTable table = getRoutingTable(session);
+		if (table != null) {
+			return table.getSourceExtensions();
 		}
-		return normalizeExtensions(raw);
+		return readSourceExtensions(session);
 	}
 
 	/** Whether {@code name} ends with one of the given (normalized) source extensions. */
@@ -108,13 +122,26 @@ public final class WebRenders {
 		try {
 			String templatePath = node.getNode(Node.JCR_CONTENT).getProperty(Webs.WEB_TEMPLATE).getString();
 			if (Strings.isNotEmpty(templatePath)) {
-				return new Binding(templatePath, Collections.emptyList(), false);
+				return new Binding(templatePath, Collections.emptyList(), false, null);
 			}
 		} catch (PathNotFoundException ignore) {
 		} catch (AccessDeniedException ignore) {}
 
 		// 2. Nearest ancestor folder descriptor with a matching rule.
 		String name = node.getName();
+		WebRoutingTable table = getRoutingTable(node.getSession());
+		if (table != null) {
+			String path = node.getPath();
+			for (Descriptor descriptor : table.getChain(path.substring(0, Math.max(path.lastIndexOf('/'), 1)))) {
+				for (Rule rule : descriptor.fRules) {
+					if (rule.matches(name)) {
+						return new Binding(rule.fTemplatePath, rule.fOutputs, true, rule.fCachePolicy);
+					}
+				}
+			}
+			return null;
+		}
+
 		Node folder;
 		try {
 			folder = node.getParent();
@@ -132,9 +159,9 @@ public final class WebRenders {
 				break;
 			}
 
-			for (Rule rule : getRules(folder)) {
+			for (Rule rule : compileDescriptor(folder, path).fRules) {
 				if (rule.matches(name)) {
-					return new Binding(rule.fTemplatePath, rule.fOutputs, true);
+					return new Binding(rule.fTemplatePath, rule.fOutputs, true, rule.fCachePolicy);
 				}
 			}
 
@@ -193,6 +220,23 @@ public final class WebRenders {
 		} catch (RepositoryException ignore) {
 			return null;
 		}
+
+		WebRoutingTable table = getRoutingTable(node.getSession());
+		if (table != null) {
+			String path;
+			try {
+				path = folder.getPath();
+			} catch (RepositoryException ignore) {
+				return null;
+			}
+			for (Descriptor descriptor : table.getChain(path)) {
+				if (descriptor.fDocumentRoot) {
+					return descriptor.fPath;
+				}
+			}
+			return null;
+		}
+
 		for (;;) {
 			String path;
 			try {
@@ -203,7 +247,7 @@ public final class WebRenders {
 			if (!isWithinContent(path)) {
 				return null;
 			}
-			if (isDocumentRoot(folder)) {
+			if (compileDescriptor(folder, path).fDocumentRoot) {
 				return path;
 			}
 			if (path.equals(Webs.CONTENT_PATH)) {
@@ -217,21 +261,18 @@ public final class WebRenders {
 		}
 	}
 
-	private static boolean isWithinContent(String path) {
-		return path.equals(Webs.CONTENT_PATH) || path.startsWith(Webs.CONTENT_PATH + "/");
+	/**
+	 * The workspace's compiled routing table, or {@code null} while the
+	 * workspace's web services are not running; callers then read the
+	 * descriptors directly.
+	 */
+	private static WebRoutingTable getRoutingTable(Session session) {
+		WorkspaceWebServletProvider provider = CmsService.getWorkspaceServletProvider(session.getWorkspace().getName());
+		return (provider == null) ? null : provider.getRoutingTable();
 	}
 
-	/** Whether {@code folder}'s descriptor declares it a site document root. */
-	private static boolean isDocumentRoot(Node folder) {
-		Map<?, ?> descriptor = readDescriptor(folder);
-		if (descriptor == null) {
-			return false;
-		}
-		Object site = descriptor.get("site");
-		if (!(site instanceof Map)) {
-			return false;
-		}
-		return isTrue(((Map<?, ?>) site).get("root"));
+	static boolean isWithinContent(String path) {
+		return path.equals(Webs.CONTENT_PATH) || path.startsWith(Webs.CONTENT_PATH + "/");
 	}
 
 	private static boolean isTrue(Object value) {
@@ -270,30 +311,76 @@ public final class WebRenders {
 		return (parsed instanceof Map) ? (Map<?, ?>) parsed : null;
 	}
 
-	private static List<Rule> getRules(Node folder) {
-		Map<?, ?> parsed = readDescriptor(folder);
+	/**
+	 * Compiles {@code folder}'s {@value Webs#WEB_DESCRIPTOR_NAME} descriptor:
+	 * its render rules and whether it declares the folder a site document root
+	 * ({@code site.root: true}). {@code folder} is {@code null} for a path that
+	 * does not exist.
+	 */
+	static Descriptor compileDescriptor(Node folder, String path) {
+		Map<?, ?> parsed = (folder == null) ? null : readDescriptor(folder);
 		if (parsed == null) {
-			return Collections.emptyList();
+			return new Descriptor(path, Collections.emptyList(), false);
 		}
+
+		List<Rule> rules = new ArrayList<>();
 		Object render = parsed.get("render");
-		if (!(render instanceof List)) {
-			return Collections.emptyList();
+		if (render instanceof List) {
+			for (Object entry : (List<?>) render) {
+				if (!(entry instanceof Map)) {
+					continue;
+				}
+				Map<?, ?> map = (Map<?, ?>) entry;
+				String match = asString(map.get("match"));
+				String template = asString(map.get("template"));
+				if (Strings.isEmpty(match) || Strings.isEmpty(template)) {
+					continue;
+				}
+				rules.add(new Rule(match, template, normalizeExtensions(stringList(map.get("output"))), compileCachePolicy(map.get("cache"))));
+			}
 		}
 
-		List<Rule> rules = new ArrayList<>();
-		for (Object entry : (List<?>) render) {
-			if (!(entry instanceof Map)) {
-				continue;
+		Object site = parsed.get("site");
+		boolean documentRoot = (site instanceof Map) && isTrue(((Map<?, ?>) site).get("root"));
+		return new Descriptor(path, rules, documentRoot);
+	}
+
+	/**
+	 * Compiles a rule's {@code cache} entry: {@code true}, or a map with
+	 * {@code params} and {@code maxAge}. Returns {@code null} when the rule's
+	 * renders are not cached.
+	 */
+	private static CachePolicy compileCachePolicy(Object cache) {
+		if (cache instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) cache;
+			if (map.containsKey("enabled") && !isTrue(map.get("enabled"))) {
+				return null;
 			}
-			Map<?, ?> map = (Map<?, ?>) entry;
-			String match = asString(map.get("match"));
-			String template = asString(map.get("template"));
-			if (Strings.isEmpty(match) || Strings.isEmpty(template)) {
-				continue;
+			long maxAgeSeconds = 0;
+			Object maxAge = map.get("maxAge");
+			if (maxAge != null) {
+				try {
+					maxAgeSeconds = Math.max(Long.parseLong(maxAge.toString().trim()), 0);
+				} catch (NumberFormatException ignore) {}
 			}
-			rules.add(new Rule(match, template, normalizeExtensions(stringList(map.get("output")))));
+			return new CachePolicy(stringList(map.get("params")), maxAgeSeconds * 1000L);
+		}
+		if (isTrue(cache)) {
+			return new CachePolicy(Collections.emptyList(), 0);
+		}
+		return null;
+	}
+
+	/**
+	 * Reads {@code sourceExtensions} from {@code /content/WEB-INF/web.yml},
+	 * normalized, defaulting to {@code md}.
+	 */
+	static List<String> readSourceExtensions(Session session) {
+		List<String> raw = stringList(configValue(session, "sourceExtensions"));
+		if (raw.isEmpty()) {
+			raw = Collections.singletonList("md");
 		}
-		return rules;
+		return normalizeExtensions(raw);
 	}
 
 	private static Object configValue(Session session, String key) {
@@ -394,11 +481,13 @@ public final class WebRenders {
 		private final Pattern fPattern;
 		private final String fTemplatePath;
 		private final List<String> fOutputs;
+		private final CachePolicy fCachePolicy;
 
-		private Rule(String glob, String templatePath, List<String> outputs) {
+		private Rule(String glob, String templatePath, List<String> outputs, CachePolicy cachePolicy) {
 			fPattern = globToPattern(glob);
 			fTemplatePath = templatePath;
 			fOutputs = outputs;
+			fCachePolicy = cachePolicy;
 		}
 
 		private boolean matches(String name) {
@@ -406,16 +495,36 @@ public final class WebRenders {
 		}
 	}
 
+	/** A folder's compiled descriptor. */
+	static final class Descriptor {
+		private final String fPath;
+		private final List<Rule> fRules;
+		private final boolean fDocumentRoot;
+
+		private Descriptor(String path, List<Rule> rules, boolean documentRoot) {
+			fPath = path;
+			fRules = rules;
+			fDocumentRoot = documentRoot;
+		}
+
+		/** Whether the descriptor affects routing at all; folders without one do not. */
+		boolean isEffective() {
+			return fDocumentRoot || !fRules.isEmpty();
+		}
+	}
+
 	/** Effective binding of a content node to a template. */
 	public static final class Binding {
 		private final String fTemplatePath;
 		private final List<String> fOutputs;
 		private final boolean fFromDescriptor;
+		private final CachePolicy fCachePolicy;
 
-		private Binding(String templatePath, List<String> outputs, boolean fromDescriptor) {
+		private Binding(String templatePath, List<String> outputs, boolean fromDescriptor, CachePolicy cachePolicy) {
 			fTemplatePath = templatePath;
 			fOutputs = Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(outputs)));
 			fFromDescriptor = fromDescriptor;
+			fCachePolicy = cachePolicy;
 		}
 
 		public String getTemplatePath() {
@@ -432,6 +541,11 @@ public final class WebRenders {
 			return fFromDescriptor;
 		}
 
+		/** How renders through this binding are cached, or {@code null} when they are not. */
+		public CachePolicy getCachePolicy() {
+			return fCachePolicy;
+		}
+
 		/**
 		 * Whether the given output suffix (e.g. {@code ".html"} or {@code ".rss"})
 		 * is allowed by this binding. A binding with no declared outputs allows any.
@@ -452,4 +566,27 @@ public final class WebRenders {
 		}
 	}
 
+	/** A rule's opt-in to the render cache. */
+	public static final class CachePolicy {
+		private final List<String> fParameterNames;
+		private final long fMaxAgeMillis;
+
+		private CachePolicy(List<String> parameterNames, long maxAgeMillis) {
+			List<String> names = new ArrayList<>(new LinkedHashSet<>(parameterNames));
+			Collections.sort(names);
+			fParameterNames = Collections.unmodifiableList(names);
+			fMaxAgeMillis = maxAgeMillis;
+		}
+
+		/** Request parameters that select the output, sorted; all others are ignored. */
+		public List<String> getParameterNames() {
+			return fParameterNames;
+		}
+
+		/** Upper bound on an entry's life; {@code 0} for none. */
+		public long getMaxAgeMillis() {
+			return fMaxAgeMillis;
+		}
+	}
+
 }
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.cms.internal.web;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.jcr.Node;
+
+import org.mintjams.rt.cms.internal.CmsService;
+import org.mintjams.rt.cms.internal.script.Scripts;
+import org.mintjams.rt.cms.internal.script.WorkspaceScriptEngineManager;
+import org.mintjams.tools.io.IOs;
+import org.mintjams.tools.osgi.Registration;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventConstants;
+import org.osgi.service.event.EventHandler;
+
+/**
+ * Per-workspace memo of how {@link WebResourceResolver} resolved a request
+ * path that is not a node itself: either the candidate node it was resolved
+ * to (a templated source or an extension-less base), or the fact that it
+ * resolves to nothing.
+ *
+ * <p>A path that does not exist otherwise costs a repository lookup for every
+ * source extension and suffix split, plus a binding walk, on every request;
+ * bots and stale links make these the most frequent misses of all. A known
+ * miss is answered with one map lookup. A known candidate is still re-checked
+ * with the caller's session, so access control and bindings are enforced as
+ * usual; only the failed probes before it are skipped.
+ *
+ * <p>Every probe of a request path lies in the request path's parent folder,
+ * so node events drop the entries of the folder the event's node belongs to
+ * and of everything below it. Changes to script files (templates), folder
+ * descriptors or {@code web.yml} drop everything.
+ */
+public class WebResolveCache implements EventHandler, Closeable {
+
+	private static final int MAX_ENTRIES = 10000;
+
+	private final String fWorkspaceName;
+	private final Object fLock = new Object();
+	private final Map<String, Entry> fEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+	private long fGeneration;
+	private final LongAdder fHits = new LongAdder();
+	private final LongAdder fMisses = new LongAdder();
+	private final LongAdder fInvalidations = new LongAdder();
+	private Registration<EventHandler> fEventHandlerRegistration;
+
+	public WebResolveCache(String workspaceName) {
+		fWorkspaceName = workspaceName;
+	}
+
+	public synchronized WebResolveCache open() throws IOException {
+		if (fEventHandlerRegistration != null) {
+			return this;
+		}
+
+		fEventHandlerRegistration = Registration.newBuilder(EventHandler.class)
+				.setService(this)
+				.setProperty(EventConstants.EVENT_TOPIC, new String[] { Node.class.getName().replace(".", "/") + "/*" })
+				.setProperty(EventConstants.EVENT_FILTER, "(workspace=" + fWorkspaceName + ")")
+				.setBundleContext(CmsService.getDefault().getBundleContext())
+				.build();
+		return this;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		IOs.closeQuietly(fEventHandlerRegistration);
+		fEventHandlerRegistration = null;
+		invalidate();
+	}
+
+	public String getWorkspaceName() {
+		return fWorkspaceName;
+	}
+
+	Entry get(String key) {
+		Entry entry;
+		synchronized (fLock) {
+			entry = fEntries.get(key);
+		}
+		if (entry == null) {
+			fMisses.increment();
+		} else {
+			fHits.increment();
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the generation to pass to {@link #put}; take it before resolving
+	 * so that a result read across a change is not published.
+	 */
+	long getGeneration() {
+		synchronized (fLock) {
+			return fGeneration;
+		}
+	}
+
+	void put(String key, Entry entry, long generation) {
+		synchronized (fLock) {
+			if (generation == fGeneration) {
+				fEntries.put(key, entry);
+			}
+		}
+	}
+
+	void remove(String key) {
+		synchronized (fLock) {
+			fEntries.remove(key);
+		}
+	}
+
+	/** Request paths answered from the cache. */
+	public long getHits() {
+		return fHits.sum();
+	}
+
+	/** Request paths that had to be resolved. */
+	public long getMisses() {
+		return fMisses.sum();
+	}
+
+	/** Times a node event dropped entries. */
+	public long getInvalidations() {
+		return fInvalidations.sum();
+	}
+
+	@Override
+	public void handleEvent(Event event) {
+		Object path = event.getProperty("path");
+		if (path == null) {
+			return;
+		}
+		invalidate(path.toString());
+		Object sourcePath = event.getProperty("source_path");
+		if (sourcePath != null) {
+			invalidate(sourcePath.toString());
+		}
+	}
+
+	private void invalidate(String path) {
+		if (!WebRenders.isWithinContent(path)) {
+			return;
+		}
+
+		// An event on a file's content node or property is a change of the file
+		int p = path.indexOf("/" + Node.JCR_CONTENT);
+		if (p != -1) {
+			path = path.substring(0, p);
+		}
+
+		if (path.equals(Webs.DEFAULT_WEB_YML_PATH)
+				|| path.endsWith("/" + Webs.WEB_DESCRIPTOR_NAME)
+				|| isTemplate(path)) {
+			invalidate();
+			fInvalidations.increment();
+			return;
+		}
+
+		String nodePath = path;
+		String folderPath = path.substring(0, path.lastIndexOf('/') + 1);
+		synchronized (fLock) {
+			fGeneration++;
+			fEntries.keySet().removeIf(e -> {
+				String requestPath = e.substring(e.indexOf(' ') + 1);
+				return (requestPath.startsWith(folderPath) && requestPath.indexOf('/', folderPath.length()) == -1)
+						|| requestPath.startsWith(nodePath + "/");
+			});
+		}
+		fInvalidations.increment();
+	}
+
+	// Templates may live anywhere a binding points to, so any script file counts
+	private boolean isTemplate(String path) {
+		if (path.startsWith(Webs.DEFAULT_WEB_TEMPLATE_PATH + "/")) {
+			return true;
+		}
+
+		WorkspaceScriptEngineManager scriptEngineManager = CmsService.getWorkspaceScriptEngineManager(fWorkspaceName);
+		if (scriptEngineManager == null) {
+			return false;
+		}
+		String name = path.substring(path.lastIndexOf('/') + 1);
+		for (String extension : Scripts.getScriptExtensions(scriptEngineManager)) {
+			if (name.endsWith("." + extension)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void invalidate() {
+		synchronized (fLock) {
+			fGeneration++;
+			fEntries.clear();
+		}
+	}
+
+	/**
+	 * A resolved request path: nothing, or the node it resolves to together
+	 * with the output suffix the node's template is looked up with.
+	 */
+	static class Entry {
+		static final Entry NOT_FOUND = new Entry(false, null, null);
+
+		private final boolean fSource;
+		private final String fNodePath;
+		private final String fSuffix;
+
+		private Entry(boolean source, String nodePath, String suffix) {
+			fSource = source;
+			fNodePath = nodePath;
+			fSuffix = suffix;
+		}
+
+		/** A templated source kept under its natural name (e.g. {@code index.md}). */
+		static Entry source(String nodePath, String suffix) {
+			return new Entry(true, nodePath, suffix);
+		}
+
+		/** A base node named without the requested extension (e.g. {@code index}). */
+		static Entry base(String nodePath, String suffix) {
+			return new Entry(false, nodePath, suffix);
+		}
+
+		boolean isNotFound() {
+			return (fNodePath == null);
+		}
+
+		boolean isSource() {
+			return fSource;
+		}
+
+		String getNodePath() {
+			return fNodePath;
+		}
+
+		String getSuffix() {
+			return fSuffix;
+		}
+	}
+
+}
@@ -36,12 +36,14 @@ import javax.jcr.Node;
 import javax.jcr.PathNotFoundException;
 import javax.jcr.Property;
 import javax.jcr.RepositoryException;
+import javax.jcr.Session;
 import javax.jcr.nodetype.NodeType;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.mintjams.jcr.util.ExpressionContext;
 import org.mintjams.jcr.util.JCRs;
+import org.mintjams.rt.cms.internal.CmsService;
 import org.mintjams.rt.cms.internal.script.Scripts;
 import org.mintjams.rt.cms.internal.script.WorkspaceScriptContext;
 import org.mintjams.script.JSON;
@@ -57,20 +59,70 @@ public class WebResourceResolver {
 		fContext = context;
 	}
 
+	/**
+	 * Resolves a request path to the node that serves it. Paths that are not a
+	 * node themselves are remembered per workspace (see
+	 * {@link WebResolveCache}), so a repeated miss or templated lookup skips
+	 * the candidate probes.
+	 */
 	public ResolveResult resolve(String absPath) throws RepositoryException {
-		try {
-			Node node = Scripts.getJcrSession(fContext).getNode(absPath);
-			// A templated source kept under its natural name (e.g. "index.md"
-			// bound to a template) is authoring input, not a public
-			// representation: its rendered output is served at the output
-			// extension (e.g. "index.html"), and the raw source itself is not
-			// web-exposed. A plain file that merely carries a source extension
-			// but has no template binding (e.g. a downloadable "readme.md")
-			// keeps being served as-is.
-			if (isHiddenSource(node)) {
+		WebResolveCache cache = getResolveCache();
+		if (cache == null) {
+			return resolveUncached(absPath);
+		}
+
+		// The template lookup depends on the request method (e.g. POST.page.gsp)
+		String key = Webs.getRequest(fContext).getMethod().toUpperCase() + " " + absPath;
+		WebResolveCache.Entry entry = cache.get(key);
+		if (entry != null) {
+			if (entry.isNotFound()) {
 				return new ResolveResult(new PathNotFoundException(absPath));
 			}
-			return new ResolveResult(node);
+
+			ResolveResult result = entry.isSource()
+					? resolveTemplatedSource(entry.getNodePath(), entry.getSuffix())
+					: resolveBoundNode(entry.getNodePath(), entry.getSuffix());
+			if (result != null) {
+				return result;
+			}
+			cache.remove(key);
+		}
+
+		long generation = cache.getGeneration();
+		_accessDenied = false;
+		_candidate = null;
+		ResolveResult result = resolveUncached(absPath);
+		if (result.isNotFound()) {
+			// A miss caused by this caller's missing read access is not a miss
+			// for everyone.
+			if (!_accessDenied) {
+				cache.put(key, WebResolveCache.Entry.NOT_FOUND, generation);
+			}
+		} else if (_candidate != null && result.exists()) {
+			cache.put(key, _candidate, generation);
+		}
+		return result;
+	}
+
+	private boolean _accessDenied;
+	private WebResolveCache.Entry _candidate;
+
+	private ResolveResult resolveUncached(String absPath) throws RepositoryException {
+		try {
+			Node node = findNode(absPath);
+			if (node != null) {
+				// A templated source kept under its natural name (e.g. "index.md"
+				// bound to a template) is authoring input, not a public
+				// representation: its rendered output is served at the output
+				// extension (e.g. "index.html"), and the raw source itself is not
+				// web-exposed. A plain file that merely carries a source extension
+				// but has no template binding (e.g. a downloadable "readme.md")
+				// keeps being served as-is.
+				if (isHiddenSource(node)) {
+					return new ResolveResult(new PathNotFoundException(absPath));
+				}
+				return new ResolveResult(node);
+			}
 		} catch (PathNotFoundException ignore) {
 		} catch (AccessDeniedException ex) {
 			return new ResolveResult(ex);
@@ -86,8 +138,10 @@ public class WebResourceResolver {
 			// resolves the stored "index.md" source). This is strictly additive
 			// to the legacy lookup below and never alters its behavior.
 			for (String sourceExtension : getSourceExtensions()) {
-				ResolveResult result = resolveTemplatedSource(parentPath + basename + "." + sourceExtension, suffix);
+				String sourcePath = parentPath + basename + "." + sourceExtension;
+				ResolveResult result = resolveTemplatedSource(sourcePath, suffix);
 				if (result != null) {
+					_candidate = WebResolveCache.Entry.source(sourcePath, suffix);
 					return result;
 				}
 			}
@@ -98,19 +152,16 @@ public class WebResourceResolver {
 			// original "base exists but is not templatable -> stop" behavior is
 			// preserved.
 			try {
-				Node baseNode = Scripts.getJcrSession(fContext).getNode(parentPath + basename);
-				WebRenders.Binding binding = WebRenders.resolveBinding(baseNode);
-				if (binding == null || !binding.allowsOutput(suffix)) {
-					break;
-				}
+				Node baseNode = findNode(parentPath + basename);
+				if (baseNode != null) {
+					ResolveResult result = resolveBoundNode(baseNode, suffix);
+					if (result == null) {
+						break;
+					}
 
-				Template template = getTemplate(binding.getTemplatePath() + suffix);
-				if (template == null) {
-					break;
+					_candidate = WebResolveCache.Entry.base(baseNode.getPath(), suffix);
+					return result;
 				}
-
-				return new ResolveResult(baseNode, template);
-			} catch (PathNotFoundException ignore) {
 			} catch (AccessDeniedException ex) {
 				return new ResolveResult(ex);
 			}
@@ -137,13 +188,42 @@ public class WebResourceResolver {
 	private ResolveResult resolveTemplatedSource(String nodePath, String suffix) throws RepositoryException {
 		Node node;
 		try {
-			node = Scripts.getJcrSession(fContext).getNode(nodePath);
-		} catch (PathNotFoundException ignore) {
+			node = findNode(nodePath);
+		} catch (AccessDeniedException ex) {
+			return new ResolveResult(ex);
+		}
+		if (node == null) {
 			return null;
+		}
+
+		return resolveBoundNode(node, suffix);
+	}
+
+	/**
+	 * Resolves the base node at {@code nodePath} (see
+	 * {@link #resolveBoundNode(Node, String)}); used to re-check a remembered
+	 * candidate.
+	 */
+	private ResolveResult resolveBoundNode(String nodePath, String suffix) throws RepositoryException {
+		Node node;
+		try {
+			node = findNode(nodePath);
 		} catch (AccessDeniedException ex) {
 			return new ResolveResult(ex);
 		}
+		if (node == null) {
+			return null;
+		}
 
+		return resolveBoundNode(node, suffix);
+	}
+
+	/**
+	 * Returns {@code node} rendered through the template its binding names for
+	 * the given output {@code suffix}, or {@code null} when it has no binding
+	 * that allows the suffix or the template does not exist.
+	 */
+	private ResolveResult resolveBoundNode(Node node, String suffix) throws RepositoryException {
 		WebRenders.Binding binding = WebRenders.resolveBinding(node);
 		if (binding == null || !binding.allowsOutput(suffix)) {
 			return null;
@@ -154,7 +234,28 @@ public class WebResourceResolver {
 			return null;
 		}
 
-		return new ResolveResult(node, template);
+		return new ResolveResult(node, template, binding.getCachePolicy());
+	}
+
+	/**
+	 * Returns the node at {@code absPath}, or {@code null} when there is none.
+	 * Probing with {@code nodeExists} keeps a miss free of exceptions.
+	 */
+	private Node findNode(String absPath) throws RepositoryException {
+		Session session = Scripts.getJcrSession(fContext);
+		if (!session.nodeExists(absPath)) {
+			return null;
+		}
+		return session.getNode(absPath);
+	}
+
+	/**
+	 * The workspace's resolve cache, or {@code null} while the workspace's web
+	 * services are not running.
+	 */
+	private WebResolveCache getResolveCache() throws RepositoryException {
+		WorkspaceWebServletProvider provider = CmsService.getWorkspaceServletProvider(Scripts.getJcrSession(fContext).getWorkspace().getName());
+		return (provider == null) ? null : provider.getResolveCache();
 	}
 
 	/**
@@ -205,11 +306,13 @@ public class WebResourceResolver {
 		for (String basename : new String[] { prefix + "." + filename, filename }) {
 			for (String scriptExtension : scriptExtensions) {
 				try {
-					return new Template(
-							Scripts.getJcrSession(fContext).getNode(parentPath + basename + "." + scriptExtension),
-							scriptExtension);
-				} catch (PathNotFoundException ignore) {
-				} catch (AccessDeniedException ignore) {}
+					Node node = findNode(parentPath + basename + "." + scriptExtension);
+					if (node != null) {
+						return new Template(node, scriptExtension);
+					}
+				} catch (AccessDeniedException ignore) {
+					_accessDenied = true;
+				}
 			}
 		}
 		return null;
@@ -218,18 +321,21 @@ public class WebResourceResolver {
 	public class ResolveResult {
 		private final Node fNode;
 		private final Template fTemplate;
+		private final WebRenders.CachePolicy fCachePolicy;
 		private final Exception fException;
 
 		private ResolveResult(Node node) {
 			fNode = node;
 			fTemplate = null;
+			fCachePolicy = null;
 			fException = null;
 			init();
 		}
 
-		private ResolveResult(Node node, Template template) {
+		private ResolveResult(Node node, Template template, WebRenders.CachePolicy cachePolicy) {
 			fNode = node;
 			fTemplate = template;
+			fCachePolicy = cachePolicy;
 			fException = null;
 			init();
 		}
@@ -237,6 +343,7 @@ public class WebResourceResolver {
 		private ResolveResult(Exception exception) {
 			fNode = null;
 			fTemplate = null;
+			fCachePolicy = null;
 			fException = exception;
 			init();
 		}
@@ -286,6 +393,14 @@ public class WebResourceResolver {
 			return fTemplate;
 		}
 
+		/**
+		 * How the template's output may be cached (see {@link WebRenderCache}),
+		 * or {@code null} when the binding does not opt in.
+		 */
+		public WebRenders.CachePolicy getCachePolicy() {
+			return fCachePolicy;
+		}
+
 		String _scriptExtension;
 		public String getScriptExtension() throws RepositoryException {
 			if (_scriptExtension == null) {
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.mintjams.rt.cms.internal.web;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.mintjams.jcr.nodetype.NodeType;
+import org.mintjams.rt.cms.internal.CmsService;
+import org.mintjams.rt.cms.internal.security.CmsServiceCredentials;
+import org.mintjams.tools.io.IOs;
+import org.mintjams.tools.osgi.Registration;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventConstants;
+import org.osgi.service.event.EventHandler;
+
+/**
+ * Per-workspace compiled form of the web routing configuration: the folder
+ * descriptors ({@value Webs#WEB_DESCRIPTOR_NAME}) that bind content to
+ * templates and declare document roots, and the source extensions from
+ * {@code /content/WEB-INF/web.yml}.
+ *
+ * <p>Each folder's descriptor is read and compiled once, including the fact
+ * that a folder has none, and the chain of effective descriptors above a
+ * folder is kept in a bounded map, so {@link WebRenders} resolves a binding
+ * or document root with a single lookup instead of reading every ancestor's
+ * descriptor per request. Node events for descriptor files and for moved or
+ * removed folders drop the affected entries.
+ *
+ * <p>Descriptors are read with the service session: they are site
+ * configuration shared by every caller, not content subject to the caller's
+ * read access.
+ */
+public class WebRoutingTable implements EventHandler, Closeable {
+
+	private static final int MAX_CHAINS = 10000;
+
+	private final String fWorkspaceName;
+	private final Object fLock = new Object();
+	private final Map<String, WebRenders.Descriptor> fDescriptors = new ConcurrentHashMap<>();
+	private final Map<String, List<WebRenders.Descriptor>> fChains = new LinkedHashMap<String, List<WebRenders.Descriptor>>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, List<WebRenders.Descriptor>> eldest) {
+			return size() > MAX_CHAINS;
+		}
+	};
+	private volatile List<String> fSourceExtensions;
+	private long fGeneration;
+	private final LongAdder fHits = new LongAdder();
+	private final LongAdder fMisses = new LongAdder();
+	private final LongAdder fRebuilds = new LongAdder();
+	private Registration<EventHandler> fEventHandlerRegistration;
+
+	public WebRoutingTable(String workspaceName) {
+		fWorkspaceName = workspaceName;
+	}
+
+	public synchronized WebRoutingTable open() throws IOException {
+		if (fEventHandlerRegistration != null) {
+			return this;
+		}
+
+		fEventHandlerRegistration = Registration.newBuilder(EventHandler.class)
+				.setService(this)
+				.setProperty(EventConstants.EVENT_TOPIC, new String[] { Node.class.getName().replace(".", "/") + "/*" })
+				.setProperty(EventConstants.EVENT_FILTER, "(workspace=" + fWorkspaceName + ")")
+				.setBundleContext(CmsService.getDefault().getBundleContext())
+				.build();
+		return this;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		IOs.closeQuietly(fEventHandlerRegistration);
+		fEventHandlerRegistration = null;
+		invalidate();
+	}
+
+	public String getWorkspaceName() {
+		return fWorkspaceName;
+	}
+
+	/**
+	 * Returns the effective descriptors from {@code folderPath} up to
+	 * {@code /content}, nearest first. Empty outside {@code /content}.
+	 */
+	List<WebRenders.Descriptor> getChain(String folderPath) throws RepositoryException {
+		if (!WebRenders.isWithinContent(folderPath)) {
+			return Collections.emptyList();
+		}
+
+		long generation;
+		synchronized (fLock) {
+			List<WebRenders.Descriptor> chain = fChains.get(folderPath);
+			if (chain != null) {
+				fHits.increment();
+				return chain;
+			}
+			generation = fGeneration;
+		}
+		fMisses.increment();
+
+		List<String> paths = new ArrayList<>();
+		for (String path = folderPath;; path = path.substring(0, Math.max(path.lastIndexOf('/'), 1))) {
+			paths.add(path);
+			if (path.equals(Webs.CONTENT_PATH)) {
+				break;
+			}
+		}
+
+		Map<String, WebRenders.Descriptor> loaded = new LinkedHashMap<>();
+		Session session = null;
+		try {
+			for (String path : paths) {
+				WebRenders.Descriptor descriptor = fDescriptors.get(path);
+				if (descriptor == null) {
+					if (session == null) {
+						session = CmsService.getRepository().login(new CmsServiceCredentials(), fWorkspaceName);
+					}
+					descriptor = session.nodeExists(path)
+							? WebRenders.compileDescriptor(session.getNode(path), path)
+							: WebRenders.compileDescriptor(null, path);
+				}
+				loaded.put(path, descriptor);
+			}
+		} finally {
+			if (session != null) {
+				try {
+					session.logout();
+				} catch (Throwable ignore) {}
+			}
+		}
+
+		List<WebRenders.Descriptor> chain = new ArrayList<>();
+		for (WebRenders.Descriptor descriptor : loaded.values()) {
+			if (descriptor.isEffective()) {
+				chain.add(descriptor);
+			}
+		}
+		chain = Collections.unmodifiableList(chain);
+
+		synchronized (fLock) {
+			// Only publish what was read if no descriptor changed meanwhile.
+			if (generation == fGeneration) {
+				fDescriptors.putAll(loaded);
+				fChains.put(folderPath, chain);
+			}
+		}
+		return chain;
+	}
+
+	List<String> getSourceExtensions() {
+		List<String> sourceExtensions = fSourceExtensions;
+		if (sourceExtensions != null) {
+			fHits.increment();
+			return sourceExtensions;
+		}
+		fMisses.increment();
+
+		long generation;
+		synchronized (fLock) {
+			generation = fGeneration;
+		}
+		Session session = null;
+		try {
+			session = CmsService.getRepository().login(new CmsServiceCredentials(), fWorkspaceName);
+			sourceExtensions = Collections.unmodifiableList(WebRenders.readSourceExtensions(session));
+		} catch (RepositoryException ex) {
+			CmsService.getLogger(getClass()).warn("Could not read the source extensions: " + fWorkspaceName, ex);
+			return Collections.singletonList("md");
+		} finally {
+			if (session != null) {
+				try {
+					session.logout();
+				} catch (Throwable ignore) {}
+			}
+		}
+		synchronized (fLock) {
+			if (generation == fGeneration) {
+				fSourceExtensions = sourceExtensions;
+			}
+		}
+		return sourceExtensions;
+	}
+
+	/** Lookups answered from the table. */
+	public long getHits() {
+		return fHits.sum();
+	}
+
+	/** Lookups that had to read descriptors. */
+	public long getMisses() {
+		return fMisses.sum();
+	}
+
+	/** Times a routing change invalidated the resolved chains. */
+	public long getRebuilds() {
+		return fRebuilds.sum();
+	}
+
+	@Override
+	public void handleEvent(Event event) {
+		Object path = event.getProperty("path");
+		if (path == null) {
+			return;
+		}
+		invalidate(path.toString(), event);
+		Object sourcePath = event.getProperty("source_path");
+		if (sourcePath != null) {
+			invalidate(sourcePath.toString(), event);
+		}
+	}
+
+	private void invalidate(String path, Event event) {
+		if (!WebRenders.isWithinContent(path)) {
+			return;
+		}
+
+		if (path.equals(Webs.DEFAULT_WEB_YML_PATH)) {
+			synchronized (fLock) {
+				fGeneration++;
+				fSourceExtensions = null;
+			}
+			fRebuilds.increment();
+			return;
+		}
+
+		if (NodeType.NT_FILE_NAME.equals(event.getProperty("type"))) {
+			if (!path.endsWith("/" + Webs.WEB_DESCRIPTOR_NAME)) {
+				return;
+			}
+			synchronized (fLock) {
+				fGeneration++;
+				fDescriptors.remove(path.substring(0, path.lastIndexOf('/')));
+				fChains.clear();
+			}
+			fRebuilds.increment();
+			return;
+		}
+
+		// A folder was added, moved or removed: whatever is known about paths
+		// at or below it may no longer hold. Plain property changes on a
+		// folder do not affect routing.
+		if (event.getTopic().endsWith("/CHANGED")) {
+			return;
+		}
+		synchronized (fLock) {
+			fGeneration++;
+			fDescriptors.keySet().removeIf(e -> e.equals(path) || e.startsWith(path + "/"));
+			fChains.clear();
+		}
+		fRebuilds.increment();
+	}
+
+	private void invalidate() {
+		synchronized (fLock) {
+			fGeneration++;
+			fDescriptors.clear();
+			fChains.clear();
+			fSourceExtensions = null;
+		}
+	}
+
+}
@@ -28,6 +28,8 @@ import java.io.IOException;
 import javax.jcr.RepositoryException;
 import javax.servlet.http.HttpServlet;
 
+import org.mintjams.rt.cms.internal.CmsConfiguration;
+import org.mintjams.rt.cms.internal.CmsService;
 import org.mintjams.tools.io.Closer;
 
 public class WorkspaceWebServletProvider implements Closeable {
@@ -35,12 +37,25 @@ public class WorkspaceWebServletProvider implements Closeable {
 	private final String fWorkspaceName;
 	private final Closer fCloser = Closer.create();
 	private HttpServlet fServlet;
+	private WebRoutingTable fRoutingTable;
+	private WebResolveCache fResolveCache;
+	private WebEncodedContentCache fEncodedContentCache;
+	private WebRenderCache fRenderCache;
 
 	public WorkspaceWebServletProvider(String workspaceName) {
 		fWorkspaceName = workspaceName;
 	}
 
 	public synchronized void open() throws IOException, RepositoryException {
+		fRoutingTable = fCloser.register(new WebRoutingTable(fWorkspaceName)).open();
+		fResolveCache = fCloser.register(new WebResolveCache(fWorkspaceName)).open();
+		CmsConfiguration config = CmsService.getConfiguration();
+		if (config.isWebGzipEnabled()) {
+			fEncodedContentCache = fCloser.register(new WebEncodedContentCache(fWorkspaceName, config.getWebGzipCacheSizeMB() * 1024L * 1024L)).open();
+		}
+		if (config.isWebRenderCacheEnabled()) {
+			fRenderCache = fCloser.register(new WebRenderCache(fWorkspaceName, config.getWebRenderCacheSizeMB() * 1024L * 1024L)).open();
+		}
 		fServlet = new WorkspaceWebServlet(fWorkspaceName);
 	}
 
@@ -57,4 +72,28 @@ public class WorkspaceWebServletProvider implements Closeable {
 		return fServlet;
 	}
 
+	public WebRoutingTable getRoutingTable() {
+		return fRoutingTable;
+	}
+
+	public WebResolveCache getResolveCache() {
+		return fResolveCache;
+	}
+
+	/**
+	 * The workspace's store of gzip copies, or {@code null} when serving gzip
+	 * is disabled.
+	 */
+	public WebEncodedContentCache getEncodedContentCache() {
+		return fEncodedContentCache;
+	}
+
+	/**
+	 * The workspace's cache of templated renders, or {@code null} when it is
+	 * disabled.
+	 */
+	public WebRenderCache getRenderCache() {
+		return fRenderCache;
+	}
+
 }
@@ -0,0 +1,180 @@
+package org.mintjams.rt.jcr.internal;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.jcr.Binary;
+import javax.jcr.Node;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mintjams.jcr.security.AdminPrincipal;
+import org.mintjams.jcr.security.AuthenticatedCredentials;
+import org.mintjams.tools.adapter.Adaptables;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Verifies the reference cursors the blob garbage collector merge-joins the
+ * blob store against: every partition returns exactly the identifiers that
+ * start with its prefix, in {@link String#compareTo} order. Partitions whose
+ * prefix ends in '9' or 'f' are checked in particular, since their upper
+ * bound ('9' + 1 = ':', 'f' + 1 = 'g') only holds in binary order.
+ *
+ * <p>The collector is internal to the repository bundle, so it is reached
+ * through the session's adapter and reflection.
+ */
+public class JcrBlobGarbageCollectionTest {
+
+	private static final String HEX = "0123456789abcdef";
+	private static final int BINARIES = 128;
+
+	private BundleContext bundleContext;
+	private Repository repository;
+	private ServiceReference<Repository> repositoryServiceRef;
+
+	private Session session;
+	private Node testRoot;
+	private String testRootPath;
+
+	@Before
+	public void setUp() throws Exception {
+		String basePath = System.getProperty("jcr.test.path", "/");
+		bundleContext = FrameworkUtil.getBundle(getClass()).getBundleContext();
+		repositoryServiceRef = bundleContext.getServiceReference(Repository.class);
+		if (repositoryServiceRef != null) {
+			repository = bundleContext.getService(repositoryServiceRef);
+		}
+		if (repository == null) {
+			return;
+		}
+
+		try {
+			session = repository.login(new AuthenticatedCredentials(new AdminPrincipal() {
+				@Override
+				public String getName() {
+					return "admin";
+				}
+			}));
+			testRoot = session.getNode(basePath).addNode("jcrBlobGarbageCollectionTest-" + UUID.randomUUID(), "nt:folder");
+			session.save();
+			testRootPath = testRoot.getPath();
+		} catch (RepositoryException ex) {
+			System.out.println("[JcrBlobGarbageCollectionTest] No writable admin session: " + ex.getMessage());
+			if (session != null && session.isLive()) {
+				try {
+					session.refresh(false);
+				} catch (RepositoryException ignore) {
+				}
+				session.logout();
+			}
+			session = null;
+			testRoot = null;
+		}
+	}
+
+	@After
+	public void tearDown() {
+		try {
+			if (session != null && session.isLive() && testRootPath != null) {
+				session.refresh(false);
+				if (session.nodeExists(testRootPath)) {
+					session.getNode(testRootPath).remove();
+					session.save();
+				}
+			}
+		} catch (Exception ignore) {
+		}
+		if (session != null && session.isLive()) {
+			session.logout();
+		}
+		session = null;
+		testRoot = null;
+		testRootPath = null;
+		if (bundleContext != null && repositoryServiceRef != null) {
+			bundleContext.ungetService(repositoryServiceRef);
+			repositoryServiceRef = null;
+		}
+		repository = null;
+		bundleContext = null;
+	}
+
+	private void requireWritable() {
+		assumeTrue("No writable admin session for the garbage collection tests.",
+				session != null && session.isLive() && testRoot != null);
+	}
+
+	private List<String> readReferences(String prefix) throws Exception {
+		ClassLoader classLoader = session.getClass().getClassLoader();
+		Class<?> collectionType = classLoader.loadClass("org.mintjams.rt.jcr.internal.WorkspaceGarbageCollection");
+		Class<?> cursorType = classLoader.loadClass("org.mintjams.rt.jcr.internal.blob.BlobStore$ReferenceCursor");
+		Object collection = Adaptables.getAdapter(session, collectionType);
+		assertNotNull("The workspace has no garbage collection.", collection);
+		Method next = cursorType.getMethod("next");
+
+		List<String> ids = new ArrayList<>();
+		try (Closeable cursor = (Closeable) collectionType.getMethod("openReferences", String.class).invoke(collection, prefix)) {
+			for (;;) {
+				String id = (String) next.invoke(cursor);
+				if (id == null) {
+					break;
+				}
+				ids.add(id);
+			}
+		}
+		return ids;
+	}
+
+	@Test
+	public void everyPartitionReturnsItsOwnReferencesInOrder() throws Exception {
+		requireWritable();
+
+		// Blob identifiers are random UUIDs, so this many spread over the
+		// partitions and all but certainly reach some ending in '9' and 'f'.
+		for (int i = 0; i < BINARIES; i++) {
+			Binary binary = session.getValueFactory().createBinary(
+					new ByteArrayInputStream(("blob " + i).getBytes(StandardCharsets.UTF_8)));
+			testRoot.addNode("n" + i, "nt:unstructured").setProperty("data", binary);
+		}
+		session.save();
+
+		int total = 0;
+		int boundaryPartitionReferences = 0;
+		for (char first : HEX.toCharArray()) {
+			for (char second : HEX.toCharArray()) {
+				String prefix = "" + first + second;
+				List<String> ids = readReferences(prefix);
+				for (int i = 0; i < ids.size(); i++) {
+					assertTrue(ids.get(i) + " is not in partition " + prefix, ids.get(i).startsWith(prefix));
+					if (i > 0) {
+						assertTrue("Partition " + prefix + " is not in binary order: " + ids.get(i - 1) + ", " + ids.get(i),
+								ids.get(i - 1).compareTo(ids.get(i)) < 0);
+					}
+				}
+				total += ids.size();
+				if (second == '9' || second == 'f') {
+					boundaryPartitionReferences += ids.size();
+				}
+			}
+		}
+
+		assertTrue("Only " + total + " references found for " + BINARIES + " binaries.", total >= BINARIES);
+		assertFalse("No references found in partitions ending in '9' or 'f'.", boundaryPartitionReferences == 0);
+	}
+
+}
@@ -0,0 +1,252 @@
+package org.mintjams.rt.jcr.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.UnsupportedRepositoryOperationException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mintjams.jcr.security.AdminPrincipal;
+import org.mintjams.jcr.security.AuthenticatedCredentials;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Verifies {@code Node#orderBefore(String, String)} on orderable child lists:
+ * children keep name order until the parent is first reordered, reorders
+ * survive save and a new session, new children join at the end of an ordered
+ * list, and repeated inserts into the same gap fall back to renumbering the
+ * siblings without losing the order.
+ */
+public class JcrOrderBeforeTest {
+
+	private static final String FOLDER = "nt:folder";
+	private static final String UNSTRUCTURED = "nt:unstructured";
+
+	private BundleContext bundleContext;
+	private Repository repository;
+	private ServiceReference<Repository> repositoryServiceRef;
+
+	private Session session;
+	private Node testRoot;
+	private String testRootPath;
+
+	@Before
+	public void setUp() throws Exception {
+		String basePath = System.getProperty("jcr.test.path", "/");
+		bundleContext = FrameworkUtil.getBundle(getClass()).getBundleContext();
+		repositoryServiceRef = bundleContext.getServiceReference(Repository.class);
+		if (repositoryServiceRef != null) {
+			repository = bundleContext.getService(repositoryServiceRef);
+		}
+		if (repository == null) {
+			return;
+		}
+
+		try {
+			session = login();
+			testRoot = session.getNode(basePath).addNode("jcrOrderBeforeTest-" + UUID.randomUUID(), FOLDER);
+			session.save();
+			testRootPath = testRoot.getPath();
+		} catch (RepositoryException ex) {
+			System.out.println("[JcrOrderBeforeTest] No writable admin session: " + ex.getMessage());
+			if (session != null && session.isLive()) {
+				try {
+					session.refresh(false);
+				} catch (RepositoryException ignore) {
+				}
+				session.logout();
+			}
+			session = null;
+			testRoot = null;
+		}
+	}
+
+	@After
+	public void tearDown() {
+		try {
+			if (session != null && session.isLive() && testRootPath != null) {
+				session.refresh(false);
+				if (session.nodeExists(testRootPath)) {
+					session.getNode(testRootPath).remove();
+					session.save();
+				}
+			}
+		} catch (Exception ignore) {
+		}
+		if (session != null && session.isLive()) {
+			session.logout();
+		}
+		session = null;
+		testRoot = null;
+		testRootPath = null;
+		if (bundleContext != null && repositoryServiceRef != null) {
+			bundleContext.ungetService(repositoryServiceRef);
+			repositoryServiceRef = null;
+		}
+		repository = null;
+		bundleContext = null;
+	}
+
+	private Session login() throws RepositoryException {
+		return repository.login(new AuthenticatedCredentials(new AdminPrincipal() {
+			@Override
+			public String getName() {
+				return "admin";
+			}
+		}));
+	}
+
+	private void requireWritable() {
+		assumeTrue("No writable admin session for the orderBefore tests.",
+				session != null && session.isLive() && testRoot != null);
+	}
+
+	private Node addList(String... names) throws RepositoryException {
+		Node list = testRoot.addNode("list", UNSTRUCTURED);
+		for (String name : names) {
+			list.addNode(name, UNSTRUCTURED);
+		}
+		session.save();
+		return list;
+	}
+
+	private static List<String> childNames(Node node) throws RepositoryException {
+		List<String> names = new ArrayList<>();
+		for (NodeIterator i = node.getNodes(); i.hasNext();) {
+			names.add(i.nextNode().getName());
+		}
+		return names;
+	}
+
+	@Test
+	public void childrenAreListedByNameUntilReordered() throws RepositoryException {
+		requireWritable();
+
+		Node list = addList("c", "a", "b");
+		assertEquals(Arrays.asList("a", "b", "c"), childNames(list));
+	}
+
+	@Test
+	public void movesAChildBeforeASibling() throws RepositoryException {
+		requireWritable();
+
+		Node list = addList("a", "b", "c", "d");
+		list.orderBefore("d", "b");
+		session.save();
+
+		assertEquals(Arrays.asList("a", "d", "b", "c"), childNames(list));
+
+		list.orderBefore("a", "c");
+		session.save();
+
+		assertEquals(Arrays.asList("d", "b", "a", "c"), childNames(list));
+	}
+
+	@Test
+	public void movesAChildToTheEnd() throws RepositoryException {
+		requireWritable();
+
+		Node list = addList("a", "b", "c");
+		list.orderBefore("a", null);
+		session.save();
+
+		assertEquals(Arrays.asList("b", "c", "a"), childNames(list));
+	}
+
+	@Test
+	public void newChildrenJoinTheEndOfAnOrderedList() throws RepositoryException {
+		requireWritable();
+
+		Node list = addList("b", "c");
+		list.orderBefore("c", "b");
+		list.addNode("a", UNSTRUCTURED);
+		session.save();
+
+		assertEquals(Arrays.asList("c", "b", "a"), childNames(list));
+	}
+
+	@Test
+	public void orderSurvivesANewSession() throws RepositoryException {
+		requireWritable();
+
+		Node list = addList("a", "b", "c");
+		list.orderBefore("c", "a");
+		session.save();
+
+		Session other = login();
+		try {
+			assertEquals(Arrays.asList("c", "a", "b"), childNames(other.getNode(list.getPath())));
+		} finally {
+			other.logout();
+		}
+	}
+
+	@Test
+	public void keepsTheOrderWhenAGapIsUsedUp() throws RepositoryException {
+		requireWritable();
+
+		// Each insert halves the gap in front of "z"; the sort-key spacing is used
+		// up well before 40 inserts, which forces at least one renumbering.
+		Node list = addList("a", "z");
+		List<String> expected = new ArrayList<>(Arrays.asList("a"));
+		for (int i = 0; i < 40; i++) {
+			String name = String.format("n%02d", i);
+			list.addNode(name, UNSTRUCTURED);
+			list.orderBefore(name, "z");
+			expected.add(name);
+		}
+		expected.add("z");
+		session.save();
+
+		assertEquals(expected, childNames(list));
+	}
+
+	@Test
+	public void rejectsUnknownChildren() throws RepositoryException {
+		requireWritable();
+
+		Node list = addList("a", "b");
+		try {
+			list.orderBefore("missing", "a");
+			fail("An unknown source child must be rejected.");
+		} catch (ItemNotFoundException expected) {
+		}
+		try {
+			list.orderBefore("a", "missing");
+			fail("An unknown destination child must be rejected.");
+		} catch (ItemNotFoundException expected) {
+		}
+	}
+
+	@Test
+	public void rejectsNonOrderableParents() throws RepositoryException {
+		requireWritable();
+
+		Node folder = testRoot.addNode("folder", FOLDER);
+		folder.addNode("a", FOLDER);
+		folder.addNode("b", FOLDER);
+		session.save();
+
+		try {
+			folder.orderBefore("b", "a");
+			fail("nt:folder does not have orderable child nodes.");
+		} catch (UnsupportedRepositoryOperationException expected) {
+		}
+	}
+}
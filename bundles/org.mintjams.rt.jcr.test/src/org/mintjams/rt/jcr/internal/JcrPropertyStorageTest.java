@@ -0,0 +1,451 @@
+package org.mintjams.rt.jcr.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import javax.jcr.Binary;
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.Property;
+import javax.jcr.PropertyType;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.ValueFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mintjams.jcr.security.AdminPrincipal;
+import org.mintjams.jcr.security.AuthenticatedCredentials;
+import org.mintjams.tools.adapter.Adaptables;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Verifies that property values round-trip through the compact value storage
+ * unchanged: natively stored single values, packed multi-values, long text
+ * moved to a file, binaries and dates with their time zone. Rows rewritten
+ * into the legacy format compare against compact ones in size and load time,
+ * and read the same once the background migration has compacted them again.
+ *
+ * <p>The stored rows, the node cache and the migration are internal to the
+ * repository bundle, so they are reached through the session's adapters and
+ * reflection.
+ */
+public class JcrPropertyStorageTest {
+
+	private static final String UNSTRUCTURED = "nt:unstructured";
+	private static final int LOAD_NODES = 500;
+
+	private BundleContext bundleContext;
+	private Repository repository;
+	private ServiceReference<Repository> repositoryServiceRef;
+
+	private Session session;
+	private Node testRoot;
+	private String testRootPath;
+
+	@Before
+	public void setUp() throws Exception {
+		String basePath = System.getProperty("jcr.test.path", "/");
+		bundleContext = FrameworkUtil.getBundle(getClass()).getBundleContext();
+		repositoryServiceRef = bundleContext.getServiceReference(Repository.class);
+		if (repositoryServiceRef != null) {
+			repository = bundleContext.getService(repositoryServiceRef);
+		}
+		if (repository == null) {
+			return;
+		}
+
+		try {
+			session = repository.login(new AuthenticatedCredentials(new AdminPrincipal() {
+				@Override
+				public String getName() {
+					return "admin";
+				}
+			}));
+			testRoot = session.getNode(basePath).addNode("jcrPropertyStorageTest-" + UUID.randomUUID(), "nt:folder");
+			session.save();
+			testRootPath = testRoot.getPath();
+		} catch (RepositoryException ex) {
+			System.out.println("[JcrPropertyStorageTest] No writable admin session: " + ex.getMessage());
+			if (session != null && session.isLive()) {
+				try {
+					session.refresh(false);
+				} catch (RepositoryException ignore) {
+				}
+				session.logout();
+			}
+			session = null;
+			testRoot = null;
+		}
+	}
+
+	@After
+	public void tearDown() {
+		try {
+			if (session != null && session.isLive() && testRootPath != null) {
+				session.refresh(false);
+				if (session.nodeExists(testRootPath)) {
+					session.getNode(testRootPath).remove();
+					session.save();
+				}
+			}
+		} catch (Exception ignore) {
+		}
+		if (session != null && session.isLive()) {
+			session.logout();
+		}
+		session = null;
+		testRoot = null;
+		testRootPath = null;
+		if (bundleContext != null && repositoryServiceRef != null) {
+			bundleContext.ungetService(repositoryServiceRef);
+			repositoryServiceRef = null;
+		}
+		repository = null;
+		bundleContext = null;
+	}
+
+	private void requireWritable() {
+		assumeTrue("No writable admin session for the property storage tests.",
+				session != null && session.isLive() && testRoot != null);
+	}
+
+	/**
+	 * Saves the session and reads the node back through a fresh session, so
+	 * the values come from the stored rows.
+	 */
+	private Node reload(Node node) throws RepositoryException {
+		session.save();
+		session.refresh(false);
+		return session.getNode(node.getPath());
+	}
+
+	@Test
+	public void singleValuesRoundTrip() throws RepositoryException {
+		requireWritable();
+
+		Calendar date = Calendar.getInstance(TimeZone.getTimeZone("GMT+09:00"));
+		date.clear();
+		date.set(2024, Calendar.MARCH, 15, 10, 30, 45);
+
+		Node node = testRoot.addNode("single", UNSTRUCTURED);
+		node.setProperty("long", 1234567890123L);
+		node.setProperty("negative", -42L);
+		node.setProperty("double", 3.25d);
+		node.setProperty("boolean", true);
+		node.setProperty("date", date);
+		node.setProperty("decimal", new BigDecimal("12345.678900"));
+		node.setProperty("string", "hello");
+		node.setProperty("name", "nt:base", PropertyType.NAME);
+		node = reload(node);
+
+		assertEquals(PropertyType.LONG, node.getProperty("long").getType());
+		assertEquals(1234567890123L, node.getProperty("long").getLong());
+		assertEquals("1234567890123", node.getProperty("long").getString());
+		assertEquals(-42L, node.getProperty("negative").getLong());
+		assertEquals(PropertyType.DOUBLE, node.getProperty("double").getType());
+		assertEquals(3.25d, node.getProperty("double").getDouble(), 0d);
+		assertEquals(PropertyType.BOOLEAN, node.getProperty("boolean").getType());
+		assertTrue(node.getProperty("boolean").getBoolean());
+		assertEquals("true", node.getProperty("boolean").getString());
+		assertEquals(PropertyType.DATE, node.getProperty("date").getType());
+		assertEquals(date.getTimeInMillis(), node.getProperty("date").getDate().getTimeInMillis());
+		assertEquals(new BigDecimal("12345.678900"), node.getProperty("decimal").getDecimal());
+		assertEquals("hello", node.getProperty("string").getString());
+		assertEquals("nt:base", node.getProperty("name").getString());
+	}
+
+	@Test
+	public void multiValuesRoundTrip() throws RepositoryException {
+		requireWritable();
+
+		ValueFactory factory = session.getValueFactory();
+		Node node = testRoot.addNode("multi", UNSTRUCTURED);
+		node.setProperty("longs", new Value[] { factory.createValue(1L), factory.createValue(-2L), factory.createValue(Long.MAX_VALUE) });
+		node.setProperty("booleans", new Value[] { factory.createValue(true), factory.createValue(false) });
+		node.setProperty("strings", new String[] { "a", "", "c" });
+		node.setProperty("empty", new String[0]);
+		node = reload(node);
+
+		Value[] longs = node.getProperty("longs").getValues();
+		assertEquals(3, longs.length);
+		assertEquals(1L, longs[0].getLong());
+		assertEquals(-2L, longs[1].getLong());
+		assertEquals(Long.MAX_VALUE, longs[2].getLong());
+		assertEquals(PropertyType.LONG, longs[0].getType());
+
+		Value[] booleans = node.getProperty("booleans").getValues();
+		assertTrue(booleans[0].getBoolean());
+		assertFalse(booleans[1].getBoolean());
+
+		Value[] strings = node.getProperty("strings").getValues();
+		assertArrayEquals(new String[] { "a", "", "c" },
+				new String[] { strings[0].getString(), strings[1].getString(), strings[2].getString() });
+		assertEquals(0, node.getProperty("empty").getValues().length);
+	}
+
+	@Test
+	public void longTextAndBinariesRoundTrip() throws RepositoryException, IOException {
+		requireWritable();
+
+		StringBuilder text = new StringBuilder();
+		while (text.length() < 10000) {
+			text.append("0123456789");
+		}
+		byte[] bytes = "binary content".getBytes(StandardCharsets.UTF_8);
+
+		Node node = testRoot.addNode("large", UNSTRUCTURED);
+		node.setProperty("text", text.toString());
+		Binary binary = session.getValueFactory().createBinary(new ByteArrayInputStream(bytes));
+		node.setProperty("binary", binary);
+		node = reload(node);
+
+		assertEquals(text.toString(), node.getProperty("text").getString());
+		Property property = node.getProperty("binary");
+		assertEquals(PropertyType.BINARY, property.getType());
+		assertEquals(bytes.length, property.getBinary().getSize());
+		try (InputStream in = property.getBinary().getStream()) {
+			assertArrayEquals(bytes, in.readAllBytes());
+		}
+
+		// Replacing a value with one of another kind leaves no stale columns behind.
+		node.setProperty("text", 7L);
+		node = reload(node);
+		assertEquals(7L, node.getProperty("text").getLong());
+	}
+
+	/**
+	 * Adds {@code LOAD_NODES} nodes with a set of typed properties below a new
+	 * node of the given name.
+	 */
+	private Node addTypedNodes(String name) throws RepositoryException {
+		Calendar modified = Calendar.getInstance(TimeZone.getTimeZone("GMT+09:00"));
+		Node parent = testRoot.addNode(name, UNSTRUCTURED);
+		for (int i = 0; i < LOAD_NODES; i++) {
+			Node node = parent.addNode("node-" + i, UNSTRUCTURED);
+			node.setProperty("index", (long) i);
+			node.setProperty("ratio", i / 7d);
+			node.setProperty("flag", i % 2 == 0);
+			node.setProperty("modified", modified);
+			node.setProperty("tags", new String[] { "tag-" + (i % 10), "tag-" + (i % 3) });
+		}
+		session.save();
+		return parent;
+	}
+
+	private Class<?> internalClass(String name) throws ClassNotFoundException {
+		return session.getClass().getClassLoader().loadClass("org.mintjams.rt.jcr.internal." + name);
+	}
+
+	/**
+	 * Rewrites the stored properties of the given nodes into the legacy
+	 * format, the way rows written before the compact format look, and drops
+	 * them from the workspace's node cache. Returns the stored sizes of the
+	 * rows before and after, as measured by {@code PropertyValueCodec}.
+	 */
+	private long[] storeAsLegacy(List<String> ids) throws Exception {
+		Class<?> codecType = internalClass("PropertyValueCodec");
+		Method toLegacyValues = codecType.getMethod("toLegacyValues", Map.class);
+		Method getStoredSize = codecType.getMethod("getStoredSize", Map.class);
+
+		Connection connection = Adaptables.getAdapter(session, Connection.class);
+		assertNotNull("The session has no connection.", connection);
+		long compactBytes = 0;
+		long legacyBytes = 0;
+		try (PreparedStatement select = connection.prepareStatement(
+				"SELECT item_id, is_multiple, property_type, property_value, value_format, value_long, value_double, value_date, value_data"
+				+ " FROM jcr_properties WHERE parent_item_id = ? AND is_deleted = FALSE");
+				PreparedStatement update = connection.prepareStatement(
+						"UPDATE jcr_properties SET property_value = ?, value_format = 0,"
+						+ " value_long = NULL, value_double = NULL, value_date = NULL, value_data = NULL"
+						+ " WHERE item_id = ?")) {
+			for (String id : ids) {
+				select.setString(1, id);
+				try (ResultSet rs = select.executeQuery()) {
+					while (rs.next()) {
+						Map<String, Object> row = new HashMap<>();
+						for (int c = 1; c <= rs.getMetaData().getColumnCount(); c++) {
+							row.put(rs.getMetaData().getColumnLabel(c).toLowerCase(), rs.getObject(c));
+						}
+						String[] legacyValues = (String[]) toLegacyValues.invoke(null, row);
+						compactBytes += (Long) getStoredSize.invoke(null, row);
+						for (String value : legacyValues) {
+							legacyBytes += value.getBytes(StandardCharsets.UTF_8).length;
+						}
+
+						update.setArray(1, connection.createArrayOf("VARCHAR", legacyValues));
+						update.setString(2, (String) row.get("item_id"));
+						update.addBatch();
+					}
+				}
+			}
+			update.executeBatch();
+			connection.commit();
+		} catch (Throwable ex) {
+			connection.rollback();
+			throw ex;
+		}
+
+		Class<?> cacheType = internalClass("NodeCache");
+		cacheType.getMethod("invalidate", Collection.class).invoke(Adaptables.getAdapter(session, cacheType), ids);
+		session.refresh(false);
+		return new long[] { compactBytes, legacyBytes };
+	}
+
+	/**
+	 * Returns the stored format of every property row of the given nodes.
+	 */
+	private Set<Integer> getValueFormats(List<String> ids) throws SQLException {
+		Connection connection = Adaptables.getAdapter(session, Connection.class);
+		Set<Integer> formats = new HashSet<>();
+		try (PreparedStatement select = connection.prepareStatement(
+				"SELECT value_format FROM jcr_properties WHERE parent_item_id = ? AND is_deleted = FALSE")) {
+			for (String id : ids) {
+				select.setString(1, id);
+				try (ResultSet rs = select.executeQuery()) {
+					while (rs.next()) {
+						formats.add(rs.getInt(1));
+					}
+				}
+			}
+		} finally {
+			connection.rollback();
+		}
+		return formats;
+	}
+
+	private static List<String> getChildIdentifiers(Node parent) throws RepositoryException {
+		List<String> ids = new ArrayList<>();
+		for (NodeIterator i = parent.getNodes(); i.hasNext();) {
+			ids.add(i.nextNode().getIdentifier());
+		}
+		return ids;
+	}
+
+	/**
+	 * Reads every typed property below the given node, from the stored rows,
+	 * and returns the time taken in nanoseconds.
+	 */
+	private long loadTypedNodes(String path, List<String> ids) throws Exception {
+		Class<?> cacheType = internalClass("NodeCache");
+		cacheType.getMethod("invalidate", Collection.class).invoke(Adaptables.getAdapter(session, cacheType), ids);
+		session.refresh(false);
+
+		long started = System.nanoTime();
+		long sum = 0;
+		for (NodeIterator i = session.getNode(path).getNodes(); i.hasNext();) {
+			Node node = i.nextNode();
+			sum += node.getProperty("index").getLong();
+			node.getProperty("ratio").getDouble();
+			node.getProperty("flag").getBoolean();
+			node.getProperty("modified").getDate();
+			node.getProperty("tags").getValues();
+		}
+		long elapsed = System.nanoTime() - started;
+
+		assertEquals((long) LOAD_NODES * (LOAD_NODES - 1) / 2, sum);
+		return elapsed;
+	}
+
+	private void assertTypedNodes(Node parent) throws RepositoryException {
+		int count = 0;
+		for (NodeIterator i = parent.getNodes(); i.hasNext(); count++) {
+			Node node = i.nextNode();
+			int index = Integer.parseInt(node.getName().substring("node-".length()));
+			assertEquals(PropertyType.LONG, node.getProperty("index").getType());
+			assertEquals(index, node.getProperty("index").getLong());
+			assertEquals(index / 7d, node.getProperty("ratio").getDouble(), 0d);
+			assertEquals(index % 2 == 0, node.getProperty("flag").getBoolean());
+			assertEquals(PropertyType.DATE, node.getProperty("modified").getType());
+			assertEquals(TimeZone.getTimeZone("GMT+09:00").getRawOffset(),
+					node.getProperty("modified").getDate().getTimeZone().getRawOffset());
+			Value[] tags = node.getProperty("tags").getValues();
+			assertArrayEquals(new String[] { "tag-" + (index % 10), "tag-" + (index % 3) },
+					new String[] { tags[0].getString(), tags[1].getString() });
+		}
+		assertEquals(LOAD_NODES, count);
+	}
+
+	@Test
+	public void compactRowsAreSmallerAndLoadNoSlowerThanLegacyRows() throws Exception {
+		requireWritable();
+
+		Node compact = addTypedNodes("compact");
+		Node legacy = addTypedNodes("legacy");
+		List<String> compactIds = getChildIdentifiers(compact);
+		List<String> legacyIds = getChildIdentifiers(legacy);
+		long[] sizes = storeAsLegacy(legacyIds);
+		assertTrue("compact " + sizes[0] + " bytes, legacy " + sizes[1] + " bytes", sizes[0] < sizes[1]);
+
+		// Best of several alternating rounds, cold node cache each time. The
+		// margin only absorbs timing noise.
+		long compactNanos = Long.MAX_VALUE;
+		long legacyNanos = Long.MAX_VALUE;
+		for (int round = 0; round < 5; round++) {
+			legacyNanos = Math.min(legacyNanos, loadTypedNodes(legacy.getPath(), legacyIds));
+			compactNanos = Math.min(compactNanos, loadTypedNodes(compact.getPath(), compactIds));
+		}
+		assertTrue("compact " + (compactNanos / 1000000) + " ms, legacy " + (legacyNanos / 1000000) + " ms",
+				compactNanos <= legacyNanos * 5 / 4);
+	}
+
+	@Test
+	public void legacyRowsReadTheSameAfterMigration() throws Exception {
+		requireWritable();
+
+		Node parent = addTypedNodes("migrated");
+		List<String> ids = getChildIdentifiers(parent);
+		storeAsLegacy(ids);
+		assertEquals(Set.of(0), getValueFormats(ids));
+		assertTypedNodes(session.getNode(parent.getPath()));
+
+		// The migration makes one pass per start; restart it and wait for the pass.
+		Class<?> migrationType = internalClass("WorkspacePropertyMigration");
+		Object migration = Adaptables.getAdapter(session, migrationType);
+		assertNotNull("The workspace has no property migration.", migration);
+		migrationType.getMethod("close").invoke(migration);
+		migrationType.getMethod("open").invoke(migration);
+		Method isLive = migrationType.getMethod("isLive");
+		long deadline = System.currentTimeMillis() + 60000L;
+		while ((Boolean) isLive.invoke(migration) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(100);
+		}
+		assertFalse("The property migration did not finish.", (Boolean) isLive.invoke(migration));
+
+		assertEquals(Set.of(1), getValueFormats(ids));
+		Class<?> cacheType = internalClass("NodeCache");
+		cacheType.getMethod("invalidate", Collection.class).invoke(Adaptables.getAdapter(session, cacheType), ids);
+		session.refresh(false);
+		assertTypedNodes(session.getNode(parent.getPath()));
+	}
+}
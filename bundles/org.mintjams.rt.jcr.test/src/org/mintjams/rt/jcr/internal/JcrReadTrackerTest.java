@@ -0,0 +1,163 @@
+package org.mintjams.rt.jcr.internal;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Set;
+import java.util.UUID;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mintjams.jcr.ReadTracker;
+import org.mintjams.jcr.security.AdminPrincipal;
+import org.mintjams.jcr.security.AuthenticatedCredentials;
+import org.mintjams.tools.adapter.Adaptables;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Verifies the session's {@link ReadTracker}: a recording collects the nodes
+ * read through the session, including child listings and lookups of paths
+ * that do not exist, and stops collecting once closed.
+ */
+public class JcrReadTrackerTest {
+
+	private static final String FOLDER = "nt:folder";
+
+	private BundleContext bundleContext;
+	private Repository repository;
+	private ServiceReference<Repository> repositoryServiceRef;
+
+	private Session session;
+	private String testRootPath;
+
+	@Before
+	public void setUp() throws Exception {
+		String basePath = System.getProperty("jcr.test.path", "/");
+		bundleContext = FrameworkUtil.getBundle(getClass()).getBundleContext();
+		repositoryServiceRef = bundleContext.getServiceReference(Repository.class);
+		if (repositoryServiceRef != null) {
+			repository = bundleContext.getService(repositoryServiceRef);
+		}
+		if (repository == null) {
+			return;
+		}
+
+		try {
+			session = login();
+			Node testRoot = session.getNode(basePath).addNode("jcrReadTrackerTest-" + UUID.randomUUID(), FOLDER);
+			testRoot.addNode("a", FOLDER);
+			testRoot.addNode("b", FOLDER);
+			session.save();
+			testRootPath = testRoot.getPath();
+		} catch (RepositoryException ex) {
+			System.out.println("[JcrReadTrackerTest] No writable admin session: " + ex.getMessage());
+			if (session != null && session.isLive()) {
+				try {
+					session.refresh(false);
+				} catch (RepositoryException ignore) {
+				}
+				session.logout();
+			}
+			session = null;
+			testRootPath = null;
+		}
+	}
+
+	@After
+	public void tearDown() {
+		try {
+			if (session != null && session.isLive() && testRootPath != null) {
+				session.refresh(false);
+				if (session.nodeExists(testRootPath)) {
+					session.getNode(testRootPath).remove();
+					session.save();
+				}
+			}
+		} catch (Exception ignore) {
+		}
+		if (session != null && session.isLive()) {
+			session.logout();
+		}
+		session = null;
+		testRootPath = null;
+		if (bundleContext != null && repositoryServiceRef != null) {
+			bundleContext.ungetService(repositoryServiceRef);
+			repositoryServiceRef = null;
+		}
+		repository = null;
+		bundleContext = null;
+	}
+
+	private Session login() throws RepositoryException {
+		return repository.login(new AuthenticatedCredentials(new AdminPrincipal() {
+			@Override
+			public String getName() {
+				return "admin";
+			}
+		}));
+	}
+
+	private ReadTracker getReadTracker() {
+		assumeTrue("No writable admin session for the read tracker tests.",
+				session != null && session.isLive() && testRootPath != null);
+		ReadTracker tracker = Adaptables.getAdapter(session, ReadTracker.class);
+		assertNotNull("The session must adapt to ReadTracker", tracker);
+		return tracker;
+	}
+
+	@Test
+	public void testRecordsNodesRead() throws Exception {
+		ReadTracker tracker = getReadTracker();
+		try (ReadTracker.Recording recording = tracker.startRecording()) {
+			session.getNode(testRootPath + "/a");
+			Set<String> paths = recording.getPaths();
+			assertTrue(paths.contains(testRootPath + "/a"));
+			assertFalse(paths.contains(testRootPath + "/b"));
+		}
+	}
+
+	@Test
+	public void testRecordsChildListing() throws Exception {
+		ReadTracker tracker = getReadTracker();
+		try (ReadTracker.Recording recording = tracker.startRecording()) {
+			for (NodeIterator i = session.getNode(testRootPath).getNodes(); i.hasNext();) {
+				i.nextNode();
+			}
+			Set<String> paths = recording.getPaths();
+			assertTrue(paths.contains(testRootPath + "/a"));
+			assertTrue(paths.contains(testRootPath + "/b"));
+		}
+	}
+
+	@Test
+	public void testRecordsMissingPaths() throws Exception {
+		ReadTracker tracker = getReadTracker();
+		try (ReadTracker.Recording recording = tracker.startRecording()) {
+			assertFalse(session.nodeExists(testRootPath + "/missing"));
+			assertTrue(recording.getPaths().contains(testRootPath + "/missing"));
+		}
+	}
+
+	@Test
+	public void testClosedRecordingStopsRecording() throws Exception {
+		ReadTracker tracker = getReadTracker();
+		ReadTracker.Recording recording = tracker.startRecording();
+		session.getNode(testRootPath + "/a");
+		recording.close();
+		session.getNode(testRootPath + "/b");
+		assertTrue(recording.getPaths().contains(testRootPath + "/a"));
+		assertFalse(recording.getPaths().contains(testRootPath + "/b"));
+	}
+
+}
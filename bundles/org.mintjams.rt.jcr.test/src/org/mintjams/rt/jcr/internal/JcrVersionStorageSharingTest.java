@@ -0,0 +1,248 @@
+package org.mintjams.rt.jcr.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.UUID;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.version.Version;
+import javax.jcr.version.VersionManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mintjams.jcr.security.AdminPrincipal;
+import org.mintjams.jcr.security.AuthenticatedCredentials;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Verifies copy-on-write version storage: a check-in copies only the subtrees
+ * that changed since the base version and shares the rest with it. Shared
+ * frozen nodes read the same as copied ones, a restore brings back the full
+ * tree, and removing the version that owns a shared subtree keeps it for the
+ * versions that share it.
+ */
+public class JcrVersionStorageSharingTest {
+
+	private static final String FOLDER = "nt:folder";
+	private static final String UNSTRUCTURED = "nt:unstructured";
+	private static final int SECTIONS = 20;
+	private static final int ITEMS = 25;
+
+	private BundleContext bundleContext;
+	private Repository repository;
+	private ServiceReference<Repository> repositoryServiceRef;
+
+	private Session session;
+	private Node testRoot;
+	private String testRootPath;
+
+	@Before
+	public void setUp() throws Exception {
+		String basePath = System.getProperty("jcr.test.path", "/");
+		bundleContext = FrameworkUtil.getBundle(getClass()).getBundleContext();
+		repositoryServiceRef = bundleContext.getServiceReference(Repository.class);
+		if (repositoryServiceRef != null) {
+			repository = bundleContext.getService(repositoryServiceRef);
+		}
+		if (repository == null) {
+			return;
+		}
+
+		try {
+			session = repository.login(new AuthenticatedCredentials(new AdminPrincipal() {
+				@Override
+				public String getName() {
+					return "admin";
+				}
+			}));
+			testRoot = session.getNode(basePath).addNode("jcrVersionStorageSharingTest-" + UUID.randomUUID(), FOLDER);
+			session.save();
+			testRootPath = testRoot.getPath();
+		} catch (RepositoryException ex) {
+			System.out.println("[JcrVersionStorageSharingTest] No writable admin session: " + ex.getMessage());
+			if (session != null && session.isLive()) {
+				try {
+					session.refresh(false);
+				} catch (RepositoryException ignore) {
+				}
+				session.logout();
+			}
+			session = null;
+			testRoot = null;
+		}
+	}
+
+	@After
+	public void tearDown() {
+		try {
+			if (session != null && session.isLive() && testRootPath != null) {
+				session.refresh(false);
+				if (session.nodeExists(testRootPath)) {
+					session.getNode(testRootPath).remove();
+					session.save();
+				}
+			}
+		} catch (Exception ignore) {
+		}
+		if (session != null && session.isLive()) {
+			session.logout();
+		}
+		session = null;
+		testRoot = null;
+		testRootPath = null;
+		if (bundleContext != null && repositoryServiceRef != null) {
+			bundleContext.ungetService(repositoryServiceRef);
+			repositoryServiceRef = null;
+		}
+		repository = null;
+		bundleContext = null;
+	}
+
+	private void requireWritable() {
+		assumeTrue("No writable admin session for the version storage tests.",
+				session != null && session.isLive() && testRoot != null);
+	}
+
+	/**
+	 * Creates a versionable page with {@code SECTIONS * ITEMS} unstructured
+	 * descendants, each carrying a property.
+	 */
+	private Node addPage() throws RepositoryException {
+		Node page = testRoot.addNode("page", UNSTRUCTURED);
+		for (int i = 0; i < SECTIONS; i++) {
+			Node section = page.addNode("section-" + i, UNSTRUCTURED);
+			for (int j = 0; j < ITEMS; j++) {
+				section.addNode("item-" + j, UNSTRUCTURED).setProperty("text", "item " + i + "/" + j);
+			}
+		}
+		session.save();
+		page.addMixin("mix:versionable");
+		session.refresh(false);
+		return session.getNode(page.getPath());
+	}
+
+	private VersionManager versionManager() throws RepositoryException {
+		return session.getWorkspace().getVersionManager();
+	}
+
+	private static int countDescendants(Node node) throws RepositoryException {
+		int count = 0;
+		for (NodeIterator i = node.getNodes(); i.hasNext();) {
+			count += 1 + countDescendants(i.nextNode());
+		}
+		return count;
+	}
+
+	private Version changeOneItem(Node page, String text) throws RepositoryException {
+		versionManager().checkout(page.getPath());
+		page.getNode("section-0/item-0").setProperty("text", text);
+		session.save();
+		return versionManager().checkin(page.getPath());
+	}
+
+	@Test
+	public void unchangedSubtreesAreSharedWithTheBaseVersion() throws RepositoryException {
+		requireWritable();
+
+		Node page = addPage();
+		Version first = versionManager().checkin(page.getPath());
+		Version second = changeOneItem(page, "changed");
+
+		String firstFrozenPath = first.getFrozenNode().getPath();
+		String secondFrozenPath = second.getFrozenNode().getPath();
+
+		// An unchanged section's items are the rows stored by the first version,
+		// reported below the second version's frozen node.
+		Node sharedItem = second.getFrozenNode().getNode("section-1").getNodes().nextNode();
+		assertEquals(first.getFrozenNode().getNode("section-1/" + sharedItem.getName()).getIdentifier(),
+				sharedItem.getIdentifier());
+		assertEquals(secondFrozenPath + "/section-1/" + sharedItem.getName(), sharedItem.getPath());
+		assertEquals(secondFrozenPath + "/section-1", sharedItem.getParent().getPath());
+		assertTrue(sharedItem.getPath(), !sharedItem.getPath().startsWith(firstFrozenPath + "/"));
+		assertEquals(sharedItem.getPath(), session.getNode(sharedItem.getPath()).getPath());
+
+		// The changed item was copied into the second version.
+		Node changedItem = second.getFrozenNode().getNode("section-0/item-0");
+		assertFalse(first.getFrozenNode().getNode("section-0/item-0").getIdentifier()
+				.equals(changedItem.getIdentifier()));
+		assertEquals(secondFrozenPath + "/section-0/item-0", changedItem.getPath());
+		assertEquals("changed", changedItem.getProperty("text").getString());
+
+		// Both versions still read as the full tree.
+		assertEquals(SECTIONS * (ITEMS + 1), countDescendants(first.getFrozenNode()));
+		assertEquals(SECTIONS * (ITEMS + 1), countDescendants(second.getFrozenNode()));
+		assertEquals("item 5/7", second.getFrozenNode().getProperty("section-5/item-7/text").getString());
+	}
+
+	@Test
+	public void checkingInAnUnchangedTreeCopiesNoRows() throws RepositoryException {
+		requireWritable();
+
+		Node page = addPage();
+		Version first = versionManager().checkin(page.getPath());
+		versionManager().checkout(page.getPath());
+		Version second = versionManager().checkin(page.getPath());
+
+		// Nothing changed: the second version stores only its own frozen node and
+		// one shared node per section; every item is a row of the first version.
+		Node firstFrozen = first.getFrozenNode();
+		int items = 0;
+		for (NodeIterator sections = second.getFrozenNode().getNodes(); sections.hasNext();) {
+			Node section = sections.nextNode();
+			for (NodeIterator i = section.getNodes(); i.hasNext();) {
+				Node item = i.nextNode();
+				assertEquals(item.getPath(),
+						firstFrozen.getNode(section.getName() + "/" + item.getName()).getIdentifier(),
+						item.getIdentifier());
+				items++;
+			}
+		}
+		assertEquals(SECTIONS * ITEMS, items);
+	}
+
+	@Test
+	public void restoresTheFullTreeFromASharingVersion() throws RepositoryException {
+		requireWritable();
+
+		Node page = addPage();
+		versionManager().checkin(page.getPath());
+		Version second = changeOneItem(page, "second");
+		changeOneItem(page, "third");
+
+		versionManager().restore(page.getPath(), second, true);
+		session.refresh(false);
+		page = session.getNode(page.getPath());
+
+		assertEquals(SECTIONS * (ITEMS + 1), countDescendants(page));
+		assertEquals("second", page.getProperty("section-0/item-0/text").getString());
+		assertEquals("item 19/24", page.getProperty("section-19/item-24/text").getString());
+	}
+
+	@Test
+	public void removingTheOwningVersionKeepsSharedSubtrees() throws RepositoryException {
+		requireWritable();
+
+		Node page = addPage();
+		Version first = versionManager().checkin(page.getPath());
+		Version second = changeOneItem(page, "changed");
+		String firstName = first.getName();
+
+		versionManager().getVersionHistory(page.getPath()).removeVersion(firstName);
+		session.refresh(false);
+
+		Version remaining = versionManager().getVersionHistory(page.getPath()).getVersion(second.getName());
+		assertFalse(versionManager().getVersionHistory(page.getPath()).hasNode(firstName));
+		assertEquals(SECTIONS * (ITEMS + 1), countDescendants(remaining.getFrozenNode()));
+		assertEquals("item 3/4", remaining.getFrozenNode().getProperty("section-3/item-4/text").getString());
+	}
+}
@@ -59,7 +59,12 @@ public class TestRunner {
 			NamespaceRegistrationValidationTest.class,
 			JcrConcurrentNodeCreationTest.class,
 			JcrReferenceIndexTest.class,
-			JcrRemoveChildTreesTest.class
+			JcrRemoveChildTreesTest.class,
+			JcrOrderBeforeTest.class,
+			JcrVersionStorageSharingTest.class,
+			JcrPropertyStorageTest.class,
+			JcrReadTrackerTest.class,
+			JcrBlobGarbageCollectionTest.class
 		};
 
 		// Run tests
@@ -24,18 +24,35 @@ package org.mintjams.rt.jcr.internal;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.jcr.RepositoryException;
 
 import org.mintjams.jcr.util.FileCache;
+import org.mintjams.rt.jcr.internal.blob.BlobStore;
 import org.mintjams.tools.lang.Cause;
 
 public class JcrBinary implements org.mintjams.jcr.Binary {
 
 	private final FileCache fCache;
+	private final BlobStore fBlobStore;
+	private final String fBlobId;
+	private final long fBlobSize;
+	private final AtomicBoolean fBlobClaimed = new AtomicBoolean();
 
 	private JcrBinary(FileCache cache) {
 		fCache = cache;
+		fBlobStore = null;
+		fBlobId = null;
+		fBlobSize = -1;
+	}
+
+	private JcrBinary(BlobStore blobStore, String blobId, long blobSize) {
+		fCache = null;
+		fBlobStore = blobStore;
+		fBlobId = blobId;
+		fBlobSize = blobSize;
 	}
 
 	public static JcrBinary create(InputStream value) throws IOException {
@@ -46,8 +63,44 @@ public class JcrBinary implements org.mintjams.jcr.Binary {
 		return new JcrBinary(FileCache.create(value, Activator.getDefault().getTemporaryDirectoryPath()));
 	}
 
+	/**
+	 * Writes the stream straight into the blob store under a fresh identifier
+	 * and returns a binary backed by that blob, skipping the temporary file
+	 * copy. The first property the binary is set on takes the blob over (see
+	 * {@link #claimBlobId()}) instead of copying it again. A blob that is never
+	 * taken over is left to the blob store's garbage collection.
+	 */
+	public static JcrBinary stage(InputStream value, BlobStore blobStore) throws IOException {
+		String blobId = UUID.randomUUID().toString();
+		long size = blobStore.write(blobId, value);
+		return new JcrBinary(blobStore, blobId, size);
+	}
+
+	/**
+	 * Returns the identifier of the blob this binary was staged under, the
+	 * first time it is called, or {@code null} when the binary is not staged
+	 * or its blob was already taken by another property.
+	 */
+	public String claimBlobId() {
+		if (fBlobId == null || !fBlobClaimed.compareAndSet(false, true)) {
+			return null;
+		}
+		return fBlobId;
+	}
+
+	/**
+	 * Returns whether this binary is the staged blob stored under the given
+	 * identifier.
+	 */
+	public boolean isStagedAs(String blobId) {
+		return fBlobId != null && fBlobId.equals(blobId);
+	}
+
 	@Override
 	public void dispose() {
+		if (fCache == null) {
+			return;
+		}
 		try {
 			fCache.close();
 		} catch (IOException ignore) {}
@@ -55,6 +108,9 @@ public class JcrBinary implements org.mintjams.jcr.Binary {
 
 	@Override
 	public long getSize() throws RepositoryException {
+		if (fCache == null) {
+			return fBlobSize;
+		}
 		try {
 			return fCache.getSize();
 		} catch (IOException ex) {
@@ -65,6 +121,9 @@ public class JcrBinary implements org.mintjams.jcr.Binary {
 	@Override
 	public InputStream getStream() throws RepositoryException {
 		try {
+			if (fCache == null) {
+				return fBlobStore.read(fBlobId);
+			}
 			return fCache.getInputStream(true);
 		} catch (IOException ex) {
 			throw Cause.create(ex).wrap(RepositoryException.class);
@@ -77,7 +136,7 @@ public class JcrBinary implements org.mintjams.jcr.Binary {
 			throw new IllegalArgumentException("Invalid position: " + position);
 		}
 
-		try (InputStream in = fCache.getInputStream()) {
+		try (InputStream in = (fCache == null) ? fBlobStore.read(fBlobId) : fCache.getInputStream()) {
 			in.skip(position);
 			return in.read(b, 0, b.length);
 		}
@@ -22,12 +22,16 @@
 
 package org.mintjams.rt.jcr.internal;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.jcr.Binary;
 import javax.jcr.ItemExistsException;
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
@@ -35,6 +39,9 @@ import javax.jcr.nodetype.NodeType;
 import javax.jcr.version.VersionManager;
 
 import org.mintjams.jcr.ImportContentHandler;
+import org.mintjams.rt.jcr.internal.blob.BlobStore;
+import org.mintjams.rt.jcr.internal.observation.JournalObserver;
+import org.mintjams.tools.lang.Cause;
 
 /**
  * The node-by-node import driver returned by
@@ -59,6 +66,7 @@ import org.mintjams.jcr.ImportContentHandler;
 final class JcrImportContentHandler implements ImportContentHandler {
 
 	private final JcrSession fSession;
+	private final BlobStore fBlobStore;
 	private final int fUuidBehavior;
 	private final int fPathBehavior;
 	/**
@@ -72,6 +80,7 @@ final class JcrImportContentHandler implements ImportContentHandler {
 
 	private JcrImportContentHandler(JcrSession session, int uuidBehavior, int pathBehavior) {
 		fSession = session;
+		fBlobStore = session.adaptTo(BlobStore.class);
 		fUuidBehavior = uuidBehavior;
 		fPathBehavior = pathBehavior;
 	}
@@ -191,6 +200,30 @@ final class JcrImportContentHandler implements ImportContentHandler {
 		}
 	}
 
+	@Override
+	public Binary createBinary(InputStream in) throws RepositoryException {
+		try {
+			return JcrBinary.stage(in, fBlobStore);
+		} catch (IOException ex) {
+			throw Cause.create(ex).wrap(RepositoryException.class);
+		}
+	}
+
+	@Override
+	public void setWriteBatchSize(int batchSize) {
+		fSession.adaptTo(WorkspaceQuery.class).journal().setBatchSize(batchSize);
+	}
+
+	@Override
+	public void setSearchIndexDeferred(boolean searchIndexDeferred) {
+		fSession.setSearchIndexDeferred(searchIndexDeferred);
+	}
+
+	@Override
+	public void rebuildSearchIndex(Collection<String> absPaths) {
+		fSession.adaptTo(JournalObserver.class).requestSearchIndexRebuild(absPaths);
+	}
+
 	@Override
 	public int getUuidBehavior() {
 		return fUuidBehavior;
@@ -207,6 +240,10 @@ final class JcrImportContentHandler implements ImportContentHandler {
 			return;
 		}
 		fClosed = true;
+		// Rows still buffered are written by the next save (or dropped by a
+		// refresh); only new rows go out one at a time again.
+		setWriteBatchSize(0);
+		setSearchIndexDeferred(false);
 		fSession.endImportScope();
 	}
 
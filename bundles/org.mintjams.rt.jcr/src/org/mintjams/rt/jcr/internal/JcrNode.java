@@ -103,6 +103,7 @@ public class JcrNode implements org.mintjams.jcr.Node, Adaptable {
 	}
 
 	public static JcrNode create(AdaptableMap<String, Object> itemData, JcrSession session) {
+		((JcrWorkspace) session.getWorkspace()).getReadTracker().read(itemData.getString("item_path"));
 		return new JcrNode(itemData, session);
 	}
 
@@ -143,6 +144,9 @@ public class JcrNode implements org.mintjams.jcr.Node, Adaptable {
 			throw new ItemNotFoundException("This item is the root node.");
 		}
 
+		if (isProjected()) {
+			return fSession.getNode(JcrPath.valueOf(getPath()).getParent().toString());
+		}
 		return fSession.getNodeByIdentifier(fItemData.getString("parent_item_id"));
 	}
 
@@ -223,9 +227,12 @@ public class JcrNode implements org.mintjams.jcr.Node, Adaptable {
 			}
 		}
 
-		for (NodeIterator i = getNodes(); i.hasNext();) {
-			JcrNode childItem = (JcrNode) i.nextNode();
-			childItem.remove(op);
+		// A shared node has no child nodes of its own; those listed are the shared node's.
+		if (!isShared()) {
+			for (NodeIterator i = getNodes(); i.hasNext();) {
+				JcrNode childItem = (JcrNode) i.nextNode();
+				childItem.remove(op);
+			}
 		}
 
 		if (hasProperty(JcrProperty.JCR_VERSION_HISTORY)) {
@@ -580,6 +587,38 @@ public class JcrNode implements org.mintjams.jcr.Node, Adaptable {
 		return fItemData.getString("item_id");
 	}
 
+	/**
+	 * Returns the identifier the properties and child nodes of this node are
+	 * stored under. That is the node's own identifier, except for a frozen node
+	 * that shares an unchanged subtree of an earlier version: it stores neither
+	 * and reads those of the frozen node it shares.
+	 */
+	public String getContentIdentifier() {
+		String sharedItemId = fItemData.getString("shared_item_id");
+		return Strings.isEmpty(sharedItemId) ? fItemData.getString("item_id") : sharedItemId;
+	}
+
+	private boolean isShared() {
+		return !Strings.isEmpty(fItemData.getString("shared_item_id"));
+	}
+
+	/**
+	 * Whether this node was reached below a shared node, so that its row is
+	 * the one stored under the earlier version, reported at the path it was
+	 * requested with (see {@link WorkspaceQuery.ItemsQuery#getSharedNode}).
+	 */
+	private boolean isProjected() {
+		return fItemData.containsKey(WorkspaceQuery.PROJECTED_FROM_PATH);
+	}
+
+	/**
+	 * Whether the child rows listed for this node live at another path than
+	 * below it: it shares a subtree, or was itself reached through one.
+	 */
+	boolean isSharedContentView() {
+		return isShared() || isProjected();
+	}
+
 	@Override
 	public int getIndex() throws RepositoryException {
 		return 1;
@@ -740,7 +779,7 @@ public class JcrNode implements org.mintjams.jcr.Node, Adaptable {
 	@Override
 	public boolean hasNodes() throws RepositoryException {
 		try {
-			return getWorkspaceQuery().items().hasChildNodes(getIdentifier());
+			return getWorkspaceQuery().items().hasChildNodes(getContentIdentifier());
 		} catch (SQLException ex) {
 			throw Cause.create(ex).wrap(RepositoryException.class);
 		}
@@ -805,10 +844,40 @@ public class JcrNode implements org.mintjams.jcr.Node, Adaptable {
 	public void orderBefore(String srcChildRelPath, String destChildRelPath)
 			throws UnsupportedRepositoryOperationException, VersionException, ConstraintViolationException,
 			ItemNotFoundException, LockException, RepositoryException {
-		// TODO Auto-generated method stub
-		JcrPath path = JcrPath.valueOf(getPath());
-		fSession.checkPrivileges(path.getParent().toString(), Privilege.JCR_REMOVE_CHILD_NODES);
-		fSession.checkPrivileges(path.getParent().toString(), Privilege.JCR_ADD_CHILD_NODES);
+		// Reordering changes the child list of this node, not of its parent.
+		fSession.checkPrivileges(getPath(), Privilege.JCR_REMOVE_CHILD_NODES);
+		fSession.checkPrivileges(getPath(), Privilege.JCR_ADD_CHILD_NODES);
+		checkWritable();
+		if (!hasOrderableChildNodes()) {
+			throw new UnsupportedRepositoryOperationException(
+					"Node '" + getPath() + "' does not support orderable child nodes.");
+		}
+		if (Strings.isEmpty(srcChildRelPath)) {
+			throw new ItemNotFoundException("Source path must not be null or empty.");
+		}
+		if (srcChildRelPath.equals(destChildRelPath)) {
+			return;
+		}
+
+		try {
+			getWorkspaceQuery().items().orderBefore(getIdentifier(), srcChildRelPath, destChildRelPath);
+		} catch (IOException | SQLException ex) {
+			throw Cause.create(ex).wrap(RepositoryException.class);
+		}
+	}
+
+	private boolean hasOrderableChildNodes() throws RepositoryException {
+		if (getPrimaryNodeType().hasOrderableChildNodes()) {
+			return true;
+		}
+
+		for (NodeType mixinType : getMixinNodeTypes()) {
+			if (mixinType.hasOrderableChildNodes()) {
+				return true;
+			}
+		}
+
+		return false;
 	}
 
 	@Override
@@ -1157,11 +1226,11 @@ public class JcrNode implements org.mintjams.jcr.Node, Adaptable {
 
 	private Map<String, AdaptableMap<String, Object>> getCachedProperties() throws RepositoryException {
 		WorkspaceQuery workspaceQuery = getWorkspaceQuery();
-		Map<String, AdaptableMap<String, Object>> properties = workspaceQuery.getCachedProperties(getIdentifier());
+		Map<String, AdaptableMap<String, Object>> properties = workspaceQuery.getCachedProperties(getContentIdentifier());
 		if (properties == null) {
 			long revision = workspaceQuery.getNodeCacheRevision();
 			properties = new HashMap<>();
-			try (Query.Result result = workspaceQuery.items().listProperties(getIdentifier(), null, 0)) {
+			try (Query.Result result = workspaceQuery.items().listProperties(getContentIdentifier(), null, 0)) {
 				for (AdaptableMap<String, Object> itemData : result) {
 					if (itemData.getBoolean("is_deleted")) {
 						continue;
@@ -1172,7 +1241,7 @@ public class JcrNode implements org.mintjams.jcr.Node, Adaptable {
 			} catch (IOException | SQLException ex) {
 				throw Cause.create(ex).wrap(RepositoryException.class);
 			}
-			workspaceQuery.cacheProperties(getIdentifier(), properties, revision);
+			workspaceQuery.cacheProperties(getContentIdentifier(), properties, revision);
 		}
 		return properties;
 	}
@@ -85,7 +85,7 @@ public class JcrNodeIterator implements NodeIterator, Adaptable {
 		// whose caller already knows the total) skip the COUNT statement.
 		if (fTotalHits == -1) {
 			try {
-				fTotalHits = adaptTo(WorkspaceQuery.class).items().countNodes(fNode.getIdentifier(), fNameGlobs);
+				fTotalHits = adaptTo(WorkspaceQuery.class).items().countNodes(fNode.getContentIdentifier(), fNameGlobs);
 			} catch (IOException | SQLException | RepositoryException ex) {
 				throw Cause.create(ex).wrap(IllegalStateException.class);
 			}
@@ -202,7 +202,14 @@ public class JcrNodeIterator implements NodeIterator, Adaptable {
 				if (contentItemData != null) {
 					adaptTo(WorkspaceQuery.class).cacheNode(contentItemData, fFetchRevision);
 				}
-				Node node = fNode.getSession().getNodeByIdentifier(itemData.getString("item_id"));
+				Node node;
+				if (fNode.isSharedContentView()) {
+					// The rows are those of the shared subtree, stored under the
+					// earlier version; address them below this node instead.
+					node = fNode.getSession().getNode(fNode.getPath() + "/" + itemData.getString("item_name"));
+				} else {
+					node = fNode.getSession().getNodeByIdentifier(itemData.getString("item_id"));
+				}
 				fNextNode = node;
 			} catch (AccessDeniedException ignore) {
 			} catch (RepositoryException ex) {
@@ -217,7 +224,7 @@ public class JcrNodeIterator implements NodeIterator, Adaptable {
 		List<String> identifiers = new ArrayList<>();
 		// Deleted rows are filtered in SQL so that fOffset addresses the same
 		// row set countNodes() counts — the invariant skip-by-offset relies on.
-		try (Query.Result result = adaptTo(WorkspaceQuery.class).items().listNodes(fNode.getIdentifier(), fNameGlobs, fOffset, true)) {
+		try (Query.Result result = adaptTo(WorkspaceQuery.class).items().listNodes(fNode.getContentIdentifier(), fNameGlobs, fOffset, true)) {
 			for (AdaptableMap<String, Object> itemData : result) {
 				fFetchList.add(itemData);
 				identifiers.add(itemData.getString("item_id"));
@@ -53,7 +53,6 @@ import javax.jcr.nodetype.NoSuchNodeTypeException;
 import javax.jcr.nodetype.PropertyDefinition;
 import javax.jcr.security.Privilege;
 import javax.jcr.version.VersionException;
-import javax.xml.namespace.QName;
 
 import org.mintjams.jcr.JcrName;
 import org.mintjams.jcr.JcrPath;
@@ -302,12 +301,12 @@ public class JcrProperty implements org.mintjams.jcr.Property, Adaptable {
 		}
 
 		try {
-			Object[] values = fItemData.adapt("property_value", Object[].class).getValue();
-			if (values == null || values.length == 0) {
+			Object[] values = PropertyValueCodec.decode(fItemData);
+			if (values.length == 0) {
 				return null;
 			}
 
-			return JcrValue.create(QName.valueOf(values[0].toString()), getType()).with(this);
+			return JcrValue.create(values[0], getType()).with(this);
 		} catch (UnadaptableValueException ex) {
 			throw Cause.create(ex).wrap(ValueFormatException.class, false);
 		} catch (Throwable ex) {
@@ -322,15 +321,15 @@ public class JcrProperty implements org.mintjams.jcr.Property, Adaptable {
 		}
 
 		try {
-			Object[] values = fItemData.adapt("property_value", Object[].class).getValue();
-			if (values == null || values.length == 0) {
+			Object[] values = PropertyValueCodec.decode(fItemData);
+			if (values.length == 0) {
 				return new Value[0];
 			}
 
 			try {
 				return Arrays.stream(values).map(e -> {
 					try {
-						return JcrValue.create(QName.valueOf(e.toString()), getType()).with(this);
+						return JcrValue.create(e, getType()).with(this);
 					} catch (RepositoryException ex) {
 						throw new UncheckedRepositoryException(ex);
 					}
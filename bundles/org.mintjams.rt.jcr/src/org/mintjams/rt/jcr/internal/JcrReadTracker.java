@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.jcr.internal;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.mintjams.jcr.ReadTracker;
+
+public class JcrReadTracker implements ReadTracker {
+
+	private final List<JcrRecording> fRecordings = new CopyOnWriteArrayList<>();
+
+	@Override
+	public Recording startRecording() {
+		JcrRecording recording = new JcrRecording();
+		fRecordings.add(recording);
+		return recording;
+	}
+
+	/**
+	 * Adds the path to the open recordings; without any this is a single
+	 * volatile read.
+	 */
+	void read(String absPath) {
+		if (absPath == null || fRecordings.isEmpty()) {
+			return;
+		}
+
+		for (JcrRecording recording : fRecordings) {
+			recording.fPaths.add(absPath);
+		}
+	}
+
+	private class JcrRecording implements Recording {
+		private final Set<String> fPaths = ConcurrentHashMap.newKeySet();
+
+		@Override
+		public Set<String> getPaths() {
+			return Collections.unmodifiableSet(fPaths);
+		}
+
+		@Override
+		public void close() {
+			fRecordings.remove(this);
+		}
+	}
+
+}
@@ -104,6 +104,11 @@ public class JcrSession implements Session, Adaptable {
 	 * once the outermost scope closes.
 	 */
 	private int fImportScopeDepth = 0;
+	/**
+	 * Whether the transactions this session saves skip the per-item search
+	 * index update (see {@link ImportContentHandler#setSearchIndexDeferred(boolean)}).
+	 */
+	private boolean fSearchIndexDeferred;
 
 	private JcrSession(UserPrincipal principal, JcrWorkspace workspace) {
 		fPrincipal = principal;
@@ -203,6 +208,10 @@ public class JcrSession implements Session, Adaptable {
 		return fImportScopeDepth > 0;
 	}
 
+	public void setSearchIndexDeferred(boolean searchIndexDeferred) {
+		fSearchIndexDeferred = searchIndexDeferred;
+	}
+
 	@Override
 	public Item getItem(String absPath) throws PathNotFoundException, RepositoryException {
 		try {
@@ -495,11 +504,12 @@ public class JcrSession implements Session, Adaptable {
 
 	@Override
 	public boolean nodeExists(String absPath) throws RepositoryException {
-		try {
-			getNode(absPath);
-			return true;
-		} catch (PathNotFoundException ignore) {}
-		return false;
+		Node item = fWorkspace.findNode(absPath);
+		if (item == null) {
+			return false;
+		}
+		checkPrivileges(item.getPath(), Privilege.JCR_READ);
+		return true;
 	}
 
 	@Override
@@ -561,7 +571,7 @@ public class JcrSession implements Session, Adaptable {
 		}
 
 		SessionIdentifier sessionIdentifier = adaptTo(SessionIdentifier.class);
-		adaptTo(JournalObserver.class).comitted(sessionIdentifier.getTransactionIdentifier());
+		adaptTo(JournalObserver.class).comitted(sessionIdentifier.getTransactionIdentifier(), fSearchIndexDeferred);
 		adaptTo(WorkspaceCleaner.class).comitted();
 		sessionIdentifier.nextTransaction();
 	}
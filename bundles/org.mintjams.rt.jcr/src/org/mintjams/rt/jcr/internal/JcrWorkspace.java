@@ -65,6 +65,7 @@ import javax.jcr.version.VersionManager;
 
 import org.mintjams.jcr.JcrPath;
 import org.mintjams.jcr.NamespaceProvider;
+import org.mintjams.jcr.ReadTracker;
 import org.mintjams.jcr.UncheckedRepositoryException;
 import org.mintjams.jcr.security.IdentityProvider;
 import org.mintjams.jcr.security.PrincipalProvider;
@@ -108,6 +109,7 @@ public class JcrWorkspace implements org.mintjams.jcr.Workspace, Closeable, Adap
 	private WorkspaceQuery fWorkspaceQuery;
 	private PrincipalProvider fPrincipalProvider;
 	private IdentityProvider fIdentityProvider;
+	private final JcrReadTracker fReadTracker = new JcrReadTracker();
 
 	private JcrWorkspace(UserPrincipal principal, JcrWorkspaceProvider workspaceProvider) {
 		fUserPrincipal = principal;
@@ -550,6 +552,19 @@ public class JcrWorkspace implements org.mintjams.jcr.Workspace, Closeable, Adap
 	}
 
 	public Node getNode(String absPath) throws PathNotFoundException, RepositoryException {
+		Node node = findNode(absPath);
+		if (node == null) {
+			throw new PathNotFoundException(absPath);
+		}
+		return node;
+	}
+
+	/**
+	 * Returns the node at {@code absPath}, or {@code null} when there is none.
+	 * Unlike {@link #getNode(String)} a missing node costs no exception, which
+	 * matters to callers that probe many candidate paths.
+	 */
+	public Node findNode(String absPath) throws RepositoryException {
 		absPath = JcrPath.valueOf(absPath).with(adaptTo(NamespaceProvider.class)).toString();
 		AdaptableMap<String, Object> itemData = fWorkspaceQuery.getCachedNode(absPath);
 		if (itemData == null) {
@@ -561,18 +576,29 @@ public class JcrWorkspace implements org.mintjams.jcr.Workspace, Closeable, Adap
 						itemData = data;
 					}
 				}
+				if (itemData == null) {
+					// Below a frozen node that shares an earlier version's
+					// subtree. Not cached: the row carries the stored node's
+					// identifier but this path.
+					itemData = fWorkspaceQuery.items().getSharedNode(absPath);
+				}
 			} catch (IOException | SQLException ex) {
 				throw Cause.create(ex).wrap(RepositoryException.class);
 			}
 
 			if (itemData == null) {
-				throw new PathNotFoundException(absPath);
+				fReadTracker.read(absPath);
+				return null;
 			}
 		}
 
 		return JcrNode.create(itemData, fSession);
 	}
 
+	JcrReadTracker getReadTracker() {
+		return fReadTracker;
+	}
+
 	public Node getNodeByIdentifier(String id) throws ItemNotFoundException, RepositoryException {
 		AdaptableMap<String, Object> itemData = fWorkspaceQuery.getCachedNodeByIdentifier(id);
 		if (itemData == null) {
@@ -673,6 +699,10 @@ public class JcrWorkspace implements org.mintjams.jcr.Workspace, Closeable, Adap
 			return (AdapterType) fLockManager;
 		}
 
+		if (adapterType.equals(ReadTracker.class) || adapterType.equals(JcrReadTracker.class)) {
+			return (AdapterType) fReadTracker;
+		}
+
 		if (adapterType.equals(VersionManager.class) || adapterType.equals(JcrVersionManager.class)) {
 			return (AdapterType) fVersionManager;
 		}
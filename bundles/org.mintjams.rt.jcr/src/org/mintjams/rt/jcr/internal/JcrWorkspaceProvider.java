@@ -46,7 +46,6 @@ import javax.jcr.LoginException;
 import javax.jcr.PathNotFoundException;
 import javax.jcr.PropertyType;
 import javax.jcr.RepositoryException;
-import javax.xml.namespace.QName;
 
 import org.mintjams.jcr.JcrPath;
 import org.mintjams.jcr.security.LoginTimedOutException;
@@ -93,7 +92,9 @@ public class JcrWorkspaceProvider implements Closeable, Adaptable {
 	private SearchIndex fSearchIndex;
 	private JournalObserver fJournalObserver;
 	private WorkspaceCleaner fWorkspaceCleaner;
+	private WorkspaceGarbageCollection fWorkspaceGarbageCollection;
 	private WorkspaceOrphanMonitor fWorkspaceOrphanMonitor;
+	private WorkspacePropertyMigration fWorkspacePropertyMigration;
 	private boolean fLive;
 	private final List<JcrWorkspace> fActiveSessions = new ArrayList<>();
 
@@ -220,7 +221,7 @@ public class JcrWorkspaceProvider implements Closeable, Adaptable {
 						.error("An error occurred while accessing the blob store.", ex)));
 
 		fClusterController = fCloser.register(ClusterController.create(getWorkspaceName(), clusterEnabled,
-				fRepository.getConfiguration().getClusterNodeId(),
+				fRepository.getConfiguration().getClusterNodeId(), fConnectionPool.getDialect(),
 				() -> getConnection(new SystemPrincipal())));
 		fClusterController.open();
 
@@ -228,8 +229,10 @@ public class JcrWorkspaceProvider implements Closeable, Adaptable {
 
 		// Schema preparation, migrations, default-node creation, and orphan
 		// removal mutate state shared by every cluster node, so they run under
-		// the workspace startup lease. Standalone mode grants it immediately.
-		try (ClusterController.Lease startupLease = fClusterController.lock("workspace-startup", 3600000L)) {
+		// the workspace startup lease. Every node takes it when a cluster
+		// starts, so the waiters queue fairly rather than race for it.
+		// Standalone mode grants it immediately.
+		try (ClusterController.Lease startupLease = fClusterController.lock("workspace-startup", 3600000L, true)) {
 			prepareInitialData();
 
 			fAccessControlStore = fCloser.register(AccessControlStore.create(this));
@@ -259,13 +262,15 @@ public class JcrWorkspaceProvider implements Closeable, Adaptable {
 			fWorkspaceCleaner = fCloser.register(WorkspaceCleaner.create(this));
 			fWorkspaceCleaner.open();
 
-			WorkspaceGarbageCollection workspaceGarbageCollection = fCloser
-					.register(WorkspaceGarbageCollection.create(this));
-			workspaceGarbageCollection.open();
+			fWorkspaceGarbageCollection = fCloser.register(WorkspaceGarbageCollection.create(this));
+			fWorkspaceGarbageCollection.open();
 
 			fWorkspaceOrphanMonitor = fCloser.register(WorkspaceOrphanMonitor.create(this));
 			fWorkspaceOrphanMonitor.open();
 
+			fWorkspacePropertyMigration = fCloser.register(WorkspacePropertyMigration.create(this));
+			fWorkspacePropertyMigration.open();
+
 			removeOrphanNodes();
 		}
 
@@ -455,14 +460,61 @@ public class JcrWorkspaceProvider implements Closeable, Adaptable {
 						.info("JCR workspace data migration process has been completed.");
 			} while (false);
 
-			// Migrate jcr:system and jcr:versionStorage node types from nt:folder to custom types
+			// Compact property value storage.
+			// New rows keep single numeric, boolean and date values in native
+			// columns and pack everything else into value_data. Rows written
+			// before keep their legacy prefixed strings (value_format = 0) and are
+			// rewritten in the background by WorkspacePropertyMigration.
 			do {
-				String oldValue = "{http://www.mintjams.jp/jcr/1.0/value/string}nt:folder";
+				try {
+					for (String column : new String[] {
+							"value_format SMALLINT NOT NULL DEFAULT 0",
+							"value_long BIGINT",
+							"value_double DOUBLE PRECISION",
+							"value_date TIMESTAMP WITH TIME ZONE",
+							"value_data BYTEA" }) {
+						Update.newBuilder(connection)
+								.setStatement("ALTER TABLE jcr_properties ADD COLUMN IF NOT EXISTS " + column)
+								.build().execute();
+					}
+					connection.commit();
+				} catch (Throwable ex) {
+					try {
+						connection.rollback();
+					} catch (Throwable ignore) {
+					}
+					throw ex;
+				}
+
+				try {
+					Update.newBuilder(connection)
+							.setStatement("CREATE INDEX IF NOT EXISTS jcr_properties_value_long ON jcr_properties (item_name, value_long)")
+							.build().execute();
+					Update.newBuilder(connection)
+							.setStatement("CREATE INDEX IF NOT EXISTS jcr_properties_value_double ON jcr_properties (item_name, value_double)")
+							.build().execute();
+					Update.newBuilder(connection)
+							.setStatement("CREATE INDEX IF NOT EXISTS jcr_properties_value_date ON jcr_properties (item_name, value_date)")
+							.build().execute();
+					Update.newBuilder(connection)
+							.setStatement("CREATE INDEX IF NOT EXISTS jcr_properties_value_format ON jcr_properties (value_format)")
+							.build().execute();
+					connection.commit();
+				} catch (Throwable ex) {
+					try {
+						connection.rollback();
+					} catch (Throwable ignore) {
+					}
+					throw ex;
+				}
+			} while (false);
 
+			// Migrate jcr:system and jcr:versionStorage node types from nt:folder to custom types
+			do {
 				// Check if jcr:system still uses nt:folder
 				boolean needsMigration = false;
 				try (Query.Result result = Query.newBuilder(connection)
-						.setStatement("SELECT p.property_value FROM jcr_properties p"
+						.setStatement("SELECT p.* FROM jcr_properties p"
 								+ " INNER JOIN jcr_items i ON i.item_id = p.parent_item_id"
 								+ " WHERE i.item_path = '/jcr:system'"
 								+ " AND p.item_name = 'jcr:primaryType'"
@@ -471,8 +523,8 @@ public class JcrWorkspaceProvider implements Closeable, Adaptable {
 					Iterator<AdaptableMap<String, Object>> iter = result.iterator();
 					if (iter.hasNext()) {
 						AdaptableMap<String, Object> row = iter.next();
-						Object[] values = row.getObjectArray("property_value");
-						if (values != null && values.length > 0 && oldValue.equals(values[0])) {
+						List<String> values = PropertyValueCodec.getStrings(row);
+						if (!values.isEmpty() && "nt:folder".equals(values.get(0))) {
 							needsMigration = true;
 						}
 					}
@@ -485,10 +537,13 @@ public class JcrWorkspaceProvider implements Closeable, Adaptable {
 				Activator.getDefault().getLogger(getClass())
 						.info("Migrating version storage node types from nt:folder to mi:system/mi:versionStorage...");
 
+				String legacyColumns = ", value_format = " + PropertyValueCodec.LEGACY_FORMAT
+						+ ", value_long = NULL, value_double = NULL, value_date = NULL, value_data = NULL";
 				try {
-					// Update jcr:system to mi:system
+					// Update jcr:system to mi:system. The rows are written in the
+					// legacy format and compacted later like any other legacy row.
 					Update.newBuilder(connection)
-							.setStatement("UPDATE jcr_properties SET property_value = {{newValue}}"
+							.setStatement("UPDATE jcr_properties SET property_value = {{newValue}}" + legacyColumns
 									+ " WHERE item_name = 'jcr:primaryType'"
 									+ " AND parent_item_id IN (SELECT item_id FROM jcr_items WHERE item_path = '/jcr:system')")
 							.setVariable("newValue", new String[]{"{http://www.mintjams.jp/jcr/1.0/value/string}mi:system"})
@@ -496,7 +551,7 @@ public class JcrWorkspaceProvider implements Closeable, Adaptable {
 
 					// Update jcr:versionStorage to mi:versionStorage
 					Update.newBuilder(connection)
-							.setStatement("UPDATE jcr_properties SET property_value = {{newValue}}"
+							.setStatement("UPDATE jcr_properties SET property_value = {{newValue}}" + legacyColumns
 									+ " WHERE item_name = 'jcr:primaryType'"
 									+ " AND parent_item_id IN (SELECT item_id FROM jcr_items WHERE item_path = '/jcr:system/jcr:versionStorage')")
 							.setVariable("newValue", new String[]{"{http://www.mintjams.jp/jcr/1.0/value/string}mi:versionStorage"})
@@ -623,6 +678,73 @@ public class JcrWorkspaceProvider implements Closeable, Adaptable {
 				}
 			} while (false);
 
+			// Sparse sort keys for orderable child lists.
+			// Ordered child listing reads (parent_item_id, sort_key, item_name) as an
+			// index range scan, whatever the number of siblings. Existing rows keep the
+			// default key 0, which lists them in name order exactly as before.
+			do {
+				try {
+					Update.newBuilder(connection)
+							.setStatement("ALTER TABLE jcr_items ADD COLUMN IF NOT EXISTS sort_key BIGINT NOT NULL DEFAULT 0")
+							.build().execute();
+					connection.commit();
+				} catch (Throwable ex) {
+					try {
+						connection.rollback();
+					} catch (Throwable ignore) {
+					}
+					throw ex;
+				}
+
+				try {
+					Update.newBuilder(connection)
+							.setStatement("CREATE INDEX IF NOT EXISTS jcr_items_sort_key ON jcr_items (parent_item_id, sort_key, item_name)")
+							.build().execute();
+					connection.commit();
+				} catch (Throwable ex) {
+					try {
+						connection.rollback();
+					} catch (Throwable ignore) {
+					}
+					throw ex;
+				}
+			} while (false);
+
+			// Copy-on-write version storage.
+			// Frozen nodes record the digest of the subtree they were taken from, and
+			// an unchanged subtree is stored once and shared by later versions. The
+			// index resolves the sharing nodes when a version is removed.
+			do {
+				try {
+					Update.newBuilder(connection)
+							.setStatement("ALTER TABLE jcr_items ADD COLUMN IF NOT EXISTS content_hash VARCHAR")
+							.build().execute();
+					Update.newBuilder(connection)
+							.setStatement("ALTER TABLE jcr_items ADD COLUMN IF NOT EXISTS shared_item_id VARCHAR")
+							.build().execute();
+					connection.commit();
+				} catch (Throwable ex) {
+					try {
+						connection.rollback();
+					} catch (Throwable ignore) {
+					}
+					throw ex;
+				}
+
+				try {
+					Update.newBuilder(connection)
+							.setStatement("CREATE INDEX IF NOT EXISTS jcr_items_shared_item_id ON jcr_items (shared_item_id)")
+							.build().execute();
+					connection.commit();
+				} catch (Throwable ex) {
+					try {
+						connection.rollback();
+					} catch (Throwable ignore) {
+					}
+					throw ex;
+				}
+			} while (false);
+
 			// Backfill the normalized reference index (jcr_references) from the
 			// existing property rows. Runs once when the table first appears; an
 			// interrupted backfill (empty table while live reference-typed rows
@@ -663,20 +785,14 @@ public class JcrWorkspaceProvider implements Closeable, Adaptable {
 							"INSERT INTO jcr_references (item_id, parent_item_id, property_type, target_item_id)"
 							+ " VALUES (?, ?, ?, ?)");
 							Query.Result result = Query.newBuilder(connection)
-									.setStatement("SELECT item_id, parent_item_id, property_type, property_value"
+									.setStatement("SELECT item_id, parent_item_id, " + PropertyValueCodec.VALUE_COLUMNS
 											+ " FROM jcr_properties"
 											+ " WHERE property_type IN ({{types;list}}) AND is_deleted = FALSE")
 									.setVariable("types", List.of(PropertyType.REFERENCE, PropertyType.WEAKREFERENCE))
 									.build().setOffset(0).execute()) {
 						int batched = 0;
 						for (AdaptableMap<String, Object> r : result) {
-							Set<String> targets = new LinkedHashSet<>();
-							for (Object e : r.getObjectArray("property_value")) {
-								QName propertyValue = QName.valueOf((String) e);
-								if (JcrValue.STRING_NS_URI.equals(propertyValue.getNamespaceURI())) {
-									targets.add(propertyValue.getLocalPart());
-								}
-							}
+							Set<String> targets = new LinkedHashSet<>(PropertyValueCodec.getStrings(r));
 							for (String target : targets) {
 								insert.setString(1, r.getString("item_id"));
 								insert.setString(2, r.getString("parent_item_id"));
@@ -955,6 +1071,14 @@ public class JcrWorkspaceProvider implements Closeable, Adaptable {
 			return (AdapterType) fWorkspaceCleaner;
 		}
 
+		if (adapterType.equals(WorkspaceGarbageCollection.class)) {
+			return (AdapterType) fWorkspaceGarbageCollection;
+		}
+
+		if (adapterType.equals(WorkspacePropertyMigration.class)) {
+			return (AdapterType) fWorkspacePropertyMigration;
+		}
+
 		return Adaptables.getAdapter(fRepository, adapterType);
 	}
 
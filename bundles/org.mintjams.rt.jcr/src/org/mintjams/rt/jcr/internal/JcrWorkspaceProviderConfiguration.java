@@ -165,6 +165,24 @@ public class JcrWorkspaceProviderConfiguration {
 		return defaultDirectory;
 	}
 
+	/**
+	 * Returns how many partitions of the blob store the garbage collector
+	 * walks concurrently ({@code jcr.yml#blobstore.gc.threads}). Each thread
+	 * holds a connection of the system pool while it reads the referenced
+	 * identifiers of its partition. Defaults to a quarter of the available
+	 * processors, at least one and at most four.
+	 */
+	public int getBlobStoreGarbageCollectionThreads() {
+		try {
+			int value = ExpressionContext.create().setVariable("config", fConfig)
+					.getInt("config.blobstore.gc.threads", 0);
+			if (value > 0) {
+				return value;
+			}
+		} catch (Throwable ignore) {}
+		return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 4));
+	}
+
 	/**
 	 * Returns the directory holding this node's search index
 	 * ({@code jcr.yml#search.indexPath}, with {@code ${...}} variable
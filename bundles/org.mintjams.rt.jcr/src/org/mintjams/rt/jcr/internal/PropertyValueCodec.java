@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.jcr.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.jcr.PropertyType;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+
+import org.mintjams.tools.collections.AdaptableMap;
+
+/**
+ * Encodes and decodes the values of a {@code jcr_properties} row.
+ *
+ * <p>Rows are stored in one of two formats, told apart by the
+ * {@code value_format} column:
+ * <ul>
+ * <li>{@link #LEGACY_FORMAT}: every value is an element of the
+ * {@code property_value} array, prefixed with the namespace of its kind
+ * ({@code {...value/string}text} or {@code {...value/file}fileId}).</li>
+ * <li>{@link #COMPACT_FORMAT}: a single {@code LONG}, {@code BOOLEAN} or
+ * {@code DOUBLE} value lives in the native {@code value_long} or
+ * {@code value_double} column and needs nothing else. Any other value list
+ * is packed into the {@code value_data} column, one tag byte per value
+ * followed by the value itself. A single {@code DATE} also fills
+ * {@code value_date}, so range predicates can be answered in SQL, while its
+ * lexical form (including the time zone) stays in {@code value_data}.
+ * {@code property_value} is left empty.</li>
+ * </ul>
+ *
+ * <p>Writes always produce the compact format. Legacy rows are read as they
+ * are until {@link WorkspacePropertyMigration} has rewritten them.
+ */
+public final class PropertyValueCodec {
+
+	public static final int LEGACY_FORMAT = 0;
+	public static final int COMPACT_FORMAT = 1;
+
+	/**
+	 * The columns {@link #decode} reads, for statements that select only
+	 * what they need.
+	 */
+	public static final String VALUE_COLUMNS = "property_type, property_value, value_format, value_long, value_double, value_data";
+
+	private static final byte TAG_TEXT = 0;
+	private static final byte TAG_FILE = 1;
+	private static final byte TAG_LONG = 2;
+	private static final byte TAG_DOUBLE = 3;
+	private static final byte TAG_BOOLEAN = 4;
+
+	private static final String STRING_PREFIX = "{" + JcrValue.STRING_NS_URI + "}";
+	private static final String BINARY_PREFIX = "{" + JcrValue.BINARY_NS_URI + "}";
+	private static final String[] NO_VALUES = new String[0];
+
+	private PropertyValueCodec() {
+	}
+
+	/**
+	 * Returns the value columns of a compact row holding the given values,
+	 * which are in the legacy lexical form ({@link QName#toString()} of a
+	 * string or file value). The map has an entry for every value column, so
+	 * it also clears whatever an updated row held before.
+	 */
+	public static Map<String, Object> encode(int type, boolean multiple, String[] legacyValues) {
+		Long longValue = null;
+		Double doubleValue = null;
+		Timestamp dateValue = null;
+		byte[] data = null;
+		if (!multiple && legacyValues.length == 1 && legacyValues[0].startsWith(STRING_PREFIX)) {
+			String text = legacyValues[0].substring(STRING_PREFIX.length());
+			if (type == PropertyType.LONG) {
+				longValue = parseLong(text);
+			} else if (type == PropertyType.BOOLEAN) {
+				Boolean booleanValue = parseBoolean(text);
+				longValue = (booleanValue == null) ? null : (booleanValue ? 1L : 0L);
+			} else if (type == PropertyType.DOUBLE) {
+				doubleValue = parseDouble(text);
+			} else if (type == PropertyType.DATE) {
+				dateValue = parseDate(text);
+			}
+		}
+		if (longValue == null && doubleValue == null) {
+			data = pack(type, legacyValues);
+		}
+
+		return AdaptableMap.<String, Object>newBuilder()
+				.put("property_value", NO_VALUES)
+				.put("value_format", COMPACT_FORMAT)
+				.put("value_long", longValue)
+				.put("value_double", doubleValue)
+				.put("value_date", dateValue)
+				.put("value_data", data)
+				.build();
+	}
+
+	/**
+	 * Returns the values of a row, ready for {@link JcrValue#create}: a
+	 * {@link QName} in the string or file namespace for text and binary
+	 * values, and a {@link Long}, {@link Double} or {@link Boolean} for
+	 * natively stored ones.
+	 */
+	public static Object[] decode(Map<String, Object> row) {
+		if (!isCompact(row)) {
+			Object[] values = legacyArray(row);
+			Object[] decoded = new Object[values.length];
+			for (int i = 0; i < values.length; i++) {
+				decoded[i] = QName.valueOf(values[i].toString());
+			}
+			return decoded;
+		}
+
+		int type = ((Number) row.get("property_type")).intValue();
+		Object longValue = row.get("value_long");
+		if (longValue != null) {
+			long v = ((Number) longValue).longValue();
+			return new Object[] { (type == PropertyType.BOOLEAN) ? (Object) Boolean.valueOf(v != 0) : (Object) Long.valueOf(v) };
+		}
+		Object doubleValue = row.get("value_double");
+		if (doubleValue != null) {
+			return new Object[] { Double.valueOf(((Number) doubleValue).doubleValue()) };
+		}
+		return unpack((byte[]) row.get("value_data"));
+	}
+
+	/**
+	 * Returns the values of a row in the legacy lexical form, whatever format
+	 * it is stored in. Digests computed over this form do not change when a
+	 * row is migrated.
+	 */
+	public static String[] toLegacyValues(Map<String, Object> row) {
+		if (!isCompact(row)) {
+			Object[] values = legacyArray(row);
+			String[] legacyValues = new String[values.length];
+			for (int i = 0; i < values.length; i++) {
+				legacyValues[i] = values[i].toString();
+			}
+			return legacyValues;
+		}
+
+		Object[] values = decode(row);
+		String[] legacyValues = new String[values.length];
+		for (int i = 0; i < values.length; i++) {
+			legacyValues[i] = (values[i] instanceof QName) ? values[i].toString() : STRING_PREFIX + values[i];
+		}
+		return legacyValues;
+	}
+
+	/**
+	 * Returns the string-stored values of a row: names, paths, node
+	 * identifiers and other text short enough to be kept inline.
+	 */
+	public static List<String> getStrings(Map<String, Object> row) {
+		List<String> l = new ArrayList<>();
+		for (Object value : decode(row)) {
+			if (value instanceof QName && JcrValue.STRING_NS_URI.equals(((QName) value).getNamespaceURI())) {
+				l.add(((QName) value).getLocalPart());
+			}
+		}
+		return l;
+	}
+
+	/**
+	 * Returns the identifiers of the {@code jcr_files} entries a row owns.
+	 */
+	public static List<String> getFileIds(Map<String, Object> row) {
+		List<String> l = new ArrayList<>();
+		if (isCompact(row) && row.get("value_data") == null) {
+			return l;
+		}
+		for (Object value : decode(row)) {
+			if (value instanceof QName && JcrValue.BINARY_NS_URI.equals(((QName) value).getNamespaceURI())) {
+				l.add(((QName) value).getLocalPart());
+			}
+		}
+		return l;
+	}
+
+	/**
+	 * Returns the number of bytes the values of a row take up, as a measure
+	 * for comparing the two formats.
+	 */
+	public static long getStoredSize(Map<String, Object> row) {
+		if (!isCompact(row)) {
+			long size = 0;
+			for (Object value : legacyArray(row)) {
+				size += value.toString().getBytes(StandardCharsets.UTF_8).length;
+			}
+			return size;
+		}
+
+		long size = 0;
+		if (row.get("value_long") != null || row.get("value_double") != null) {
+			size += Long.BYTES;
+		}
+		if (row.get("value_date") != null) {
+			size += Long.BYTES;
+		}
+		Object data = row.get("value_data");
+		if (data != null) {
+			size += ((byte[]) data).length;
+		}
+		return size;
+	}
+
+	public static boolean isCompact(Map<String, Object> row) {
+		Object format = row.get("value_format");
+		return (format != null && ((Number) format).intValue() == COMPACT_FORMAT);
+	}
+
+	private static Object[] legacyArray(Map<String, Object> row) {
+		Object values = row.get("property_value");
+		if (values instanceof java.sql.Array) {
+			try {
+				values = ((java.sql.Array) values).getArray();
+			} catch (java.sql.SQLException ex) {
+				throw new IllegalStateException(ex.getMessage(), ex);
+			}
+		}
+		return (values == null) ? new Object[0] : (Object[]) values;
+	}
+
+	private static byte[] pack(int type, String[] legacyValues) {
+		try (ByteArrayOutputStream bytes = new ByteArrayOutputStream(); DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(legacyValues.length);
+			for (String legacyValue : legacyValues) {
+				if (legacyValue.startsWith(BINARY_PREFIX)) {
+					out.writeByte(TAG_FILE);
+					out.writeUTF(legacyValue.substring(BINARY_PREFIX.length()));
+					continue;
+				}
+
+				String text = legacyValue.startsWith(STRING_PREFIX) ? legacyValue.substring(STRING_PREFIX.length())
+						: QName.valueOf(legacyValue).getLocalPart();
+				Long longValue = (type == PropertyType.LONG) ? parseLong(text) : null;
+				Double doubleValue = (type == PropertyType.DOUBLE) ? parseDouble(text) : null;
+				Boolean booleanValue = (type == PropertyType.BOOLEAN) ? parseBoolean(text) : null;
+				if (longValue != null) {
+					out.writeByte(TAG_LONG);
+					out.writeLong(longValue);
+				} else if (doubleValue != null) {
+					out.writeByte(TAG_DOUBLE);
+					out.writeDouble(doubleValue);
+				} else if (booleanValue != null) {
+					out.writeByte(TAG_BOOLEAN);
+					out.writeBoolean(booleanValue);
+				} else {
+					// Inline text is capped well below the 64 KiB modified UTF-8
+					// limit of writeUTF: longer text is moved to a file.
+					out.writeByte(TAG_TEXT);
+					out.writeUTF(text);
+				}
+			}
+			out.flush();
+			return bytes.toByteArray();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static Object[] unpack(byte[] data) {
+		if (data == null) {
+			return new Object[0];
+		}
+
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			Object[] values = new Object[in.readInt()];
+			for (int i = 0; i < values.length; i++) {
+				byte tag = in.readByte();
+				if (tag == TAG_TEXT) {
+					values[i] = new QName(JcrValue.STRING_NS_URI, in.readUTF(), XMLConstants.DEFAULT_NS_PREFIX);
+				} else if (tag == TAG_FILE) {
+					values[i] = new QName(JcrValue.BINARY_NS_URI, in.readUTF(), XMLConstants.DEFAULT_NS_PREFIX);
+				} else if (tag == TAG_LONG) {
+					values[i] = in.readLong();
+				} else if (tag == TAG_DOUBLE) {
+					values[i] = in.readDouble();
+				} else if (tag == TAG_BOOLEAN) {
+					values[i] = in.readBoolean();
+				} else {
+					throw new IllegalStateException("Invalid property value tag: " + tag);
+				}
+			}
+			return values;
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	// Only values whose text reads back unchanged are stored natively, so
+	// decoding never alters the lexical form of a value.
+
+	private static Long parseLong(String text) {
+		try {
+			Long v = Long.valueOf(text);
+			return v.toString().equals(text) ? v : null;
+		} catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+
+	private static Double parseDouble(String text) {
+		try {
+			Double v = Double.valueOf(text);
+			return v.toString().equals(text) ? v : null;
+		} catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+
+	private static Boolean parseBoolean(String text) {
+		if (text.equals(Boolean.TRUE.toString())) {
+			return Boolean.TRUE;
+		}
+		if (text.equals(Boolean.FALSE.toString())) {
+			return Boolean.FALSE;
+		}
+		return null;
+	}
+
+	private static Timestamp parseDate(String text) {
+		try {
+			return Timestamp.from(OffsetDateTime.parse(text).toInstant());
+		} catch (RuntimeException ex) {
+			return null;
+		}
+	}
+
+}
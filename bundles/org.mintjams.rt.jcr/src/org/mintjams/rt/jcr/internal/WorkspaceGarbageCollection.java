@@ -25,13 +25,21 @@ package org.mintjams.rt.jcr.internal;
 import java.io.Closeable;
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.mintjams.rt.jcr.internal.blob.BlobStore;
+import org.mintjams.rt.jcr.internal.blob.GarbageCollectionStatistics;
 import org.mintjams.rt.jcr.internal.cluster.ClusterController;
 import org.mintjams.rt.jcr.internal.cluster.ClusterJournal;
 import org.mintjams.rt.jcr.internal.security.SystemPrincipal;
+import org.mintjams.rt.jcr.internal.sql.DatabaseDialect;
 import org.mintjams.tools.adapter.Adaptable;
 import org.mintjams.tools.adapter.Adaptables;
+import org.mintjams.tools.collections.AdaptableMap;
+import org.mintjams.tools.lang.Cause;
+import org.mintjams.tools.sql.Query;
 
 public class WorkspaceGarbageCollection implements Closeable, Adaptable {
 
@@ -42,7 +50,16 @@ public class WorkspaceGarbageCollection implements Closeable, Adaptable {
 	 */
 	private static final long COMMIT_MARKER_RETENTION_MILLIS = 7L * 24 * 60 * 60 * 1000;
 
+	/**
+	 * Delay before an interrupted run is resumed after startup.
+	 */
+	private static final long RESUME_DELAY_MILLIS = 300000L;
+
+	private static final String LOCK_NAME = "blob-garbage-collection";
+	private static final long LOCK_TTL_MILLIS = 3600000L;
+
 	private final JcrWorkspaceProvider fWorkspaceProvider;
+	private volatile GarbageCollectionStatistics fStatistics;
 	private Thread fThread;
 	private boolean fCloseRequested;
 	private final Object fLock = new Object();
@@ -94,9 +111,29 @@ public class WorkspaceGarbageCollection implements Closeable, Adaptable {
 		return Adaptables.getAdapter(fWorkspaceProvider, adapterType);
 	}
 
+	/**
+	 * Returns the statistics of the latest garbage collection run (finished
+	 * or still in progress), or {@code null} before the first run.
+	 */
+	public GarbageCollectionStatistics getStatistics() {
+		return fStatistics;
+	}
+
+	/**
+	 * Opens a cursor over the referenced blob identifiers that start with the
+	 * given prefix, in ascending {@link String#compareTo} order: what a run
+	 * merge-joins each partition of the blob store against.
+	 */
+	public BlobStore.ReferenceCursor openReferences(String prefix) throws IOException {
+		return new ReferenceCursorImpl(prefix);
+	}
+
 	private class Task implements Runnable {
 		@Override
 		public void run() {
+			// A run interrupted by a shutdown resumes from its checkpoint soon
+			// after startup instead of waiting for the next daily run.
+			boolean resume = adaptTo(BlobStore.class).hasPendingGarbageCollection();
 			while (!fCloseRequested) {
 				if (Thread.interrupted()) {
 					fCloseRequested = true;
@@ -104,9 +141,10 @@ public class WorkspaceGarbageCollection implements Closeable, Adaptable {
 				}
 				synchronized (fLock) {
 					try {
-						fLock.wait(86400000);
+						fLock.wait(resume ? RESUME_DELAY_MILLIS : 86400000);
 					} catch (InterruptedException ignore) {}
 				}
+				resume = false;
 
 				if (fCloseRequested) {
 					continue;
@@ -116,45 +154,16 @@ public class WorkspaceGarbageCollection implements Closeable, Adaptable {
 					// All cluster nodes share the blob store, so only one node
 					// may collect at a time; the others simply skip this run.
 					ClusterController.Lease lease = adaptTo(ClusterController.class)
-							.tryLock("blob-garbage-collection", 3600000L);
+							.tryLock(LOCK_NAME, LOCK_TTL_MILLIS);
 					if (lease == null) {
 						continue;
 					}
 
-					try (lease; JcrWorkspace workspace = fWorkspaceProvider.createSession(new SystemPrincipal())) {
-						WorkspaceQuery workspaceQuery = Adaptables.getAdapter(workspace, WorkspaceQuery.class);
-						try {
-							adaptTo(BlobStore.class).collectGarbage(new BlobStore.GarbageCollectionContext() {
-								@Override
-								public boolean isCancelled() {
-									if (Thread.currentThread().isInterrupted()) {
-										fCloseRequested = true;
-									}
-									return fCloseRequested;
-								}
-
-								@Override
-								public boolean isReferenced(String id) throws IOException {
-									try {
-										return workspaceQuery.files().exists(id);
-									} catch (java.sql.SQLException ex) {
-										throw new IOException(ex);
-									}
-								}
-							});
-
-							if (adaptTo(ClusterController.class).isClusterEnabled() && !fCloseRequested) {
-								ClusterJournal.purgeCommitMarkers(
-										Adaptables.getAdapter(workspace, Connection.class),
-										COMMIT_MARKER_RETENTION_MILLIS);
-							}
-
-							workspaceQuery.commit();
-						} catch (Throwable ex) {
-							try {
-								workspaceQuery.rollback();
-							} catch (Throwable ignore) {}
-							throw ex;
+					try (lease) {
+						boolean leaseHeld = collectGarbage();
+
+						if (adaptTo(ClusterController.class).isClusterEnabled() && leaseHeld && !fCloseRequested) {
+							purgeCommitMarkers();
 						}
 					}
 				} catch (Throwable ex) {
@@ -162,6 +171,148 @@ public class WorkspaceGarbageCollection implements Closeable, Adaptable {
 				}
 			}
 		}
+
+		/**
+		 * Runs one collection under the lease. Returns {@code false} when the
+		 * lease could not be renewed at a checkpoint: the run is then
+		 * suspended, since another node may already be collecting, and
+		 * resumes from the checkpoint on whichever node holds the lease next.
+		 */
+		private boolean collectGarbage() throws IOException {
+			BlobStore blobStore = adaptTo(BlobStore.class);
+			if (blobStore.hasPendingGarbageCollection()) {
+				Activator.getDefault().getLogger(WorkspaceGarbageCollection.class)
+						.info("Resuming the blob garbage collection of workspace '" + fWorkspaceProvider.getWorkspaceName() + "'.");
+			}
+
+			AtomicBoolean leaseLost = new AtomicBoolean();
+			GarbageCollectionStatistics statistics = blobStore.collectGarbage(new BlobStore.GarbageCollectionContext() {
+				@Override
+				public boolean isCancelled() {
+					if (Thread.currentThread().isInterrupted()) {
+						fCloseRequested = true;
+					}
+					return fCloseRequested || leaseLost.get();
+				}
+
+				@Override
+				public BlobStore.ReferenceCursor openReferences(String prefix) throws IOException {
+					return WorkspaceGarbageCollection.this.openReferences(prefix);
+				}
+
+				@Override
+				public int getParallelism() {
+					return fWorkspaceProvider.getConfiguration().getBlobStoreGarbageCollectionThreads();
+				}
+
+				@Override
+				public void checkpoint(GarbageCollectionStatistics statistics) throws IOException {
+					fStatistics = statistics;
+					// A long run outlives the lease's time-to-live; renewing
+					// it per partition keeps other nodes from starting a
+					// concurrent run. Once it is lost, no more blobs may be
+					// deleted from here.
+					if (adaptTo(ClusterController.class).tryLock(LOCK_NAME, LOCK_TTL_MILLIS) == null) {
+						leaseLost.set(true);
+					}
+				}
+			});
+			fStatistics = statistics;
+
+			if (leaseLost.get()) {
+				Activator.getDefault().getLogger(WorkspaceGarbageCollection.class)
+						.warn("Blob garbage collection of workspace '" + fWorkspaceProvider.getWorkspaceName()
+								+ "' has been suspended because its cluster lock could not be renewed (" + statistics + ").");
+				return false;
+			}
+
+			if (statistics.isFinished()) {
+				Activator.getDefault().getLogger(WorkspaceGarbageCollection.class)
+						.info("Blob garbage collection of workspace '" + fWorkspaceProvider.getWorkspaceName()
+								+ "' has been completed (" + statistics + ").");
+			} else {
+				Activator.getDefault().getLogger(WorkspaceGarbageCollection.class)
+						.info("Blob garbage collection of workspace '" + fWorkspaceProvider.getWorkspaceName()
+								+ "' has been suspended (" + statistics + ").");
+			}
+			return true;
+		}
+
+		private void purgeCommitMarkers() throws IOException, SQLException {
+			try (Connection connection = fWorkspaceProvider.getConnection(new SystemPrincipal())) {
+				try {
+					ClusterJournal.purgeCommitMarkers(connection, COMMIT_MARKER_RETENTION_MILLIS);
+					connection.commit();
+				} catch (Throwable ex) {
+					try {
+						connection.rollback();
+					} catch (Throwable ignore) {}
+					throw ex;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Streams the {@code jcr_files} identifiers of one partition in binary
+	 * order on a connection of its own, so partitions can be read
+	 * concurrently. Rows marked deleted still count as references: their
+	 * blobs are removed by the {@link WorkspaceCleaner}.
+	 */
+	private class ReferenceCursorImpl implements BlobStore.ReferenceCursor {
+		private final Connection fConnection;
+		private final Query.Result fResult;
+		private final Iterator<AdaptableMap<String, Object>> fIterator;
+
+		private ReferenceCursorImpl(String prefix) throws IOException {
+			try {
+				fConnection = fWorkspaceProvider.getConnection(new SystemPrincipal());
+			} catch (SQLException ex) {
+				throw Cause.create(ex).wrap(IOException.class);
+			}
+			try {
+				DatabaseDialect dialect = adaptTo(DatabaseDialect.class);
+				// The bounds only hold in binary order: in a locale collation
+				// the bound after "a9" ("a:") may sort before the digits,
+				// which would leave the partition without references.
+				fResult = Query.newBuilder(fConnection)
+						.setStatement("SELECT file_id FROM jcr_files"
+								+ " WHERE " + dialect.binaryOrder("file_id") + " >= {{from}}"
+								+ " AND " + dialect.binaryOrder("file_id") + " < {{to}}"
+								+ " ORDER BY " + dialect.binaryOrder("file_id"))
+						.setVariable("from", prefix)
+						.setVariable("to", prefix.substring(0, prefix.length() - 1)
+								+ (char) (prefix.charAt(prefix.length() - 1) + 1))
+						.build().setOffset(0).execute();
+				fIterator = fResult.iterator();
+			} catch (Throwable ex) {
+				close();
+				throw Cause.create(ex).wrap(IOException.class);
+			}
+		}
+
+		@Override
+		public String next() throws IOException {
+			if (!fIterator.hasNext()) {
+				return null;
+			}
+			return fIterator.next().getString("file_id");
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (fResult != null) {
+				try {
+					fResult.close();
+				} catch (Throwable ignore) {}
+			}
+			try {
+				fConnection.rollback();
+			} catch (Throwable ignore) {}
+			try {
+				fConnection.close();
+			} catch (Throwable ignore) {}
+		}
 	}
 
 }
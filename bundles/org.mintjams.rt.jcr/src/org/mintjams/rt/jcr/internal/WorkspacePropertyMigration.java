@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.jcr.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mintjams.rt.jcr.internal.cluster.ClusterController;
+import org.mintjams.rt.jcr.internal.security.SystemPrincipal;
+import org.mintjams.rt.jcr.internal.sql.DatabaseDialect;
+import org.mintjams.tools.adapter.Adaptable;
+import org.mintjams.tools.adapter.Adaptables;
+import org.mintjams.tools.collections.AdaptableMap;
+import org.mintjams.tools.sql.Query;
+
+/**
+ * Rewrites the {@code jcr_properties} rows still stored in the legacy format
+ * into the compact format of {@link PropertyValueCodec}, in small batches
+ * while the workspace is in use. Both formats read the same, so readers and
+ * cached rows are not affected, and a row that a session rewrites in the
+ * meantime is simply skipped. The run walks the rows in identifier order and
+ * stops after one pass; a pass interrupted by a shutdown starts again on the
+ * next startup.
+ */
+public class WorkspacePropertyMigration implements Closeable, Adaptable {
+
+	private static final String LOCK_NAME = "property-migration";
+	private static final long LOCK_TTL_MILLIS = 600000L;
+	private static final int BATCH_SIZE = 500;
+
+	/**
+	 * Pause between batches, leaving the database to foreground work.
+	 */
+	private static final long BATCH_INTERVAL_MILLIS = 100L;
+
+	/**
+	 * Delay before a run that another cluster node holds the lock for, or
+	 * that was stopped by lock contention, is tried again.
+	 */
+	private static final long RETRY_DELAY_MILLIS = 60000L;
+
+	private final JcrWorkspaceProvider fWorkspaceProvider;
+	private Thread fThread;
+	private boolean fCloseRequested;
+	private final Object fLock = new Object();
+
+	private WorkspacePropertyMigration(JcrWorkspaceProvider workspaceProvider) {
+		fWorkspaceProvider = workspaceProvider;
+	}
+
+	public static WorkspacePropertyMigration create(JcrWorkspaceProvider workspaceProvider) {
+		return new WorkspacePropertyMigration(workspaceProvider);
+	}
+
+	public WorkspacePropertyMigration open() {
+		if (fThread != null) {
+			return this;
+		}
+
+		fThread = new Thread(new Task());
+		fThread.setDaemon(true);
+		fThread.start();
+
+		return this;
+	}
+
+	public boolean isLive() {
+		return (fThread != null && fThread.isAlive() && !fCloseRequested);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (fCloseRequested || fThread == null) {
+			return;
+		}
+
+		fCloseRequested = true;
+		synchronized (fLock) {
+			fLock.notifyAll();
+		}
+		try {
+			fThread.interrupt();
+			fThread.join(10000);
+		} catch (InterruptedException ignore) {}
+		fThread = null;
+		fCloseRequested = false;
+	}
+
+	@Override
+	public <AdapterType> AdapterType adaptTo(Class<AdapterType> adapterType) {
+		return Adaptables.getAdapter(fWorkspaceProvider, adapterType);
+	}
+
+	private void sleep(long millis) {
+		synchronized (fLock) {
+			if (fCloseRequested) {
+				return;
+			}
+			try {
+				fLock.wait(millis);
+			} catch (InterruptedException ex) {
+				fCloseRequested = true;
+			}
+		}
+	}
+
+	private class Task implements Runnable {
+		private long fRows;
+		private long fLegacyBytes;
+		private long fCompactBytes;
+
+		@Override
+		public void run() {
+			String lastItemId = "";
+			boolean started = false;
+			long startedAt = System.currentTimeMillis();
+			while (!fCloseRequested) {
+				try {
+					// Two nodes migrating the same rows would only waste work, but
+					// the lock keeps the load on a shared database to one node.
+					ClusterController.Lease lease = adaptTo(ClusterController.class)
+							.tryLock(LOCK_NAME, LOCK_TTL_MILLIS);
+					if (lease == null) {
+						sleep(RETRY_DELAY_MILLIS);
+						continue;
+					}
+
+					try (lease; Connection connection = fWorkspaceProvider.getConnection(new SystemPrincipal())) {
+						while (!fCloseRequested) {
+							List<AdaptableMap<String, Object>> rows = listLegacyRows(connection, lastItemId);
+							if (rows.isEmpty()) {
+								if (started) {
+									Activator.getDefault().getLogger(WorkspacePropertyMigration.class)
+											.info("Property values of workspace '" + fWorkspaceProvider.getWorkspaceName()
+													+ "' have been compacted (" + fRows + " rows, " + fLegacyBytes
+													+ " bytes -> " + fCompactBytes + " bytes, "
+													+ (System.currentTimeMillis() - startedAt) + " ms).");
+								}
+								return;
+							}
+							if (!started) {
+								started = true;
+								Activator.getDefault().getLogger(WorkspacePropertyMigration.class)
+										.info("Compacting the property values of workspace '"
+												+ fWorkspaceProvider.getWorkspaceName() + "'...");
+							}
+
+							migrate(connection, rows);
+							lastItemId = rows.get(rows.size() - 1).getString("item_id");
+
+							// A long run outlives the lease's time-to-live.
+							adaptTo(ClusterController.class).tryLock(LOCK_NAME, LOCK_TTL_MILLIS);
+							sleep(BATCH_INTERVAL_MILLIS);
+						}
+					}
+				} catch (SQLException ex) {
+					if (adaptTo(DatabaseDialect.class).isLockContention(ex)) {
+						// The batch is retried from the same row once the
+						// competing transaction is done.
+						sleep(RETRY_DELAY_MILLIS);
+						continue;
+					}
+					Activator.getDefault().getLogger(WorkspacePropertyMigration.class)
+							.error("An error occurred while compacting property values.", ex);
+					return;
+				} catch (Throwable ex) {
+					Activator.getDefault().getLogger(WorkspacePropertyMigration.class)
+							.error("An error occurred while compacting property values.", ex);
+					return;
+				}
+			}
+		}
+
+		private List<AdaptableMap<String, Object>> listLegacyRows(Connection connection, String afterItemId)
+				throws IOException, SQLException {
+			List<AdaptableMap<String, Object>> rows = new ArrayList<>();
+			try (Query.Result result = Query.newBuilder(connection)
+					.setStatement("SELECT item_id, is_multiple, " + PropertyValueCodec.VALUE_COLUMNS
+							+ " FROM jcr_properties"
+							+ " WHERE value_format = {{format}} AND item_id > {{after}}"
+							+ " ORDER BY item_id")
+					.setVariable("format", PropertyValueCodec.LEGACY_FORMAT)
+					.setVariable("after", afterItemId)
+					.build().setOffset(0).setLimit(BATCH_SIZE).execute()) {
+				for (AdaptableMap<String, Object> r : result) {
+					rows.add(r);
+				}
+			} finally {
+				connection.rollback();
+			}
+			return rows;
+		}
+
+		private void migrate(Connection connection, List<AdaptableMap<String, Object>> rows) throws SQLException {
+			long legacyBytes = 0;
+			long compactBytes = 0;
+			try (PreparedStatement update = connection.prepareStatement(
+					"UPDATE jcr_properties SET property_value = ?, value_format = ?,"
+					+ " value_long = ?, value_double = ?, value_date = ?, value_data = ?"
+					+ " WHERE item_id = ? AND value_format = ?")) {
+				for (AdaptableMap<String, Object> r : rows) {
+					int type = r.getInteger("property_type");
+					Map<String, Object> columns = PropertyValueCodec.encode(type, r.getBoolean("is_multiple"),
+							PropertyValueCodec.toLegacyValues(r));
+					update.setObject(1, columns.get("property_value"));
+					update.setInt(2, PropertyValueCodec.COMPACT_FORMAT);
+					if (columns.get("value_long") == null) {
+						update.setNull(3, Types.BIGINT);
+					} else {
+						update.setLong(3, (Long) columns.get("value_long"));
+					}
+					if (columns.get("value_double") == null) {
+						update.setNull(4, Types.DOUBLE);
+					} else {
+						update.setDouble(4, (Double) columns.get("value_double"));
+					}
+					update.setTimestamp(5, (Timestamp) columns.get("value_date"));
+					update.setBytes(6, (byte[]) columns.get("value_data"));
+					update.setString(7, r.getString("item_id"));
+					update.setInt(8, PropertyValueCodec.LEGACY_FORMAT);
+					update.addBatch();
+
+					legacyBytes += PropertyValueCodec.getStoredSize(r);
+					Map<String, Object> compact = new HashMap<>(columns);
+					compact.put("property_type", type);
+					compactBytes += PropertyValueCodec.getStoredSize(compact);
+				}
+				update.executeBatch();
+				connection.commit();
+			} catch (Throwable ex) {
+				try {
+					connection.rollback();
+				} catch (Throwable ignore) {}
+				throw ex;
+			}
+
+			fRows += rows.size();
+			fLegacyBytes += legacyBytes;
+			fCompactBytes += compactBytes;
+		}
+	}
+
+}
@@ -31,6 +31,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.Principal;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Savepoint;
 import java.text.MessageFormat;
@@ -108,6 +109,12 @@ import org.mintjams.tools.sql.Update;
 
 public class WorkspaceQuery implements Adaptable {
 
+	/**
+	 * Key of the original path in a row that {@link ItemsQuery#getSharedNode}
+	 * reports at the path it was requested with.
+	 */
+	static final String PROJECTED_FROM_PATH = "projected_from_path";
+
 	private final JcrWorkspace fWorkspace;
 	private boolean fAccessControlAffected;
 	private boolean fJournalAffected;
@@ -124,9 +131,11 @@ public class WorkspaceQuery implements Adaptable {
 	}
 
 	public void commit() throws SQLException {
+		journal().flush();
 		newUpdateBuilder("DELETE FROM jcr_items WHERE is_deleted = TRUE").build().execute();
 		newUpdateBuilder("DELETE FROM jcr_properties WHERE is_deleted = TRUE").build().execute();
 
+		boolean commitMarkerWritten = false;
 		if (fJournalAffected) {
 			fJournalAffected = false;
 			// In a cluster, mark the transaction in the shared commit log so
@@ -137,11 +146,18 @@ public class WorkspaceQuery implements Adaptable {
 			if (clusterController.isClusterEnabled()) {
 				ClusterJournal.writeCommitMarker(getConnection(),
 						getSessionIdentifier().getTransactionIdentifier(), clusterController.getNodeId());
+				commitMarkerWritten = true;
 			}
 		}
 
 		getConnection().commit();
 
+		if (commitMarkerWritten) {
+			// Wake the other nodes' journal readers now that the marker is
+			// visible.
+			adaptTo(ClusterController.class).notifyChannel(getConnection(), ClusterController.JOURNAL_CHANNEL);
+		}
+
 		if (!fDirtyItems.isEmpty()) {
 			adaptTo(NodeCache.class).invalidate(fDirtyItems);
 			fDirtyItems.clear();
@@ -163,6 +179,7 @@ public class WorkspaceQuery implements Adaptable {
 	}
 
 	public void rollback() throws SQLException {
+		journal().clearPendingRows();
 		getConnection().rollback();
 		fAccessControlAffected = false;
 		fJournalAffected = false;
@@ -428,6 +445,10 @@ public class WorkspaceQuery implements Adaptable {
 		private JournalQuery() {
 		}
 
+		private static final String[] JOURNAL_COLUMNS = { "journal_id", "transaction_id", "session_id",
+				"event_occurred", "event_type", "item_id", "item_path", "primary_type", "property_name", "user_id",
+				"user_data", "event_info" };
+
 		private Entity fJournalEntity;
 
 		private Entity journalEntity() throws SQLException {
@@ -437,8 +458,92 @@ public class WorkspaceQuery implements Adaptable {
 			return fJournalEntity;
 		}
 
+		/**
+		 * Rows buffered by {@link #writeJournal} while a write batch size is set,
+		 * in the order they were written. Flushed before every read of this
+		 * transaction's journal and before the commit.
+		 */
+		private final List<Map<String, Object>> fPendingRows = new ArrayList<>();
+		private int fBatchSize;
+		private long fLastNanos;
+
+		/**
+		 * Sets how many journal rows are buffered and inserted as one JDBC batch.
+		 * A bulk import writes a journal row per node and per property, so
+		 * sending them in batches saves a round trip per row. {@code 0} (the
+		 * default) inserts each row as it is written.
+		 */
+		public void setBatchSize(int batchSize) {
+			fBatchSize = Math.max(batchSize, 0);
+		}
+
 		public void writeJournal(Map<String, Object> data) throws SQLException {
 			fJournalAffected = true;
+			if (fBatchSize > 0 || !fPendingRows.isEmpty()) {
+				SessionIdentifier sessionIdentifier = getSessionIdentifier();
+				long nanos = System.nanoTime();
+				if (nanos <= fLastNanos) {
+					nanos = fLastNanos + 1;
+				}
+				fLastNanos = nanos;
+				fPendingRows.add(AdaptableMap.<String, Object>newBuilder().putAll(data)
+						.put("session_id", sessionIdentifier.toString())
+						.put("transaction_id", sessionIdentifier.getTransactionIdentifier())
+						.put("journal_id", MessageFormat.format(
+								"{0,number,00000000000000000000}-{1,number,00000000000000000000}",
+								sessionIdentifier.getCreated(), nanos))
+						.build());
+				if (fPendingRows.size() >= Math.max(fBatchSize, 1)) {
+					flush();
+				}
+				return;
+			}
+
+			insertJournal(data);
+		}
+
+		/**
+		 * Inserts the buffered journal rows with one JDBC batch. Should the batch
+		 * fail (a journal identifier collision), the transaction is rolled back
+		 * to before the batch and the rows are inserted one by one, each with the
+		 * retry {@link #writeJournal} applies to a single row.
+		 */
+		public void flush() throws SQLException {
+			if (fPendingRows.isEmpty()) {
+				return;
+			}
+
+			List<Map<String, Object>> rows = new ArrayList<>(fPendingRows);
+			fPendingRows.clear();
+			Connection connection = getConnection();
+			Savepoint savepoint = connection.setSavepoint();
+			try (PreparedStatement insert = connection.prepareStatement(
+					"INSERT INTO jcr_journal (journal_id, transaction_id, session_id, event_occurred, event_type,"
+					+ " item_id, item_path, primary_type, property_name, user_id, user_data, event_info)"
+					+ " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+				for (Map<String, Object> row : rows) {
+					int i = 1;
+					for (String column : JOURNAL_COLUMNS) {
+						insert.setObject(i++, row.get(column));
+					}
+					insert.addBatch();
+				}
+				insert.executeBatch();
+			} catch (SQLException ex) {
+				connection.rollback(savepoint);
+				for (Map<String, Object> row : rows) {
+					insertJournal(row);
+				}
+				return;
+			}
+			connection.releaseSavepoint(savepoint);
+		}
+
+		private void clearPendingRows() {
+			fPendingRows.clear();
+		}
+
+		private void insertJournal(Map<String, Object> data) throws SQLException {
 			SessionIdentifier sessionIdentifier = getSessionIdentifier();
 			boolean useSavepoint = adaptTo(DatabaseDialect.class).isTransactionAbortedOnError();
 			for (int i = 0;; i++) {
@@ -468,11 +573,13 @@ public class WorkspaceQuery implements Adaptable {
 		}
 
 		public Query.Result listJournal(String id) throws SQLException {
+			flush();
 			return newQueryBuilder("SELECT * FROM jcr_journal WHERE transaction_id = {{id}} ORDER BY event_occurred")
 					.setVariable("id", id).build().setOffset(0).execute();
 		}
 
 		public Query.Result listNewNodes(String transactionID) throws SQLException {
+			flush();
 			return newQueryBuilder(
 					"SELECT DISTINCT item_id, item_path, primary_type FROM jcr_journal"
 					+ " WHERE transaction_id = {{id}} AND event_type = {{eventType}}")
@@ -482,6 +589,7 @@ public class WorkspaceQuery implements Adaptable {
 		}
 
 		public Query.Result listRemovedNodes(String transactionID) throws SQLException {
+			flush();
 			return newQueryBuilder(
 					"SELECT DISTINCT item_id, item_path FROM jcr_journal"
 					+ " WHERE transaction_id = {{id}} AND event_type = {{eventType}}")
@@ -506,8 +614,12 @@ public class WorkspaceQuery implements Adaptable {
 
 		public void createFile(String id, JcrBinary data) throws IOException, SQLException, RepositoryException {
 			long size;
-			try (InputStream in = data.getStream()) {
-				size = adaptTo(BlobStore.class).write(id, in);
+			if (data.isStagedAs(id)) {
+				size = data.getSize();
+			} else {
+				try (InputStream in = data.getStream()) {
+					size = adaptTo(BlobStore.class).write(id, in);
+				}
 			}
 
 			filesEntity().create(AdaptableMap.<String, Object>newBuilder().put("file_id", id)
@@ -631,6 +743,10 @@ public class WorkspaceQuery implements Adaptable {
 	}
 
 	public class ItemsQuery {
+		// Spacing of freshly assigned sort keys: room for 20 reorders into the
+		// same gap before the siblings have to be renumbered.
+		private static final long SORT_KEY_GAP = 1L << 20;
+
 		private ItemsQuery() {
 		}
 
@@ -795,6 +911,7 @@ public class WorkspaceQuery implements Adaptable {
 								.put("active_path", path)
 								.put("parent_item_id", (parentItemData == null) ? null : parentItemData.getString("item_id"))
 								.put("is_system", JCRs.isSystemPath(path))
+								.put("sort_key", (parentItemData == null) ? 0L : nextSortKey(parentItemData.getString("item_id")))
 								.build())
 						.execute();
 			} catch (SQLException ex) {
@@ -1237,7 +1354,9 @@ public class WorkspaceQuery implements Adaptable {
 		}
 
 		/**
-		 * Lists child rows ordered by name. With {@code excludeDeleted} the
+		 * Lists child rows in child order: by sort key, then by name. Children of
+		 * a parent that has never been reordered all carry sort key 0, so they are
+		 * listed by name. With {@code excludeDeleted} the
 		 * soft-deleted rows are filtered in SQL, so {@code offset} addresses the
 		 * same row set {@link #countNodes} counts — required when a pagination
 		 * offset is pushed down to the database. Without it the result also
@@ -1290,7 +1409,7 @@ public class WorkspaceQuery implements Adaptable {
 			if (excludeDeleted) {
 				statement.append(" AND is_deleted = FALSE");
 			}
-			statement.append(" ORDER BY item_name");
+			statement.append(" ORDER BY sort_key, item_name");
 
 			return newQueryBuilder(statement.toString()).setVariables(variables).build().setOffset(offset).execute();
 		}
@@ -1606,6 +1725,7 @@ public class WorkspaceQuery implements Adaptable {
 		}
 
 		public boolean hasPendingChanges() throws IOException, SQLException {
+			journal().flush();
 			try (Query.Result result = newQueryBuilder(
 					"SELECT transaction_id FROM jcr_journal WHERE transaction_id = {{id}}")
 					.setVariable("id", getSessionIdentifier().getTransactionIdentifier()).build().setOffset(0)
@@ -1615,6 +1735,7 @@ public class WorkspaceQuery implements Adaptable {
 		}
 
 		public boolean nodeIsNew(String id) throws IOException, SQLException {
+			journal().flush();
 			try (Query.Result result = newQueryBuilder(
 					"SELECT transaction_id FROM jcr_journal WHERE transaction_id = {{id}} AND item_id = {{itemId}} AND event_type = {{eventType}}")
 					.setVariable("id", getSessionIdentifier().getTransactionIdentifier()).setVariable("itemId", id)
@@ -1624,6 +1745,7 @@ public class WorkspaceQuery implements Adaptable {
 		}
 
 		public boolean nodeIsModified(String id) throws IOException, SQLException {
+			journal().flush();
 			try (Query.Result result = newQueryBuilder(
 					"SELECT transaction_id FROM jcr_journal WHERE transaction_id = {{id}} AND item_id = {{itemId}}")
 					.setVariable("id", getSessionIdentifier().getTransactionIdentifier()).setVariable("itemId", id)
@@ -1633,6 +1755,7 @@ public class WorkspaceQuery implements Adaptable {
 		}
 
 		public boolean propertyIsNew(String id, String relName) throws IOException, SQLException {
+			journal().flush();
 			try (Query.Result result = newQueryBuilder(
 					"SELECT transaction_id FROM jcr_journal WHERE transaction_id = {{id}} AND item_id = {{itemId}} AND property_name = {{propertyName}} AND event_type = {{eventType}}")
 					.setVariable("id", getSessionIdentifier().getTransactionIdentifier()).setVariable("itemId", id)
@@ -1643,6 +1766,7 @@ public class WorkspaceQuery implements Adaptable {
 		}
 
 		public boolean propertyIsModified(String id, String relName) throws IOException, SQLException {
+			journal().flush();
 			try (Query.Result result = newQueryBuilder(
 					"SELECT transaction_id FROM jcr_journal WHERE transaction_id = {{id}} AND item_id = {{itemId}} AND property_name = {{propertyName}}")
 					.setVariable("id", getSessionIdentifier().getTransactionIdentifier()).setVariable("itemId", id)
@@ -1693,11 +1817,8 @@ public class WorkspaceQuery implements Adaptable {
 				for (Iterator<AdaptableMap<String, Object>> i = result.iterator(); i.hasNext();) {
 					AdaptableMap<String, Object> r = i.next();
 
-					for (QName propertyValue : Arrays.stream(r.getObjectArray("property_value"))
-							.map(e -> QName.valueOf((String) e)).toArray(QName[]::new)) {
-						if (JcrValue.BINARY_NS_URI.equals(propertyValue.getNamespaceURI())) {
-							files().deleteFile(propertyValue.getLocalPart());
-						}
+					for (String fileId : PropertyValueCodec.getFileIds(r)) {
+						files().deleteFile(fileId);
 					}
 
 					propertiesEntity().updateByPrimaryKey(
@@ -1946,28 +2067,19 @@ public class WorkspaceQuery implements Adaptable {
 				List<String> versionHistoryIds, Map<String, String> primaryTypes) throws SQLException {
 			String versionHistoryName = getResolved(JcrProperty.JCR_VERSION_HISTORY);
 			String primaryTypeName = getResolved(JcrProperty.JCR_PRIMARY_TYPE);
-			String binaryPrefix = "{" + JcrValue.BINARY_NS_URI + "}";
-			String stringPrefix = "{" + JcrValue.STRING_NS_URI + "}";
 			for (List<String> chunk : chunked(itemIds)) {
 				try (Query.Result result = newQueryBuilder(
-						"SELECT parent_item_id, item_name, property_value FROM jcr_properties"
+						"SELECT parent_item_id, item_name, " + PropertyValueCodec.VALUE_COLUMNS + " FROM jcr_properties"
 						+ " WHERE parent_item_id IN ({{ids;list}}) AND is_deleted = FALSE")
 						.setVariable("ids", chunk).build().setOffset(0).execute()) {
 					for (AdaptableMap<String, Object> r : result) {
 						String name = r.getString("item_name");
-						boolean isVersionHistory = (versionHistoryIds != null) && versionHistoryName.equals(name);
-						boolean isPrimaryType = primaryTypeName.equals(name);
-						for (Object e : r.getObjectArray("property_value")) {
-							String value = (String) e;
-							if (value.startsWith(binaryPrefix)) {
-								binaryIds.add(value.substring(binaryPrefix.length()));
-							} else if (value.startsWith(stringPrefix)) {
-								if (isVersionHistory) {
-									versionHistoryIds.add(value.substring(stringPrefix.length()));
-								} else if (isPrimaryType) {
-									primaryTypes.put(r.getString("parent_item_id"),
-											value.substring(stringPrefix.length()));
-								}
+						binaryIds.addAll(PropertyValueCodec.getFileIds(r));
+						if ((versionHistoryIds != null) && versionHistoryName.equals(name)) {
+							versionHistoryIds.addAll(PropertyValueCodec.getStrings(r));
+						} else if (primaryTypeName.equals(name)) {
+							for (String value : PropertyValueCodec.getStrings(r)) {
+								primaryTypes.put(r.getString("parent_item_id"), value);
 							}
 						}
 					}
@@ -2107,7 +2219,8 @@ public class WorkspaceQuery implements Adaptable {
 				itemsEntity().updateByPrimaryKey(
 						AdaptableMap.<String, Object>newBuilder().put("item_id", srcItem.getString("item_id"))
 								.put("item_name", destPath.getName().toString()).put("item_path", destPath.toString())
-								.put("parent_item_id", destParentItem.getString("item_id")).build())
+								.put("parent_item_id", destParentItem.getString("item_id"))
+								.put("sort_key", nextSortKey(destParentItem.getString("item_id"))).build())
 						.execute();
 			}
 
@@ -2156,6 +2269,279 @@ public class WorkspaceQuery implements Adaptable {
 			}
 		}
 
+		/**
+		 * Moves the child {@code srcName} of the given node immediately before its
+		 * sibling {@code destName}, or to the end of the child list if
+		 * {@code destName} is {@code null}.
+		 * <p>
+		 * Sort keys are spaced {@link #SORT_KEY_GAP} apart, so a reorder normally
+		 * takes the midpoint between the destination and its predecessor and
+		 * rewrites the moved row only. The siblings are renumbered when the parent
+		 * is ordered for the first time and when a gap has been used up.
+		 */
+		public void orderBefore(String parentId, String srcName, String destName)
+				throws IOException, SQLException, RepositoryException {
+			if (Strings.isEmpty(parentId)) {
+				throw new ItemNotFoundException("Identifier must not be null or empty.");
+			}
+
+			AdaptableMap<String, Object> srcItem = getChildNode(parentId, srcName);
+			AdaptableMap<String, Object> destItem = (destName == null) ? null : getChildNode(parentId, destName);
+			String srcId = srcItem.getString("item_id");
+			if (destItem != null && srcId.equals(destItem.getString("item_id"))) {
+				return;
+			}
+
+			if (getMaxSortKey(parentId) == 0) {
+				// First reorder of this parent: fix the current (name) order in keys.
+				renumberChildNodes(parentId, null, null);
+				destItem = (destName == null) ? null : getChildNode(parentId, destName);
+			}
+
+			if (destItem == null) {
+				setSortKey(srcId, getMaxSortKey(parentId) + SORT_KEY_GAP);
+			} else {
+				long destKey = toSortKey(destItem.get("sort_key"));
+				long prevKey = 0;
+				try (Query.Result result = newQueryBuilder("SELECT sort_key FROM jcr_items"
+						+ " WHERE parent_item_id = {{id}} AND is_deleted = FALSE AND item_id <> {{srcId}}"
+						+ " AND (sort_key < {{key}} OR (sort_key = {{key}} AND item_name < {{name}}))"
+						+ " ORDER BY sort_key DESC, item_name DESC")
+						.setVariable("id", parentId).setVariable("srcId", srcId)
+						.setVariable("key", destKey).setVariable("name", destItem.getString("item_name"))
+						.build().setOffset(0).setLimit(1).execute()) {
+					Iterator<AdaptableMap<String, Object>> i = result.iterator();
+					if (i.hasNext()) {
+						prevKey = toSortKey(i.next().get("sort_key"));
+					}
+				}
+
+				if (destKey - prevKey >= 2) {
+					setSortKey(srcId, prevKey + (destKey - prevKey) / 2);
+				} else {
+					// The gap is used up: spread the siblings out again.
+					renumberChildNodes(parentId, srcId, destItem.getString("item_id"));
+				}
+			}
+
+			String path = srcItem.getString("item_path");
+			Map<String, Object> eventInfo = new HashMap<>();
+			eventInfo.put("source_path", path);
+			eventInfo.put("destination_path", path);
+			eventInfo.put("srcChildRelPath", srcName);
+			eventInfo.put("destChildRelPath", destName);
+			journal().writeJournal(AdaptableMap.<String, Object>newBuilder().put("event_occurred", System.currentTimeMillis())
+					.put("event_type", Event.NODE_MOVED)
+					.put("item_id", srcId)
+					.put("item_path", path)
+					.put("primary_type", getPrimaryType(srcId))
+					.put("user_id", fWorkspace.getSession().getUserID())
+					.put("user_data", null)
+					.put("event_info", Activator.getDefault().toJSON(eventInfo))
+					.build());
+		}
+
+		private AdaptableMap<String, Object> getChildNode(String parentId, String name)
+				throws IOException, SQLException, RepositoryException {
+			try (Query.Result result = newQueryBuilder("SELECT * FROM jcr_items"
+					+ " WHERE parent_item_id = {{id}} AND item_name = {{name}} AND is_deleted = FALSE")
+					.setVariable("id", parentId).setVariable("name", getResolved(JcrName.valueOf(name)).toString())
+					.build().setOffset(0).setLimit(1).execute()) {
+				Iterator<AdaptableMap<String, Object>> i = result.iterator();
+				if (!i.hasNext()) {
+					throw new ItemNotFoundException(parentId + "/" + name);
+				}
+
+				return i.next();
+			}
+		}
+
+		private long getMaxSortKey(String parentId) throws IOException, SQLException {
+			try (Query.Result result = newQueryBuilder("SELECT MAX(sort_key) AS max_key FROM jcr_items"
+					+ " WHERE parent_item_id = {{id}} AND is_deleted = FALSE")
+					.setVariable("id", parentId).build().setOffset(0).setLimit(1).execute()) {
+				Iterator<AdaptableMap<String, Object>> i = result.iterator();
+				return i.hasNext() ? toSortKey(i.next().get("max_key")) : 0;
+			}
+		}
+
+		private long toSortKey(Object value) {
+			return (value == null) ? 0 : ((Number) value).longValue();
+		}
+
+		/**
+		 * Returns the sort key for a node joining the given parent: the end of the
+		 * child list if the parent is ordered, 0 (name order) otherwise.
+		 */
+		private long nextSortKey(String parentId) throws IOException, SQLException {
+			long maxKey = getMaxSortKey(parentId);
+			return (maxKey == 0) ? 0 : maxKey + SORT_KEY_GAP;
+		}
+
+		private void setSortKey(String id, long sortKey) throws SQLException {
+			newUpdateBuilder("UPDATE jcr_items SET sort_key = {{key}} WHERE item_id = {{id}}")
+					.setVariable("key", sortKey).setVariable("id", id).build().execute();
+			markDirty(id);
+		}
+
+		/**
+		 * Reassigns evenly spaced sort keys to the live children of the given node
+		 * in their current order, moving {@code srcId} (if given) before
+		 * {@code destId}.
+		 */
+		private void renumberChildNodes(String parentId, String srcId, String destId) throws SQLException {
+			List<String> ids = new ArrayList<>();
+			try (Query.Result result = listNodes(parentId, null, 0, true)) {
+				for (AdaptableMap<String, Object> itemData : result) {
+					String id = itemData.getString("item_id");
+					if (id.equals(srcId)) {
+						continue;
+					}
+					if (id.equals(destId)) {
+						ids.add(srcId);
+					}
+					ids.add(id);
+				}
+			}
+
+			for (int i = 0; i < ids.size(); i++) {
+				setSortKey(ids.get(i), (i + 1) * SORT_KEY_GAP);
+			}
+		}
+
+		/**
+		 * Creates a node that stores no properties or child nodes of its own but
+		 * reads those of {@code sharedItemId}. Check-in uses it for a frozen
+		 * subtree that is unchanged since the base version, so the subtree is
+		 * stored once however many versions contain it.
+		 */
+		public AdaptableMap<String, Object> createSharedNode(String absPath, String sharedItemId, String contentHash)
+				throws IOException, SQLException, RepositoryException {
+			if (Strings.isEmpty(sharedItemId)) {
+				throw new ItemNotFoundException("Identifier must not be null or empty.");
+			}
+
+			JcrPath path = getResolved(JcrPath.valueOf(absPath));
+			AdaptableMap<String, Object> parentItemData = getNode(path.getParent().toString());
+			String id = UUID.randomUUID().toString();
+			itemsEntity()
+					.create(AdaptableMap.<String, Object>newBuilder()
+							.put("item_id", id)
+							.put("item_name", path.getName().toString())
+							.put("item_path", path.toString())
+							.put("active_path", path.toString())
+							.put("parent_item_id", parentItemData.getString("item_id"))
+							.put("is_system", JCRs.isSystemPath(path.toString()))
+							.put("sort_key", nextSortKey(parentItemData.getString("item_id")))
+							.put("content_hash", contentHash)
+							.put("shared_item_id", sharedItemId)
+							.build())
+					.execute();
+			markDirty(id);
+
+			journal().writeJournal(AdaptableMap.<String, Object>newBuilder().put("event_occurred", System.currentTimeMillis())
+					.put("event_type", Event.NODE_ADDED).put("item_id", id).put("item_path", path.toString())
+					.put("primary_type", getPrimaryType(sharedItemId)).put("user_id", fWorkspace.getSession().getUserID()).build());
+
+			return getNodeByIdentifier(id);
+		}
+
+		public void setContentHash(String id, String contentHash) throws SQLException {
+			newUpdateBuilder("UPDATE jcr_items SET content_hash = {{hash}} WHERE item_id = {{id}}")
+					.setVariable("hash", contentHash).setVariable("id", id).build().execute();
+			markDirty(id);
+		}
+
+		/**
+		 * Resolves a path that runs through a shared node: the part below the
+		 * shared node is looked up under the node it shares. Returns {@code null}
+		 * if the path does not exist that way either. Only version storage holds
+		 * shared nodes, so other paths are not looked at.
+		 *
+		 * <p>The row returned is a copy of the stored one that reports the
+		 * requested path, with the stored path under
+		 * {@link WorkspaceQuery#PROJECTED_FROM_PATH}; the node's parent is the
+		 * node at the requested path's parent. Such rows must not be cached, as
+		 * their identifier belongs to the stored node.</p>
+		 */
+		public AdaptableMap<String, Object> getSharedNode(String absPath)
+				throws IOException, SQLException, RepositoryException {
+			String versionStoragePath = getResolved(JcrPath.valueOf("/").resolve(JcrNode.JCR_SYSTEM_NAME)
+					.resolve(JcrNode.JCR_VERSION_STORAGE_NAME)).toString() + "/";
+			JcrPath path = getResolved(JcrPath.valueOf(absPath));
+			if (!path.toString().startsWith(versionStoragePath)) {
+				return null;
+			}
+
+			List<String> names = new ArrayList<>();
+			for (JcrPath p = path; p.getParent().toString().startsWith(versionStoragePath); p = p.getParent()) {
+				names.add(0, p.getName().toString());
+
+				AdaptableMap<String, Object> ancestorData;
+				try {
+					ancestorData = getNode(p.getParent().toString());
+				} catch (PathNotFoundException ignore) {
+					continue;
+				}
+
+				// The deepest existing ancestor decides: only a shared node redirects.
+				String sharedItemId = ancestorData.getString("shared_item_id");
+				if (Strings.isEmpty(sharedItemId)) {
+					return null;
+				}
+
+				JcrPath sharedPath = JcrPath.valueOf(getNodeByIdentifier(sharedItemId).getString("item_path"));
+				for (String name : names) {
+					sharedPath = sharedPath.resolve(name);
+				}
+				AdaptableMap<String, Object> sharedData;
+				try {
+					sharedData = getNode(sharedPath.toString());
+				} catch (PathNotFoundException ignore) {
+					// The shared subtree may itself share deeper parts.
+					sharedData = getSharedNode(sharedPath.toString());
+				}
+				if (sharedData == null) {
+					return null;
+				}
+				return AdaptableMap.<String, Object>newBuilder(String.CASE_INSENSITIVE_ORDER).putAll(sharedData)
+						.put("item_path", path.toString())
+						.put(PROJECTED_FROM_PATH, sharedData.containsKey(PROJECTED_FROM_PATH)
+								? sharedData.getString(PROJECTED_FROM_PATH) : sharedData.getString("item_path"))
+						.build();
+			}
+			return null;
+		}
+
+		/**
+		 * Hands the subtrees below {@code absPath} that shared nodes outside of it
+		 * read from over to those shared nodes, so that removing {@code absPath}
+		 * leaves them intact. Each subtree is moved into the place of one of its
+		 * shared nodes. The other shared nodes keep pointing at it by identifier.
+		 */
+		public void releaseSharedNodes(String absPath) throws IOException, SQLException, RepositoryException {
+			String path = getResolved(JcrPath.valueOf(absPath)).toString();
+			for (;;) {
+				AdaptableMap<String, Object> link;
+				try (Query.Result result = newQueryBuilder("SELECT l.item_id AS link_item_id, l.item_path AS link_item_path,"
+						+ " s.item_path AS shared_item_path"
+						+ " FROM jcr_items l INNER JOIN jcr_items s ON s.item_id = l.shared_item_id"
+						+ " WHERE s.item_path LIKE {{likePath}} AND l.item_path NOT LIKE {{likePath}}"
+						+ " AND l.is_deleted = FALSE AND s.is_deleted = FALSE"
+						+ " ORDER BY s.item_path, l.item_path")
+						.setVariable("likePath", path + "/%").build().setOffset(0).setLimit(1).execute()) {
+					Iterator<AdaptableMap<String, Object>> i = result.iterator();
+					if (!i.hasNext()) {
+						return;
+					}
+					link = i.next();
+				}
+
+				removeNode(link.getString("link_item_id"), new HashMap<>());
+				moveNode(link.getString("shared_item_path"), link.getString("link_item_path"));
+			}
+		}
+
 		public AdaptableMap<String, Object> getProperty(String id, String relPath)
 				throws IOException, SQLException, RepositoryException {
 			if (Strings.isEmpty(id)) {
@@ -2211,8 +2597,9 @@ public class WorkspaceQuery implements Adaptable {
 				AdaptableMap<String, Object> r = AdaptableMap.<String, Object>newBuilder()
 						.put("item_id", params.getItemId()).put("item_name", params.getItemName())
 						.put("parent_item_id", params.getParentItemId()).put("property_type", params.getPropertyType())
-						.put("property_value", params.getPropertyValues()).put("is_multiple", params.isMultiple())
-						.build();
+						.putAll(PropertyValueCodec.encode(params.getPropertyType(), params.isMultiple(),
+								params.getPropertyValues()))
+						.put("is_multiple", params.isMultiple()).build();
 
 				AdaptableMap<String, Object> existing = null;
 				try (Query.Result result = propertiesEntity().find(AdaptableMap.<String, Object>newBuilder()
@@ -2242,11 +2629,8 @@ public class WorkspaceQuery implements Adaptable {
 							.put("user_id", fWorkspace.getSession().getUserID()).put("user_data", null)
 							.put("event_info", null).build());
 				} else {
-					for (QName propertyValue : Arrays.stream(existing.getObjectArray("property_value"))
-							.map(e -> QName.valueOf((String) e)).toArray(QName[]::new)) {
-						if (JcrValue.BINARY_NS_URI.equals(propertyValue.getNamespaceURI())) {
-							files().deleteFile(propertyValue.getLocalPart());
-						}
+					for (String fileId : PropertyValueCodec.getFileIds(existing)) {
+						files().deleteFile(fileId);
 					}
 
 					propertiesEntity().updateByPrimaryKey(r).execute();
@@ -2274,8 +2658,8 @@ public class WorkspaceQuery implements Adaptable {
 				throws IOException, SQLException, RepositoryException {
 			AdaptableMap<String, Object> itemData = getProperty(id, relPath);
 			int type = itemData.getInteger("property_type");
-			return Arrays.stream(itemData.getObjectArray("property_value"))
-					.map(e -> createValue(type, QName.valueOf((String) e))).toArray(JcrValue[]::new);
+			return Arrays.stream(PropertyValueCodec.decode(itemData))
+					.map(e -> createValue(type, e)).toArray(JcrValue[]::new);
 		}
 
 		public String getPrimaryType(String id) throws IOException, SQLException, RepositoryException {
@@ -2323,11 +2707,8 @@ public class WorkspaceQuery implements Adaptable {
 				return null;
 			}
 
-			for (QName propertyValue : Arrays.stream(existing.getObjectArray("property_value"))
-					.map(e -> QName.valueOf((String) e)).toArray(QName[]::new)) {
-				if (JcrValue.BINARY_NS_URI.equals(propertyValue.getNamespaceURI())) {
-					files().deleteFile(propertyValue.getLocalPart());
-				}
+			for (String fileId : PropertyValueCodec.getFileIds(existing)) {
+				files().deleteFile(fileId);
 			}
 
 			propertiesEntity().updateByPrimaryKey(
@@ -2654,9 +3035,13 @@ public class WorkspaceQuery implements Adaptable {
 				JcrBinary binary = null;
 				try {
 					if (type == PropertyType.BINARY || relPath.equals(JcrProperty.JCR_DATA_NAME)) {
-						propertyValue = new QName(JcrValue.BINARY_NS_URI, UUID.randomUUID().toString(),
-								XMLConstants.DEFAULT_NS_PREFIX);
 						binary = fCloser.register((JcrBinary) ((JcrValue) value).adapt(Binary.class));
+						// A binary staged in the blob store keeps its blob identifier,
+						// so the blob is not copied again.
+						String blobId = binary.claimBlobId();
+						propertyValue = new QName(JcrValue.BINARY_NS_URI,
+								(blobId != null) ? blobId : UUID.randomUUID().toString(),
+								XMLConstants.DEFAULT_NS_PREFIX);
 					} else if (type == PropertyType.BOOLEAN || type == PropertyType.DATE || type == PropertyType.DECIMAL
 							|| type == PropertyType.DOUBLE || type == PropertyType.LONG || type == PropertyType.STRING
 							|| type == PropertyType.NAME || type == PropertyType.PATH || type == PropertyType.URI) {
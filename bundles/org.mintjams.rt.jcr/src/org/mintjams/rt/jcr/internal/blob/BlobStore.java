@@ -77,18 +77,56 @@ public interface BlobStore extends Closeable {
 
 	/**
 	 * Removes blobs that are no longer referenced by the workspace. The
-	 * context decides whether an identifier is still referenced;
-	 * implementations decide how stored blobs are enumerated and must leave
-	 * recently written blobs alone, since a blob is written before the row
-	 * that references it is committed.
+	 * context streams the referenced identifiers; implementations decide how
+	 * stored blobs are enumerated and must leave recently written blobs
+	 * alone, since a blob is written before the row that references it is
+	 * committed. Implementations that can resume an interrupted run do so,
+	 * so the returned statistics may cover work done before a restart.
 	 */
-	void collectGarbage(GarbageCollectionContext context) throws IOException;
+	GarbageCollectionStatistics collectGarbage(GarbageCollectionContext context) throws IOException;
+
+	/**
+	 * Returns whether a previous garbage collection run was interrupted and
+	 * left a checkpoint to resume from.
+	 */
+	default boolean hasPendingGarbageCollection() {
+		return false;
+	}
 
 	interface GarbageCollectionContext {
 
 		boolean isCancelled();
 
-		boolean isReferenced(String id) throws IOException;
+		/**
+		 * Opens a cursor over the referenced identifiers that start with the
+		 * given prefix, in ascending {@link String#compareTo} order. The
+		 * store merge-joins it against its own sorted enumeration, so the
+		 * order is part of the contract.
+		 */
+		ReferenceCursor openReferences(String prefix) throws IOException;
+
+		/**
+		 * Returns how many partitions of the identifier space may be
+		 * collected concurrently. Each partition opens its own cursor.
+		 */
+		default int getParallelism() {
+			return 1;
+		}
+
+		/**
+		 * Called after a partition has been collected and its progress
+		 * recorded, so the caller can renew leases or report progress.
+		 */
+		default void checkpoint(GarbageCollectionStatistics statistics) throws IOException {}
+	}
+
+	interface ReferenceCursor extends Closeable {
+
+		/**
+		 * Returns the next referenced identifier, or {@code null} when the
+		 * cursor is exhausted.
+		 */
+		String next() throws IOException;
 	}
 
 }
@@ -27,8 +27,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.mintjams.tools.io.IOs;
@@ -51,6 +67,23 @@ public class FileSystemBlobStore implements BlobStore {
 	 */
 	private static final long GC_MINIMUM_AGE_MILLIS = 86400000L;
 
+	/**
+	 * Number of directory levels between the root and a blob file.
+	 */
+	private static final int FAN_OUT_DEPTH = 4;
+
+	/**
+	 * Name of the garbage collection checkpoint kept in the root directory.
+	 * It lives beside the blobs, so in a cluster any node can resume it.
+	 */
+	private static final String CHECKPOINT_FILE_NAME = ".gc-checkpoint";
+
+	/**
+	 * A checkpoint older than this is discarded and the run starts over, so
+	 * a run that keeps failing does not pin an ever older view of the store.
+	 */
+	private static final long CHECKPOINT_MAXIMUM_AGE_MILLIS = 7L * 86400000L;
+
 	private final Path fRootPath;
 	private final Consumer<Throwable> fErrorHandler;
 
@@ -100,44 +133,282 @@ public class FileSystemBlobStore implements BlobStore {
 	}
 
 	@Override
-	public void collectGarbage(GarbageCollectionContext context) throws IOException {
+	public boolean hasPendingGarbageCollection() {
+		return Files.exists(getCheckpointPath());
+	}
+
+	/**
+	 * Collects garbage one top-level fan-out directory (a partition of the
+	 * identifier space sharing its first two characters) at a time. Within a
+	 * partition the directories are walked in sorted order, which yields the
+	 * stored identifiers in ascending order, and merge-joined against the
+	 * context's sorted cursor of referenced identifiers for the same prefix:
+	 * one sequential read per partition instead of one lookup per blob.
+	 * Partitions are collected concurrently up to the context's parallelism,
+	 * and each completed partition is recorded in a checkpoint under the root
+	 * directory, so an interrupted run resumes where it stopped.
+	 */
+	@Override
+	public GarbageCollectionStatistics collectGarbage(GarbageCollectionContext context) throws IOException {
 		if (!Files.exists(fRootPath)) {
-			return;
+			return new GarbageCollectionStatistics(System.currentTimeMillis(), 0, 0, 0, 0, 0);
 		}
 
-		collectGarbage(fRootPath, context);
+		List<String> partitions = new ArrayList<>();
+		try (Stream<Path> stream = Files.list(fRootPath)) {
+			stream.filter(path -> Files.isDirectory(path) && path.getFileName().toString().length() == 2)
+					.map(path -> path.getFileName().toString()).sorted().forEach(partitions::add);
+		}
+
+		Checkpoint checkpoint = Checkpoint.load(getCheckpointPath(), partitions.size());
+		GarbageCollectionStatistics statistics = checkpoint.getStatistics();
+		List<String> pending = new ArrayList<>();
+		for (String partition : partitions) {
+			if (!checkpoint.isCompleted(partition)) {
+				pending.add(partition);
+			}
+		}
+
+		int parallelism = Math.max(1, Math.min(context.getParallelism(), pending.size()));
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new Thread(runnable, getClass().getSimpleName() + "-GC");
+			thread.setDaemon(true);
+			return thread;
+		});
+		boolean failed = false;
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (String partition : pending) {
+				futures.add(executor.submit(() -> {
+					if (context.isCancelled()) {
+						return null;
+					}
+
+					collectGarbage(partition, checkpoint.getCutoff(), context, statistics);
+					if (context.isCancelled()) {
+						return null;
+					}
+
+					statistics.partitionCompleted();
+					checkpoint.completed(partition);
+					context.checkpoint(statistics);
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException ex) {
+					// The partition stays out of the checkpoint and is
+					// collected again by the next run.
+					failed = true;
+					fErrorHandler.accept(ex.getCause());
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while collecting garbage.", ex);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		if (!failed && !context.isCancelled()) {
+			statistics.finished();
+			Files.deleteIfExists(getCheckpointPath());
+		}
+		return statistics;
+	}
+
+	private void collectGarbage(String partition, long cutoff, GarbageCollectionContext context,
+			GarbageCollectionStatistics statistics) throws IOException {
+		try (ReferenceCursor references = context.openReferences(partition)) {
+			MergeJoin join = new MergeJoin(references, cutoff, context, statistics);
+			join.walk(fRootPath.resolve(partition), 1);
+		}
 	}
 
-	private void collectGarbage(Path parentPath, GarbageCollectionContext context) throws IOException {
-		if (context.isCancelled()) {
-			return;
+	private Path getCheckpointPath() {
+		return fRootPath.resolve(CHECKPOINT_FILE_NAME);
+	}
+
+	/**
+	 * Walks one partition in ascending identifier order and advances the
+	 * reference cursor alongside it. A stored blob that the cursor skips
+	 * past is unreferenced.
+	 */
+	private class MergeJoin {
+		private final ReferenceCursor fReferences;
+		private final long fCutoff;
+		private final GarbageCollectionContext fContext;
+		private final GarbageCollectionStatistics fStatistics;
+		private String fReference;
+		private String fPrevious;
+		private boolean fStarted;
+
+		private MergeJoin(ReferenceCursor references, long cutoff, GarbageCollectionContext context,
+				GarbageCollectionStatistics statistics) {
+			fReferences = references;
+			fCutoff = cutoff;
+			fContext = context;
+			fStatistics = statistics;
 		}
 
-		try (Stream<Path> stream = Files.list(parentPath)) {
-			stream.forEach(path -> {
-				if (context.isCancelled()) {
-					return;
+		private void walk(Path directory, int depth) throws IOException {
+			List<Path> children;
+			try (Stream<Path> stream = Files.list(directory)) {
+				children = stream.sorted(Comparator.comparing(path -> path.getFileName().toString()))
+						.collect(Collectors.toList());
+			}
+
+			long scanned = 0;
+			for (Path path : children) {
+				if (fContext.isCancelled()) {
+					break;
 				}
 
-				try {
+				if (depth < FAN_OUT_DEPTH) {
 					if (Files.isDirectory(path)) {
-						collectGarbage(path, context);
-						return;
+						walk(path, depth + 1);
 					}
+					continue;
+				}
 
-					if (Files.getLastModifiedTime(path).toMillis() >= (System.currentTimeMillis() - GC_MINIMUM_AGE_MILLIS)) {
-						return;
-					}
+				String id = path.getFileName().toString();
+				BasicFileAttributes attributes;
+				try {
+					attributes = Files.readAttributes(path, BasicFileAttributes.class);
+				} catch (NoSuchFileException ignore) {
+					continue;
+				}
+				if (!attributes.isRegularFile()) {
+					continue;
+				}
 
-					if (context.isReferenced(path.getFileName().toString())) {
-						return;
-					}
+				scanned++;
+				if (isReferenced(id)) {
+					continue;
+				}
+
+				if (attributes.lastModifiedTime().toMillis() >= fCutoff) {
+					continue;
+				}
 
-					Files.deleteIfExists(path);
+				try {
+					if (Files.deleteIfExists(path)) {
+						fStatistics.addReclaimed(attributes.size());
+					}
 				} catch (Throwable ex) {
 					fErrorHandler.accept(ex);
 				}
-			});
+			}
+			fStatistics.addScanned(scanned);
+		}
+
+		private boolean isReferenced(String id) throws IOException {
+			if (!fStarted) {
+				fReference = nextReference();
+				fStarted = true;
+			}
+			while (fReference != null && fReference.compareTo(id) < 0) {
+				fReference = nextReference();
+			}
+			return id.equals(fReference);
+		}
+
+		private String nextReference() throws IOException {
+			String reference = fReferences.next();
+			// A cursor out of order would make referenced blobs look
+			// unreferenced; refuse to go on rather than delete them.
+			if (reference != null && fPrevious != null && reference.compareTo(fPrevious) < 0) {
+				throw new IOException("Referenced blob identifiers are not in ascending order: '" + fPrevious
+						+ "' is followed by '" + reference + "'.");
+			}
+			if (reference != null) {
+				fPrevious = reference;
+			}
+			return reference;
+		}
+	}
+
+	/**
+	 * Records the partitions of the current run that are already collected,
+	 * together with the run's age cutoff and its counters. The cutoff is
+	 * fixed when the run starts, so a resumed run keeps treating blobs
+	 * written since then as too young to collect.
+	 */
+	private static class Checkpoint {
+		private final Path fPath;
+		private final long fCutoff;
+		private final Set<String> fCompleted;
+		private final GarbageCollectionStatistics fStatistics;
+
+		private Checkpoint(Path path, long cutoff, Set<String> completed, GarbageCollectionStatistics statistics) {
+			fPath = path;
+			fCutoff = cutoff;
+			fCompleted = completed;
+			fStatistics = statistics;
+		}
+
+		private static Checkpoint load(Path path, int totalPartitions) {
+			long now = System.currentTimeMillis();
+			if (Files.exists(path)) {
+				try (InputStream in = Files.newInputStream(path)) {
+					Properties properties = new Properties();
+					properties.load(in);
+					long started = Long.parseLong(properties.getProperty("started"));
+					if (now - started < CHECKPOINT_MAXIMUM_AGE_MILLIS) {
+						Set<String> completed = new HashSet<>();
+						for (String partition : properties.getProperty("completed", "").split(",")) {
+							if (!partition.isEmpty()) {
+								completed.add(partition);
+							}
+						}
+						return new Checkpoint(path, Long.parseLong(properties.getProperty("cutoff")),
+								Collections.synchronizedSet(completed),
+								new GarbageCollectionStatistics(started, totalPartitions, completed.size(),
+										Long.parseLong(properties.getProperty("scanned", "0")),
+										Long.parseLong(properties.getProperty("reclaimed", "0")),
+										Long.parseLong(properties.getProperty("reclaimedBytes", "0"))));
+					}
+				} catch (Throwable ignore) {
+					// An unreadable or stale checkpoint just means starting over.
+				}
+			}
+
+			return new Checkpoint(path, now - GC_MINIMUM_AGE_MILLIS, Collections.synchronizedSet(new HashSet<>()),
+					new GarbageCollectionStatistics(now, totalPartitions, 0, 0, 0, 0));
+		}
+
+		private long getCutoff() {
+			return fCutoff;
+		}
+
+		private GarbageCollectionStatistics getStatistics() {
+			return fStatistics;
+		}
+
+		private boolean isCompleted(String partition) {
+			return fCompleted.contains(partition);
+		}
+
+		private synchronized void completed(String partition) throws IOException {
+			fCompleted.add(partition);
+
+			Properties properties = new Properties();
+			properties.setProperty("started", String.valueOf(fStatistics.getStarted()));
+			properties.setProperty("cutoff", String.valueOf(fCutoff));
+			synchronized (fCompleted) {
+				properties.setProperty("completed", String.join(",", new TreeSet<>(fCompleted)));
+			}
+			properties.setProperty("scanned", String.valueOf(fStatistics.getScanned()));
+			properties.setProperty("reclaimed", String.valueOf(fStatistics.getReclaimed()));
+			properties.setProperty("reclaimedBytes", String.valueOf(fStatistics.getReclaimedBytes()));
+
+			Path tmp = fPath.resolveSibling(fPath.getFileName() + ".tmp");
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+				properties.store(out, null);
+			}
+			Files.move(tmp, fPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
 		}
 	}
 
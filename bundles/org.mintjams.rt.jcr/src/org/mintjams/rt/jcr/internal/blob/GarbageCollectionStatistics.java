@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2022 MintJams Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.jcr.internal.blob;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a blob garbage collection run. A run that resumes from a
+ * checkpoint starts from the counters recorded there, so the figures always
+ * cover the whole run rather than the part since the last restart.
+ */
+public class GarbageCollectionStatistics {
+
+	private final long fStarted;
+	private final int fTotalPartitions;
+	private final AtomicInteger fCompletedPartitions;
+	private final AtomicLong fScanned;
+	private final AtomicLong fReclaimed;
+	private final AtomicLong fReclaimedBytes;
+	private volatile long fFinished;
+
+	public GarbageCollectionStatistics(long started, int totalPartitions, int completedPartitions, long scanned,
+			long reclaimed, long reclaimedBytes) {
+		fStarted = started;
+		fTotalPartitions = totalPartitions;
+		fCompletedPartitions = new AtomicInteger(completedPartitions);
+		fScanned = new AtomicLong(scanned);
+		fReclaimed = new AtomicLong(reclaimed);
+		fReclaimedBytes = new AtomicLong(reclaimedBytes);
+	}
+
+	public long getStarted() {
+		return fStarted;
+	}
+
+	public long getFinished() {
+		return fFinished;
+	}
+
+	public boolean isFinished() {
+		return fFinished > 0;
+	}
+
+	public int getTotalPartitions() {
+		return fTotalPartitions;
+	}
+
+	public int getCompletedPartitions() {
+		return fCompletedPartitions.get();
+	}
+
+	/**
+	 * Returns the number of stored blobs examined.
+	 */
+	public long getScanned() {
+		return fScanned.get();
+	}
+
+	/**
+	 * Returns the number of unreferenced blobs deleted.
+	 */
+	public long getReclaimed() {
+		return fReclaimed.get();
+	}
+
+	/**
+	 * Returns the total size of the unreferenced blobs deleted.
+	 */
+	public long getReclaimedBytes() {
+		return fReclaimedBytes.get();
+	}
+
+	public void addScanned(long count) {
+		fScanned.addAndGet(count);
+	}
+
+	public void addReclaimed(long size) {
+		fReclaimed.incrementAndGet();
+		fReclaimedBytes.addAndGet(size);
+	}
+
+	public void partitionCompleted() {
+		fCompletedPartitions.incrementAndGet();
+	}
+
+	public void finished() {
+		fFinished = System.currentTimeMillis();
+	}
+
+	@Override
+	public String toString() {
+		return "scanned=" + getScanned() + ", reclaimed=" + getReclaimed() + ", reclaimedBytes=" + getReclaimedBytes()
+				+ ", partitions=" + getCompletedPartitions() + "/" + getTotalPartitions() + ", elapsed="
+				+ ((isFinished() ? fFinished : System.currentTimeMillis()) - fStarted) + " ms";
+	}
+
+}
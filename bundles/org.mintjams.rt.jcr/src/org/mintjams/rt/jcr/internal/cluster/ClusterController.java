@@ -30,16 +30,23 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.mintjams.jcr.cluster.ClusterCoordinator;
 import org.mintjams.jcr.cluster.ClusterLeaseStore;
 import org.mintjams.rt.jcr.internal.Activator;
+import org.mintjams.rt.jcr.internal.sql.DatabaseDialect;
 import org.mintjams.tools.collections.AdaptableMap;
 import org.mintjams.tools.lang.Cause;
 import org.mintjams.tools.lang.Strings;
@@ -63,34 +70,69 @@ import org.mintjams.tools.sql.Update;
  * JCR locks for that. In standalone mode (the default) the registry,
  * heartbeat and signal machinery are a no-op and every lease is granted
  * immediately.
+ *
+ * <p>Waiting for a lease is push-based: releasing a lease publishes a
+ * {@link #LOCK_RELEASED_TOPIC} signal, and the waiters on every node are
+ * parked until that signal (or a local release) wakes them. The retry
+ * interval only backs off, with jitter, as a safety net for leases that
+ * expire instead of being released. A fair waiter additionally queues in
+ * {@code jcr_cluster_lock_waiters} and is only granted the lease when it is
+ * at the head of the queue.
+ *
+ * <p>New signals and journal commits are announced on the
+ * {@link #SIGNALS_CHANNEL} and {@link #JOURNAL_CHANNEL} notification channels
+ * of the database dialect. When the dialect delivers notifications to every
+ * node, the readers of those tables only sweep them every
+ * {@link #SAFETY_SWEEP_INTERVAL_MILLIS} in case a notification was lost.
  */
 public class ClusterController implements ClusterCoordinator, ClusterLeaseStore, Closeable {
 
 	private static final long HEARTBEAT_INTERVAL_MILLIS = 30000L;
 	private static final long HEARTBEAT_STALE_MILLIS = HEARTBEAT_INTERVAL_MILLIS * 3;
-	private static final long LOCK_RETRY_INTERVAL_MILLIS = 500L;
+	private static final long LOCK_RETRY_MIN_MILLIS = 100L;
+	private static final long LOCK_RETRY_MAX_MILLIS = 5000L;
+	private static final long LOCK_WAITER_TTL_MILLIS = 30000L;
+	private static final long PREPARE_RETRY_INTERVAL_MILLIS = 500L;
 	private static final int PREPARE_RETRY_COUNT = 3;
 
+	/**
+	 * Signal topic published when a lease is released. It is consumed by the
+	 * controller itself and never re-emitted as an OSGi event.
+	 */
+	static final String LOCK_RELEASED_TOPIC = "org/mintjams/rt/jcr/cluster/LOCK_RELEASED";
+
+	public static final String SIGNALS_CHANNEL = "jcr_cluster_signals";
+	public static final String JOURNAL_CHANNEL = "jcr_journal_commits";
+	public static final long SAFETY_SWEEP_INTERVAL_MILLIS = 30000L;
+
 	private final String fWorkspaceName;
 	private final boolean fClusterEnabled;
 	private final String fNodeId;
+	private final DatabaseDialect fDialect;
 	private final ConnectionFactory fConnections;
 	private Thread fThread;
 	private Thread fSignalThread;
+	private Closeable fNotificationListener;
 	private boolean fCloseRequested;
 	private final Object fLock = new Object();
+	private final Object fSignalLock = new Object();
+	private boolean fSignalsPending;
+	private final Map<String, LockWaiters> fLockWaiters = new HashMap<>();
+	private final Map<String, List<Runnable>> fChannelListeners = new ConcurrentHashMap<>();
+	private final Map<String, DeliveryLatencyStatistics> fDeliveryLatencies = new ConcurrentHashMap<>();
 
-	private ClusterController(String workspaceName, boolean clusterEnabled, String nodeId,
+	private ClusterController(String workspaceName, boolean clusterEnabled, String nodeId, DatabaseDialect dialect,
 			ConnectionFactory connections) {
 		fWorkspaceName = workspaceName;
 		fClusterEnabled = clusterEnabled;
 		fNodeId = nodeId;
+		fDialect = dialect;
 		fConnections = connections;
 	}
 
 	public static ClusterController create(String workspaceName, boolean clusterEnabled, String nodeId,
-			ConnectionFactory connections) {
-		return new ClusterController(workspaceName, clusterEnabled, nodeId, connections);
+			DatabaseDialect dialect, ConnectionFactory connections) {
+		return new ClusterController(workspaceName, clusterEnabled, nodeId, dialect, connections);
 	}
 
 	/**
@@ -134,6 +176,9 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 		fSignalThread.setDaemon(true);
 		fSignalThread.start();
 
+		fNotificationListener = fDialect.listen(fConnections::getConnection,
+				List.of(SIGNALS_CHANNEL, JOURNAL_CHANNEL), this::notificationReceived);
+
 		Activator.getDefault().getLogger(getClass()).info("Cluster node '" + fNodeId
 				+ "' has joined the JCR workspace '" + fWorkspaceName + "'.");
 		return this;
@@ -146,6 +191,16 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 	 */
 	@Override
 	public Lease lock(String name, long ttlMillis) throws IOException {
+		return lock(name, ttlMillis, false);
+	}
+
+	/**
+	 * Acquires the named lease, waiting as long as it takes. A fair waiter
+	 * queues behind the nodes that started waiting before it, which keeps a
+	 * hot lease name from starving any one node.
+	 */
+	@Override
+	public Lease lock(String name, long ttlMillis, boolean fair) throws IOException {
 		if (!fClusterEnabled) {
 			// Standalone: the callers are per-JVM singletons, so there is
 			// nothing to serialize against and the lease is granted
@@ -153,28 +208,55 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 			return () -> {};
 		}
 
-		long started = System.currentTimeMillis();
-		long lastReported = started;
-		while (!fCloseRequested) {
-			if (tryAcquire(name, ttlMillis)) {
-				return () -> release(name);
-			}
+		String waiterId = fair ? UUID.randomUUID().toString() : null;
+		LockWaiters waiters = enterWaiters(name);
+		try {
+			long started = System.currentTimeMillis();
+			long lastReported = started;
+			long retryMillis = LOCK_RETRY_MIN_MILLIS;
+			while (!fCloseRequested) {
+				// Read the release count before trying, so a release that
+				// happens between a failed attempt and the wait below is not
+				// missed.
+				long releases = waiters.getReleaseCount();
+				if (tryAcquire(name, ttlMillis, waiterId)) {
+					return () -> release(name);
+				}
 
-			if (System.currentTimeMillis() - lastReported >= 30000) {
-				lastReported = System.currentTimeMillis();
-				Activator.getDefault().getLogger(getClass()).info("Waiting for the cluster lock '" + name
-						+ "' on workspace '" + fWorkspaceName + "' ("
-						+ ((System.currentTimeMillis() - started) / 1000) + " seconds).");
-			}
+				if (System.currentTimeMillis() - lastReported >= 30000) {
+					lastReported = System.currentTimeMillis();
+					Activator.getDefault().getLogger(getClass()).info("Waiting for the cluster lock '" + name
+							+ "' on workspace '" + fWorkspaceName + "' ("
+							+ ((System.currentTimeMillis() - started) / 1000) + " seconds).");
+				}
 
-			try {
-				Thread.sleep(LOCK_RETRY_INTERVAL_MILLIS);
-			} catch (InterruptedException ex) {
-				Thread.currentThread().interrupt();
-				throw new IOException("Interrupted while waiting for the cluster lock '" + name + "'.");
+				try {
+					if (waiters.await(releases, jitter(retryMillis))) {
+						retryMillis = LOCK_RETRY_MIN_MILLIS;
+					} else {
+						retryMillis = Math.min(retryMillis * 2, LOCK_RETRY_MAX_MILLIS);
+					}
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for the cluster lock '" + name + "'.");
+				}
+			}
+			throw new IOException("The cluster controller has been closed.");
+		} finally {
+			leaveWaiters(name, waiters);
+			if (waiterId != null) {
+				dequeue(waiterId);
 			}
 		}
-		throw new IOException("The cluster controller has been closed.");
+	}
+
+	/**
+	 * Returns a random interval between half and all of the given one, so
+	 * waiters on different nodes do not retry in lockstep.
+	 */
+	private static long jitter(long millis) {
+		long half = millis / 2;
+		return half + ThreadLocalRandom.current().nextLong(millis - half + 1);
 	}
 
 	/**
@@ -192,7 +274,7 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 			return () -> {};
 		}
 
-		if (tryAcquire(name, ttlMillis)) {
+		if (tryAcquire(name, ttlMillis, null)) {
 			return () -> release(name);
 		}
 		return null;
@@ -249,6 +331,7 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 				} catch (Throwable ignore) {}
 				throw ex;
 			}
+			notifyChannel(connection, SIGNALS_CHANNEL);
 		} catch (Throwable ex) {
 			// Best-effort: a node that misses the broadcast falls back to its
 			// own polling or a client reload, so a publish failure must never
@@ -258,6 +341,88 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 		}
 	}
 
+	/**
+	 * Returns whether notifications reach every node, so that the readers of
+	 * the signal bus and the journal can rely on them and only sweep the
+	 * tables every {@link #SAFETY_SWEEP_INTERVAL_MILLIS}.
+	 */
+	public boolean isPushNotificationEnabled() {
+		return fClusterEnabled && fDialect.isNotificationClusterWide();
+	}
+
+	/**
+	 * Announces on the given channel that the transaction just committed on
+	 * the connection wrote new rows. Best-effort: a lost notification only
+	 * delays delivery until the next sweep.
+	 */
+	public void notifyChannel(Connection connection, String channel) {
+		if (!fClusterEnabled) {
+			return;
+		}
+
+		try {
+			fDialect.sendNotification(connection, channel);
+		} catch (Throwable ex) {
+			try {
+				connection.rollback();
+			} catch (Throwable ignore) {}
+			Activator.getDefault().getLogger(getClass()).warn("An error occurred while sending a notification on channel '"
+					+ channel + "' of workspace '" + fWorkspaceName + "'.", ex);
+		}
+	}
+
+	/**
+	 * Registers a listener that runs, on the notification thread, whenever a
+	 * notification arrives on the given channel. It must return quickly.
+	 */
+	public void addChannelListener(String channel, Runnable listener) {
+		fChannelListeners.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>()).add(listener);
+	}
+
+	public void removeChannelListener(String channel, Runnable listener) {
+		List<Runnable> listeners = fChannelListeners.get(channel);
+		if (listeners != null) {
+			listeners.remove(listener);
+		}
+	}
+
+	private void notificationReceived(String channel) {
+		if (channel.equals(SIGNALS_CHANNEL)) {
+			wakeSignalPoller();
+		}
+		for (Runnable listener : fChannelListeners.getOrDefault(channel, Collections.emptyList())) {
+			try {
+				listener.run();
+			} catch (Throwable ex) {
+				Activator.getDefault().getLogger(getClass()).warn(
+						"An error occurred while handling a notification on channel '" + channel + "'.", ex);
+			}
+		}
+	}
+
+	private void wakeSignalPoller() {
+		synchronized (fSignalLock) {
+			fSignalsPending = true;
+			fSignalLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Records how long a change committed on another node took to reach this
+	 * node on the given channel.
+	 */
+	public void recordDeliveryLatency(String channel, long millis) {
+		fDeliveryLatencies.computeIfAbsent(channel, k -> new DeliveryLatencyStatistics()).record(millis);
+	}
+
+	@Override
+	public Map<String, ClusterCoordinator.DeliveryLatency> getDeliveryLatencies() {
+		if (!fClusterEnabled) {
+			return Collections.emptyMap();
+		}
+		return Collections.unmodifiableMap(new TreeMap<>(fDeliveryLatencies));
+	}
+
 	/**
 	 * Serializes event properties to the opaque JSON payload stored with a
 	 * signal, or {@code null} when there are none. Only simple scalar values
@@ -356,7 +521,7 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 					// race is fine as long as the tables exist afterwards.
 					if (i < PREPARE_RETRY_COUNT) {
 						try {
-							Thread.sleep(LOCK_RETRY_INTERVAL_MILLIS);
+							Thread.sleep(PREPARE_RETRY_INTERVAL_MILLIS);
 						} catch (InterruptedException ignore) {}
 						continue;
 					}
@@ -370,11 +535,44 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 		}
 	}
 
-	private boolean tryAcquire(String name, long ttlMillis) {
+	/**
+	 * Makes one attempt to acquire the named lease. A lease this node holds
+	 * is renewed whatever the queue holds. Otherwise queued fair waiters go
+	 * first: a caller without a waiter id fails while any of them is queued,
+	 * and a fair caller queues (or refreshes its queue entry) and only
+	 * proceeds when it is at the head of the queue. The queue entry is
+	 * committed on its own, so it stays when the lease is taken.
+	 */
+	private boolean tryAcquire(String name, long ttlMillis, String waiterId) {
 		try (Connection connection = fConnections.getConnection()) {
 			try {
 				long now = System.currentTimeMillis();
 
+				int renewed = Update.newBuilder(connection)
+						.setStatement("UPDATE jcr_cluster_locks SET lock_expires = {{expires}}"
+								+ " WHERE lock_name = {{name}} AND owner_id = {{owner}}")
+						.setVariable("expires", now + ttlMillis)
+						.setVariable("name", name)
+						.setVariable("owner", fNodeId)
+						.build().execute();
+				if (renewed > 0) {
+					if (waiterId != null) {
+						deleteWaiter(connection, waiterId);
+					}
+					connection.commit();
+					return true;
+				}
+
+				if (waiterId != null) {
+					enqueue(connection, name, waiterId, now);
+					connection.commit();
+				}
+				String head = getQueueHead(connection, name, now);
+				if (head != null && !head.equals(waiterId)) {
+					connection.commit();
+					return false;
+				}
+
 				Update.newBuilder(connection)
 						.setStatement("DELETE FROM jcr_cluster_locks"
 								+ " WHERE lock_name = {{name}} AND lock_expires < {{now}} AND owner_id <> {{owner}}")
@@ -383,23 +581,19 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 						.setVariable("owner", fNodeId)
 						.build().execute();
 
-				int renewed = Update.newBuilder(connection)
-						.setStatement("UPDATE jcr_cluster_locks SET lock_expires = {{expires}}"
-								+ " WHERE lock_name = {{name}} AND owner_id = {{owner}}")
-						.setVariable("expires", now + ttlMillis)
+				// Fails on the primary key while another node holds the lease.
+				Update.newBuilder(connection)
+						.setStatement("INSERT INTO jcr_cluster_locks"
+								+ " (lock_name, owner_id, lock_acquired, lock_expires)"
+								+ " VALUES ({{name}}, {{owner}}, {{now}}, {{expires}})")
 						.setVariable("name", name)
 						.setVariable("owner", fNodeId)
+						.setVariable("now", now)
+						.setVariable("expires", now + ttlMillis)
 						.build().execute();
-				if (renewed == 0) {
-					Update.newBuilder(connection)
-							.setStatement("INSERT INTO jcr_cluster_locks"
-									+ " (lock_name, owner_id, lock_acquired, lock_expires)"
-									+ " VALUES ({{name}}, {{owner}}, {{now}}, {{expires}})")
-							.setVariable("name", name)
-							.setVariable("owner", fNodeId)
-							.setVariable("now", now)
-							.setVariable("expires", now + ttlMillis)
-							.build().execute();
+
+				if (waiterId != null) {
+					deleteWaiter(connection, waiterId);
 				}
 
 				connection.commit();
@@ -417,15 +611,104 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 		}
 	}
 
+	/**
+	 * Adds the fair waiter to the queue of the named lease, or extends its
+	 * entry if it is already queued. An entry that is not refreshed expires,
+	 * so a crashed waiter drops out of the queue on its own.
+	 */
+	private void enqueue(Connection connection, String name, String waiterId, long now) throws SQLException {
+		int refreshed = Update.newBuilder(connection)
+				.setStatement("UPDATE jcr_cluster_lock_waiters SET waiter_expires = {{expires}}"
+						+ " WHERE waiter_id = {{waiterId}}")
+				.setVariable("expires", now + LOCK_WAITER_TTL_MILLIS)
+				.setVariable("waiterId", waiterId)
+				.build().execute();
+		if (refreshed == 0) {
+			Update.newBuilder(connection)
+					.setStatement("INSERT INTO jcr_cluster_lock_waiters"
+							+ " (waiter_id, lock_name, owner_id, waiter_expires)"
+							+ " VALUES ({{waiterId}}, {{name}}, {{owner}}, {{expires}})")
+					.setVariable("waiterId", waiterId)
+					.setVariable("name", name)
+					.setVariable("owner", fNodeId)
+					.setVariable("expires", now + LOCK_WAITER_TTL_MILLIS)
+					.build().execute();
+		}
+	}
+
+	/**
+	 * Returns the id of the oldest live fair waiter for the named lease, or
+	 * {@code null} when nobody is queued.
+	 */
+	private String getQueueHead(Connection connection, String name, long now) throws SQLException {
+		try (Query.Result result = Query.newBuilder(connection)
+				.setStatement("SELECT waiter_id FROM jcr_cluster_lock_waiters"
+						+ " WHERE lock_name = {{name}} AND waiter_expires >= {{now}}"
+						+ " ORDER BY waiter_seq")
+				.setVariable("name", name)
+				.setVariable("now", now)
+				.build().setOffset(0).setLimit(1).execute()) {
+			Iterator<AdaptableMap<String, Object>> i = result.iterator();
+			if (!i.hasNext()) {
+				return null;
+			}
+			return i.next().getString("waiter_id");
+		} catch (SQLException ex) {
+			throw ex;
+		} catch (Exception ex) {
+			throw new SQLException(ex);
+		}
+	}
+
+	private void deleteWaiter(Connection connection, String waiterId) throws SQLException {
+		Update.newBuilder(connection)
+				.setStatement("DELETE FROM jcr_cluster_lock_waiters WHERE waiter_id = {{waiterId}}")
+				.setVariable("waiterId", waiterId)
+				.build().execute();
+	}
+
+	/**
+	 * Removes a fair waiter that stops waiting without the lease. Its entry
+	 * expires anyway; removing it early lets the next waiter proceed.
+	 */
+	private void dequeue(String waiterId) {
+		try (Connection connection = fConnections.getConnection()) {
+			try {
+				deleteWaiter(connection, waiterId);
+				connection.commit();
+			} catch (Throwable ex) {
+				try {
+					connection.rollback();
+				} catch (Throwable ignore) {}
+				throw ex;
+			}
+		} catch (Throwable ex) {
+			Activator.getDefault().getLogger(getClass())
+					.warn("An error occurred while leaving the cluster lock queue.", ex);
+		}
+	}
+
+	/**
+	 * Releases the named lease and, in the same transaction, publishes a
+	 * {@link #LOCK_RELEASED_TOPIC} signal so the waiters on the other nodes
+	 * retry right away. The waiters on this node are woken directly.
+	 */
 	private void release(String name) {
 		try (Connection connection = fConnections.getConnection()) {
 			try {
-				Update.newBuilder(connection)
+				int deleted = Update.newBuilder(connection)
 						.setStatement("DELETE FROM jcr_cluster_locks WHERE lock_name = {{name}} AND owner_id = {{owner}}")
 						.setVariable("name", name)
 						.setVariable("owner", fNodeId)
 						.build().execute();
+				if (deleted > 0) {
+					ClusterSignals.publish(connection, fNodeId, LOCK_RELEASED_TOPIC,
+							serialize(Collections.singletonMap("name", name)));
+				}
 				connection.commit();
+				if (deleted > 0) {
+					notifyChannel(connection, SIGNALS_CHANNEL);
+				}
 			} catch (Throwable ex) {
 				try {
 					connection.rollback();
@@ -437,6 +720,92 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 			Activator.getDefault().getLogger(getClass())
 					.warn("An error occurred while releasing the cluster lock '" + name + "'.", ex);
 		}
+		lockReleased(name);
+	}
+
+	private LockWaiters enterWaiters(String name) {
+		synchronized (fLockWaiters) {
+			LockWaiters waiters = fLockWaiters.get(name);
+			if (waiters == null) {
+				waiters = new LockWaiters();
+				fLockWaiters.put(name, waiters);
+			}
+			waiters.fCount++;
+			return waiters;
+		}
+	}
+
+	private void leaveWaiters(String name, LockWaiters waiters) {
+		synchronized (fLockWaiters) {
+			if (--waiters.fCount == 0) {
+				fLockWaiters.remove(name);
+			}
+		}
+	}
+
+	private boolean hasLockWaiters() {
+		synchronized (fLockWaiters) {
+			return !fLockWaiters.isEmpty();
+		}
+	}
+
+	/**
+	 * Wakes the threads of this node that wait for the named lease.
+	 */
+	private void lockReleased(String name) {
+		LockWaiters waiters;
+		synchronized (fLockWaiters) {
+			waiters = fLockWaiters.get(name);
+		}
+		if (waiters != null) {
+			waiters.signal();
+		}
+	}
+
+	private void wakeAllLockWaiters() {
+		List<LockWaiters> all;
+		synchronized (fLockWaiters) {
+			all = new ArrayList<>(fLockWaiters.values());
+		}
+		for (LockWaiters waiters : all) {
+			waiters.signal();
+		}
+	}
+
+	/**
+	 * The condition the threads of this node wait on for one lease name. A
+	 * release bumps the release count, so a waiter can tell a wake-up from a
+	 * timeout and never sleeps through a release that happened just before
+	 * it started waiting.
+	 */
+	private static class LockWaiters {
+		private int fCount;
+		private long fReleaseCount;
+
+		private synchronized long getReleaseCount() {
+			return fReleaseCount;
+		}
+
+		private synchronized void signal() {
+			fReleaseCount++;
+			notifyAll();
+		}
+
+		/**
+		 * Waits until the release count moves past the given one or the
+		 * timeout elapses. Returns {@code true} when a release was seen.
+		 */
+		private synchronized boolean await(long releaseCount, long timeoutMillis) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + timeoutMillis;
+			while (fReleaseCount == releaseCount) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+				wait(remaining);
+			}
+			return true;
+		}
 	}
 
 	private void beat() {
@@ -489,9 +858,17 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 		}
 
 		fCloseRequested = true;
+		if (fNotificationListener != null) {
+			try {
+				fNotificationListener.close();
+			} catch (Throwable ignore) {}
+			fNotificationListener = null;
+		}
 		synchronized (fLock) {
 			fLock.notifyAll();
 		}
+		wakeSignalPoller();
+		wakeAllLockWaiters();
 		if (fSignalThread != null) {
 			try {
 				fSignalThread.interrupt();
@@ -606,6 +983,13 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 	 * it — assuming the cluster nodes run with synchronized clocks, as the
 	 * journal already requires — while a bounded set of recently emitted
 	 * sequences keeps the re-scan from emitting the same signal twice.
+	 * Lease-release signals wake this node's lease waiters instead of being
+	 * emitted.
+	 *
+	 * <p>The poller runs as soon as a notification announces new signals. When
+	 * notifications reach every node it otherwise only sweeps the bus every
+	 * {@link #SAFETY_SWEEP_INTERVAL_MILLIS}; without them it polls every two
+	 * seconds, and more often while any thread waits for a lease.
 	 *
 	 * <p>No durable per-node offset is kept: signals tell live clients to
 	 * refresh, so a node that was down had no client to notify and resumes at
@@ -614,6 +998,7 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 	 */
 	private class SignalPoller implements Runnable {
 		private static final long POLL_INTERVAL_MILLIS = 2000L;
+		private static final long LOCK_WAIT_POLL_INTERVAL_MILLIS = 250L;
 		private static final long STABILITY_GRACE_MILLIS = 10000L;
 		private static final long RETENTION_MILLIS = 300000L;
 		private static final long PURGE_INTERVAL_MILLIS = 60000L;
@@ -631,10 +1016,21 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 					fCloseRequested = true;
 					break;
 				}
-				synchronized (fLock) {
+				long interval;
+				if (isPushNotificationEnabled()) {
+					interval = SAFETY_SWEEP_INTERVAL_MILLIS;
+				} else if (hasLockWaiters()) {
+					interval = LOCK_WAIT_POLL_INTERVAL_MILLIS;
+				} else {
+					interval = POLL_INTERVAL_MILLIS;
+				}
+				synchronized (fSignalLock) {
 					try {
-						fLock.wait(POLL_INTERVAL_MILLIS);
+						if (!fSignalsPending) {
+							fSignalLock.wait(interval);
+						}
 					} catch (InterruptedException ignore) {}
+					fSignalsPending = false;
 				}
 
 				if (fCloseRequested) {
@@ -683,6 +1079,7 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 						long seq = signal.getLong("signal_seq");
 						if (!fProcessed.contains(seq)) {
 							emit(signal.getString("topic"), signal.getString("payload"));
+							recordDeliveryLatency("signals", System.currentTimeMillis() - signal.getLong("created"));
 							fProcessed.add(seq);
 							while (fProcessed.size() > PROCESSED_CACHE_SIZE) {
 								Iterator<Long> i = fProcessed.iterator();
@@ -703,6 +1100,12 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 						}
 					}
 					fConsumed = newConsumed;
+
+					if (signals.size() == BATCH_LIMIT && stable) {
+						// The whole batch was consumed and more signals may be
+						// waiting behind it.
+						wakeSignalPoller();
+					}
 				} catch (Throwable ex) {
 					try {
 						connection.rollback();
@@ -751,6 +1154,13 @@ public class ClusterController implements ClusterCoordinator, ClusterLeaseStore,
 			if (Strings.isEmpty(topic)) {
 				return;
 			}
+			if (topic.equals(LOCK_RELEASED_TOPIC)) {
+				Object name = deserialize(payload).get("name");
+				if (name != null) {
+					lockReleased(name.toString());
+				}
+				return;
+			}
 			Activator.getDefault().postEvent(topic, deserialize(payload));
 		}
 	}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.jcr.internal.cluster;
+
+import org.mintjams.jcr.cluster.ClusterCoordinator;
+
+/**
+ * Accumulates the delivery latency of one cluster channel. A negative
+ * latency, which clock skew between the nodes can produce, is counted as
+ * zero.
+ */
+public class DeliveryLatencyStatistics implements ClusterCoordinator.DeliveryLatency {
+
+	private long fCount;
+	private long fTotalMillis;
+	private long fLastMillis;
+	private long fMaxMillis;
+
+	public synchronized void record(long millis) {
+		if (millis < 0) {
+			millis = 0;
+		}
+		fCount++;
+		fTotalMillis += millis;
+		fLastMillis = millis;
+		if (millis > fMaxMillis) {
+			fMaxMillis = millis;
+		}
+	}
+
+	@Override
+	public synchronized long getCount() {
+		return fCount;
+	}
+
+	@Override
+	public synchronized long getLastMillis() {
+		return fLastMillis;
+	}
+
+	@Override
+	public synchronized long getAverageMillis() {
+		return (fCount == 0) ? 0 : fTotalMillis / fCount;
+	}
+
+	@Override
+	public synchronized long getMaxMillis() {
+		return fMaxMillis;
+	}
+
+}
@@ -40,3 +40,12 @@ CREATE TABLE IF NOT EXISTS jcr_cluster_signals (
 );
 CREATE INDEX IF NOT EXISTS jcr_cluster_signals_index1 ON jcr_cluster_signals (created);
 
+CREATE TABLE IF NOT EXISTS jcr_cluster_lock_waiters (
+	waiter_id VARCHAR NOT NULL,
+	waiter_seq BIGINT GENERATED BY DEFAULT AS IDENTITY,
+	lock_name VARCHAR NOT NULL,
+	owner_id VARCHAR NOT NULL,
+	waiter_expires BIGINT NOT NULL,
+	PRIMARY KEY (waiter_id)
+);
+CREATE INDEX IF NOT EXISTS jcr_cluster_lock_waiters_index1 ON jcr_cluster_lock_waiters (lock_name, waiter_seq);
@@ -124,7 +124,16 @@ public class JcrNodeType implements org.mintjams.jcr.nodetype.NodeType, Adaptabl
 
 	@Override
 	public boolean hasOrderableChildNodes() {
-		// TODO Auto-generated method stub
+		if (attributes().contains("orderable")) {
+			return true;
+		}
+
+		for (NodeType superType : getSupertypes()) {
+			if (superType.hasOrderableChildNodes()) {
+				return true;
+			}
+		}
+
 		return false;
 	}
 
@@ -31,7 +31,9 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -40,9 +42,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import javax.jcr.ItemNotFoundException;
 import javax.jcr.Node;
@@ -52,6 +56,7 @@ import javax.jcr.Property;
 import javax.jcr.PropertyIterator;
 import javax.jcr.PropertyType;
 import javax.jcr.RepositoryException;
+import javax.jcr.Session;
 import javax.jcr.Value;
 import javax.jcr.ValueFormatException;
 import javax.jcr.Workspace;
@@ -98,7 +103,21 @@ public class JournalObserver implements Adaptable, Closeable {
 	private Thread fRemoteThread;
 	private boolean fCloseRequested;
 	private final List<String> fTransactionIdentifiers = new ArrayList<>();
+	/**
+	 * Queued transactions whose items are not indexed one by one, because the
+	 * committer (a bulk import) rebuilds the index of the subtree it wrote once
+	 * it is done. Guarded by {@link #fTransactionIdentifiers}.
+	 */
+	private final Set<String> fSearchIndexDeferred = new HashSet<>();
+	/**
+	 * Subtree rebuilds queued by {@link #requestSearchIndexRebuild(Collection)},
+	 * keyed by the placeholder they occupy in {@link #fTransactionIdentifiers}.
+	 * Guarded by it.
+	 */
+	private final Map<String, List<String>> fSearchIndexRebuilds = new HashMap<>();
 	private final Object fRemoteLock = new Object();
+	private boolean fRemotePending;
+	private final Runnable fJournalListener = this::wakeRemotePoller;
 
 	private JournalObserver(JcrWorkspaceProvider workspaceProvider) {
 		fWorkspaceProvider = workspaceProvider;
@@ -119,6 +138,7 @@ public class JournalObserver implements Adaptable, Closeable {
 
 		ClusterController clusterController = adaptTo(ClusterController.class);
 		if (clusterController != null && clusterController.isClusterEnabled()) {
+			clusterController.addChannelListener(ClusterController.JOURNAL_CHANNEL, fJournalListener);
 			fRemoteThread = new Thread(new RemotePoller());
 			fRemoteThread.setDaemon(true);
 			fRemoteThread.start();
@@ -127,19 +147,78 @@ public class JournalObserver implements Adaptable, Closeable {
 		return this;
 	}
 
+	private void wakeRemotePoller() {
+		synchronized (fRemoteLock) {
+			fRemotePending = true;
+			fRemoteLock.notifyAll();
+		}
+	}
+
 	public boolean isLive() {
 		return (fThread != null && !fCloseRequested);
 	}
 
 	public JournalObserver comitted(String id) {
+		return comitted(id, false);
+	}
+
+	/**
+	 * Queues a committed transaction. With {@code searchIndexDeferred} its
+	 * events are still posted, and removed items still leave the index, but
+	 * the items it wrote are not indexed; the committer is expected to queue
+	 * {@link #requestSearchIndexRebuild(Collection)} for them instead.
+	 */
+	public JournalObserver comitted(String id, boolean searchIndexDeferred) {
 		synchronized (fTransactionIdentifiers) {
 			fTransactionIdentifiers.add(id);
+			if (searchIndexDeferred) {
+				fSearchIndexDeferred.add(id);
+			}
 			fTransactionIdentifiers.notifyAll();
 		}
 
 		return this;
 	}
 
+	/**
+	 * Queues a rebuild of the search index for the subtrees at
+	 * {@code absPaths}. It runs on the observer thread after every transaction
+	 * queued before it, so a removal replayed from one of them never undoes
+	 * the rebuilt entries, and it commits the index writers once at the end
+	 * instead of per node or per subtree.
+	 */
+	public JournalObserver requestSearchIndexRebuild(Collection<String> absPaths) {
+		synchronized (fTransactionIdentifiers) {
+			String id = UUID.randomUUID().toString();
+			fSearchIndexRebuilds.put(id, new ArrayList<>(absPaths));
+			fTransactionIdentifiers.add(id);
+			fTransactionIdentifiers.notifyAll();
+		}
+
+		return this;
+	}
+
+	private void rebuildSearchIndex(JcrWorkspace workspace, List<String> absPaths) throws RepositoryException, IOException {
+		Session session = workspace.getSession();
+		SearchIndex.UpdateMonitor monitor = new SearchIndex.UpdateMonitor() {
+			@Override
+			public boolean isCancelled() {
+				return fCloseRequested;
+			}
+
+			@Override
+			public Consumer<String> getPathConsumer() {
+				return null;
+			}
+		};
+		for (String absPath : absPaths) {
+			if (session.nodeExists(absPath)) {
+				buildSearchIndex(session.getNode(absPath), monitor, false);
+			}
+		}
+		commitSearchIndexWriters();
+	}
+
 	@Override
 	public synchronized void close() throws IOException {
 		if (fCloseRequested) {
@@ -150,9 +229,11 @@ public class JournalObserver implements Adaptable, Closeable {
 		synchronized (fTransactionIdentifiers) {
 			fTransactionIdentifiers.notifyAll();
 		}
-		synchronized (fRemoteLock) {
-			fRemoteLock.notifyAll();
+		ClusterController clusterController = adaptTo(ClusterController.class);
+		if (clusterController != null) {
+			clusterController.removeChannelListener(ClusterController.JOURNAL_CHANNEL, fJournalListener);
 		}
+		wakeRemotePoller();
 		try {
 			fThread.interrupt();
 			fThread.join(10000);
@@ -1046,6 +1127,11 @@ public class JournalObserver implements Adaptable, Closeable {
 	 */
 	private void processTransaction(JcrWorkspace workspace, String transactionId)
 			throws IOException, SQLException, RepositoryException {
+		processTransaction(workspace, transactionId, false);
+	}
+
+	private void processTransaction(JcrWorkspace workspace, String transactionId, boolean searchIndexDeferred)
+			throws IOException, SQLException, RepositoryException {
 		WorkspaceQuery workspaceQuery = Adaptables.getAdapter(workspace, WorkspaceQuery.class);
 		try (Query.Result result = workspaceQuery.journal().listJournal(transactionId)) {
 			Map<String, AdaptableMap<String, Object>> events = new LinkedHashMap<>();
@@ -1221,7 +1307,9 @@ public class JournalObserver implements Adaptable, Closeable {
 					postEvent(event);
 					try {
 						Node item = workspace.getSession().getNodeByIdentifier(id);
-						updateSearchIndex(event, item);
+						if (!searchIndexDeferred) {
+							updateSearchIndex(event, item);
+						}
 					} catch (ItemNotFoundException ignore) {
 						if (isFolderType(event.getString("primary_type"), workspace)) {
 							removedFolderEvents.add(event);
@@ -1290,6 +1378,8 @@ public class JournalObserver implements Adaptable, Closeable {
 					break;
 				}
 				String transactionId;
+				List<String> rebuildPaths;
+				boolean searchIndexDeferred;
 				synchronized (fTransactionIdentifiers) {
 					if (fTransactionIdentifiers.isEmpty()) {
 						try {
@@ -1299,10 +1389,16 @@ public class JournalObserver implements Adaptable, Closeable {
 					}
 
 					transactionId = fTransactionIdentifiers.remove(0);
+					rebuildPaths = fSearchIndexRebuilds.remove(transactionId);
+					searchIndexDeferred = fSearchIndexDeferred.remove(transactionId);
 				}
 
 				try (JcrWorkspace workspace = fWorkspaceProvider.createSession(new SystemPrincipal())) {
-					processTransaction(workspace, transactionId);
+					if (rebuildPaths != null) {
+						rebuildSearchIndex(workspace, rebuildPaths);
+					} else {
+						processTransaction(workspace, transactionId, searchIndexDeferred);
+					}
 				} catch (Throwable ex) {
 					Activator.getDefault().getLogger(JournalObserver.class).error("An error occurred while writing the journal: " + transactionId, ex);
 					if (!fCloseRequested) {
@@ -1367,10 +1463,19 @@ public class JournalObserver implements Adaptable, Closeable {
 				}
 				appliedRemoteChange = false;
 
+				// When commits are announced to every node, the wait is only a
+				// safety sweep for a lost notification.
+				long waitMillis = pollInterval;
+				if (adaptTo(ClusterController.class).isPushNotificationEnabled()) {
+					waitMillis = Math.max(ceiling, ClusterController.SAFETY_SWEEP_INTERVAL_MILLIS);
+				}
 				synchronized (fRemoteLock) {
 					try {
-						fRemoteLock.wait(pollInterval);
+						if (!fRemotePending) {
+							fRemoteLock.wait(waitMillis);
+						}
 					} catch (InterruptedException ignore) {}
+					fRemotePending = false;
 				}
 
 				if (fCloseRequested) {
@@ -1415,6 +1520,8 @@ public class JournalObserver implements Adaptable, Closeable {
 						if (!fProcessed.contains(transactionId)) {
 							invalidate(workspace, transactionId);
 							processTransaction(workspace, transactionId);
+							adaptTo(ClusterController.class).recordDeliveryLatency("journal",
+									System.currentTimeMillis() - marker.getLong("committed"));
 							fProcessed.add(transactionId);
 							// Real remote activity this cycle: keep polling at the floor.
 							appliedRemoteChange = true;
@@ -1442,6 +1549,12 @@ public class JournalObserver implements Adaptable, Closeable {
 						connection.commit();
 						consumed = newConsumed;
 					}
+
+					if (markers.size() == BATCH_LIMIT && stable) {
+						// The whole batch was consumed and more markers may be
+						// waiting behind it.
+						wakeRemotePoller();
+					}
 				} catch (Throwable ex) {
 					Activator.getDefault().getLogger(JournalObserver.class)
 							.error("An error occurred while consuming the cluster journal.", ex);
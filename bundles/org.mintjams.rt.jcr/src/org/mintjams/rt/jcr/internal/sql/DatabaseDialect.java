@@ -22,8 +22,12 @@
 
 package org.mintjams.rt.jcr.internal.sql;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.function.Consumer;
 
 /**
  * Absorbs the differences between the database products that can host a JCR
@@ -52,6 +56,16 @@ public interface DatabaseDialect {
 	 */
 	String arrayContains(String arrayExpression, String valueExpression);
 
+	/**
+	 * Returns an SQL expression for use in {@code ORDER BY} and range
+	 * comparisons that sorts the character expression in the same order as
+	 * {@link String#compareTo} (binary code-point order) regardless of the
+	 * database's collation. Used where rows are merge-joined against a
+	 * sorted Java-side sequence, such as the blob garbage collector's walk
+	 * of the blob store, whose partition bounds are computed in that order.
+	 */
+	String binaryOrder(String expression);
+
 	/**
 	 * Returns whether a statement failure aborts the surrounding transaction
 	 * until it is rolled back (PostgreSQL semantics). Callers that want to
@@ -105,4 +119,38 @@ public interface DatabaseDialect {
 	 */
 	Connection wrap(Connection connection) throws SQLException;
 
+	/**
+	 * Returns whether notifications sent with {@link #sendNotification} reach
+	 * listeners in other processes. When {@code false} they only reach the
+	 * listeners in this JVM, and readers of the notified tables keep polling
+	 * at their usual cadence.
+	 */
+	boolean isNotificationClusterWide();
+
+	/**
+	 * Announces on the given channel that new rows have been committed. Call
+	 * it after the commit that made the rows visible; it runs and commits its
+	 * own statement on the given connection. Delivery is best-effort, so
+	 * listeners still sweep the notified tables now and then.
+	 */
+	void sendNotification(Connection connection, String channel) throws SQLException;
+
+	/**
+	 * Listens on the given channels and passes the channel of every
+	 * notification received to the handler, on a thread owned by the listener.
+	 * Notifications may be missed while the listener reconnects, so the handler
+	 * is called for every channel once listening resumes. Closing the returned
+	 * handle stops listening.
+	 */
+	Closeable listen(ConnectionSource connections, Collection<String> channels, Consumer<String> handler)
+			throws IOException;
+
+	/**
+	 * Supplies the connections a notification listener listens on. They come
+	 * from the workspace's connection pool, with auto-commit disabled.
+	 */
+	interface ConnectionSource {
+		Connection getConnection() throws SQLException;
+	}
+
 }
@@ -36,7 +36,7 @@ public final class Dialects {
 
 		String url = jdbcUrl.trim().toLowerCase();
 		if (url.startsWith("jdbc:h2:")) {
-			return new H2Dialect();
+			return new H2Dialect(jdbcUrl);
 		}
 		if (url.startsWith("jdbc:postgresql:")) {
 			return new PostgreSqlDialect();
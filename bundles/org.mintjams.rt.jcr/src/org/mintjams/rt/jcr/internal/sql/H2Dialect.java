@@ -22,18 +22,28 @@
 
 package org.mintjams.rt.jcr.internal.sql;
 
+import java.io.Closeable;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.function.Consumer;
 
 /**
  * Dialect for H2, both embedded (the standalone default) and server mode.
  * H2 binds Java arrays and reads array columns natively, so no JDBC
- * adaptation is required.
+ * adaptation is required. H2 has no notification mechanism, so
+ * notifications only reach the listeners in this JVM.
  */
 public class H2Dialect implements DatabaseDialect {
 
 	public static final String NAME = "h2";
 
+	private final String fDatabaseKey;
+
+	public H2Dialect(String jdbcUrl) {
+		fDatabaseKey = InProcessNotifications.getDatabaseKey(jdbcUrl);
+	}
+
 	@Override
 	public String getName() {
 		return NAME;
@@ -44,6 +54,13 @@ public class H2Dialect implements DatabaseDialect {
 		return "ARRAY_CONTAINS(" + arrayExpression + ", " + valueExpression + ")";
 	}
 
+	@Override
+	public String binaryOrder(String expression) {
+		// Without a configured collation H2 compares strings with
+		// String.compareTo already.
+		return expression;
+	}
+
 	@Override
 	public boolean isTransactionAbortedOnError() {
 		return false;
@@ -67,4 +84,19 @@ public class H2Dialect implements DatabaseDialect {
 		return connection;
 	}
 
+	@Override
+	public boolean isNotificationClusterWide() {
+		return false;
+	}
+
+	@Override
+	public void sendNotification(Connection connection, String channel) {
+		InProcessNotifications.send(fDatabaseKey, channel);
+	}
+
+	@Override
+	public Closeable listen(ConnectionSource connections, Collection<String> channels, Consumer<String> handler) {
+		return InProcessNotifications.listen(fDatabaseKey, channels, handler);
+	}
+
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.jcr.internal.sql;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.mintjams.rt.jcr.internal.Activator;
+
+/**
+ * Notification channels for databases without a notification mechanism of
+ * their own. Notifications are delivered to the listeners registered in this
+ * JVM for the same database, identified by its JDBC URL without connection
+ * options. This is enough for several cluster nodes that run in one JVM, such
+ * as a test setup; nodes in other processes fall back to polling.
+ */
+final class InProcessNotifications {
+
+	private static final Map<String, List<Registration>> fRegistrations = new ConcurrentHashMap<>();
+
+	private InProcessNotifications() {}
+
+	/**
+	 * Returns the key under which the listeners of the given database are
+	 * registered: the JDBC URL up to its first connection option.
+	 */
+	static String getDatabaseKey(String jdbcUrl) {
+		int i = jdbcUrl.indexOf(';');
+		return ((i < 0) ? jdbcUrl : jdbcUrl.substring(0, i)).trim();
+	}
+
+	static void send(String databaseKey, String channel) {
+		for (Registration registration : fRegistrations.getOrDefault(key(databaseKey, channel), List.of())) {
+			registration.deliver(channel);
+		}
+	}
+
+	static Closeable listen(String databaseKey, Collection<String> channels, Consumer<String> handler) {
+		List<String> keys = new ArrayList<>();
+		Registration registration = new Registration(handler);
+		for (String channel : channels) {
+			String key = key(databaseKey, channel);
+			fRegistrations.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(registration);
+			keys.add(key);
+		}
+		return () -> {
+			for (String key : keys) {
+				fRegistrations.computeIfPresent(key, (k, registrations) -> {
+					registrations.remove(registration);
+					return registrations.isEmpty() ? null : registrations;
+				});
+			}
+		};
+	}
+
+	private static String key(String databaseKey, String channel) {
+		return databaseKey + "#" + channel;
+	}
+
+	private static class Registration {
+		private final Consumer<String> fHandler;
+
+		private Registration(Consumer<String> handler) {
+			fHandler = handler;
+		}
+
+		private void deliver(String channel) {
+			try {
+				fHandler.accept(channel);
+			} catch (Throwable ex) {
+				Activator.getDefault().getLogger(InProcessNotifications.class)
+						.warn("An error occurred while delivering a notification on channel '" + channel + "'.", ex);
+			}
+		}
+	}
+
+}
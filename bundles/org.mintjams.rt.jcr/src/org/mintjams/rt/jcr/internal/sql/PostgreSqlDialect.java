@@ -22,14 +22,20 @@
 
 package org.mintjams.rt.jcr.internal.sql;
 
+import java.io.Closeable;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.function.Consumer;
 
 /**
  * Dialect for PostgreSQL, the recommended database for clustered
  * deployments. PostgreSQL's JDBC driver neither accepts plain Java arrays
  * for array columns nor returns them when reading, so connections are
  * wrapped with {@link JdbcArrayAdapter} to translate in both directions.
+ * Notifications use {@code LISTEN}/{@code NOTIFY}, which reaches every
+ * node connected to the database.
  */
 public class PostgreSqlDialect implements DatabaseDialect {
 
@@ -45,6 +51,14 @@ public class PostgreSqlDialect implements DatabaseDialect {
 		return "(" + valueExpression + " = ANY(" + arrayExpression + "))";
 	}
 
+	@Override
+	public String binaryOrder(String expression) {
+		// The "C" collation compares bytes, which for the ASCII identifiers
+		// sorted this way matches String.compareTo; the database default
+		// collation usually follows the locale and does not.
+		return expression + " COLLATE \"C\"";
+	}
+
 	@Override
 	public boolean isTransactionAbortedOnError() {
 		return true;
@@ -70,4 +84,22 @@ public class PostgreSqlDialect implements DatabaseDialect {
 		return JdbcArrayAdapter.wrap(connection);
 	}
 
+	@Override
+	public boolean isNotificationClusterWide() {
+		return true;
+	}
+
+	@Override
+	public void sendNotification(Connection connection, String channel) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("NOTIFY " + channel);
+		}
+		connection.commit();
+	}
+
+	@Override
+	public Closeable listen(ConnectionSource connections, Collection<String> channels, Consumer<String> handler) {
+		return PostgreSqlNotificationListener.create(connections, channels, handler).open();
+	}
+
 }
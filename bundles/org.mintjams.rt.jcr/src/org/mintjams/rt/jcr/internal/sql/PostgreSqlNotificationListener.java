@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.jcr.internal.sql;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.mintjams.rt.jcr.internal.Activator;
+
+/**
+ * Receives PostgreSQL {@code NOTIFY} messages on a dedicated pooled
+ * connection that has issued {@code LISTEN} for each channel. The driver
+ * lives in its own bundle and is resolved through the bundle's dynamic
+ * import, so it is accessed reflectively.
+ */
+class PostgreSqlNotificationListener implements Closeable {
+
+	private static final int RECEIVE_TIMEOUT_MILLIS = 1000;
+	private static final long RECONNECT_INTERVAL_MILLIS = 5000L;
+
+	private final DatabaseDialect.ConnectionSource fConnections;
+	private final List<String> fChannels;
+	private final Consumer<String> fHandler;
+	private Thread fThread;
+	private volatile boolean fCloseRequested;
+
+	private PostgreSqlNotificationListener(DatabaseDialect.ConnectionSource connections, Collection<String> channels,
+			Consumer<String> handler) {
+		fConnections = connections;
+		fChannels = new ArrayList<>(channels);
+		fHandler = handler;
+	}
+
+	static PostgreSqlNotificationListener create(DatabaseDialect.ConnectionSource connections,
+			Collection<String> channels, Consumer<String> handler) {
+		for (String channel : channels) {
+			if (!channel.matches("[a-z_][a-z0-9_]*")) {
+				throw new IllegalArgumentException("Invalid notification channel: " + channel);
+			}
+		}
+		return new PostgreSqlNotificationListener(connections, channels, handler);
+	}
+
+	synchronized PostgreSqlNotificationListener open() {
+		if (fThread != null) {
+			return this;
+		}
+
+		fThread = new Thread(this::run, getClass().getSimpleName());
+		fThread.setDaemon(true);
+		fThread.start();
+		return this;
+	}
+
+	private void run() {
+		boolean resumed = false;
+		while (!fCloseRequested) {
+			try (Connection connection = fConnections.getConnection()) {
+				try {
+					try (Statement statement = connection.createStatement()) {
+						for (String channel : fChannels) {
+							statement.execute("LISTEN " + channel);
+						}
+					}
+					connection.commit();
+
+					if (resumed) {
+						// Anything sent while the listener was away is lost.
+						for (String channel : fChannels) {
+							deliver(channel);
+						}
+					}
+					resumed = true;
+
+					receive(connection);
+				} finally {
+					// The connection goes back to the pool; it must not keep
+					// collecting notifications there.
+					try (Statement statement = connection.createStatement()) {
+						statement.execute("UNLISTEN *");
+						connection.commit();
+					} catch (Throwable ignore) {}
+				}
+			} catch (Throwable ex) {
+				if (fCloseRequested) {
+					break;
+				}
+				Activator.getDefault().getLogger(getClass())
+						.warn("An error occurred while listening for database notifications.", ex);
+				try {
+					Thread.sleep(RECONNECT_INTERVAL_MILLIS);
+				} catch (InterruptedException ignore) {}
+			}
+		}
+	}
+
+	private void receive(Connection connection) throws Exception {
+		ClassLoader classLoader = PostgreSqlNotificationListener.class.getClassLoader();
+		Class<?> pgConnectionClass = Class.forName("org.postgresql.PGConnection", true, classLoader);
+		Class<?> pgNotificationClass = Class.forName("org.postgresql.PGNotification", true, classLoader);
+		Method getNotifications = pgConnectionClass.getMethod("getNotifications", int.class);
+		Method getName = pgNotificationClass.getMethod("getName");
+		Object pgConnection = connection.unwrap(pgConnectionClass);
+
+		while (!fCloseRequested) {
+			Object[] notifications = (Object[]) getNotifications.invoke(pgConnection, RECEIVE_TIMEOUT_MILLIS);
+			if (notifications == null || notifications.length == 0) {
+				continue;
+			}
+
+			// A burst of commits arrives as one batch; each channel is
+			// delivered once.
+			Set<String> channels = new LinkedHashSet<>();
+			for (Object notification : notifications) {
+				channels.add((String) getName.invoke(notification));
+			}
+			for (String channel : channels) {
+				deliver(channel);
+			}
+		}
+	}
+
+	private void deliver(String channel) {
+		try {
+			fHandler.accept(channel);
+		} catch (Throwable ex) {
+			Activator.getDefault().getLogger(getClass())
+					.warn("An error occurred while delivering a notification on channel '" + channel + "'.", ex);
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if (fCloseRequested) {
+			return;
+		}
+
+		fCloseRequested = true;
+		if (fThread != null) {
+			try {
+				fThread.interrupt();
+				fThread.join(10000);
+			} catch (InterruptedException ignore) {}
+			fThread = null;
+		}
+	}
+
+}
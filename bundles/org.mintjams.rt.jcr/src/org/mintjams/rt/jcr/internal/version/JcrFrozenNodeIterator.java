@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.mintjams.rt.jcr.internal.version;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.version.VersionIterator;
+
+import org.mintjams.tools.lang.Cause;
+
+/**
+ * Iterates the frozen nodes of a sequence of versions. A frozen node is looked
+ * up only when the iteration reaches its version, so walking a long history
+ * does not resolve the frozen trees of versions that are never visited.
+ */
+public class JcrFrozenNodeIterator implements NodeIterator {
+
+	private final VersionIterator fVersions;
+
+	private JcrFrozenNodeIterator(VersionIterator versions) {
+		fVersions = versions;
+	}
+
+	public static JcrFrozenNodeIterator create(VersionIterator versions) {
+		return new JcrFrozenNodeIterator(versions);
+	}
+
+	@Override
+	public long getPosition() {
+		return fVersions.getPosition();
+	}
+
+	@Override
+	public long getSize() {
+		return fVersions.getSize();
+	}
+
+	@Override
+	public void skip(long skipNum) {
+		fVersions.skip(skipNum);
+	}
+
+	@Override
+	public boolean hasNext() {
+		return fVersions.hasNext();
+	}
+
+	@Override
+	public Object next() {
+		return nextNode();
+	}
+
+	@Override
+	public Node nextNode() {
+		try {
+			return fVersions.nextVersion().getFrozenNode();
+		} catch (RepositoryException ex) {
+			throw Cause.create(ex).wrap(IllegalStateException.class);
+		}
+	}
+
+}
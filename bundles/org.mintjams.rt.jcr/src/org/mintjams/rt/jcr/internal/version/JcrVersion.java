@@ -649,6 +649,8 @@ public class JcrVersion implements Version, Adaptable {
 						workspaceQuery.createValues(PropertyType.REFERENCE, l.toArray()));
 			}
 
+			// Later versions may share frozen subtrees of this one; keep those.
+			workspaceQuery.items().releaseSharedNodes(getPath());
 			workspace.getSession().getNodeByIdentifier(getIdentifier()).remove();
 
 			workspace.getSession().save();
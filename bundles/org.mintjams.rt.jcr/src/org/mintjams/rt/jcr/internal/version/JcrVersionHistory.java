@@ -29,6 +29,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Comparator;
+import java.util.LinkedList;
 import java.util.List;
 
 import javax.jcr.AccessDeniedException;
@@ -643,20 +644,33 @@ public class JcrVersionHistory implements VersionHistory, Adaptable {
 
 	@Override
 	public NodeIterator getAllFrozenNodes() throws RepositoryException {
-		// TODO Auto-generated method stub
-		return null;
+		return JcrFrozenNodeIterator.create(getAllVersions());
 	}
 
 	@Override
 	public NodeIterator getAllLinearFrozenNodes() throws RepositoryException {
-		// TODO Auto-generated method stub
-		return null;
+		return JcrFrozenNodeIterator.create(getAllLinearVersions());
 	}
 
 	@Override
 	public VersionIterator getAllLinearVersions() throws RepositoryException {
-		// TODO Auto-generated method stub
-		return null;
+		Node item;
+		try {
+			item = fItem.getSession().getNodeByIdentifier(getVersionableIdentifier());
+		} catch (ItemNotFoundException ex) {
+			// Without the versionable node there is no base version to follow.
+			return getAllVersions();
+		}
+
+		// The line of first predecessors from the base version back to the root version.
+		LinkedList<Version> l = new LinkedList<>();
+		Version version = Adaptables.getAdapter(item.getProperty(Property.JCR_BASE_VERSION).getNode(), Version.class);
+		while (version != null) {
+			l.addFirst(version);
+			Version[] predecessors = version.getPredecessors();
+			version = (predecessors.length == 0) ? null : predecessors[0];
+		}
+		return JcrVersionIterator.create(l);
 	}
 
 	@Override
@@ -23,13 +23,20 @@
 package org.mintjams.rt.jcr.internal.version;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 import javax.jcr.AccessDeniedException;
 import javax.jcr.InvalidItemStateException;
@@ -63,6 +70,7 @@ import org.mintjams.rt.jcr.internal.JcrProperty;
 import org.mintjams.rt.jcr.internal.JcrSession;
 import org.mintjams.rt.jcr.internal.JcrWorkspace;
 import org.mintjams.rt.jcr.internal.JcrWorkspaceProvider;
+import org.mintjams.rt.jcr.internal.PropertyValueCodec;
 import org.mintjams.rt.jcr.internal.WorkspaceQuery;
 import org.mintjams.rt.jcr.internal.lock.JcrLock;
 import org.mintjams.rt.jcr.internal.lock.JcrLockManager;
@@ -72,6 +80,8 @@ import org.mintjams.tools.adapter.Adaptable;
 import org.mintjams.tools.adapter.Adaptables;
 import org.mintjams.tools.collections.AdaptableMap;
 import org.mintjams.tools.lang.Cause;
+import org.mintjams.tools.lang.Strings;
+import org.mintjams.tools.sql.Query;
 
 public class JcrVersionManager implements VersionManager, Adaptable {
 
@@ -218,8 +228,18 @@ public class JcrVersionManager implements VersionManager, Adaptable {
 				}
 			}
 
+			// Unchanged subtrees are shared with the base version instead of copied,
+			// so the version grows by the changed items only.
+			Map<String, String> contentHashes = new HashMap<>();
+			computeContentHash(item.getIdentifier(), getExcludedPropertyNames(workspaceQuery), contentHashes, workspaceQuery);
+			String baseFrozenNodeId = null;
+			try {
+				baseFrozenNodeId = getContentIdentifier(workspaceQuery.items().getNode(
+						JcrPath.valueOf(baseVersionData.getString("item_path")).resolve(JcrNode.JCR_FROZEN_NODE).toString()));
+			} catch (PathNotFoundException ignore) {}
+
 			AdaptableMap<String, Object> frozenNodeData = workspaceQuery.items().createNode(versionPath.resolve(JcrNode.JCR_FROZEN_NODE).toString(), NodeType.NT_FROZEN_NODE);
-			freeze(item, frozenNodeData, workspaceQuery);
+			freeze(item, frozenNodeData, baseFrozenNodeId, contentHashes, workspaceQuery);
 
 			workspaceQuery.items().setProperty(item.getIdentifier(), JcrProperty.JCR_IS_CHECKED_OUT, PropertyType.BOOLEAN, workspaceQuery.createValue(PropertyType.BOOLEAN, false));
 			workspaceQuery.items().setProperty(item.getIdentifier(), JcrProperty.JCR_BASE_VERSION, PropertyType.REFERENCE, workspaceQuery.createValue(PropertyType.REFERENCE, versionId));
@@ -629,22 +649,21 @@ public class JcrVersionManager implements VersionManager, Adaptable {
 		}
 	}
 
-	private void freeze(Node item, AdaptableMap<String, Object> frozenNodeData, WorkspaceQuery workspaceQuery) throws IOException, SQLException, RepositoryException {
+	/**
+	 * Copies the given item into the frozen node. A child whose subtree hashes
+	 * the same as the corresponding child of the base version's frozen node is
+	 * not copied: a shared node pointing at that child takes its place.
+	 */
+	private void freeze(Node item, AdaptableMap<String, Object> frozenNodeData, String baseFrozenNodeId,
+			Map<String, String> contentHashes, WorkspaceQuery workspaceQuery) throws IOException, SQLException, RepositoryException {
 		String frozenNodeId = frozenNodeData.getString("item_id");
+		Set<String> excludedPropertyNames = getExcludedPropertyNames(workspaceQuery);
+		workspaceQuery.items().setContentHash(frozenNodeId, contentHashes.get(item.getIdentifier()));
 		workspaceQuery.items().setProperty(frozenNodeId, JcrProperty.JCR_FROZEN_UUID, PropertyType.STRING, workspaceQuery.createValue(PropertyType.STRING, item.getIdentifier()));
 		for (PropertyIterator i = item.getProperties(); i.hasNext();) {
 			Property p = i.nextProperty();
 
-			if (p.getName().equals(workspaceQuery.getResolved(JcrProperty.JCR_LOCK_IS_DEEP))
-					|| p.getName().equals(workspaceQuery.getResolved(JcrProperty.JCR_LOCK_OWNER))
-					|| p.getName().equals(workspaceQuery.getResolved(JcrProperty.JCR_IS_CHECKED_OUT))
-					|| p.getName().equals(workspaceQuery.getResolved(JcrProperty.JCR_VERSION_HISTORY))
-					|| p.getName().equals(workspaceQuery.getResolved(JcrProperty.JCR_BASE_VERSION))
-					|| p.getName().equals(workspaceQuery.getResolved(JcrProperty.JCR_PREDECESSORS))
-					|| p.getName().equals(workspaceQuery.getResolved(JcrProperty.JCR_UUID))
-					|| p.getName().equals(workspaceQuery.getResolved(JcrProperty.JCR_MERGE_FAILED))
-					|| p.getName().equals(workspaceQuery.getResolved(JcrProperty.JCR_ACTIVITY))
-					|| p.getName().equals(workspaceQuery.getResolved(JcrProperty.JCR_CONFIGURATION))) {
+			if (excludedPropertyNames.contains(p.getName())) {
 				continue;
 			}
 
@@ -664,12 +683,112 @@ public class JcrVersionManager implements VersionManager, Adaptable {
 			}
 		}
 
+		Map<String, AdaptableMap<String, Object>> baseChildren = new HashMap<>();
+		if (baseFrozenNodeId != null) {
+			try (Query.Result result = workspaceQuery.items().listNodes(baseFrozenNodeId, null, 0, true)) {
+				for (AdaptableMap<String, Object> itemData : result) {
+					baseChildren.put(workspaceQuery.getResolved(itemData.getString("item_name")), itemData);
+				}
+			}
+		}
+
 		for (NodeIterator i = item.getNodes(); i.hasNext();) {
 			Node childItem = i.nextNode();
 			JcrPath childFrozenNodePath = JcrPath.valueOf(frozenNodeData.getString("item_path")).resolve(childItem.getName());
+			AdaptableMap<String, Object> baseChildData = baseChildren.get(workspaceQuery.getResolved(childItem.getName()));
+			String contentHash = contentHashes.get(childItem.getIdentifier());
+			if (baseChildData != null && contentHash != null && contentHash.equals(baseChildData.getString("content_hash"))) {
+				workspaceQuery.items().createSharedNode(childFrozenNodePath.toString(), getContentIdentifier(baseChildData), contentHash);
+				continue;
+			}
+
 			AdaptableMap<String, Object> childFrozenNodeData = workspaceQuery.items().createNode(childFrozenNodePath.toString(), NodeType.NT_FROZEN_NODE);
-			freeze(childItem, childFrozenNodeData, workspaceQuery);
+			freeze(childItem, childFrozenNodeData, (baseChildData == null) ? null : getContentIdentifier(baseChildData),
+					contentHashes, workspaceQuery);
+		}
+	}
+
+	private Set<String> getExcludedPropertyNames(WorkspaceQuery workspaceQuery) {
+		return Set.of(workspaceQuery.getResolved(JcrProperty.JCR_LOCK_IS_DEEP),
+				workspaceQuery.getResolved(JcrProperty.JCR_LOCK_OWNER),
+				workspaceQuery.getResolved(JcrProperty.JCR_IS_CHECKED_OUT),
+				workspaceQuery.getResolved(JcrProperty.JCR_VERSION_HISTORY),
+				workspaceQuery.getResolved(JcrProperty.JCR_BASE_VERSION),
+				workspaceQuery.getResolved(JcrProperty.JCR_PREDECESSORS),
+				workspaceQuery.getResolved(JcrProperty.JCR_UUID),
+				workspaceQuery.getResolved(JcrProperty.JCR_MERGE_FAILED),
+				workspaceQuery.getResolved(JcrProperty.JCR_ACTIVITY),
+				workspaceQuery.getResolved(JcrProperty.JCR_CONFIGURATION));
+	}
+
+	private String getContentIdentifier(AdaptableMap<String, Object> itemData) {
+		String sharedItemId = itemData.getString("shared_item_id");
+		return Strings.isEmpty(sharedItemId) ? itemData.getString("item_id") : sharedItemId;
+	}
+
+	/**
+	 * Computes the digest of the live subtree rooted at the given item from its
+	 * stored rows: identifier, the properties a frozen node keeps, and the names
+	 * and digests of the child nodes in order. The digests of all nodes in the
+	 * subtree are collected into {@code contentHashes}. Binary values are
+	 * covered by their storage keys, so no content is read.
+	 *
+	 * <p>Digests are kept on frozen nodes only, and the live subtree is read
+	 * in full at every check-in. A digest kept on a live node could not be
+	 * trusted: a transaction changing a descendant concurrently cannot see it
+	 * to clear it, and the change would then be lost from the next version.
+	 */
+	private String computeContentHash(String id, Set<String> excludedPropertyNames, Map<String, String> contentHashes,
+			WorkspaceQuery workspaceQuery) throws IOException, SQLException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			throw Cause.create(ex).wrap(IllegalStateException.class);
 		}
+		update(digest, id);
+
+		Map<String, AdaptableMap<String, Object>> properties = new TreeMap<>();
+		try (Query.Result result = workspaceQuery.items().listProperties(id, null, 0)) {
+			for (AdaptableMap<String, Object> itemData : result) {
+				if (itemData.getBoolean("is_deleted") || excludedPropertyNames.contains(itemData.getString("item_name"))) {
+					continue;
+				}
+				properties.put(itemData.getString("item_name"), itemData);
+			}
+		}
+		for (AdaptableMap<String, Object> itemData : properties.values()) {
+			update(digest, itemData.getString("item_name"));
+			update(digest, String.valueOf(itemData.getInteger("property_type")));
+			update(digest, String.valueOf(itemData.getBoolean("is_multiple")));
+			// The legacy lexical form keeps digests stable across storage formats.
+			String[] values = PropertyValueCodec.toLegacyValues(itemData);
+			update(digest, String.valueOf(values.length));
+			for (String value : values) {
+				update(digest, value);
+			}
+		}
+
+		List<String[]> children = new ArrayList<>();
+		try (Query.Result result = workspaceQuery.items().listNodes(id, null, 0, true)) {
+			for (AdaptableMap<String, Object> itemData : result) {
+				children.add(new String[] { itemData.getString("item_name"), itemData.getString("item_id") });
+			}
+		}
+		for (String[] child : children) {
+			update(digest, child[0]);
+			update(digest, computeContentHash(child[1], excludedPropertyNames, contentHashes, workspaceQuery));
+		}
+
+		String contentHash = HexFormat.of().formatHex(digest.digest());
+		contentHashes.put(id, contentHash);
+		return contentHash;
+	}
+
+	private void update(MessageDigest digest, String value) {
+		byte[] b = value.getBytes(StandardCharsets.UTF_8);
+		digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(b.length).array());
+		digest.update(b);
 	}
 
 	private void restore(AdaptableMap<String, Object> itemData, Node frozenNode, WorkspaceQuery workspaceQuery) throws IOException, SQLException, RepositoryException {
@@ -14,6 +14,20 @@ CREATE TABLE IF NOT EXISTS jcr_items (
 	-- JcrWorkspaceProvider#prepareInitialData so that it is added only after the
 	-- column exists on databases created before this column was introduced.
 	active_path VARCHAR,
+	-- Position of the node among its siblings when the parent keeps an ordered
+	-- child list (orderBefore). Keys are assigned with wide gaps so a reorder
+	-- normally rewrites a single row. 0 means "not ordered" and children with
+	-- equal keys fall back to name order. The (parent_item_id, sort_key) index
+	-- is created by the migration step in JcrWorkspaceProvider#prepareInitialData.
+	sort_key BIGINT NOT NULL DEFAULT 0,
+	-- Copy-on-write version storage. content_hash is the digest of the live
+	-- subtree a frozen node was taken from. A frozen node whose subtree is
+	-- unchanged since the base version stores no properties or child nodes of
+	-- its own: shared_item_id names the earlier frozen node it reads them from.
+	-- The shared_item_id index is created by the migration step in
+	-- JcrWorkspaceProvider#prepareInitialData.
+	content_hash VARCHAR,
+	shared_item_id VARCHAR,
 	PRIMARY KEY (item_id)
 );
 CREATE INDEX IF NOT EXISTS jcr_items_index1 ON jcr_items (parent_item_id, item_name);
@@ -28,6 +42,17 @@ CREATE TABLE IF NOT EXISTS jcr_properties (
 	property_value VARCHAR ARRAY NOT NULL,
 	is_multiple BOOLEAN NOT NULL,
 	is_deleted BOOLEAN NOT NULL DEFAULT FALSE,
+	-- Compact value storage (see PropertyValueCodec). value_format 0 rows
+	-- hold prefixed strings in property_value. value_format 1 rows keep a
+	-- single LONG, BOOLEAN or DOUBLE in value_long / value_double and pack
+	-- any other value list into value_data. value_date mirrors a single DATE
+	-- for range predicates. The indexes on these columns are created by the
+	-- migration step in JcrWorkspaceProvider#prepareInitialData.
+	value_format SMALLINT NOT NULL DEFAULT 0,
+	value_long BIGINT,
+	value_double DOUBLE PRECISION,
+	value_date TIMESTAMP WITH TIME ZONE,
+	value_data BYTEA,
 	PRIMARY KEY (item_id)
 );
 CREATE INDEX IF NOT EXISTS jcr_properties_index1 ON jcr_properties (parent_item_id, item_name);
@@ -19,21 +19,93 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-
 package org.mintjams.rt.log.file.internal;
 
+import java.nio.file.Path;
+
+import org.mintjams.tools.lang.Strings;
 import org.mintjams.tools.osgi.Properties;
+import org.osgi.framework.BundleContext;
 
 public class LogWriterConfiguration {
 
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 0;
+	public static final int DEFAULT_FLUSH_SIZE_KB = 64;
+	public static final int DEFAULT_MAX_FILE_SIZE_MB = 100;
+	public static final boolean DEFAULT_COMPRESS = true;
+	public static final int DEFAULT_MAX_HISTORY_DAYS = 0;
+	public static final int DEFAULT_MAX_TOTAL_SIZE_MB = 0;
+
 	private final Properties fProperties;
+	private final BundleContext fBundleContext;
 
-	private LogWriterConfiguration(Properties properties) {
+	private LogWriterConfiguration(Properties properties, BundleContext bundleContext) {
 		fProperties = properties;
+		fBundleContext = bundleContext;
+	}
+
+	public static LogWriterConfiguration create(Properties properties, BundleContext bundleContext) {
+		return new LogWriterConfiguration(properties, bundleContext);
+	}
+
+	public Path getLogPath() {
+		return Path.of(Strings.defaultIfEmpty(fBundleContext.getProperty("org.mintjams.log.rootdir"), "log")).normalize();
+	}
+
+	/**
+	 * How long written lines may stay in the buffer. {@code 0} (the default)
+	 * flushes after every batch of lines the writer picks up.
+	 */
+	public long getFlushIntervalMillis() {
+		return getLong("org.mintjams.log.flushIntervalMillis", DEFAULT_FLUSH_INTERVAL_MILLIS);
+	}
+
+	/** Buffered bytes that force a flush regardless of the interval. */
+	public long getFlushSize() {
+		return getLong("org.mintjams.log.flushSizeKB", DEFAULT_FLUSH_SIZE_KB) * 1024L;
+	}
+
+	/** Size at which the day's log file is rolled over; {@code 0} rotates by date only. */
+	public long getMaxFileSize() {
+		return getLong("org.mintjams.log.maxFileSizeMB", DEFAULT_MAX_FILE_SIZE_MB) * 1024L * 1024L;
+	}
+
+	/** Whether rotated log files are gzip-compressed. */
+	public boolean isCompress() {
+		String value = fBundleContext.getProperty("org.mintjams.log.compress");
+		if (Strings.isEmpty(value)) {
+			return DEFAULT_COMPRESS;
+		}
+		return Boolean.parseBoolean(value.trim());
+	}
+
+	/**
+	 * Days of rotated log files to keep; {@code 0} (the default) keeps them
+	 * all, so log files are only ever deleted when this or
+	 * {@link #getMaxTotalSize()} is configured.
+	 */
+	public int getMaxHistoryDays() {
+		return (int) getLong("org.mintjams.log.maxHistoryDays", DEFAULT_MAX_HISTORY_DAYS);
+	}
+
+	/**
+	 * Total size of the rotated log files to keep, oldest deleted first;
+	 * {@code 0} sets no limit.
+	 */
+	public long getMaxTotalSize() {
+		return getLong("org.mintjams.log.maxTotalSizeMB", DEFAULT_MAX_TOTAL_SIZE_MB) * 1024L * 1024L;
 	}
 
-	public static LogWriterConfiguration create(Properties properties) {
-		return new LogWriterConfiguration(properties);
+	private long getLong(String key, long defaultValue) {
+		String value = fBundleContext.getProperty(key);
+		if (Strings.isEmpty(value)) {
+			return defaultValue;
+		}
+		try {
+			return Math.max(Long.parseLong(value.trim()), 0);
+		} catch (NumberFormatException ex) {
+			return defaultValue;
+		}
 	}
 
 }
@@ -24,20 +24,29 @@ package org.mintjams.rt.log.file.internal;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 import org.mintjams.jcr.service.Bootstrap;
 import org.mintjams.jcr.service.ServiceMonitor;
 import org.mintjams.tools.io.Closer;
-import org.mintjams.tools.lang.Strings;
 import org.mintjams.tools.osgi.Properties;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.ComponentContext;
@@ -57,6 +66,9 @@ public class LogWriterService {
 
 	public static final String COMPONENT_NAME = "org.mintjams.rt.log.file.LogWriterService";
 
+	private static final Pattern LOG_FILENAME = Pattern.compile("ROOT\\.(\\d{4}-\\d{2}-\\d{2})(?:\\.(\\d+))?\\.log(\\.gz)?");
+
+
 	@Reference(cardinality = ReferenceCardinality.MANDATORY, policy = ReferencePolicy.STATIC)
 	private Bootstrap fBootstrap;
 
@@ -101,19 +113,26 @@ public class LogWriterService {
 
 	private class LogWriter implements LogListener, Closeable {
 		private LogWriterConfiguration fConfiguration;
-		private Thread fRotationThread;
 		private Thread fWriterThread;
-		private boolean fCloseRequested;
-		private final List<LogEntry> fLogEntries = new ArrayList<>();
-		private Path fPath;
-		private final Object fWriteLock = new Object();
+		private Thread fArchiverThread;
+		private volatile boolean fCloseRequested;
+		private final Object fQueueLock = new Object();
+		private List<LogEntry> fLogEntries = new ArrayList<>();
+		private final Object fArchiveLock = new Object();
+		private boolean fArchiveRequested;
+		private volatile Path fPath;
 		private Writer fWriter;
+		private String fDateString;
+		private long fNextRotation;
+		private long fFileSize;
+		private long fUnflushedSize;
+		private long fLastFlush;
 
 		@Override
 		public void logged(LogEntry logEntry) {
-			synchronized (fLogEntries) {
+			synchronized (fQueueLock) {
 				fLogEntries.add(logEntry);
-				fLogEntries.notifyAll();
+				fQueueLock.notifyAll();
 			}
 		}
 
@@ -122,16 +141,17 @@ public class LogWriterService {
 				return this;
 			}
 
-			fConfiguration = LogWriterConfiguration.create(fProperties);
-
-			fRotationThread = new Thread(new RotationTask());
-			fRotationThread.setDaemon(true);
-			fRotationThread.start();
+			fConfiguration = LogWriterConfiguration.create(fProperties, fBundleContext);
+			rotate(System.currentTimeMillis());
 
-			fWriterThread = new Thread(new WriterTask());
+			fWriterThread = new Thread(new WriterTask(), "log-writer");
 			fWriterThread.setDaemon(true);
 			fWriterThread.start();
 
+			fArchiverThread = new Thread(new ArchiverTask(), "log-archiver");
+			fArchiverThread.setDaemon(true);
+			fArchiverThread.start();
+
 			fLogReaderService.addLogListener(this);
 			return this;
 		}
@@ -144,79 +164,187 @@ public class LogWriterService {
 
 			fCloseRequested = true;
 			fLogReaderService.removeLogListener(this);
-			synchronized (fLogEntries) {
-				fLogEntries.notifyAll();
+			// The threads are woken rather than interrupted: an interrupt closes
+			// the file channel they may be writing to.
+			synchronized (fQueueLock) {
+				fQueueLock.notifyAll();
+			}
+			synchronized (fArchiveLock) {
+				fArchiveLock.notifyAll();
 			}
 			try {
-				fWriterThread.interrupt();
 				fWriterThread.join(10000);
 			} catch (InterruptedException ignore) {}
 			try {
-				fRotationThread.interrupt();
-				fRotationThread.join(10000);
+				fArchiverThread.join(10000);
 			} catch (InterruptedException ignore) {}
 			fWriterThread = null;
-			fRotationThread = null;
+			fArchiverThread = null;
 			fConfiguration = null;
 			fCloseRequested = false;
 		}
 
-		private class RotationTask implements Runnable {
-			private String fDateString;
+		private void write(List<LogEntry> logEntries) throws IOException {
+			long now = System.currentTimeMillis();
+			if (now >= fNextRotation || fWriter == null) {
+				rotate(now);
+			}
 
-			private RotationTask() throws IOException {
-				rotate();
+			if (logEntries != null) {
+				long maxFileSize = fConfiguration.getMaxFileSize();
+				for (LogEntry logEntry : logEntries) {
+					String line = logEntry.toString();
+					fWriter.append(line);
+					long size = getEncodedLength(line);
+					fFileSize += size;
+					fUnflushedSize += size;
+					if (maxFileSize > 0 && fFileSize >= maxFileSize) {
+						roll();
+					}
+				}
 			}
 
-			private void rotate() throws IOException {
-				String currentString = new SimpleDateFormat("yyyy-MM-dd").format(new java.util.Date());
-				if (fDateString != null && fDateString.equals(currentString)) {
-					return;
+			if (fUnflushedSize > 0) {
+				long flushInterval = fConfiguration.getFlushIntervalMillis();
+				if (flushInterval == 0 || fUnflushedSize >= fConfiguration.getFlushSize() || now - fLastFlush >= flushInterval) {
+					fWriter.flush();
+					fUnflushedSize = 0;
+					fLastFlush = now;
 				}
-				fDateString = currentString;
+			}
+		}
 
-				synchronized (fWriteLock) {
-					if (fWriter != null) {
-						fWriter.close();
-						fWriter = null;
-					}
+		/**
+		 * Returns the number of bytes the line takes up in the file (UTF-8),
+		 * without encoding it.
+		 */
+		private long getEncodedLength(String line) {
+			long size = 0;
+			for (int i = 0; i < line.length(); i++) {
+				char c = line.charAt(i);
+				if (c < 0x80) {
+					size += 1;
+				} else if (c < 0x800) {
+					size += 2;
+				} else if (Character.isHighSurrogate(c) && i + 1 < line.length() && Character.isLowSurrogate(line.charAt(i + 1))) {
+					size += 4;
+					i++;
+				} else {
+					size += 3;
+				}
+			}
+			return size;
+		}
 
-					String filename = "ROOT." + fDateString + ".log";
-					fPath = getLogPath().resolve(filename);
-					if (!Files.exists(fPath.getParent())) {
-						Files.createDirectories(fPath.getParent());
-					}
-					fWriter = Files.newBufferedWriter(fPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		private long getWaitMillis() {
+			long now = System.currentTimeMillis();
+			long waitMillis = fNextRotation - now;
+			if (fUnflushedSize > 0) {
+				waitMillis = Math.min(waitMillis, fLastFlush + fConfiguration.getFlushIntervalMillis() - now);
+			}
+			return Math.max(waitMillis, 1);
+		}
+
+		private void rotate(long now) throws IOException {
+			closeWriter();
+
+			LocalDate today = LocalDate.now();
+			fDateString = today.toString();
+			fNextRotation = today.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+			fPath = fConfiguration.getLogPath().resolve("ROOT." + fDateString + ".log");
+			if (!Files.exists(fPath.getParent())) {
+				Files.createDirectories(fPath.getParent());
+			}
+			openWriter();
+			requestArchive();
+		}
+
+		private void roll() throws IOException {
+			closeWriter();
+
+			Path rolledPath;
+			for (int i = 1;; i++) {
+				rolledPath = fPath.resolveSibling("ROOT." + fDateString + "." + i + ".log");
+				if (!Files.exists(rolledPath) && !Files.exists(rolledPath.resolveSibling(rolledPath.getFileName() + ".gz"))) {
+					break;
 				}
 			}
+			Files.move(fPath, rolledPath);
+			openWriter();
+			requestArchive();
+		}
+
+		private void openWriter() throws IOException {
+			fWriter = Files.newBufferedWriter(fPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			fFileSize = Files.size(fPath);
+			fUnflushedSize = 0;
+			fLastFlush = System.currentTimeMillis();
+		}
+
+		private void closeWriter() {
+			if (fWriter == null) {
+				return;
+			}
+
+			try {
+				fWriter.close();
+			} catch (Throwable ignore) {}
+			fWriter = null;
+			fUnflushedSize = 0;
+		}
 
-			private Path getLogPath() {
-				return Path.of(Strings.defaultIfEmpty(fBundleContext.getProperty("org.mintjams.log.rootdir"), "log")).normalize();
+		private void requestArchive() {
+			synchronized (fArchiveLock) {
+				fArchiveRequested = true;
+				fArchiveLock.notifyAll();
 			}
+		}
 
+		private class WriterTask implements Runnable {
 			@Override
 			public void run() {
-				while (!fCloseRequested) {
-					if (Thread.interrupted()) {
-						fCloseRequested = true;
-						break;
-					}
-					try {
-						Thread.sleep(1000);
-					} catch (InterruptedException ignore) {}
+				try {
+					while (!fCloseRequested) {
+						if (Thread.interrupted()) {
+							fCloseRequested = true;
+							break;
+						}
+						List<LogEntry> logEntries = null;
+						synchronized (fQueueLock) {
+							if (fLogEntries.isEmpty()) {
+								try {
+									fQueueLock.wait(getWaitMillis());
+								} catch (InterruptedException ignore) {}
+							}
+
+							if (!fLogEntries.isEmpty()) {
+								logEntries = fLogEntries;
+								fLogEntries = new ArrayList<>();
+							}
+						}
 
-					if (fCloseRequested) {
-						continue;
+						try {
+							write(logEntries);
+						} catch (Throwable ex) {
+							closeWriter();
+						}
 					}
 
+					List<LogEntry> logEntries;
+					synchronized (fQueueLock) {
+						logEntries = fLogEntries;
+						fLogEntries = new ArrayList<>();
+					}
 					try {
-						rotate();
-					} catch (Throwable ex) {}
+						write(logEntries);
+					} catch (Throwable ignore) {}
+				} finally {
+					closeWriter();
 				}
 			}
 		}
 
-		private class WriterTask implements Runnable {
+		private class ArchiverTask implements Runnable {
 			@Override
 			public void run() {
 				while (!fCloseRequested) {
@@ -224,26 +352,131 @@ public class LogWriterService {
 						fCloseRequested = true;
 						break;
 					}
-					LogEntry logEntry;
-					synchronized (fLogEntries) {
-						if (fLogEntries.isEmpty()) {
+					synchronized (fArchiveLock) {
+						if (!fArchiveRequested) {
 							try {
-								fLogEntries.wait();
+								fArchiveLock.wait();
 							} catch (InterruptedException ignore) {}
 							continue;
 						}
 
-						logEntry = fLogEntries.remove(0);
+						fArchiveRequested = false;
 					}
 
-					synchronized (fWriteLock) {
-						try {
-							fWriter.append(logEntry.toString());
-							fWriter.flush();
-						} catch (Throwable ex) {}
+					try {
+						archive();
+					} catch (Throwable ex) {}
+				}
+			}
+
+			private void archive() throws IOException {
+				List<ArchivedFile> archivedFiles = new ArrayList<>();
+				try (Stream<Path> stream = Files.list(fPath.getParent())) {
+					for (Path path : (Iterable<Path>) stream::iterator) {
+						Matcher matcher = LOG_FILENAME.matcher(path.getFileName().toString());
+						// The writer may rotate while the directory is walked, so the
+						// active file is looked up for every entry. An unnumbered log
+						// of today or later is the active one or about to become it.
+						if (!matcher.matches() || path.equals(fPath)
+								|| (matcher.group(2) == null && matcher.group(3) == null && matcher.group(1).compareTo(LocalDate.now().toString()) >= 0)) {
+							continue;
+						}
+
+						ArchivedFile archivedFile = new ArchivedFile(path, matcher);
+						if (!archivedFile.isCompressed() && fConfiguration.isCompress()) {
+							if (fCloseRequested) {
+								return;
+							}
+							archivedFile = archivedFile.compress();
+						}
+						archivedFiles.add(archivedFile);
 					}
 				}
+
+				int maxHistoryDays = fConfiguration.getMaxHistoryDays();
+				if (maxHistoryDays > 0) {
+					String cutoff = LocalDate.now().minusDays(maxHistoryDays).toString();
+					for (Iterator<ArchivedFile> i = archivedFiles.iterator(); i.hasNext();) {
+						ArchivedFile archivedFile = i.next();
+						if (archivedFile.fDateString.compareTo(cutoff) < 0) {
+							Files.deleteIfExists(archivedFile.fPath);
+							i.remove();
+						}
+					}
+				}
+
+				long maxTotalSize = fConfiguration.getMaxTotalSize();
+				if (maxTotalSize > 0) {
+					Collections.sort(archivedFiles);
+					long totalSize = 0;
+					for (ArchivedFile archivedFile : archivedFiles) {
+						totalSize += archivedFile.fSize;
+					}
+					for (ArchivedFile archivedFile : archivedFiles) {
+						if (totalSize <= maxTotalSize) {
+							break;
+						}
+						Files.deleteIfExists(archivedFile.fPath);
+						totalSize -= archivedFile.fSize;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A log file that is no longer written to. Files of the same day are
+	 * ordered by their roll index, and the unnumbered one, which was closed at
+	 * the end of the day, comes last.
+	 */
+	private static class ArchivedFile implements Comparable<ArchivedFile> {
+		private final Path fPath;
+		private final String fDateString;
+		private final int fIndex;
+		private final long fSize;
+
+		private ArchivedFile(Path path, Matcher matcher) throws IOException {
+			fPath = path;
+			fDateString = matcher.group(1);
+			fIndex = (matcher.group(2) == null) ? Integer.MAX_VALUE : Integer.parseInt(matcher.group(2));
+			fSize = Files.size(path);
+		}
+
+		private ArchivedFile(Path path, ArchivedFile source) throws IOException {
+			fPath = path;
+			fDateString = source.fDateString;
+			fIndex = source.fIndex;
+			fSize = Files.size(path);
+		}
+
+		private boolean isCompressed() {
+			return fPath.getFileName().toString().endsWith(".gz");
+		}
+
+		private ArchivedFile compress() throws IOException {
+			Path gzPath = fPath.resolveSibling(fPath.getFileName() + ".gz");
+			Path tmpPath = fPath.resolveSibling(fPath.getFileName() + ".gz.tmp");
+			try {
+				try (InputStream in = Files.newInputStream(fPath);
+						OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmpPath), 65536)) {
+					in.transferTo(out);
+				}
+				Files.move(tmpPath, gzPath, StandardCopyOption.REPLACE_EXISTING);
+			} catch (Throwable ex) {
+				Files.deleteIfExists(tmpPath);
+				throw ex;
+			}
+			Files.delete(fPath);
+			return new ArchivedFile(gzPath, this);
+		}
+
+		@Override
+		public int compareTo(ArchivedFile o) {
+			int c = fDateString.compareTo(o.fDateString);
+			if (c != 0) {
+				return c;
 			}
+			return Integer.compare(fIndex, o.fIndex);
 		}
 	}
 
@@ -42,6 +42,7 @@ public class Activator implements BundleActivator {
 	private BundleContext fBundleContext;
 	private final Closer fCloser = Closer.create();
 	private Tracker<LoggerFactory> fLoggerFactoryTracker;
+	private TextExtractor fTextExtractor;
 
 	private Tracker.Listener<Object> fTrackerListener = new Tracker.Listener<Object>() {
 		@Override
@@ -86,6 +87,7 @@ public class Activator implements BundleActivator {
 			return;
 		}
 
+		fTextExtractor = fCloser.register(new TextExtractor());
 		fCloser.add(Registration.newBuilder(SearchIndexFactory.class)
 				.setService(new SearchIndexFactoryImpl())
 				.setProperty("type", "local")
@@ -109,6 +111,10 @@ public class Activator implements BundleActivator {
 		return fBundleContext;
 	}
 
+	public TextExtractor getTextExtractor() {
+		return fTextExtractor;
+	}
+
 	public static Logger getLogger(Class<?> type) {
 		return getDefault().fLoggerFactoryTracker.getService().getLogger(type);
 	}
@@ -240,4 +246,67 @@ public class Activator implements BundleActivator {
 		return DEFAULT_PERCENTILE_EXACT_LIMIT;
 	}
 
+	/** Default wall-clock limit, in seconds, on extracting the text of one document. */
+	private static final int DEFAULT_EXTRACTION_TIMEOUT_SECONDS = 60;
+
+	/** Default largest content, in megabytes, handed to Tika. */
+	private static final long DEFAULT_MAX_EXTRACTION_SIZE_MB = 100;
+
+	/**
+	 * Returns the number of threads extracting text with Tika, configured via
+	 * {@code org.mintjams.searchindex.extractionThreads} (default half the
+	 * available processors, at least 2).
+	 */
+	public static int getExtractionThreads() {
+		String configured = getDefault().getBundleContext().getProperty("org.mintjams.searchindex.extractionThreads");
+		if (Strings.isNotEmpty(configured)) {
+			try {
+				return Math.max(Integer.parseInt(configured.trim()), 1);
+			} catch (NumberFormatException ignore) {}
+		}
+		return Math.max(Runtime.getRuntime().availableProcessors() / 2, 2);
+	}
+
+	/**
+	 * Returns how long, in <strong>milliseconds</strong>, the text of one
+	 * document may take to extract before the parse is cancelled, configured
+	 * in seconds via {@code org.mintjams.searchindex.extractionTimeout}
+	 * (default {@value #DEFAULT_EXTRACTION_TIMEOUT_SECONDS}).
+	 */
+	public static long getExtractionTimeout() {
+		String configured = getDefault().getBundleContext().getProperty("org.mintjams.searchindex.extractionTimeout");
+		if (Strings.isNotEmpty(configured)) {
+			try {
+				return Math.max(Long.parseLong(configured.trim()), 1) * 1000;
+			} catch (NumberFormatException ignore) {}
+		}
+		return DEFAULT_EXTRACTION_TIMEOUT_SECONDS * 1000L;
+	}
+
+	/**
+	 * Returns the largest content, in bytes, whose text is extracted for the
+	 * given MIME type. Configured in megabytes via
+	 * {@code org.mintjams.searchindex.maxExtractionSizeMB.<mime type>} (for
+	 * example {@code ...maxExtractionSizeMB.application/pdf}), falling back to
+	 * {@code org.mintjams.searchindex.maxExtractionSizeMB} (default
+	 * {@value #DEFAULT_MAX_EXTRACTION_SIZE_MB}). Larger content is indexed
+	 * without its text.
+	 */
+	public static long getMaxExtractionSize(String mimeType) {
+		String key = "org.mintjams.searchindex.maxExtractionSizeMB";
+		String configured = null;
+		if (Strings.isNotEmpty(mimeType)) {
+			configured = getDefault().getBundleContext().getProperty(key + "." + mimeType.toLowerCase());
+		}
+		if (Strings.isEmpty(configured)) {
+			configured = getDefault().getBundleContext().getProperty(key);
+		}
+		if (Strings.isNotEmpty(configured)) {
+			try {
+				return Math.max(Long.parseLong(configured.trim()), 1) * 1024 * 1024;
+			} catch (NumberFormatException ignore) {}
+		}
+		return DEFAULT_MAX_EXTRACTION_SIZE_MB * 1024 * 1024;
+	}
+
 }
@@ -36,6 +36,7 @@ import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyReader;
 import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyWriter;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.IndexSearcher;
 import org.mintjams.tools.adapter.Adaptable;
 import org.mintjams.tools.adapter.Adaptables;
@@ -62,6 +63,9 @@ public class DocumentReader implements Closeable, Adaptable {
 	private IndexSearcher fIndexSearcher;
 	private Analyzer fAnalyzer;
 	private final List<Retired> fRetired = new ArrayList<>();
+	private final boolean fConcurrent;
+	private final int fSliceMaxDocs;
+	private final int fSliceMaxSegments;
 
 	private static class Retired {
 		final Closeable reader;
@@ -75,6 +79,10 @@ public class DocumentReader implements Closeable, Adaptable {
 
 	public DocumentReader(SearchIndexImpl searchIndex) throws IOException {
 		fSearchIndex = searchIndex;
+		SearchIndexConfigurationImpl config = adaptTo(SearchIndexConfigurationImpl.class);
+		fConcurrent = (config.getSearchThreads() > 1);
+		fSliceMaxDocs = config.getSearchSliceMaxDocs();
+		fSliceMaxSegments = config.getSearchSliceMaxSegments();
 	}
 
 	// Refresh and access are synchronized: the unsynchronized version let one
@@ -88,7 +96,11 @@ public class DocumentReader implements Closeable, Adaptable {
 
 		DirectoryReader directoryReader = getDirectoryReader();
 		if (fIndexSearcher == null || fIndexSearcher.getIndexReader() != directoryReader) {
-			fIndexSearcher = new IndexSearcher(directoryReader);
+			if (fConcurrent) {
+				fIndexSearcher = new SlicedIndexSearcher(directoryReader);
+			} else {
+				fIndexSearcher = new IndexSearcher(directoryReader);
+			}
 		}
 		return fIndexSearcher;
 	}
@@ -101,6 +113,7 @@ public class DocumentReader implements Closeable, Adaptable {
 			if (newIndexReader != null) {
 				retire(fIndexReader);
 				fIndexReader = newIndexReader;
+				fSearchIndex.getFacetResultCache().clear();
 			}
 		}
 		closeExpiredRetired();
@@ -115,6 +128,7 @@ public class DocumentReader implements Closeable, Adaptable {
 			if (newTaxonomyReader != null) {
 				retire(fTaxonomyReader);
 				fTaxonomyReader = newTaxonomyReader;
+				fSearchIndex.getFacetResultCache().clear();
 			}
 		}
 		closeExpiredRetired();
@@ -181,6 +195,29 @@ public class DocumentReader implements Closeable, Adaptable {
 		fCloser.close();
 	}
 
+	/**
+	 * Searches the slices of the index concurrently on the search executor.
+	 * The index is mostly one large merged segment plus a tail of small
+	 * segments from recent commits, so large segments get a slice each and
+	 * the small ones are grouped, and an index below the slice size is
+	 * searched as one slice on the query's own thread. The query thread also
+	 * works through the slices that no pool thread has picked up, so a
+	 * saturated pool costs no more than a single-threaded search.
+	 *
+	 * <p>An inner class on purpose: older IndexSearcher versions compute the
+	 * slices from their constructor, before fields of a subclass are set.
+	 */
+	private class SlicedIndexSearcher extends IndexSearcher {
+		private SlicedIndexSearcher(DirectoryReader directoryReader) {
+			super(directoryReader, fSearchIndex.getSearchExecutor());
+		}
+
+		@Override
+		protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+			return slices(leaves, fSliceMaxDocs, fSliceMaxSegments);
+		}
+	}
+
 	@Override
 	public <AdapterType> AdapterType adaptTo(Class<AdapterType> adapterType) {
 		return Adaptables.getAdapter(fSearchIndex, adapterType);
@@ -54,20 +54,12 @@ import org.apache.lucene.document.TextField;
 import org.apache.lucene.facet.FacetField;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.NumericUtils;
-import org.apache.tika.Tika;
-import org.apache.tika.exception.ZeroByteFileException;
-import org.apache.tika.metadata.Metadata;
 import org.mintjams.searchindex.SearchIndex;
 import org.mintjams.tools.collections.AdaptableList;
 import org.mintjams.tools.lang.Strings;
 
 public class IndexableDocument implements SearchIndex.Document {
 
-	// A Tika instance is thread-safe and reusable; constructing one per document
-	// (as the rebuild once did, thousands of times) needlessly reloaded the
-	// parser/detector registry every time. Share a single instance instead.
-	private static final Tika TIKA = new Tika();
-
 	private String fIdentifier;
 	private String fPath;
 	private String fName;
@@ -398,12 +390,8 @@ public class IndexableDocument implements SearchIndex.Document {
 									_contentString = readBounded(reader, maxLength);
 								}
 							} else {
-								try (InputStream in = Files.newInputStream(path)) {
-									_contentString = Strings.defaultString(TIKA.parseToString(in, new Metadata(), maxLength));
-								}
+								_contentString = Activator.getDefault().getTextExtractor().extract(path, mimeType, maxLength);
 							}
-						} catch (ZeroByteFileException ex) {
-							_contentString = "";
 						} catch (Throwable ex) {
 							Activator.getLogger(getClass()).warn("An error occurred while extracting the text from the document.", ex);
 						}
@@ -417,12 +405,8 @@ public class IndexableDocument implements SearchIndex.Document {
 									_contentString = readBounded(reader, maxLength);
 								}
 							} else {
-								try (InputStream in = (InputStream) fContent) {
-									_contentString = Strings.defaultString(TIKA.parseToString(in, new Metadata(), maxLength));
-								}
+								_contentString = Activator.getDefault().getTextExtractor().extract((InputStream) fContent, mimeType, maxLength);
 							}
-						} catch (ZeroByteFileException ex) {
-							_contentString = "";
 						} catch (Throwable ex) {
 							Activator.getLogger(getClass()).warn("An error occurred while extracting the text from the document.", ex);
 						}
@@ -50,19 +50,12 @@ import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.util.BytesRef;
-import org.apache.tika.Tika;
-import org.apache.tika.exception.ZeroByteFileException;
-import org.apache.tika.metadata.Metadata;
 import org.mintjams.searchindex.SearchIndex;
 import org.mintjams.tools.collections.AdaptableList;
 import org.mintjams.tools.lang.Strings;
 
 public class IndexableSuggestion implements SearchIndex.Suggestion {
 
-	// A Tika instance is thread-safe and reusable; share a single instance
-	// instead of constructing one per suggestion during a bulk rebuild.
-	private static final Tika TIKA = new Tika();
-
 	private String fIdentifier;
 	private String fPath;
 	private String fName;
@@ -392,12 +385,8 @@ public class IndexableSuggestion implements SearchIndex.Suggestion {
 									_contentString = readBounded(reader, maxLength);
 								}
 							} else {
-								try (InputStream in = Files.newInputStream(path)) {
-									_contentString = Strings.defaultString(TIKA.parseToString(in, new Metadata(), maxLength));
-								}
+								_contentString = Activator.getDefault().getTextExtractor().extract(path, mimeType, maxLength);
 							}
-						} catch (ZeroByteFileException ex) {
-							_contentString = "";
 						} catch (Throwable ex) {
 							Activator.getLogger(getClass()).warn("An error occurred while extracting the text from the document.", ex);
 						}
@@ -411,12 +400,8 @@ public class IndexableSuggestion implements SearchIndex.Suggestion {
 									_contentString = readBounded(reader, maxLength);
 								}
 							} else {
-								try (InputStream in = (InputStream) fContent) {
-									_contentString = Strings.defaultString(TIKA.parseToString(in, new Metadata(), maxLength));
-								}
+								_contentString = Activator.getDefault().getTextExtractor().extract((InputStream) fContent, mimeType, maxLength);
 							}
-						} catch (ZeroByteFileException ex) {
-							_contentString = "";
 						} catch (Throwable ex) {
 							Activator.getLogger(getClass()).warn("An error occurred while extracting the text from the document.", ex);
 						}
@@ -55,6 +55,10 @@ public class SearchIndexConfigurationImpl implements SearchIndexConfiguration {
 
 	private static final String PROP_DATA_PATH = "dataPath";
 	private static final String PROP_CONFIG_PATH = "configPath";
+	private static final String PROP_SEARCH_THREADS = "searchThreads";
+	private static final String PROP_SEARCH_QUEUE_FACTOR = "searchQueueFactor";
+	private static final String PROP_SEARCH_SLICE_MAX_DOCS = "searchSliceMaxDocs";
+	private static final String PROP_SEARCH_SLICE_MAX_SEGMENTS = "searchSliceMaxSegments";
 
 	private final Map<String, Object> fConfig = new HashMap<>();
 
@@ -171,6 +175,57 @@ public class SearchIndexConfigurationImpl implements SearchIndexConfiguration {
 		return Path.of(v).normalize();
 	}
 
+	/**
+	 * Returns the number of threads that compute the parts of a search in
+	 * parallel ({@code searchThreads} in {@code search.yml}). Defaults to the
+	 * number of available processors.
+	 */
+	public int getSearchThreads() {
+		if (!fConfig.containsKey(PROP_SEARCH_THREADS)) {
+			return Runtime.getRuntime().availableProcessors();
+		}
+
+		return Math.max(adapt(fConfig.get(PROP_SEARCH_THREADS), Integer.class), 1);
+	}
+
+	/**
+	 * Returns how many tasks per search thread may wait for a thread
+	 * ({@code searchQueueFactor} in {@code search.yml}) before further tasks
+	 * run on the thread of the query itself.
+	 */
+	public int getSearchQueueFactor() {
+		if (!fConfig.containsKey(PROP_SEARCH_QUEUE_FACTOR)) {
+			return 8;
+		}
+
+		return Math.max(adapt(fConfig.get(PROP_SEARCH_QUEUE_FACTOR), Integer.class), 1);
+	}
+
+	/**
+	 * Returns the number of documents above which segments are searched in a
+	 * slice of their own ({@code searchSliceMaxDocs} in {@code search.yml}).
+	 * An index smaller than this is searched as a single slice.
+	 */
+	public int getSearchSliceMaxDocs() {
+		if (!fConfig.containsKey(PROP_SEARCH_SLICE_MAX_DOCS)) {
+			return 100_000;
+		}
+
+		return Math.max(adapt(fConfig.get(PROP_SEARCH_SLICE_MAX_DOCS), Integer.class), 1);
+	}
+
+	/**
+	 * Returns the number of small segments grouped into one slice
+	 * ({@code searchSliceMaxSegments} in {@code search.yml}).
+	 */
+	public int getSearchSliceMaxSegments() {
+		if (!fConfig.containsKey(PROP_SEARCH_SLICE_MAX_SEGMENTS)) {
+			return 5;
+		}
+
+		return Math.max(adapt(fConfig.get(PROP_SEARCH_SLICE_MAX_SEGMENTS), Integer.class), 1);
+	}
+
 	public Analyzer getAnalyzer(String name) throws IOException {
 		if (!fConfig.containsKey("analyzers")) {
 			return null;
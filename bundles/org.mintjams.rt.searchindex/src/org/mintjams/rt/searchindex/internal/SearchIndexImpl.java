@@ -27,11 +27,21 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.lucene.facet.FacetsConfig;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.MMapDirectory;
+import org.mintjams.rt.searchindex.internal.query.AuthorizedFilterCache;
+import org.mintjams.rt.searchindex.internal.query.FacetResultCache;
 import org.mintjams.rt.searchindex.internal.query.JcrXPathQuery;
+import org.mintjams.rt.searchindex.internal.query.QueryLatencyStatistics;
 import org.mintjams.searchindex.SearchIndex;
 import org.mintjams.searchindex.SearchIndexConfiguration;
 import org.mintjams.searchindex.query.InvalidQuerySyntaxException;
@@ -50,6 +60,10 @@ public class SearchIndexImpl implements SearchIndex, Adaptable {
 	private final SuggestionWriterImpl fSuggestionWriter;
 	private final DocumentReader fDocumentReader;
 	private final SuggestionReader fSuggestionReader;
+	private final AuthorizedFilterCache fAuthorizedFilterCache = new AuthorizedFilterCache();
+	private final FacetResultCache fFacetResultCache = new FacetResultCache();
+	private final ExecutorService fSearchExecutor;
+	private final QueryLatencyStatistics fQueryLatencyStatistics;
 	private final List<String> fMultiValuedDimensions;
 	private FieldTypeProvider fFieldTypeProvider;
 	private boolean fHasMultiValuedDimensionsChanges;
@@ -58,6 +72,26 @@ public class SearchIndexImpl implements SearchIndex, Adaptable {
 	private SearchIndexImpl(SearchIndexConfigurationImpl config) throws IOException {
 		fConfig = config;
 
+		// Bounded so that a burst of queries cannot pile up work behind the
+		// pool: once the queue is full a task runs on the thread that
+		// submitted it, which degrades to single-threaded search. After close
+		// a task is rejected instead: silently dropping it would leave the
+		// query waiting on it (invokeAll, the sliced searcher) blocked.
+		int searchThreads = fConfig.getSearchThreads();
+		fQueryLatencyStatistics = new QueryLatencyStatistics(searchThreads);
+		AtomicInteger threadNumber = new AtomicInteger();
+		fSearchExecutor = new ThreadPoolExecutor(searchThreads, searchThreads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(searchThreads * fConfig.getSearchQueueFactor()), runnable -> {
+					Thread thread = new Thread(runnable, getClass().getSimpleName() + "-search-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, (runnable, executor) -> {
+					if (executor.isShutdown()) {
+						throw new RejectedExecutionException("The search index has been closed.");
+					}
+					runnable.run();
+				});
+
 		if (Files.exists(fConfig.getMultiValuedPath())) {
 			fMultiValuedDimensions = new ArrayList<>(Files.readAllLines(fConfig.getMultiValuedPath(), StandardCharsets.UTF_8));
 		} else {
@@ -140,6 +174,28 @@ public class SearchIndexImpl implements SearchIndex, Adaptable {
 		return fSuggestionReader;
 	}
 
+	public AuthorizedFilterCache getAuthorizedFilterCache() {
+		return fAuthorizedFilterCache;
+	}
+
+	public FacetResultCache getFacetResultCache() {
+		return fFacetResultCache;
+	}
+
+	/**
+	 * Returns the pool that runs the parts of a search that can proceed in
+	 * parallel (index slices and facet computations), shared by every query
+	 * on this index. Tasks it cannot queue run on the submitting thread, and
+	 * are rejected once the index is closed.
+	 */
+	public ExecutorService getSearchExecutor() {
+		return fSearchExecutor;
+	}
+
+	public QueryLatencyStatistics getQueryLatencyStatistics() {
+		return fQueryLatencyStatistics;
+	}
+
 	public boolean setMultiValuedDimensions(String dimension, boolean multiValued) {
 		synchronized (fMultiValuedDimensions) {
 			boolean updated = false;
@@ -185,6 +241,18 @@ public class SearchIndexImpl implements SearchIndex, Adaptable {
 		}
 		fCloseRequested = true;
 		fCloser.close();
+		// Queued tasks are drained without running; cancel them so that the
+		// queries waiting on their futures fail instead of blocking.
+		for (Runnable runnable : fSearchExecutor.shutdownNow()) {
+			if (runnable instanceof Future) {
+				((Future<?>) runnable).cancel(false);
+			}
+		}
+		fAuthorizedFilterCache.clear();
+		fFacetResultCache.clear();
+		if (fQueryLatencyStatistics.getCount() > 0) {
+			Activator.getLogger(getClass()).info("Query latency (" + fQueryLatencyStatistics + "): " + fConfig.getDocumentIndexPath());
+		}
 	}
 
 	@SuppressWarnings("unchecked")
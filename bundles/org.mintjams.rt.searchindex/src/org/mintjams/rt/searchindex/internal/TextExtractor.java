@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.searchindex.internal;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.tika.Tika;
+import org.apache.tika.exception.ZeroByteFileException;
+import org.apache.tika.metadata.Metadata;
+import org.mintjams.tools.lang.Strings;
+
+/**
+ * Extracts the text of binary content with Tika for full-text indexing.
+ *
+ * <p>Parsing used to run on the indexing thread, bounded only by the length
+ * of the extracted text, so one malformed PDF or enormous spreadsheet could
+ * hold up every later journal entry for minutes or exhaust the heap. Here it
+ * runs on a small dedicated pool, each document within a wall-clock timeout
+ * after which the parse is cancelled and its stream closed, and content
+ * larger than the limit for its MIME type is not parsed at all. The timeout
+ * runs from the moment a thread starts parsing the document: time spent
+ * waiting in the queue, or for room in it, is not held against it.
+ *
+ * <p>Content that timed out, was too large or failed to parse is remembered
+ * by path, size and modification time, so replaying the journal does not
+ * parse the same blob again. The pool being busy is not remembered: only a
+ * document that could not get a thread within the time the documents queued
+ * ahead of it can take is indexed without its text.
+ */
+public class TextExtractor implements Closeable {
+
+	/** Failures remembered. The least recently seen one is forgotten first. */
+	private static final int MAX_FAILURES = 10_000;
+
+	/** Documents queued per thread of the pool. */
+	private static final int QUEUE_PER_THREAD = 4;
+
+	/** Pause before a document turned away by a full queue is submitted again. */
+	private static final long RESUBMIT_DELAY_MILLIS = 50L;
+
+	// A Tika instance is thread-safe and reusable; constructing one per document
+	// (as the rebuild once did, thousands of times) needlessly reloaded the
+	// parser/detector registry every time. Share a single instance instead.
+	private final Tika fTika = new Tika();
+	private final ThreadPoolExecutor fExecutor;
+	private final Map<String, String> fFailures = new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > MAX_FAILURES;
+		}
+	};
+	private final Map<String, Statistics> fStatistics = new ConcurrentHashMap<>();
+
+	public TextExtractor() {
+		int threads = Activator.getExtractionThreads();
+		AtomicInteger threadNumber = new AtomicInteger();
+		fExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), runnable -> {
+					Thread thread = new Thread(runnable, getClass().getSimpleName() + "-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	/**
+	 * Returns the text of the file, at most {@code maxLength} characters, or
+	 * an empty string when it cannot be extracted.
+	 */
+	public String extract(Path path, String mimeType, int maxLength) throws IOException {
+		long size = Files.size(path);
+		String key = path.toString() + ":" + size + ":" + Files.getLastModifiedTime(path).toMillis();
+		String failure;
+		synchronized (fFailures) {
+			failure = fFailures.get(key);
+		}
+		if (failure != null) {
+			getStatistics(mimeType).fSkipped.incrementAndGet();
+			Activator.getLogger(getClass()).debug("Skipped text extraction (" + failure + "): " + path);
+			return "";
+		}
+
+		long maxSize = Activator.getMaxExtractionSize(mimeType);
+		if (size > maxSize) {
+			getStatistics(mimeType).fTooLarge.incrementAndGet();
+			fail(key, mimeType, "larger than " + maxSize + " bytes");
+			return "";
+		}
+
+		try (InputStream in = Files.newInputStream(path)) {
+			return extract(in, mimeType, maxLength, maxSize, key);
+		}
+	}
+
+	/**
+	 * Returns the text of the stream, at most {@code maxLength} characters,
+	 * or an empty string when it cannot be extracted. The stream is closed.
+	 */
+	public String extract(InputStream stream, String mimeType, int maxLength) throws IOException {
+		try (InputStream in = stream) {
+			return extract(in, mimeType, maxLength, Activator.getMaxExtractionSize(mimeType), null);
+		}
+	}
+
+	private String extract(InputStream in, String mimeType, int maxLength, long maxSize, String key) throws IOException {
+		Statistics statistics = getStatistics(mimeType);
+		BoundedInputStream bounded = new BoundedInputStream(in, maxSize);
+		long timeout = Activator.getExtractionTimeout();
+		// Every document ahead of this one may take the whole timeout: the one
+		// running and those queued on each thread.
+		long queueDeadline = System.currentTimeMillis() + timeout * (QUEUE_PER_THREAD + 1);
+		AtomicLong startTime = new AtomicLong();
+		Future<String> future = null;
+		try {
+			while (future == null) {
+				try {
+					future = fExecutor.submit(() -> {
+						startTime.set(System.currentTimeMillis());
+						return Strings.defaultString(fTika.parseToString(bounded, new Metadata(), maxLength));
+					});
+				} catch (RejectedExecutionException ex) {
+					if (fExecutor.isShutdown() || System.currentTimeMillis() >= queueDeadline) {
+						statistics.fBusy.incrementAndGet();
+						Activator.getLogger(getClass()).warn("Text extraction pool is busy, the content is indexed without its text: " + mimeType);
+						return "";
+					}
+					// The queue is full; try again once a thread has taken a document from it.
+					Thread.sleep(RESUBMIT_DELAY_MILLIS);
+				}
+			}
+
+			for (;;) {
+				long started = startTime.get();
+				long wait = (started == 0) ? queueDeadline - System.currentTimeMillis() : started + timeout - System.currentTimeMillis();
+				if (wait <= 0) {
+					// Interrupt the parser and pull the stream from under it; parsers
+					// that ignore interruption fail on their next read.
+					future.cancel(true);
+					try {
+						in.close();
+					} catch (Throwable ignore) {}
+					if (started == 0) {
+						// The pool is held up by documents ahead of this one, which
+						// says nothing about this one.
+						statistics.fBusy.incrementAndGet();
+						Activator.getLogger(getClass()).warn("Text extraction did not start within " + (timeout * (QUEUE_PER_THREAD + 1))
+								+ "ms, the content is indexed without its text: " + mimeType);
+						return "";
+					}
+					statistics.fTimeouts.incrementAndGet();
+					fail(key, mimeType, "timed out after " + (System.currentTimeMillis() - started) + "ms");
+					return "";
+				}
+
+				try {
+					String text = future.get(wait, TimeUnit.MILLISECONDS);
+					statistics.add(System.currentTimeMillis() - startTime.get());
+					return text;
+				} catch (TimeoutException ignore) {
+					// Waited for the parse to start or to finish; look again.
+				}
+			}
+		} catch (InterruptedException ex) {
+			if (future != null) {
+				future.cancel(true);
+			}
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while extracting the text from the document.", ex);
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof ZeroByteFileException) {
+				return "";
+			}
+			if (bounded.isExceeded()) {
+				statistics.fTooLarge.incrementAndGet();
+				fail(key, mimeType, "larger than " + maxSize + " bytes");
+				return "";
+			}
+			statistics.fFailures.incrementAndGet();
+			if (key != null) {
+				synchronized (fFailures) {
+					fFailures.put(key, "failed");
+				}
+			}
+			Activator.getLogger(getClass()).warn("An error occurred while extracting the text from the document.", ex.getCause());
+			return "";
+		}
+	}
+
+	private void fail(String key, String mimeType, String reason) {
+		if (key != null) {
+			synchronized (fFailures) {
+				fFailures.put(key, reason);
+			}
+		}
+		Activator.getLogger(getClass()).warn("Text extraction " + reason + " (" + mimeType + ": " + getStatistics(mimeType) + ")"
+				+ ((key == null) ? "" : ": " + key));
+	}
+
+	private Statistics getStatistics(String mimeType) {
+		return fStatistics.computeIfAbsent(Strings.defaultIfEmpty(mimeType, "application/octet-stream"), k -> new Statistics());
+	}
+
+	/**
+	 * Returns the extraction statistics per MIME type.
+	 */
+	public Map<String, Statistics> getStatistics() {
+		return Collections.unmodifiableMap(new TreeMap<>(fStatistics));
+	}
+
+	@Override
+	public void close() throws IOException {
+		fExecutor.shutdownNow();
+		synchronized (fFailures) {
+			fFailures.clear();
+		}
+		Activator.getLogger(getClass()).info("Text extraction statistics: " + getStatistics());
+	}
+
+	/**
+	 * Counts the extractions of one MIME type.
+	 */
+	public static class Statistics {
+		private final AtomicLong fCount = new AtomicLong();
+		private final AtomicLong fTotalMillis = new AtomicLong();
+		private final AtomicLong fMaxMillis = new AtomicLong();
+		private final AtomicLong fTimeouts = new AtomicLong();
+		private final AtomicLong fFailures = new AtomicLong();
+		private final AtomicLong fTooLarge = new AtomicLong();
+		private final AtomicLong fSkipped = new AtomicLong();
+		private final AtomicLong fBusy = new AtomicLong();
+
+		private void add(long millis) {
+			fCount.incrementAndGet();
+			fTotalMillis.addAndGet(millis);
+			fMaxMillis.accumulateAndGet(millis, Math::max);
+		}
+
+		public long getCount() {
+			return fCount.get();
+		}
+
+		public long getTotalMillis() {
+			return fTotalMillis.get();
+		}
+
+		public long getMaxMillis() {
+			return fMaxMillis.get();
+		}
+
+		public long getTimeoutCount() {
+			return fTimeouts.get();
+		}
+
+		public long getFailureCount() {
+			return fFailures.get();
+		}
+
+		public long getTooLargeCount() {
+			return fTooLarge.get();
+		}
+
+		public long getSkippedCount() {
+			return fSkipped.get();
+		}
+
+		/**
+		 * Returns the number of documents indexed without their text because
+		 * the pool could not take them in time.
+		 */
+		public long getBusyCount() {
+			return fBusy.get();
+		}
+
+		@Override
+		public String toString() {
+			long count = getCount();
+			return "count=" + count
+					+ ", avg=" + ((count == 0) ? 0 : getTotalMillis() / count) + "ms"
+					+ ", max=" + getMaxMillis() + "ms"
+					+ ", timeouts=" + getTimeoutCount()
+					+ ", failures=" + getFailureCount()
+					+ ", tooLarge=" + getTooLargeCount()
+					+ ", skipped=" + getSkippedCount()
+					+ ", busy=" + getBusyCount();
+		}
+	}
+
+	/**
+	 * Fails the read that goes past the size limit, so content whose size is
+	 * not known up front cannot be parsed beyond it.
+	 */
+	private static class BoundedInputStream extends FilterInputStream {
+		private final long fLimit;
+		private long fCount;
+		private boolean fExceeded;
+
+		private BoundedInputStream(InputStream in, long limit) {
+			super(in);
+			fLimit = limit;
+		}
+
+		private boolean isExceeded() {
+			return fExceeded;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				count(1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				count(n);
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			if (skipped > 0) {
+				count(skipped);
+			}
+			return skipped;
+		}
+
+		private void count(long n) throws IOException {
+			fCount += n;
+			if (fCount > fLimit) {
+				fExceeded = true;
+				throw new IOException("The content is larger than " + fLimit + " bytes.");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.searchindex.internal.query;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+
+/**
+ * Caches, per index segment and per set of authorizables, the documents whose
+ * {@code _authorized} read tokens grant access to any of them.
+ *
+ * <p>Every document carries the principals its effective ACL lets read it
+ * (see {@code IndexableDocument#addAuthorized}). Matching those tokens as
+ * query terms made every search re-read the postings of each principal. The
+ * filter returned by {@link #createQuery} instead builds a bit set the first
+ * time a segment is searched for a principal set and reuses it from then on.
+ *
+ * <p>Segments never change once written, so a bit set stays valid for the
+ * life of its segment: an ACE change re-indexes the affected documents, which
+ * deletes the old ones (hidden by the segment's live docs) and writes the new
+ * ones, with their new tokens, to a new segment. Entries are dropped when
+ * their segment is closed.
+ */
+public class AuthorizedFilterCache {
+
+	static final String FIELD_NAME = "_authorized";
+
+	/**
+	 * Principal sets kept per segment. The least recently used set is
+	 * dropped when a segment exceeds it.
+	 */
+	private static final int MAX_PRINCIPAL_SETS = 256;
+
+	private final Map<IndexReader.CacheKey, Map<String, FixedBitSet>> fSegments = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns a non-scoring query matching the documents any of the given
+	 * authorizables may read, for use as a {@code FILTER} clause.
+	 */
+	public Query createQuery(String... authorizables) {
+		String[] tokens = authorizables.clone();
+		Arrays.sort(tokens);
+		return new FilterQuery(tokens);
+	}
+
+	public void clear() {
+		fSegments.clear();
+	}
+
+	private FixedBitSet getBitSet(LeafReader reader, String key, String[] tokens) throws IOException {
+		IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+		if (cacheHelper == null) {
+			return build(reader, tokens);
+		}
+
+		Map<String, FixedBitSet> bitSets = fSegments.computeIfAbsent(cacheHelper.getKey(), k -> {
+			cacheHelper.addClosedListener(fSegments::remove);
+			return new LinkedHashMap<String, FixedBitSet>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, FixedBitSet> eldest) {
+					return size() > MAX_PRINCIPAL_SETS;
+				}
+			};
+		});
+		synchronized (bitSets) {
+			FixedBitSet bitSet = bitSets.get(key);
+			if (bitSet != null) {
+				return bitSet;
+			}
+		}
+
+		// Built outside the lock; two threads racing on the same set build it
+		// twice, which is harmless.
+		FixedBitSet bitSet = build(reader, tokens);
+		synchronized (bitSets) {
+			bitSets.put(key, bitSet);
+		}
+		return bitSet;
+	}
+
+	private static FixedBitSet build(LeafReader reader, String[] tokens) throws IOException {
+		FixedBitSet bitSet = new FixedBitSet(reader.maxDoc());
+		Terms terms = reader.terms(FIELD_NAME);
+		if (terms == null) {
+			return bitSet;
+		}
+
+		TermsEnum termsEnum = terms.iterator();
+		PostingsEnum postings = null;
+		for (String token : tokens) {
+			if (termsEnum.seekExact(new BytesRef(token))) {
+				postings = termsEnum.postings(postings, PostingsEnum.NONE);
+				bitSet.or(postings);
+			}
+		}
+		return bitSet;
+	}
+
+	private class FilterQuery extends Query {
+		private final String[] fTokens;
+		private final String fKey;
+
+		private FilterQuery(String[] tokens) {
+			fTokens = tokens;
+			fKey = String.join("\n", tokens);
+		}
+
+		@Override
+		public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+			return new ConstantScoreWeight(this, boost) {
+				@Override
+				public Scorer scorer(LeafReaderContext context) throws IOException {
+					FixedBitSet bitSet = getBitSet(context.reader(), fKey, fTokens);
+					return new ConstantScoreScorer(this, score(), scoreMode,
+							new BitSetIterator(bitSet, bitSet.approximateCardinality()));
+				}
+
+				@Override
+				public boolean isCacheable(LeafReaderContext context) {
+					// Cached here, per principal set, rather than in the
+					// searcher's query cache.
+					return false;
+				}
+			};
+		}
+
+		@Override
+		public void visit(QueryVisitor visitor) {
+			visitor.visitLeaf(this);
+		}
+
+		@Override
+		public String toString(String field) {
+			return FIELD_NAME + ":{" + String.join(", ", fTokens) + "}";
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return sameClassAs(other) && fKey.equals(((FilterQuery) other).fKey);
+		}
+
+		@Override
+		public int hashCode() {
+			return classHash() ^ fKey.hashCode();
+		}
+	}
+
+}
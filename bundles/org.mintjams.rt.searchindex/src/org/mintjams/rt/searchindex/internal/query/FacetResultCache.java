@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.searchindex.internal.query;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.facet.FacetResult;
+
+/**
+ * Caches the facet results of queries against the current index generation.
+ *
+ * <p>Listing pages repeat the same faceted query between index changes, and
+ * the counting pass over every matching document dominated their latency. A
+ * key names the reader generation it was computed against as well as the
+ * query and the {@code facet accumulate} clause, so a result can never be
+ * served for another generation. {@code DocumentReader} also clears the cache
+ * whenever it swaps in a new index or taxonomy reader, which drops the
+ * entries of the old generation at once instead of leaving them to age out.
+ *
+ * <p>Hits, misses and the time spent computing the missed results are
+ * counted for {@link #toString()}, which the query logs at debug level.
+ */
+public class FacetResultCache {
+
+	/**
+	 * Results kept per generation. The least recently used entry is dropped
+	 * when the cache exceeds it.
+	 */
+	private static final int MAX_ENTRIES = 512;
+
+	private final Map<String, List<FacetResult>> fEntries = new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, List<FacetResult>> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+	private final AtomicLong fHits = new AtomicLong();
+	private final AtomicLong fMisses = new AtomicLong();
+	private final AtomicLong fComputeNanos = new AtomicLong();
+
+	/**
+	 * Builds the key of a facet computation.
+	 *
+	 * @param generation identifies the index and taxonomy readers searched
+	 * @param query the normalised ({@code toString}) form of the Lucene query,
+	 *        which includes the authorization filter
+	 * @param facets the {@code facet accumulate} clause
+	 */
+	public static String createKey(String generation, String query, String facets) {
+		return generation + "\n" + query + "\n" + facets;
+	}
+
+	/**
+	 * Returns the cached results for the key, or {@code null} (counted as a
+	 * miss) when they have to be computed.
+	 */
+	public List<FacetResult> get(String key) {
+		List<FacetResult> results;
+		synchronized (fEntries) {
+			results = fEntries.get(key);
+		}
+		if (results == null) {
+			fMisses.incrementAndGet();
+			return null;
+		}
+		fHits.incrementAndGet();
+		return results;
+	}
+
+	/**
+	 * Caches the results computed for the key, together with the time it
+	 * took to compute them.
+	 */
+	public void put(String key, List<FacetResult> results, long computeNanos) {
+		fComputeNanos.addAndGet(computeNanos);
+		synchronized (fEntries) {
+			fEntries.put(key, Collections.unmodifiableList(results));
+		}
+	}
+
+	public void clear() {
+		synchronized (fEntries) {
+			fEntries.clear();
+		}
+	}
+
+	public long getHitCount() {
+		return fHits.get();
+	}
+
+	public long getMissCount() {
+		return fMisses.get();
+	}
+
+	/**
+	 * Returns the ratio of lookups served from the cache, between 0 and 1.
+	 */
+	public double getHitRatio() {
+		long hits = fHits.get();
+		long total = hits + fMisses.get();
+		return (total == 0) ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * Returns the total time spent computing the results that were not
+	 * cached, in milliseconds.
+	 */
+	public long getComputeMillis() {
+		return fComputeNanos.get() / 1_000_000;
+	}
+
+	@Override
+	public String toString() {
+		return "hits=" + getHitCount() + ", misses=" + getMissCount()
+				+ ", hitRatio=" + Math.round(getHitRatio() * 100) + "%"
+				+ ", computeTime=" + getComputeMillis() + "ms";
+	}
+
+}
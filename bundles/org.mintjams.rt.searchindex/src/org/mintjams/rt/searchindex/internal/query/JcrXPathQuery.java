@@ -30,6 +30,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -45,12 +48,16 @@ import org.apache.lucene.facet.range.LongRangeFacetCounts;
 import org.apache.lucene.facet.range.Range;
 import org.apache.lucene.facet.taxonomy.FastTaxonomyFacetCounts;
 import org.apache.lucene.facet.taxonomy.TaxonomyReader;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexNotFoundException;
 import org.apache.lucene.queryparser.flexible.core.QueryNodeException;
 import org.apache.lucene.queryparser.flexible.standard.StandardQueryParser;
 import org.apache.lucene.queryparser.flexible.standard.config.PointsConfig;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
@@ -68,6 +75,7 @@ import org.mintjams.tools.collections.AdaptableList;
 import org.mintjams.tools.collections.AdaptableMap;
 import org.mintjams.tools.lang.Cause;
 import org.mintjams.tools.lang.Strings;
+import org.osgi.service.log.Logger;
 
 public class JcrXPathQuery extends SearchIndexQuery {
 
@@ -151,6 +159,7 @@ public class JcrXPathQuery extends SearchIndexQuery {
 	@Override
 	public SearchIndex.QueryResult execute() throws IOException {
 		long startTime = System.currentTimeMillis();
+		long startNanos = System.nanoTime();
 		SearchIndexQueryResult result = SearchIndexQueryResult.create(this);
 		try {
 			IndexSearcher documentSearcher = fSearchIndex.getDocumentReader().getIndexSearcher();
@@ -202,70 +211,25 @@ public class JcrXPathQuery extends SearchIndexQuery {
 
 			List<FacetAccumulateClause.Facet> facetList = listFacets();
 			if (!facetList.isEmpty()) {
-				FacetsCollector collector = documentSearcher.search(luceneQuery, new FacetsCollectorManager());
 				TaxonomyReader taxonomyReader = fSearchIndex.getDocumentReader().getDirectoryTaxonomyReader();
-				List<FacetStatistics.Params> statsList = new ArrayList<>();
-				Map<String, List<FacetStatistics.RangeBucket>> rangeBuckets = new HashMap<>();
-				for (FacetAccumulateClause.Facet facet : facetList) {
-					if (facet.isStats()) {
-						statsList.add(facet.getStatsParams());
-						continue;
-					}
-
-					if (!facet.isRange()) {
-						FacetAccumulateClause.TopFacetParams params = facet.getTopFacetParams();
-						Facets facets = new FastTaxonomyFacetCounts(taxonomyReader, fSearchIndex.getFacetsConfig(), collector);
-						result.addFacetResult(facets.getTopChildren(params.getLimit(), params.getFieldName()));
-						continue;
-					}
-
-					// A statistic grouped by this property buckets by these same
-					// ranges (in the double/epoch-millisecond domain its doc
-					// values decode to).
-					List<FacetStatistics.RangeBucket> statsBuckets = new ArrayList<>();
-					for (FacetAccumulateClause.RangeFacetParams params : facet.listRangeFacetParams()) {
-						statsBuckets.add(new FacetStatistics.RangeBucket(params.getLabel(),
-								((Number) params.getMinValue()).doubleValue(), params.isMinInclusive(),
-								((Number) params.getMaxValue()).doubleValue(), params.isMaxInclusive()));
-					}
-					rangeBuckets.put(facet.getFieldName(), statsBuckets);
-
-					List<Range> ranges = new ArrayList<>();
-					for (FacetAccumulateClause.RangeFacetParams params : facet.listRangeFacetParams()) {
-						if (params.getFieldType().equals(BigDecimal.class)) {
-							ranges.add(new DoubleRange(params.getLabel(),
-									((BigDecimal) params.getMinValue()).doubleValue(), params.isMinInclusive(),
-									((BigDecimal) params.getMaxValue()).doubleValue(), params.isMaxInclusive()));
-							continue;
-						}
-
-						if (params.getFieldType().equals(Long.class)) {
-							ranges.add(new LongRange(params.getLabel(),
-									((Long) params.getMinValue()).longValue(), params.isMinInclusive(),
-									((Long) params.getMaxValue()).longValue(), params.isMaxInclusive()));
-							continue;
-						}
-					}
-					if (ranges.get(0).getClass().equals(DoubleRange.class)) {
-						Facets facets = new DoubleRangeFacetCounts(facet.getFieldName(), collector, ranges.toArray(DoubleRange[]::new));
-						result.addFacetResult(facets.getAllChildren(facet.getFieldName()));
-					} else {
-						Facets facets = new LongRangeFacetCounts(facet.getFieldName(), collector, ranges.toArray(LongRange[]::new));
-						result.addFacetResult(facets.getAllChildren(facet.getFieldName()));
-					}
-				}
-
-				if (!statsList.isEmpty()) {
-					// All statistics share the facet collector's matching docs; a
-					// single pass computes every expression at once.
-					List<org.apache.lucene.facet.FacetResult> statsResults = FacetStatistics.compute(
-							statsList, collector, taxonomyReader, fSearchIndex.getFacetsConfig(),
-							Adaptables.getAdapter(fSearchIndex, SearchIndex.FieldTypeProvider.class),
-							rangeBuckets);
-					for (org.apache.lucene.facet.FacetResult statsResult : statsResults) {
-						result.addFacetResult(statsResult);
-					}
-				}
+				// The reader version and taxonomy size identify the index
+				// generation; the query string includes the authorization filter.
+				FacetResultCache facetResultCache = fSearchIndex.getFacetResultCache();
+				String facetKey = FacetResultCache.createKey(
+						((DirectoryReader) documentSearcher.getIndexReader()).getVersion() + ":" + taxonomyReader.getSize(),
+						luceneQuery.toString(), fFacetAccumulateClause.toString());
+				long facetStartTime = System.nanoTime();
+				List<org.apache.lucene.facet.FacetResult> facetResults = facetResultCache.get(facetKey);
+				boolean cached = (facetResults != null);
+				if (!cached) {
+					facetResults = computeFacets(documentSearcher, taxonomyReader, luceneQuery, facetList);
+					facetResultCache.put(facetKey, facetResults, System.nanoTime() - facetStartTime);
+				}
+				for (org.apache.lucene.facet.FacetResult facetResult : facetResults) {
+					result.addFacetResult(facetResult);
+				}
+				Activator.getLogger(getClass()).debug("Facets " + (cached ? "cached" : "computed")
+						+ " (" + ((System.nanoTime() - facetStartTime) / 1_000_000) + "ms, " + facetResultCache + "): " + fStatement);
 			}
 
 			if (hasAutoCompleteQuery()) {
@@ -300,7 +264,13 @@ public class JcrXPathQuery extends SearchIndexQuery {
 				}
 			}
 
-			Activator.getLogger(getClass()).debug("Execute jcr:xpath query (" + (System.currentTimeMillis() - startTime) + "ms): " + fStatement);
+			QueryLatencyStatistics latencies = fSearchIndex.getQueryLatencyStatistics();
+			latencies.record(System.nanoTime() - startNanos);
+			Logger logger = Activator.getLogger(getClass());
+			if (logger.isDebugEnabled()) {
+				// The percentiles sort the window; only worth it when logged.
+				logger.debug("Execute jcr:xpath query (" + (System.currentTimeMillis() - startTime) + "ms, " + latencies + "): " + fStatement);
+			}
 		} catch (IndexNotFoundException ignore) {}
 		return result;
 	}
@@ -319,15 +289,146 @@ public class JcrXPathQuery extends SearchIndexQuery {
 		}
 	}
 
-	private org.apache.lucene.search.Query getDocumentQuery() throws IOException {
+	/**
+	 * Computes the facets of the query. The matching documents are collected
+	 * once, then the taxonomy counts (one pass for every top-N facet), each
+	 * range facet and the statistics are computed in parallel on the search
+	 * executor, since they only read the collected documents.
+	 */
+	private List<org.apache.lucene.facet.FacetResult> computeFacets(IndexSearcher documentSearcher,
+			TaxonomyReader taxonomyReader, Query luceneQuery, List<FacetAccumulateClause.Facet> facetList) throws IOException {
+		FacetsCollector collector = documentSearcher.search(luceneQuery, new FacetsCollectorManager());
+		List<Callable<List<org.apache.lucene.facet.FacetResult>>> tasks = new ArrayList<>();
+		List<FacetAccumulateClause.TopFacetParams> topList = new ArrayList<>();
+		List<FacetStatistics.Params> statsList = new ArrayList<>();
+		Map<String, List<FacetStatistics.RangeBucket>> rangeBuckets = new HashMap<>();
+		for (FacetAccumulateClause.Facet facet : facetList) {
+			if (facet.isStats()) {
+				statsList.add(facet.getStatsParams());
+				continue;
+			}
+
+			if (!facet.isRange()) {
+				topList.add(facet.getTopFacetParams());
+				continue;
+			}
+
+			// A statistic grouped by this property buckets by these same
+			// ranges (in the double/epoch-millisecond domain its doc
+			// values decode to).
+			List<FacetStatistics.RangeBucket> statsBuckets = new ArrayList<>();
+			for (FacetAccumulateClause.RangeFacetParams params : facet.listRangeFacetParams()) {
+				statsBuckets.add(new FacetStatistics.RangeBucket(params.getLabel(),
+						((Number) params.getMinValue()).doubleValue(), params.isMinInclusive(),
+						((Number) params.getMaxValue()).doubleValue(), params.isMaxInclusive()));
+			}
+			rangeBuckets.put(facet.getFieldName(), statsBuckets);
+
+			List<Range> ranges = new ArrayList<>();
+			for (FacetAccumulateClause.RangeFacetParams params : facet.listRangeFacetParams()) {
+				if (params.getFieldType().equals(BigDecimal.class)) {
+					ranges.add(new DoubleRange(params.getLabel(),
+							((BigDecimal) params.getMinValue()).doubleValue(), params.isMinInclusive(),
+							((BigDecimal) params.getMaxValue()).doubleValue(), params.isMaxInclusive()));
+					continue;
+				}
+
+				if (params.getFieldType().equals(Long.class)) {
+					ranges.add(new LongRange(params.getLabel(),
+							((Long) params.getMinValue()).longValue(), params.isMinInclusive(),
+							((Long) params.getMaxValue()).longValue(), params.isMaxInclusive()));
+					continue;
+				}
+			}
+			if (ranges.get(0).getClass().equals(DoubleRange.class)) {
+				tasks.add(() -> {
+					Facets facets = new DoubleRangeFacetCounts(facet.getFieldName(), collector, ranges.toArray(DoubleRange[]::new));
+					return Collections.singletonList(facets.getAllChildren(facet.getFieldName()));
+				});
+			} else {
+				tasks.add(() -> {
+					Facets facets = new LongRangeFacetCounts(facet.getFieldName(), collector, ranges.toArray(LongRange[]::new));
+					return Collections.singletonList(facets.getAllChildren(facet.getFieldName()));
+				});
+			}
+		}
+
+		if (!topList.isEmpty()) {
+			// Taxonomy counts cover every dimension at once; counting once and
+			// reading each dimension's top children avoids a pass per facet.
+			tasks.add(() -> {
+				Facets facets = new FastTaxonomyFacetCounts(taxonomyReader, fSearchIndex.getFacetsConfig(), collector);
+				List<org.apache.lucene.facet.FacetResult> topResults = new ArrayList<>();
+				for (FacetAccumulateClause.TopFacetParams params : topList) {
+					topResults.add(facets.getTopChildren(params.getLimit(), params.getFieldName()));
+				}
+				return topResults;
+			});
+		}
+
+		if (!statsList.isEmpty()) {
+			// All statistics share the facet collector's matching docs; a
+			// single pass computes every expression at once.
+			tasks.add(() -> FacetStatistics.compute(
+					statsList, collector, taxonomyReader, fSearchIndex.getFacetsConfig(),
+					Adaptables.getAdapter(fSearchIndex, SearchIndex.FieldTypeProvider.class),
+					rangeBuckets));
+		}
+
+		List<org.apache.lucene.facet.FacetResult> facetResults = new ArrayList<>();
+		if (tasks.size() == 1) {
+			try {
+				facetResults.addAll(tasks.get(0).call());
+			} catch (IOException | RuntimeException ex) {
+				throw ex;
+			} catch (Exception ex) {
+				throw Cause.create(ex).wrap(IOException.class);
+			}
+			return facetResults;
+		}
+
 		try {
-			StandardQueryParser parser = new StandardQueryParser(fSearchIndex.getDocumentReader().getAnalyzer());
-			parser.setPointsConfigMap(getPointsConfigMap());
-			parser.setAllowLeadingWildcard(true);
-			return parser.parse(getCompiled(), "_identifier");
-		} catch (QueryNodeException ex) {
+			for (Future<List<org.apache.lucene.facet.FacetResult>> future : fSearchIndex.getSearchExecutor().invokeAll(tasks)) {
+				facetResults.addAll(future.get());
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
 			throw Cause.create(ex).wrap(IOException.class);
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof IOException) {
+				throw (IOException) ex.getCause();
+			}
+			throw Cause.create(ex.getCause()).wrap(IOException.class);
 		}
+		return facetResults;
+	}
+
+	private org.apache.lucene.search.Query getDocumentQuery() throws IOException {
+		Query luceneQuery;
+		if (Strings.isEmpty(getCompiled())) {
+			luceneQuery = new MatchAllDocsQuery();
+		} else {
+			try {
+				StandardQueryParser parser = new StandardQueryParser(fSearchIndex.getDocumentReader().getAnalyzer());
+				parser.setPointsConfigMap(getPointsConfigMap());
+				parser.setAllowLeadingWildcard(true);
+				luceneQuery = parser.parse(getCompiled(), "_identifier");
+			} catch (QueryNodeException ex) {
+				throw Cause.create(ex).wrap(IOException.class);
+			}
+		}
+
+		// Access control is applied as a cached per-segment filter rather than
+		// as query terms, so it neither costs a postings scan per search nor
+		// affects scoring.
+		String[] authorizables = getAuthorizables();
+		if (authorizables == null || authorizables.length == 0) {
+			return luceneQuery;
+		}
+		return new BooleanQuery.Builder()
+				.add(luceneQuery, BooleanClause.Occur.MUST)
+				.add(fSearchIndex.getAuthorizedFilterCache().createQuery(authorizables), BooleanClause.Occur.FILTER)
+				.build();
 	}
 
 	private String getCompiled() {
@@ -352,7 +453,6 @@ public class JcrXPathQuery extends SearchIndexQuery {
 			}
 
 			StringBuilder stmt = new StringBuilder();
-			stmt.append(getAuthorizablesStatement());
 			for (Clause e : fClauses) {
 				String q = e.compile();
 				if (e instanceof OrderByClause) {
@@ -415,8 +515,16 @@ public class JcrXPathQuery extends SearchIndexQuery {
 	}
 
 	private AutoComplete getAutoComplete(List<String> excludes) throws IOException {
+		// The suggestion index has no cached access filter, so the
+		// authorizables are matched as terms there.
 		StringBuilder stmt = new StringBuilder();
-		stmt.append(getCompiled());
+		stmt.append(getAuthorizablesStatement());
+		if (!Strings.isEmpty(getCompiled())) {
+			if (stmt.length() > 0) {
+				stmt.append(" AND ");
+			}
+			stmt.append(getCompiled());
+		}
 
 		for (String s : excludes) {
 			if (stmt.length() > 0) {
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2026 MintJams Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.mintjams.rt.searchindex.internal.query;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent queries on an index, so that their
+ * percentiles can be compared between runs with and without the search
+ * executor. {@link #toString()}, which the query logs at debug level, names
+ * the mode the index searches in along with the percentiles.
+ */
+public class QueryLatencyStatistics {
+
+	/**
+	 * Latencies kept. The oldest is overwritten once the window is full.
+	 */
+	private static final int WINDOW_SIZE = 1024;
+
+	private final String fMode;
+	private final long[] fNanos = new long[WINDOW_SIZE];
+	private int fSize;
+	private int fNext;
+	private long fCount;
+
+	/**
+	 * @param searchThreads the number of threads of the search executor; 1
+	 *        means the index is searched without it
+	 */
+	public QueryLatencyStatistics(int searchThreads) {
+		fMode = (searchThreads > 1) ? "executor(" + searchThreads + " threads)" : "single-threaded";
+	}
+
+	public synchronized void record(long nanos) {
+		fNanos[fNext] = nanos;
+		fNext = (fNext + 1) % WINDOW_SIZE;
+		if (fSize < WINDOW_SIZE) {
+			fSize++;
+		}
+		fCount++;
+	}
+
+	public synchronized long getCount() {
+		return fCount;
+	}
+
+	/**
+	 * Returns the given percentile (0 to 100) of the latencies in the window,
+	 * in milliseconds, or 0 if no query has been recorded.
+	 */
+	public double getPercentileMillis(double percentile) {
+		return getPercentile(getSortedWindow(), percentile);
+	}
+
+	private synchronized long[] getSortedWindow() {
+		long[] nanos = Arrays.copyOf(fNanos, fSize);
+		Arrays.sort(nanos);
+		return nanos;
+	}
+
+	private static double getPercentile(long[] sortedNanos, double percentile) {
+		if (sortedNanos.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(percentile / 100 * sortedNanos.length) - 1;
+		return sortedNanos[Math.max(0, Math.min(rank, sortedNanos.length - 1))] / 1_000_000d;
+	}
+
+	@Override
+	public String toString() {
+		long[] nanos = getSortedWindow();
+		return "mode=" + fMode + ", queries=" + getCount()
+				+ ", p50=" + format(getPercentile(nanos, 50))
+				+ "ms, p95=" + format(getPercentile(nanos, 95))
+				+ "ms, p99=" + format(getPercentile(nanos, 99)) + "ms";
+	}
+
+	private static String format(double millis) {
+		return String.valueOf(Math.round(millis * 10) / 10d);
+	}
+
+}
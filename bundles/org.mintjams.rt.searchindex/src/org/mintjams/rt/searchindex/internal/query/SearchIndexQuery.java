@@ -76,6 +76,10 @@ public abstract class SearchIndexQuery implements SearchIndex.Query, Adaptable {
 		return this;
 	}
 
+	protected String[] getAuthorizables() {
+		return fAuthorizables;
+	}
+
 	protected String getAuthorizablesStatement() {
 		StringBuilder stmt = new StringBuilder();
 		if (fAuthorizables != null && fAuthorizables.length > 0) {